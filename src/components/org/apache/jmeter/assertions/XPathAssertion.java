@@ -22,6 +22,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -30,6 +32,8 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractScopedAssertion;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.StringProperty;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.util.StreamingXPath;
 import org.apache.jmeter.util.TidyException;
 import org.apache.jmeter.util.XPathUtil;
 import org.apache.jorphan.logging.LoggingManager;
@@ -63,6 +67,15 @@ public class XPathAssertion extends AbstractScopedAssertion implements Serializa
 
     public static final String DEFAULT_XPATH = "/";
 
+    private static final boolean USE_STREAMING =
+            JMeterUtils.getPropDefault("xpath.streaming", false); // $NON-NLS-1$
+
+    private transient boolean useStreaming = USE_STREAMING;
+
+    private transient String streamingXPathString;
+
+    private transient StreamingXPath streamingXPath;
+
     /**
      * Returns the result of the Assertion. Checks if the result is well-formed
      * XML, and that the XPath expression is matched (or not, as the case may
@@ -77,6 +90,7 @@ public class XPathAssertion extends AbstractScopedAssertion implements Serializa
 
         byte[] responseData = null;
         Document doc = null;
+        String documentKey = null; // set when the DOM can be shared with other elements of the sample
 
         try {
             if (isScopeVariable()){
@@ -86,6 +100,8 @@ public class XPathAssertion extends AbstractScopedAssertion implements Serializa
                 } 
             } else {
                 responseData = response.getResponseData();
+                documentKey = getDocumentKey();
+                doc = (Document) response.getParsedResponse(documentKey);
             }
             
             if (responseData == null || responseData.length == 0) {
@@ -97,13 +113,27 @@ public class XPathAssertion extends AbstractScopedAssertion implements Serializa
                 log.debug(new StringBuilder("Whitespace is set to ").append(isWhitespace()).toString());
                 log.debug(new StringBuilder("Tolerant is set to ").append(isTolerant()).toString());
             }
-    
-    
-            boolean isXML = JOrphanUtils.isXML(responseData);
 
-            doc = XPathUtil.makeDocument(new ByteArrayInputStream(responseData), isValidating(),
-                    isWhitespace(), isNamespace(), isTolerant(), isQuiet(), showWarnings() , reportErrors(), isXML
-                    , isDownloadDTDs());
+            if (doc == null) {
+                StreamingXPath streaming = getStreamingXPath();
+                if (streaming != null) {
+                    // The first match decides, whether negated or not
+                    List<String> matches = new ArrayList<>(1);
+                    if (streaming.evaluate(responseData, matches, 1)) {
+                        XPathUtil.computeAssertionResult(result, !matches.isEmpty(), getXPathString(), isNegated());
+                        return result;
+                    }
+                }
+
+                boolean isXML = JOrphanUtils.isXML(responseData);
+
+                doc = XPathUtil.makeDocument(new ByteArrayInputStream(responseData), isValidating(),
+                        isWhitespace(), isNamespace(), isTolerant(), isQuiet(), showWarnings() , reportErrors(), isXML
+                        , isDownloadDTDs());
+                if (documentKey != null && doc != null) {
+                    response.setParsedResponse(documentKey, doc);
+                }
+            }
         } catch (SAXException e) {
             log.debug("Caught sax exception: " + e);
             result.setError(true);
@@ -135,6 +165,47 @@ public class XPathAssertion extends AbstractScopedAssertion implements Serializa
         return result;
     }
 
+    /**
+     * @return key of the DOM parsed from the response bytes in {@link SampleResult#getParsedResponse(String)},
+     *  which depends on the parser options
+     */
+    private String getDocumentKey() {
+        return new StringBuilder("dom-bytes:") // $NON-NLS-1$
+            .append(isValidating()).append(',')
+            .append(isWhitespace()).append(',')
+            .append(isNamespace()).append(',')
+            .append(isTolerant()).append(',')
+            .append(isQuiet()).append(',')
+            .append(showWarnings()).append(',')
+            .append(reportErrors()).append(',')
+            .append(isDownloadDTDs())
+            .toString();
+    }
+
+    /**
+     * @return the compiled streaming XPath, or null if the DOM must be used
+     */
+    private StreamingXPath getStreamingXPath() {
+        // Tidy, namespaces and validation all need the DOM
+        if (!useStreaming || isTolerant() || isNamespace() || isValidating()) {
+            return null;
+        }
+        String xpath = getXPathString();
+        if (!xpath.equals(streamingXPathString)) {
+            streamingXPath = StreamingXPath.compile(xpath);
+            streamingXPathString = xpath;
+        }
+        return streamingXPath;
+    }
+
+    /**
+     * For unit tests: choose whether supported expressions are evaluated over StAX events, by default given by xpath.streaming
+     * @param useStreaming true to try streaming evaluation before the DOM
+     */
+    void setUseStreaming(boolean useStreaming) {
+        this.useStreaming = useStreaming;
+    }
+
     /**
      * Get The XPath String that will be used in matching the document
      *
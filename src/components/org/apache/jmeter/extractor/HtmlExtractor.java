@@ -181,7 +181,8 @@ public class HtmlExtractor extends AbstractScopedTestElement implements PostProc
         if (isScopeVariable()){
             String inputString=vars.get(getVariableName());
             if(!StringUtils.isEmpty(inputString)) {
-                getExtractorImpl().extract(expression, attribute, matchNumber, inputString, result, found, "-1");
+                // variables are not tied to the sample, so their parsed content is not cached
+                getExtractorImpl().extract(expression, attribute, matchNumber, inputString, result, found, null);
             } else {
                 if(inputString==null) {
                     log.warn("No variable '"+getVariableName()+"' found to process by Css/JQuery Extractor '"+getName()+"', skipping processing");
@@ -190,12 +191,11 @@ public class HtmlExtractor extends AbstractScopedTestElement implements PostProc
             } 
         } else {
             List<SampleResult> sampleList = getSampleList(previousResult);
-            int i=0;
             for (SampleResult sr : sampleList) {
                 String inputString = sr.getResponseDataAsString();
+                // Only the main sample is cached: the sampler context holds the parsed document until the next sample
                 found = getExtractorImpl().extract(expression, attribute, matchNumber, inputString, result, found,
-                        i>0 ? null : Integer.toString(i));
-                i++;
+                        sr == previousResult ? "0" : null); // $NON-NLS-1$
                 if (matchNumber > 0 && found == matchNumber){// no need to process further
                     break;
                 }
@@ -22,6 +22,8 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.jmeter.processor.PostProcessor;
@@ -89,8 +91,20 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
 
     private static final boolean DEFAULT_VALUE_FOR_DEFAULT_EMPTY_VALUE = false;
 
+    /*
+     * Match with java.util.regex instead of ORO.
+     * The response body is then searched in place when its encoding allows it, without being decoded into a String.
+     */
+    private static final boolean USE_JAVA_REGEX =
+            JMeterUtils.getPropDefault("regex_extractor.use_java_regex", false); // $NON-NLS-1$
+
+    private transient boolean useJavaRegex = USE_JAVA_REGEX;
+
     private transient List<Object> template;
 
+    // Last compiled java.util.regex pattern, the regex may contain variables
+    private transient java.util.regex.Pattern javaPattern;
+
     /**
      * Parses the response data using regular expressions and saving the results
      * into variables for use later in the test.
@@ -121,8 +135,13 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
         String regex = getRegex();
         Pattern pattern = null;
         try {
-            pattern = JMeterUtils.getPatternCache().getPattern(regex, Perl5Compiler.READ_ONLY_MASK);
-            List<MatchResult> matches = processMatches(pattern, regex, previousResult, matchNumber, vars);
+            List<MatchResult> matches;
+            if (useJavaRegex) {
+                matches = processMatches(getJavaPattern(regex), regex, previousResult, matchNumber, vars);
+            } else {
+                pattern = JMeterUtils.getPatternCache().getPattern(regex, Perl5Compiler.READ_ONLY_MASK);
+                matches = processMatches(pattern, regex, previousResult, matchNumber, vars);
+            }
             int prevCount = 0;
             String prevString = vars.get(refName + REF_MATCH_NR);
             if (prevString != null) {
@@ -168,7 +187,7 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
             } catch (RuntimeException e) {
                 log.warn("Error while generating result");
             }
-        } catch (MalformedCachePatternException e) {
+        } catch (MalformedCachePatternException | PatternSyntaxException e) {
             log.error("Error in pattern: " + regex);
         } finally {
             JMeterUtils.clearMatcherMemory(matcher, pattern);
@@ -181,7 +200,7 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
                 : useRequestHeaders() ? result.getRequestHeaders()
                 : useCode() ? result.getResponseCode() // Bug 43451
                 : useMessage() ? result.getResponseMessage() // Bug 43451
-                : useUnescapedBody() ? StringEscapeUtils.unescapeHtml4(result.getResponseDataAsString())
+                : useUnescapedBody() ? unescapeHtml4(result.getResponseDataAsString())
                 : useBodyAsDocument() ? Document.getTextFromDocument(result.getResponseData())
                 : result.getResponseDataAsString() // Bug 36898
                 ;
@@ -191,6 +210,76 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
        return inputString;
     }
 
+    // Nothing to unescape without entities, avoids copying the body
+    private static String unescapeHtml4(String input) {
+        return input.indexOf('&') < 0 ? input : StringEscapeUtils.unescapeHtml4(input);
+    }
+
+    private CharSequence getInputCharSequence(SampleResult result) {
+        if (useBody()) {
+            return result.getResponseDataAsCharSequence(); // avoid decoding the body if possible
+        }
+        return getInputString(result);
+    }
+
+    /**
+     * For unit tests: choose the regular expression engine, by default given by regex_extractor.use_java_regex
+     * @param useJavaRegex true to use java.util.regex, false to use ORO
+     */
+    void setUseJavaRegex(boolean useJavaRegex) {
+        this.useJavaRegex = useJavaRegex;
+    }
+
+    private java.util.regex.Pattern getJavaPattern(String regex) {
+        if (javaPattern == null || !javaPattern.pattern().equals(regex)) {
+            javaPattern = java.util.regex.Pattern.compile(regex);
+        }
+        return javaPattern;
+    }
+
+    private List<MatchResult> processMatches(java.util.regex.Pattern pattern, String regex, SampleResult result,
+            int matchNumber, JMeterVariables vars) {
+        if (log.isDebugEnabled()) {
+            log.debug("Regex = " + regex);
+        }
+
+        List<MatchResult> matches = new ArrayList<>();
+        int found = 0;
+
+        if (isScopeVariable()){
+            String inputString=vars.get(getVariableName());
+            if(inputString == null) {
+                log.warn("No variable '"+getVariableName()+"' found to process by RegexExtractor '"+getName()+"', skipping processing");
+                return Collections.emptyList();
+            }
+            matchCharSequence(matchNumber, pattern, matches, found, inputString);
+        } else {
+            List<SampleResult> sampleList = getSampleList(result);
+            for (SampleResult sr : sampleList) {
+                found = matchCharSequence(matchNumber, pattern, matches, found, getInputCharSequence(sr));
+                if (matchNumber > 0 && found == matchNumber){// no need to process further
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int matchCharSequence(int matchNumber, java.util.regex.Pattern pattern, List<MatchResult> matches,
+            int found, CharSequence input) {
+        Matcher matcher = pattern.matcher(input);
+        while (matchNumber <=0 || found != matchNumber) {
+            if (matcher.find()) {
+                log.debug("RegexExtractor: Match found!");
+                matches.add(new JavaMatchResult(matcher));
+                found++;
+            } else {
+                break;
+            }
+        }
+        return found;
+    }
+
     private List<MatchResult> processMatches(Pattern pattern, String regex, SampleResult result, int matchNumber, JMeterVariables vars) {
         if (log.isDebugEnabled()) {
             log.debug("Regex = " + regex);
@@ -521,4 +610,66 @@ public class RegexExtractor extends AbstractScopedTestElement implements PostPro
     public void setUseField(String actionCommand) {
         setProperty(MATCH_AGAINST,actionCommand);
     }
+
+    /**
+     * Copy of the groups of a {@link Matcher} match, exposed as an ORO {@link MatchResult}.
+     * Unlike {@link Matcher#toMatchResult()}, only the groups are copied, not the whole input.
+     */
+    private static final class JavaMatchResult implements MatchResult {
+        private final String[] groups;
+        private final int[] starts;
+        private final int[] ends;
+
+        JavaMatchResult(Matcher matcher) {
+            int count = matcher.groupCount() + 1;
+            groups = new String[count];
+            starts = new int[count];
+            ends = new int[count];
+            for (int i = 0; i < count; i++) {
+                groups[i] = matcher.group(i);
+                starts[i] = matcher.start(i);
+                ends[i] = matcher.end(i);
+            }
+        }
+
+        @Override
+        public int length() {
+            return ends[0] - starts[0];
+        }
+
+        @Override
+        public int groups() {
+            return groups.length;
+        }
+
+        @Override
+        public String group(int group) {
+            return group < groups.length ? groups[group] : null;
+        }
+
+        @Override
+        public int begin(int group) {
+            return group < groups.length && starts[group] >= 0 ? starts[group] - starts[0] : -1;
+        }
+
+        @Override
+        public int end(int group) {
+            return group < groups.length && ends[group] >= 0 ? ends[group] - starts[0] : -1;
+        }
+
+        @Override
+        public int beginOffset(int group) {
+            return group < groups.length ? starts[group] : -1;
+        }
+
+        @Override
+        public int endOffset(int group) {
+            return group < groups.length ? ends[group] : -1;
+        }
+
+        @Override
+        public String toString() {
+            return groups[0];
+        }
+    }
 }
@@ -34,6 +34,8 @@ import org.apache.jmeter.testelement.AbstractScopedTestElement;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.util.StreamingXPath;
 import org.apache.jmeter.util.TidyException;
 import org.apache.jmeter.util.XPathUtil;
 import org.apache.jorphan.logging.LoggingManager;
@@ -90,6 +92,14 @@ public class XPathExtractor extends AbstractScopedTestElement implements
     private static final String FRAGMENT        = "XPathExtractor.fragment"; // $NON-NLS-1$
     //- JMX file attributes
 
+    private static final boolean USE_STREAMING =
+            JMeterUtils.getPropDefault("xpath.streaming", false); // $NON-NLS-1$
+
+    private transient boolean useStreaming = USE_STREAMING;
+
+    private transient String streamingQuery;
+
+    private transient StreamingXPath streamingXPath;
 
     private String concat(String s1,String s2){
         return new StringBuilder(s1).append("_").append(s2).toString(); // $NON-NLS-1$
@@ -130,8 +140,7 @@ public class XPathExtractor extends AbstractScopedTestElement implements
                 String inputString=vars.get(getVariableName());
                 if(inputString != null) {
                     if(inputString.length()>0) {
-                        Document d =  parseResponse(inputString);
-                        getValuesForXPath(d,getXPathQuery(),matches);
+                        getValuesForXPath(null,inputString,getXPathQuery(),matches);
                     }
                 } else {
                     log.warn("No variable '"+getVariableName()+"' found to process by XPathExtractor '"+getName()+"', skipping processing");
@@ -139,8 +148,7 @@ public class XPathExtractor extends AbstractScopedTestElement implements
             } else {
                 List<SampleResult> samples = getSampleList(previousResult);
                 for (SampleResult res : samples) {
-                    Document d = parseResponse(res.getResponseDataAsString());
-                    getValuesForXPath(d,getXPathQuery(),matches);
+                    getValuesForXPath(res,res.getResponseDataAsString(),getXPathQuery(),matches);
                 }
             }
             final int matchCount = matches.size();
@@ -304,18 +312,73 @@ public class XPathExtractor extends AbstractScopedTestElement implements
     }
 
     /**
-     * Extract value from Document d by XPath query.
-     * @param d the document
+     * Extract value from (X)HTML response by XPath query.
+     * Uses the DOM already parsed for the sample with the same options if there is one,
+     * then the streaming evaluator when enabled and able to handle the query
+     * and the document, otherwise parses the response into a DOM kept with the sample.
+     * @param result the sample, null when extracting from a variable
+     * @param unicodeData the response
      * @param query the query to execute
      * @param matchStrings list of matched strings (may include nulls)
      *
      * @throws TransformerException
      */
-    private void getValuesForXPath(Document d,String query, List<String> matchStrings)
-        throws TransformerException {
+    private void getValuesForXPath(SampleResult result, String unicodeData, String query, List<String> matchStrings)
+        throws IOException, ParserConfigurationException, SAXException, TidyException, TransformerException {
+        String documentKey = result != null ? getDocumentKey() : null;
+        Document d = result != null ? (Document) result.getParsedResponse(documentKey) : null;
+        if (d == null) {
+            StreamingXPath streaming = getStreamingXPath(query);
+            if (streaming != null && streaming.evaluate(unicodeData, matchStrings, 0)) {
+                return;
+            }
+            d = parseResponse(unicodeData);
+            if (result != null) {
+                result.setParsedResponse(documentKey, d);
+            }
+        }
         XPathUtil.putValuesForXPathInList(d, query, matchStrings, getFragment());
     }
 
+    /**
+     * @return key of the DOM parsed by {@link #parseResponse(String)} in {@link SampleResult#getParsedResponse(String)},
+     *  which depends on the parser options
+     */
+    private String getDocumentKey() {
+        return new StringBuilder("dom-utf8:") // $NON-NLS-1$
+            .append(useNameSpace()).append(',')
+            .append(isTolerant()).append(',')
+            .append(isQuiet()).append(',')
+            .append(showWarnings()).append(',')
+            .append(reportErrors()).append(',')
+            .append(isDownloadDTDs())
+            .toString();
+    }
+
+    /**
+     * @param query the query to execute
+     * @return the compiled streaming query, or null if the DOM must be used
+     */
+    private StreamingXPath getStreamingXPath(String query) {
+        // Tidy, namespaces and fragments all need the DOM
+        if (!useStreaming || isTolerant() || useNameSpace() || getFragment()) {
+            return null;
+        }
+        if (!query.equals(streamingQuery)) {
+            streamingXPath = StreamingXPath.compile(query);
+            streamingQuery = query;
+        }
+        return streamingXPath;
+    }
+
+    /**
+     * For unit tests: choose whether supported queries are evaluated over StAX events, by default given by xpath.streaming
+     * @param useStreaming true to try streaming evaluation before the DOM
+     */
+    void setUseStreaming(boolean useStreaming) {
+        this.useStreaming = useStreaming;
+    }
+
     public void setWhitespace(boolean selected) {
         setProperty(WHITESPACE, selected, false);
     }
@@ -18,6 +18,7 @@
 
 package org.apache.jmeter.extractor.json.jsonpath;
 
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.log.Logger;
 
@@ -46,6 +48,8 @@ public class JSONManager {
     private static final Logger log = LoggingManager.getLoggerForClass();
     private static final Configuration DEFAULT_CONFIGURATION =
             Configuration.defaultConfiguration().addOptions(Option.ALWAYS_RETURN_LIST);
+    /** Key of the parsed JSON response in {@link SampleResult#getParsedResponse(String)} */
+    private static final String PARSED_RESPONSE_KEY = "json"; // $NON-NLS-1$
     /**
      * This Map can hardly grow above 10 elements as it is used within JSONPostProcessor to 
      * store the computed JsonPath for the set of JSON Path Expressions.
@@ -63,8 +67,24 @@ public class JSONManager {
         return jsonPath;
     }
     
+    /**
+     * Same as expressionToJsonPath for streaming evaluation,
+     * null values record expressions that cannot be streamed
+     */
+    private Map<String, StreamingJsonPath> expressionToStreamingJsonPath = new HashMap<>(2);
+
+    private StreamingJsonPath getStreamingJsonPath(String jsonPathExpression) {
+        StreamingJsonPath jsonPath = expressionToStreamingJsonPath.get(jsonPathExpression);
+        if (jsonPath == null && !expressionToStreamingJsonPath.containsKey(jsonPathExpression)) {
+            jsonPath = StreamingJsonPath.compile(jsonPathExpression);
+            expressionToStreamingJsonPath.put(jsonPathExpression, jsonPath);
+        }
+        return jsonPath;
+    }
+
     public void reset() {
         expressionToJsonPath.clear();
+        expressionToStreamingJsonPath.clear();
     }
 
     /**
@@ -76,15 +96,27 @@ public class JSONManager {
      */
     public List<Object> extractWithJsonPath(String jsonString, String jsonPath)
             throws ParseException {
+        return extractWithJsonPath(parse(jsonString), jsonPath);
+    }
+
+    /**
+     * 
+     * @param jsonDocument JSON document from which data is extracted, as returned by {@link #parse(String)}
+     * @param jsonPath JSON-PATH expression
+     * @return List of JSON Strings of the extracted data
+     * @throws ParseException
+     */
+    public List<Object> extractWithJsonPath(Object jsonDocument, String jsonPath)
+            throws ParseException {
         JsonPath jsonPathParser = getJsonPath(jsonPath);
         List<Object> extractedObjects;
         try {
-            extractedObjects = jsonPathParser.read(jsonString,
+            extractedObjects = jsonPathParser.read(jsonDocument,
                     DEFAULT_CONFIGURATION);
         } catch (PathNotFoundException e) {
             if (log.isDebugEnabled()) {
                 log.debug("Could not find JSON Path " + jsonPath + " in ["
-                        + jsonString + "]: " + e.getLocalizedMessage());
+                        + jsonDocument + "]: " + e.getLocalizedMessage());
             }
             return Collections.emptyList();
         }
@@ -95,8 +127,63 @@ public class JSONManager {
         return results;
     }
 
+    /**
+     * Extracts from the response bytes of a sample without building a tree for the whole response.
+     * Only simple expressions like <code>$.items[*].id</code> are supported, the matches are
+     * parsed when they are read from the returned list.
+     * @param result the sample
+     * @param jsonPath JSON-PATH expression
+     * @return List of JSON Strings of the extracted data, or null if the expression or the response
+     *         is not supported, or the response has already been parsed:
+     *         use {@link #extractWithJsonPath(Object, String)} then
+     */
+    public List<Object> extractStreaming(SampleResult result, String jsonPath) {
+        if (result.getParsedResponse(PARSED_RESPONSE_KEY) != null) {
+            return null; // evaluating on the tree is cheaper
+        }
+        StreamingJsonPath streamingJsonPath = getStreamingJsonPath(jsonPath);
+        if (streamingJsonPath == null) {
+            return null;
+        }
+        Charset charset;
+        try {
+            charset = Charset.forName(result.getDataEncodingWithDefault());
+        } catch (IllegalArgumentException e) { // unknown charset, reported by the tree path
+            return null;
+        }
+        if (!StreamingJsonPath.isScannable(charset)) {
+            return null;
+        }
+        return streamingJsonPath.evaluate(result.getResponseData(), charset);
+    }
+
+    /**
+     * Parses a JSON String, so that several expressions can be evaluated without parsing it again
+     * @param jsonString JSON String
+     * @return parsed JSON document
+     */
+    public static Object parse(String jsonString) {
+        return DEFAULT_CONFIGURATION.jsonProvider().parse(jsonString);
+    }
+
+    /**
+     * Parses the response of a sample as JSON, at most once per sample:
+     * the document is shared by all the elements that extract from the same sample
+     * @param result the sample
+     * @param jsonString the response of the sample as a String
+     * @return parsed JSON document
+     */
+    public static Object parse(SampleResult result, String jsonString) {
+        Object document = result.getParsedResponse(PARSED_RESPONSE_KEY);
+        if (document == null) {
+            document = parse(jsonString);
+            result.setParsedResponse(PARSED_RESPONSE_KEY, document);
+        }
+        return document;
+    }
+
     @SuppressWarnings("unchecked")
-    private String stringifyJSONObject(Object obj) {
+    static String stringifyJSONObject(Object obj) {
         if (obj instanceof Map) {
             return new JSONObject((Map<String, ?>) obj).toJSONString();
         }
@@ -53,6 +53,11 @@ public class JSONPostProcessor extends AbstractScopedTestElement implements Seri
     private static final String JSON_CONCATENATION_SEPARATOR = ","; //$NON-NLS-1$
     private static final String SEPARATOR = ";"; // $NON-NLS-1$
     public static final boolean COMPUTE_CONCATENATION_DEFAULT_VALUE = false;
+
+    private static final boolean USE_STREAMING =
+            JMeterUtils.getPropDefault("jsonpath.streaming", false); // $NON-NLS-1$
+
+    private transient boolean useStreaming = USE_STREAMING;
     
     private static final ThreadLocal<JSONManager> localMatcher = new ThreadLocal<JSONManager>() {
         @Override
@@ -65,22 +70,29 @@ public class JSONPostProcessor extends AbstractScopedTestElement implements Seri
     public void process() {
         JMeterContext context = getThreadContext();
         JMeterVariables vars = context.getVariables();
-        String jsonResponse;
+        String jsonResponse = null;
+        SampleResult previousResult = null;
         if (isScopeVariable()) {
             jsonResponse = vars.get(getVariableName());
             if (log.isDebugEnabled()) {
                 log.debug("JSON Extractor is using variable:" + getVariableName() + " which content is:" + jsonResponse);
             }
         } else {
-            SampleResult previousResult = context.getPreviousResult();
+            previousResult = context.getPreviousResult();
             if (previousResult == null) {
                 return;
             }
-            jsonResponse = previousResult.getResponseDataAsString();
+            if (!useStreaming) {
+                jsonResponse = previousResult.getResponseDataAsString();
+            }
             if (log.isDebugEnabled()) {
-                log.debug("JSON Extractor " + getName() + " working on Response:" + jsonResponse);
+                // not the response itself, which would be decoded when streaming
+                log.debug("JSON Extractor " + getName() + " working on Response of "
+                        + previousResult.getResponseData().length + " bytes");
             }
         }
+        // the response is only decoded if an expression cannot be streamed
+        boolean streaming = jsonResponse == null && previousResult != null;
         String[] refNames = getRefNames().split(SEPARATOR);
         String[] jsonPathExpressions = getJsonPathExpressions().split(SEPARATOR);
         String[] defaultValues = getDefaultValues().split(SEPARATOR);
@@ -95,17 +107,32 @@ public class JSONPostProcessor extends AbstractScopedTestElement implements Seri
                     .getResString("jsonpp_error_number_arguments_mismatch_error")); // $NON-NLS-1$
         }
 
+        Object jsonDocument = null; // parsed once for all expressions
         for (int i = 0; i < jsonPathExpressions.length; i++) {
             int matchNumber = matchNumbers[i];
             String currentRefName = refNames[i].trim();
             String currentJsonPath = jsonPathExpressions[i].trim();
             try {
-                if (jsonResponse.isEmpty()) {
+                if (streaming ? previousResult.getResponseData().length == 0 : jsonResponse.isEmpty()) {
                     vars.put(currentRefName, defaultValues[i]);
                 } else {
-
-                    List<Object> extractedValues = localMatcher.get()
-                            .extractWithJsonPath(jsonResponse, currentJsonPath);
+                    List<Object> extractedValues = null;
+                    if (streaming) {
+                        extractedValues = localMatcher.get()
+                                .extractStreaming(previousResult, currentJsonPath);
+                    }
+                    if (extractedValues == null) {
+                        if (jsonDocument == null) {
+                            if (jsonResponse == null) {
+                                jsonResponse = previousResult.getResponseDataAsString();
+                            }
+                            jsonDocument = previousResult != null
+                                    ? JSONManager.parse(previousResult, jsonResponse)
+                                    : JSONManager.parse(jsonResponse);
+                        }
+                        extractedValues = localMatcher.get()
+                                .extractWithJsonPath(jsonDocument, currentJsonPath);
+                    }
                     // if no values extracted, default value added
                     if (extractedValues.isEmpty()) {
                         vars.put(currentRefName, defaultValues[i]);
@@ -192,6 +219,14 @@ public class JSONPostProcessor extends AbstractScopedTestElement implements Seri
         return obj == null ? "" : obj.toString(); //$NON-NLS-1$
     }
 
+    /**
+     * For unit tests: choose whether simple expressions are evaluated on the response bytes, by default given by jsonpath.streaming
+     * @param useStreaming true to try streaming evaluation before parsing the response
+     */
+    void setUseStreaming(boolean useStreaming) {
+        this.useStreaming = useStreaming;
+    }
+
     public String getJsonPathExpressions() {
         return getPropertyAsString(JSON_PATH_EXPRESSIONS);
     }
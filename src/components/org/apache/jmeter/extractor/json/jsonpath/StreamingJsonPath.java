@@ -0,0 +1,576 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor.json.jsonpath;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+/**
+ * Evaluates simple JSON-PATH expressions by scanning the bytes of a JSON
+ * document, without building a tree for it.
+ * <p>
+ * Supported expressions start with <code>$</code>, followed by property
+ * steps (<code>.name</code> or <code>['name']</code>), array index steps
+ * (<code>[2]</code>) and array wildcards (<code>[*]</code> or
+ * <code>.*</code>), e.g. <code>$.items[*].id</code>.
+ * {@link #compile(String)} returns null for anything else.
+ * <p>
+ * Only the byte ranges of the matches are recorded while scanning. A match
+ * is parsed with the same parser as {@link JSONManager}, when it is first
+ * read from the returned list, so that the values are the same as those
+ * extracted from the tree. Documents that are not strict JSON, or where the
+ * tree would give a different result (wildcards over objects, properties of
+ * arrays, duplicate keys), are left to the tree.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+final class StreamingJsonPath {
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final int PROPERTY = 0;
+    private static final int INDEX = 1;
+    private static final int WILDCARD = 2;
+
+    /** Bytes that must have their ASCII value in the charset of a scanned document */
+    private static final String SYNTAX = "{}[]\",:\\ \t\r\n-+.0123456789abcdefnrtuABCDEF"; // $NON-NLS-1$
+
+    /** Thrown when the document must be evaluated on a tree */
+    private static final class UnsupportedContentException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedContentException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private final String expression;
+
+    private final int[] kinds;
+
+    private final String[] names;
+
+    /** names as bytes, null if not ASCII */
+    private final byte[][] asciiNames;
+
+    private final int[] indexes;
+
+    private StreamingJsonPath(String expression, List<Object> steps) {
+        this.expression = expression;
+        int size = steps.size();
+        kinds = new int[size];
+        names = new String[size];
+        asciiNames = new byte[size][];
+        indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            Object step = steps.get(i);
+            if (step instanceof String) {
+                kinds[i] = PROPERTY;
+                names[i] = (String) step;
+                if (isAscii(names[i])) {
+                    asciiNames[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+                }
+            } else if (step == null) {
+                kinds[i] = WILDCARD;
+            } else {
+                kinds[i] = INDEX;
+                indexes[i] = ((Integer) step).intValue();
+            }
+        }
+    }
+
+    /**
+     * Compiles a JSON-PATH expression for streaming evaluation.
+     *
+     * @param jsonPath the expression
+     * @return the compiled expression, or null if it is outside the supported subset
+     */
+    static StreamingJsonPath compile(String jsonPath) {
+        if (!jsonPath.startsWith("$")) { // $NON-NLS-1$
+            return null;
+        }
+        // property names, Integer indexes, null for wildcards
+        List<Object> steps = new ArrayList<>();
+        int pos = 1;
+        int length = jsonPath.length();
+        while (pos < length) {
+            char c = jsonPath.charAt(pos);
+            if (c == '.') {
+                pos++;
+                if (pos < length && jsonPath.charAt(pos) == '*') {
+                    steps.add(null);
+                    pos++;
+                    continue;
+                }
+                int start = pos;
+                while (pos < length && isNameChar(jsonPath.charAt(pos))) {
+                    pos++;
+                }
+                if (pos == start) {
+                    return null; // deep scan or invalid
+                }
+                steps.add(jsonPath.substring(start, pos));
+            } else if (c == '[') {
+                int close = jsonPath.indexOf(']', pos);
+                if (close < 0) {
+                    return null;
+                }
+                String inner = jsonPath.substring(pos + 1, close);
+                pos = close + 1;
+                if ("*".equals(inner)) { // $NON-NLS-1$
+                    steps.add(null);
+                } else if (inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)) {
+                    String name = inner.substring(1, inner.length() - 1);
+                    if (name.indexOf('\'') >= 0 || name.indexOf('"') >= 0 || name.indexOf('\\') >= 0) {
+                        return null; // several properties or escapes
+                    }
+                    steps.add(name);
+                } else if (inner.length() > 0 && inner.length() < 10 && isDigits(inner)) {
+                    steps.add(Integer.valueOf(inner));
+                } else {
+                    return null; // filters, slices, unions, negative indexes...
+                }
+            } else {
+                return null;
+            }
+        }
+        return new StreamingJsonPath(jsonPath, steps);
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '$';
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param charset the charset of a document
+     * @return true if JSON syntax can be scanned byte by byte in that charset
+     */
+    static boolean isScannable(Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return true;
+        }
+        // Other multi-byte charsets may use ASCII values inside characters
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1
+                && Arrays.equals(SYNTAX.getBytes(charset), SYNTAX.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the expression this was compiled from
+     */
+    String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Scans a JSON document for the matches of the expression.
+     *
+     * @param data the document
+     * @param charset its charset, see {@link #isScannable(Charset)}
+     * @return the matches, each parsed and converted to a String when read, or null
+     *         if the document must be evaluated on a tree
+     */
+    List<Object> evaluate(byte[] data, Charset charset) {
+        Scan scan = new Scan(data, charset);
+        try {
+            scan.skipWhitespace();
+            if (data[scan.pos] == 'n') {
+                throw new UnsupportedContentException("null document"); // rejected by the tree
+            }
+            scan.value(0);
+            scan.skipWhitespace();
+            if (scan.pos != data.length) {
+                throw new UnsupportedContentException("content after the document");
+            }
+        } catch (UnsupportedContentException | ArrayIndexOutOfBoundsException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Falling back to a tree for " + expression + ": " + e.getMessage());
+            }
+            return null;
+        }
+        return new Matches(data, charset, scan.ranges, scan.count);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Matches as a list, parsing each one when it is read
+     */
+    private static final class Matches extends AbstractList<Object> {
+        private final byte[] data;
+
+        private final Charset charset;
+
+        private final int[] ranges;
+
+        private final int size;
+
+        private final String[] values;
+
+        Matches(byte[] data, Charset charset, int[] ranges, int size) {
+            this.data = data;
+            this.charset = charset;
+            this.ranges = ranges;
+            this.size = size;
+            this.values = new String[size];
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            String value = values[index];
+            if (value == null) {
+                int start = ranges[2 * index];
+                String json = new String(data, start, ranges[2 * index + 1] - start, charset);
+                value = JSONManager.stringifyJSONObject(JSONManager.parse(json));
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * State of one scan. Values on the path of the expression are visited
+     * recursively, at most one level per step; other values are skipped
+     * iteratively, checking that they are strict JSON.
+     */
+    private final class Scan {
+        private final byte[] data;
+
+        private final Charset charset;
+
+        private int pos;
+
+        /** start and end offsets of the matches */
+        private int[] ranges = new int[16];
+
+        private int count;
+
+        /** kinds of the containers opened while skipping a value */
+        private byte[] containers = new byte[16];
+
+        /** Whether the last string scanned had neither escapes nor non ASCII bytes */
+        private boolean plainString;
+
+        Scan(byte[] data, Charset charset) {
+            this.data = data;
+            this.charset = charset;
+        }
+
+        void value(int step) throws UnsupportedContentException {
+            skipWhitespace();
+            int start = pos;
+            if (step == kinds.length) {
+                skipValue();
+                addMatch(start, pos);
+            } else if (data[pos] == '{') {
+                object(step);
+            } else if (data[pos] == '[') {
+                array(step);
+            } else {
+                skipValue(); // a step cannot apply to a scalar
+            }
+        }
+
+        private void object(int step) throws UnsupportedContentException {
+            if (kinds[step] == WILDCARD) {
+                // the tree gives the values of an object in hash order
+                throw new UnsupportedContentException("wildcard on an object");
+            }
+            pos++;
+            skipWhitespace();
+            if (data[pos] == '}') {
+                pos++;
+                return;
+            }
+            boolean found = false;
+            while (true) {
+                skipWhitespace();
+                int keyStart = pos;
+                string();
+                int keyEnd = pos;
+                skipWhitespace();
+                expect(':');
+                if (kinds[step] == PROPERTY && keyEquals(keyStart, keyEnd, step)) {
+                    if (found) {
+                        throw new UnsupportedContentException("duplicate key " + names[step]);
+                    }
+                    found = true;
+                    value(step + 1);
+                } else {
+                    skipValue();
+                }
+                skipWhitespace();
+                if (data[pos] == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return;
+                }
+            }
+        }
+
+        private void array(int step) throws UnsupportedContentException {
+            if (kinds[step] == PROPERTY) {
+                throw new UnsupportedContentException("property of an array");
+            }
+            pos++;
+            skipWhitespace();
+            if (data[pos] == ']') {
+                pos++;
+                return;
+            }
+            for (int index = 0; ; index++) {
+                if (kinds[step] == WILDCARD || indexes[step] == index) {
+                    value(step + 1);
+                } else {
+                    skipValue();
+                }
+                skipWhitespace();
+                if (data[pos] == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return;
+                }
+            }
+        }
+
+        private boolean keyEquals(int start, int end, int step) {
+            if (plainString) {
+                byte[] name = asciiNames[step];
+                if (name == null || name.length != end - start - 2) {
+                    return false;
+                }
+                for (int i = 0; i < name.length; i++) {
+                    if (data[start + 1 + i] != name[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            Object key = JSONManager.parse(new String(data, start, end - start, charset));
+            return names[step].equals(key);
+        }
+
+        private void addMatch(int start, int end) {
+            if (2 * count == ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[2 * count] = start;
+            ranges[2 * count + 1] = end;
+            count++;
+        }
+
+        /**
+         * Skips a value and checks that it is strict JSON
+         */
+        private void skipValue() throws UnsupportedContentException {
+            int depth = 0;
+            while (true) {
+                skipWhitespace();
+                byte c = data[pos];
+                if (c == '{' || c == '[') {
+                    pos++;
+                    skipWhitespace();
+                    if (data[pos] == (c == '{' ? '}' : ']')) {
+                        pos++;
+                    } else {
+                        if (depth == containers.length) {
+                            containers = Arrays.copyOf(containers, depth * 2);
+                        }
+                        containers[depth++] = c;
+                        if (c == '{') {
+                            key();
+                        }
+                        continue;
+                    }
+                } else {
+                    scalar(c);
+                }
+                // end of a value: close containers until another value is expected
+                while (true) {
+                    if (depth == 0) {
+                        return;
+                    }
+                    skipWhitespace();
+                    byte container = containers[depth - 1];
+                    if (data[pos] == ',') {
+                        pos++;
+                        if (container == '{') {
+                            key();
+                        }
+                        break;
+                    }
+                    expect(container == '{' ? '}' : ']');
+                    depth--;
+                }
+            }
+        }
+
+        private void key() throws UnsupportedContentException {
+            skipWhitespace();
+            string();
+            skipWhitespace();
+            expect(':');
+        }
+
+        private void scalar(byte c) throws UnsupportedContentException {
+            switch (c) {
+                case '"':
+                    string();
+                    break;
+                case 't':
+                    literal("true"); // $NON-NLS-1$
+                    break;
+                case 'f':
+                    literal("false"); // $NON-NLS-1$
+                    break;
+                case 'n':
+                    literal("null"); // $NON-NLS-1$
+                    break;
+                default:
+                    number();
+                    break;
+            }
+        }
+
+        private void string() throws UnsupportedContentException {
+            expect('"');
+            plainString = true;
+            while (true) {
+                byte b = data[pos++];
+                if (b == '"') {
+                    return;
+                }
+                if (b == '\\') {
+                    plainString = false;
+                    byte escaped = data[pos++];
+                    if (escaped == 'u') {
+                        for (int i = 0; i < 4; i++) {
+                            if (Character.digit(data[pos++], 16) < 0) {
+                                throw new UnsupportedContentException("invalid unicode escape");
+                            }
+                        }
+                    } else if ("\"\\/bfnrt".indexOf(escaped) < 0) { // $NON-NLS-1$
+                        throw new UnsupportedContentException("invalid escape");
+                    }
+                } else if (b < 0) {
+                    plainString = false; // not ASCII
+                } else if (b < 0x20) {
+                    throw new UnsupportedContentException("control character in string");
+                }
+            }
+        }
+
+        private void literal(String literal) throws UnsupportedContentException {
+            for (int i = 0; i < literal.length(); i++) {
+                expect(literal.charAt(i));
+            }
+        }
+
+        private void number() throws UnsupportedContentException {
+            if (data[pos] == '-') {
+                pos++;
+            }
+            if (data[pos] == '0') {
+                pos++;
+            } else {
+                digits();
+            }
+            if (pos < data.length && data[pos] == '.') {
+                pos++;
+                digits();
+            }
+            if (pos < data.length && (data[pos] == 'e' || data[pos] == 'E')) {
+                pos++;
+                if (data[pos] == '+' || data[pos] == '-') {
+                    pos++;
+                }
+                digits();
+            }
+        }
+
+        private void digits() throws UnsupportedContentException {
+            int start = pos;
+            while (pos < data.length && data[pos] >= '0' && data[pos] <= '9') {
+                pos++;
+            }
+            if (pos == start) {
+                throw new UnsupportedContentException("invalid number");
+            }
+        }
+
+        private void expect(char c) throws UnsupportedContentException {
+            if (data[pos] != c) {
+                throw new UnsupportedContentException("expected " + c + " at " + pos);
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < data.length) {
+                byte b = data[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+    }
+}
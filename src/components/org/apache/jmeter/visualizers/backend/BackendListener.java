@@ -22,23 +22,21 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleMetrics;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.TestElementProperty;
+import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jmeter.visualizers.backend.graphite.GraphiteBackendListenerClient;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.log.Logger;
@@ -55,9 +53,8 @@ public class BackendListener extends AbstractTestElement
      */
     private static final class ListenerClientData {
         private BackendListenerClient client;
-        private BlockingQueue<SampleResult> queue;
-        private AtomicLong queueWaits; // how many times we had to wait to queue a SampleResult        
-        private AtomicLong queueWaitTime; // how long we had to wait (nanoSeconds)
+        // SampleResults, or SampleMetrics for a MetricsBackendListenerClient
+        private RingBuffer<Object> queue; // also counts how many times and how long we had to wait to queue a SampleResult
         // @GuardedBy("LOCK")
         private int instanceCount; // number of active tests
         private CountDownLatch latch;
@@ -98,6 +95,10 @@ public class BackendListener extends AbstractTestElement
 
     public static final String DEFAULT_QUEUE_SIZE = "5000";
 
+    /** How the worker waits for samples, and sampling threads for room in a full queue: sleep, yield or spin */
+    private static final RingBuffer.WaitStrategy WAIT_STRATEGY =
+            RingBuffer.WaitStrategy.fromName(JMeterUtils.getPropDefault("backend_wait_strategy", "sleep")); // $NON-NLS-1$
+
     // Create unique object as marker for end of queue
     private transient static final SampleResult FINAL_SAMPLE_RESULT = new SampleResult();
 
@@ -168,10 +169,14 @@ public class BackendListener extends AbstractTestElement
      */
     @Override
     public void sampleOccurred(SampleEvent event) {
-        Arguments args = getArguments();
-        BackendListenerContext context = new BackendListenerContext(args);
-
-        SampleResult sr = listenerClientData.client.createSampleResult(context, event.getResult());
+        Object sr;
+        if (listenerClientData.client instanceof MetricsBackendListenerClient) {
+            sr = event.getMetrics(); // does not keep the result
+        } else {
+            Arguments args = getArguments();
+            BackendListenerContext context = new BackendListenerContext(args);
+            sr = listenerClientData.client.createSampleResult(context, event.getResult());
+        }
         if(sr == null) {
             if(LOGGER.isDebugEnabled()) {
                 LOGGER.debug(getName()+"=>Dropping SampleResult:"+event.getResult());
@@ -179,13 +184,7 @@ public class BackendListener extends AbstractTestElement
             return;
         }
         try {
-            if (!listenerClientData.queue.offer(sr)){ // we failed to add the element first time
-                listenerClientData.queueWaits.incrementAndGet();
-                long t1 = System.nanoTime();
-                listenerClientData.queue.put(sr);
-                long t2 = System.nanoTime();
-                listenerClientData.queueWaitTime.addAndGet(t2-t1);
-            }
+            listenerClientData.queue.put(sr); // counts the waits if the queue is full
         } catch (Exception err) {
             LOGGER.error("sampleOccurred, failed to queue the sample", err);
         }
@@ -210,7 +209,8 @@ public class BackendListener extends AbstractTestElement
         @Override
         public void run() {
             boolean isDebugEnabled = LOGGER.isDebugEnabled();
-            List<SampleResult> sampleResults = new ArrayList<>(listenerClientData.queue.size());
+            final int maxBatchSize = listenerClientData.queue.capacity();
+            List<Object> sampleResults = new ArrayList<>();
             try {
                 try {
 
@@ -219,11 +219,14 @@ public class BackendListener extends AbstractTestElement
                         if(isDebugEnabled) {
                             LOGGER.debug("Thread:"+Thread.currentThread().getName()+" taking SampleResult from queue:"+listenerClientData.queue.size());
                         }
-                        SampleResult sampleResult = listenerClientData.queue.take();
+                        Object sampleResult = listenerClientData.queue.take();
                         if(isDebugEnabled) {
                             LOGGER.debug("Thread:"+Thread.currentThread().getName()+" took SampleResult:"+sampleResult+", isFinal:" + (sampleResult==FINAL_SAMPLE_RESULT));
                         }
                         while (!(endOfLoop = (sampleResult == FINAL_SAMPLE_RESULT)) && sampleResult != null ) { // try to process as many as possible
+                            if (sampleResults.size() >= maxBatchSize) {
+                                sendToListener(backendListenerClient, context, sampleResults);
+                            }
                             sampleResults.add(sampleResult);
                             if(isDebugEnabled) {
                                 LOGGER.debug("Thread:"+Thread.currentThread().getName()+" polling from queue:"+listenerClientData.queue.size());
@@ -239,9 +242,6 @@ public class BackendListener extends AbstractTestElement
                                     +", null:" + (sampleResult==null));
                         }
                         sendToListener(backendListenerClient, context, sampleResults);
-                        if(!endOfLoop) {
-                            LockSupport.parkNanos(100);
-                        }
                     }
                 } catch (InterruptedException e) {
                     // NOOP
@@ -259,14 +259,20 @@ public class BackendListener extends AbstractTestElement
      * Send sampleResults to {@link BackendListenerClient}
      * @param backendListenerClient {@link BackendListenerClient}
      * @param context {@link BackendListenerContext}
-     * @param sampleResults List of {@link SampleResult}
+     * @param sampleResults List of {@link SampleResult}, or of {@link SampleMetrics} for a {@link MetricsBackendListenerClient}
      */
+    @SuppressWarnings("unchecked")
     static void sendToListener(
             final BackendListenerClient backendListenerClient,
             final BackendListenerContext context,
-            final List<SampleResult> sampleResults) {
+            final List<?> sampleResults) {
         if (sampleResults.size() > 0) {
-            backendListenerClient.handleSampleResults(sampleResults, context);
+            if (backendListenerClient instanceof MetricsBackendListenerClient) {
+                ((MetricsBackendListenerClient) backendListenerClient).handleSampleMetrics(
+                        (List<SampleMetrics>) sampleResults, context);
+            } else {
+                backendListenerClient.handleSampleResults((List<SampleResult>) sampleResults, context);
+            }
             sampleResults.clear();
         }
     }
@@ -325,12 +331,11 @@ public class BackendListener extends AbstractTestElement
                 BackendListenerContext context = new BackendListenerContext((Arguments)getArguments().clone());
 
                 listenerClientData = new ListenerClientData();
-                listenerClientData.queue = new ArrayBlockingQueue<>(queueSize);
-                listenerClientData.queueWaits = new AtomicLong(0L);
-                listenerClientData.queueWaitTime = new AtomicLong(0L);
+                listenerClientData.queue = new RingBuffer<>(queueSize, WAIT_STRATEGY);
                 listenerClientData.latch = new CountDownLatch(1);
                 listenerClientData.client = backendListenerClient;
-                LOGGER.info(getName()+":Starting worker with class:"+clientClass +" and queue capacity:"+getQueueSize());
+                LOGGER.info(getName()+":Starting worker with class:"+clientClass +", queue capacity:"+listenerClientData.queue.capacity()
+                        +" and wait strategy:"+WAIT_STRATEGY);
                 Worker worker = new Worker(backendListenerClient, (Arguments) getArguments().clone(), listenerClientData);
                 worker.setDaemon(true);
                 worker.start();
@@ -372,9 +377,12 @@ public class BackendListener extends AbstractTestElement
         } catch (Exception ex) {
             LOGGER.warn("testEnded() with exception:"+ex.getMessage(), ex);
         }
-        if (listenerClientData.queueWaits.get() > 0) {
-            LOGGER.warn("QueueWaits: "+listenerClientData.queueWaits+"; QueueWaitTime: "+listenerClientData.queueWaitTime+
-                    " (nanoseconds), you may need to increase queue capacity, see property 'backend_queue_capacity'");
+        RingBuffer<Object> queue = listenerClientData.queue;
+        if (queue.getWaits() > 0) {
+            LOGGER.warn("QueueWaits: "+queue.getWaits()+"; QueueWaitTime: "+queue.getWaitTime()+
+                    " (nanoseconds), you may need to increase queue capacity ("+queue.capacity()+"), see field 'Async Queue size'");
+        } else {
+            LOGGER.info("Queue capacity: "+queue.capacity()+"; highest fill: "+queue.getMaxFill());
         }
         try {
             listenerClientData.latch.await();
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.visualizers.backend;
+
+import java.util.List;
+
+import org.apache.jmeter.samplers.SampleMetrics;
+
+/**
+ * A {@link BackendListenerClient} which only needs the {@link SampleMetrics} of the samples.
+ * <p>
+ * The BackendListener queues the metrics instead of the {@link org.apache.jmeter.samplers.SampleResult SampleResult}s
+ * for such clients, so that response data is not kept until the queue is drained.
+ * {@link #handleSampleMetrics(List, BackendListenerContext)} is called instead of
+ * {@link #handleSampleResults(List, BackendListenerContext)}, and
+ * {@link #createSampleResult(BackendListenerContext, org.apache.jmeter.samplers.SampleResult) createSampleResult}
+ * is not called.
+ * @since 3.1
+ */
+public interface MetricsBackendListenerClient extends BackendListenerClient {
+
+    /**
+     * Handle the metrics of a batch of samples
+     * @param sampleMetrics the metrics, in the order the samples were notified
+     * @param context {@link BackendListenerContext}
+     */
+    void handleSampleMetrics(List<SampleMetrics> sampleMetrics, BackendListenerContext context);
+}
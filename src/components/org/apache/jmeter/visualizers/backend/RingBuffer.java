@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.visualizers.backend;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Producers claim a sequence with a compare and set on the tail and then publish
+ * the element in the slot of that sequence; the consumer takes the published elements
+ * in sequence order and frees their slots.
+ * No lock is taken on either side, the sampling threads only wait when the buffer is full.
+ * @param <E> type of the elements
+ * @since 3.1
+ */
+final class RingBuffer<E> {
+
+    /**
+     * How the consumer waits for elements when the buffer is empty,
+     * and producers for a free slot when it is full
+     */
+    enum WaitStrategy {
+        /** Park the thread, for a longer time as waiting goes on (up to 1 ms) */
+        SLEEP,
+        /** Yield the processor */
+        YIELD,
+        /** Busy spin, lowest latency but uses a full processor while waiting */
+        SPIN;
+
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        /**
+         * Wait before trying again
+         * @param attempt number of unsuccessful attempts so far
+         */
+        void idle(int attempt) {
+            switch (this) {
+                case SPIN:
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                default:
+                    if (attempt < 100) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L * (attempt - 99)));
+                    }
+                    break;
+            }
+        }
+
+        /**
+         * @param name name of a strategy, case insensitive
+         * @return the strategy or {@link #SLEEP} if name is unknown
+         */
+        static WaitStrategy fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                return SLEEP;
+            }
+        }
+    }
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+
+    /** Next sequence to be claimed by a producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next sequence to be taken by the consumer, only written by the consumer */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Highest number of elements seen in the buffer */
+    private final AtomicLong maxFill = new AtomicLong();
+
+    /** How many times a producer found the buffer full */
+    private final AtomicLong waits = new AtomicLong();
+
+    /** How long producers waited for a free slot (nanoseconds) */
+    private final AtomicLong waitTime = new AtomicLong();
+
+    /**
+     * @param capacity minimum capacity, rounded up to a power of two
+     * @param waitStrategy how to wait on an empty or full buffer
+     */
+    RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Add an element if there is a free slot
+     * @param element not null
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long sequence;
+        long fill;
+        do {
+            sequence = tail.get();
+            fill = sequence - head.get();
+            if (fill > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) sequence & mask, element);
+        if (fill >= maxFill.get()) {
+            updateMaxFill(fill + 1);
+        }
+        return true;
+    }
+
+    private void updateMaxFill(long fill) {
+        long max;
+        do {
+            max = maxFill.get();
+        } while (fill > max && !maxFill.compareAndSet(max, fill));
+    }
+
+    /**
+     * Add an element, waiting for a free slot if the buffer is full
+     * @param element not null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void put(E element) throws InterruptedException {
+        if (offer(element)) {
+            return;
+        }
+        waits.incrementAndGet();
+        long start = System.nanoTime();
+        int attempt = 0;
+        try {
+            while (!offer(element)) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                waitStrategy.idle(attempt++);
+            }
+        } finally {
+            waitTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Take the next element, must only be called by the consumer thread
+     * @return the next element or null if none has been published yet
+     */
+    E poll() {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            // empty, or the producer which claimed this sequence has not published it yet
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    /**
+     * Take the next element, waiting for one to be published.
+     * Must only be called by the consumer thread
+     * @return the next element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E take() throws InterruptedException {
+        int attempt = 0;
+        E element;
+        while ((element = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return element;
+    }
+
+    /**
+     * Move the published elements to a list, in order.
+     * Must only be called by the consumer thread
+     * @param list receives the elements
+     * @param maxElements maximum number of elements to move
+     * @return number of elements moved
+     */
+    int drainTo(List<? super E> list, int maxElements) {
+        int count = 0;
+        E element;
+        while (count < maxElements && (element = poll()) != null) {
+            list.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of elements in the buffer, including the ones not yet published
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return number of slots
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return highest number of elements seen in the buffer
+     */
+    long getMaxFill() {
+        return maxFill.get();
+    }
+
+    /**
+     * @return how many times a producer found the buffer full
+     */
+    long getWaits() {
+        return waits.get();
+    }
+
+    /**
+     * @return how long producers waited for a free slot, in nanoseconds
+     */
+    long getWaitTime() {
+        return waitTime.get();
+    }
+}
@@ -19,7 +19,7 @@
 package org.apache.jmeter.visualizers.backend;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.jmeter.control.TransactionController;
+import org.apache.jmeter.samplers.SampleMetrics;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.util.JMeterUtils;
 
@@ -52,7 +52,15 @@ public class SamplerMetric {
      * Add a {@link SampleResult} to be used in the statistics
      * @param result {@link SampleResult} to be used
      */
-    public synchronized void add(SampleResult result) {
+    public void add(SampleResult result) {
+        add(new SampleMetrics(result));
+    }
+
+    /**
+     * Add the {@link SampleMetrics} of a sample to be used in the statistics
+     * @param result {@link SampleMetrics} to be used
+     */
+    public synchronized void add(SampleMetrics result) {
         if(result.isSuccessful()) {
             successes+=result.getSampleCount()-result.getErrorCount();
         } else {
@@ -67,21 +75,7 @@ public class SamplerMetric {
         }else {
             koResponsesStats.addValue(time);
         }
-        addHits(result);
-    }
-
-    /**
-     * Compute hits from res
-     * @param res {@link SampleResult}
-     */
-    private void addHits(SampleResult res) {     
-        SampleResult[] subResults = res.getSubResults();
-        if (!TransactionController.isFromTransactionController(res)) {
-            hits += 1;                 
-        }
-        for (SampleResult subResult : subResults) {
-            addHits(subResult);
-        }
+        hits += result.getHits();
     }
     
     /**
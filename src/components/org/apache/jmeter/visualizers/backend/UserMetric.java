@@ -19,6 +19,7 @@
 package org.apache.jmeter.visualizers.backend;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.jmeter.samplers.SampleMetrics;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.util.JMeterUtils;
@@ -45,6 +46,14 @@ public class UserMetric {
     public synchronized void add(SampleResult result) {
         usersStats.addValue(JMeterContextService.getThreadCounts().activeThreads);
     }
+
+    /**
+     * Add the {@link SampleMetrics} of a sample to be used in the statistics
+     * @param metrics {@link SampleMetrics} to be used
+     */
+    public synchronized void add(SampleMetrics metrics) {
+        usersStats.addValue(JMeterContextService.getThreadCounts().activeThreads);
+    }
     
     /**
      * Reset metric except for percentile related data
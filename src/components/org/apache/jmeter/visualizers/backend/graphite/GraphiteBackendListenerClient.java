@@ -19,6 +19,7 @@
 package org.apache.jmeter.visualizers.backend.graphite;
 
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,9 +35,11 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.samplers.SampleMetrics;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.visualizers.backend.AbstractBackendListenerClient;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.apache.jmeter.visualizers.backend.MetricsBackendListenerClient;
 import org.apache.jmeter.visualizers.backend.SamplerMetric;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.log.Logger;
@@ -46,7 +49,8 @@ import org.apache.log.Logger;
  * @see <a href="http://graphite.readthedocs.org/en/latest/overview.html">Graphite Overview</a>
  * @since 2.13
  */
-public class GraphiteBackendListenerClient extends AbstractBackendListenerClient implements Runnable {
+public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
+    implements MetricsBackendListenerClient, Runnable {
 
     //+ Argument names
     // These are stored in the JMX file, so DO NOT CHANGE ANY VALUES 
@@ -227,25 +231,35 @@ public class GraphiteBackendListenerClient extends AbstractBackendListenerClient
     @Override
     public void handleSampleResults(List<SampleResult> sampleResults,
             BackendListenerContext context) {
+        List<SampleMetrics> sampleMetrics = new ArrayList<>(sampleResults.size());
+        for (SampleResult sampleResult : sampleResults) {
+            sampleMetrics.add(new SampleMetrics(sampleResult));
+        }
+        handleSampleMetrics(sampleMetrics, context);
+    }
+
+    @Override
+    public void handleSampleMetrics(List<SampleMetrics> sampleMetrics,
+            BackendListenerContext context) {
         boolean samplersToFilterMatch;
         synchronized (LOCK) {
-            for (SampleResult sampleResult : sampleResults) {
-                getUserMetrics().add(sampleResult);
+            for (SampleMetrics metrics : sampleMetrics) {
+                getUserMetrics().add(metrics);
                 
                 if(!summaryOnly) {
                     if (useRegexpForSamplersList) {
-                        Matcher matcher = pattern.matcher(sampleResult.getSampleLabel());
+                        Matcher matcher = pattern.matcher(metrics.getLabel());
                         samplersToFilterMatch = matcher.matches();
                     } else {
-                        samplersToFilterMatch = samplersToFilter.contains(sampleResult.getSampleLabel()); 
+                        samplersToFilterMatch = samplersToFilter.contains(metrics.getLabel()); 
                     }
                     if (samplersToFilterMatch) {
-                        SamplerMetric samplerMetric = getSamplerMetric(sampleResult.getSampleLabel());
-                        samplerMetric.add(sampleResult);
+                        SamplerMetric samplerMetric = getSamplerMetric(metrics.getLabel());
+                        samplerMetric.add(metrics);
                     }
                 }
                 SamplerMetric cumulatedMetrics = getSamplerMetric(CUMULATED_METRICS);
-                cumulatedMetrics.add(sampleResult);                    
+                cumulatedMetrics.add(metrics);                    
             }
         }
     }
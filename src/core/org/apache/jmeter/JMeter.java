@@ -33,13 +33,16 @@ import java.net.MalformedURLException;
 import java.net.SocketException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -74,6 +77,7 @@ import org.apache.jmeter.plugin.JMeterPlugin;
 import org.apache.jmeter.plugin.PluginManager;
 import org.apache.jmeter.report.config.ConfigurationException;
 import org.apache.jmeter.report.dashboard.GenerationException;
+import org.apache.jmeter.report.dashboard.LiveReportListener;
 import org.apache.jmeter.report.dashboard.ReportGenerator;
 import org.apache.jmeter.reporters.ResultCollector;
 import org.apache.jmeter.reporters.Summariser;
@@ -91,6 +95,7 @@ import org.apache.jorphan.collections.HashTree;
 import org.apache.jorphan.collections.SearchByClass;
 import org.apache.jorphan.gui.ComponentUtil;
 import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.reflect.ClassFinder;
 import org.apache.jorphan.reflect.ClassTools;
 import org.apache.jorphan.util.HeapDumper;
 import org.apache.jorphan.util.JMeterException;
@@ -425,6 +430,7 @@ public class JMeter implements JMeterPlugin {
             setProxy(parser);
 
             updateClassLoader();
+            initClassFinderIndex();
             if (log.isDebugEnabled())
             {
                 String jcp=System.getProperty("java.class.path");// $NON-NLS-1$
@@ -556,6 +562,19 @@ public class JMeter implements JMeterPlugin {
             updatePath("plugin_dependency_paths",";", false);//$NON-NLS-1$
     }
 
+    // Reuse the classes found by earlier runs on the same classpath
+    private void initClassFinderIndex() {
+        if (!JMeterUtils.getPropDefault("classfinder.index", true)) { //$NON-NLS-1$
+            return;
+        }
+        // In the home directory of the user, as the classes it lists get loaded
+        String defaultFile = new File(System.getProperty("user.home"), //$NON-NLS-1$
+                ".jmeter" + File.separator + "classfinder-index.properties").getPath(); //$NON-NLS-1$ $NON-NLS-2$
+        String indexFile = JMeterUtils.getPropDefault("classfinder.index_file", defaultFile); //$NON-NLS-1$
+        log.info("Using ClassFinder index: " + indexFile);
+        ClassFinder.setIndexFile(new File(indexFile));
+    }
+
     private void updatePath(String property, String sep, boolean cp) {
         String userpath= JMeterUtils.getPropDefault(property,"");// $NON-NLS-1$
         if (userpath.length() <= 0) { return; }
@@ -920,6 +939,11 @@ public class JMeter implements JMeterPlugin {
                 tree.add(tree.getArray()[0], logger);
                 if(generateReportDashboard) {
                     reportGenerator = new ReportGenerator(logFile, logger);
+                    LiveReportListener liveReport = reportGenerator.createLiveReportListener();
+                    if (liveReport != null) {
+                        // The results file is only read if the live dashboard is incomplete
+                        tree.add(tree.getArray()[0], liveReport);
+                    }
                 }
             }
             else {
@@ -934,7 +958,8 @@ public class JMeter implements JMeterPlugin {
             tree.add(tree.getArray()[0], new RemoteThreadsListenerTestElement());
 
             List<JMeterEngine> engines = new LinkedList<>();
-            tree.add(tree.getArray()[0], new ListenToTest(parent, (remoteStart && remoteStop) ? engines : null, reportGenerator));
+            ListenToTest testListener = new ListenToTest(parent, (remoteStart && remoteStop) ? engines : null, reportGenerator);
+            tree.add(tree.getArray()[0], testListener);
             println("Created the tree successfully using "+testFile);
             if (!remoteStart) {
                 JMeterEngine engine = new StandardJMeterEngine();
@@ -953,6 +978,8 @@ public class JMeter implements JMeterPlugin {
                 DistributedRunner distributedRunner=new DistributedRunner(this.remoteProps);
                 distributedRunner.setStdout(System.out);
                 distributedRunner.setStdErr(System.err);
+                distributedRunner.setEngineFailureListener(testListener);
+                testListener.setDistributedRunner(distributedRunner);
                 distributedRunner.init(hosts, tree);
                 engines.addAll(distributedRunner.getEngines());
                 distributedRunner.start();
@@ -1049,9 +1076,14 @@ public class JMeter implements JMeterPlugin {
      * If running a remote test, then after waiting a few seconds for listeners to finish files,
      * it calls ClientJMeterEngine.tidyRMI() to deal with the Naming Timer Thread.
      */
-    private static class ListenToTest implements TestStateListener, Runnable, Remoteable {
+    private static class ListenToTest implements TestStateListener, Runnable, Remoteable,
+            DistributedRunner.EngineFailureListener {
         private final AtomicInteger started = new AtomicInteger(0); // keep track of remote tests
 
+        private final Set<String> runningHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        private volatile DistributedRunner distributedRunner;
+
         private final List<JMeterEngine> engines;
 
         private final ReportGenerator reportGenerator;
@@ -1066,11 +1098,36 @@ public class JMeter implements JMeterPlugin {
             this.reportGenerator = reportGenerator;
         }
 
+        public void setDistributedRunner(DistributedRunner distributedRunner) {
+            this.distributedRunner = distributedRunner;
+        }
+
         @Override
         // N.B. this is called by a daemon RMI thread from the remote host
         public void testEnded(String host) {
+            if (!runningHosts.remove(host)) {
+                log.info("Ignoring end of remote host already considered finished: " + host);
+                return;
+            }
+            DistributedRunner runner = distributedRunner;
+            if (runner != null) {
+                runner.stopHeartbeat(host);
+            }
             long now=System.currentTimeMillis();
             log.info("Finished remote host: " + host + " ("+now+")");
+            hostFinished();
+        }
+
+        @Override
+        // N.B. this is called by a heartbeat thread of the DistributedRunner
+        public void engineFailed(String host, Exception cause) {
+            if (runningHosts.remove(host)) {
+                println("Remote host " + host + " is not responding, considering its test finished");
+                hostFinished();
+            }
+        }
+
+        private void hostFinished() {
             if (started.decrementAndGet() <= 0) {
                 Thread stopSoon = new Thread(this);
                 // the calling thread is a daemon; this thread must not be
@@ -1096,6 +1153,7 @@ public class JMeter implements JMeterPlugin {
 
         @Override
         public void testStarted(String host) {
+            runningHosts.add(host);
             started.incrementAndGet();
             long now=System.currentTimeMillis();
             log.info("Started remote host:  " + host + " ("+now+")");
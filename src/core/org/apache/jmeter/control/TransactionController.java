@@ -66,7 +66,7 @@ public class TransactionController extends GenericController implements SampleLi
     private transient TransactionSampler transactionSampler;
     
     /**
-     * Only used in NON parent Mode
+     * Only used in NON parent Mode, when not running in a {@link JMeterThread}
      */
     private transient ListenerNotifier lnf;
 
@@ -310,7 +310,11 @@ public class TransactionController extends GenericController implements SampleLi
             // We must set res to null now, before sending the event for the transaction,
             // so that we can ignore that event in our sampleOccured method
             res = null;
-            lnf.notifyListeners(event, pack.getSampleListeners());
+            // Use the notifier of the thread, so that with asynchronous listeners
+            // the transaction is queued after the samples of its children
+            JMeterThread thread = threadContext.getThread();
+            ListenerNotifier notifier = thread != null && thread.getNotifier() != null ? thread.getNotifier() : lnf;
+            notifier.notifyListeners(event, pack.getSampleListeners());
         }
     }
 
@@ -48,6 +48,9 @@ public class ClientJMeterEngine implements JMeterEngine {
 
     private final String host;
 
+    /** Estimated difference between the remote and the local clock, in milliseconds */
+    private volatile long clockOffset;
+
     private static RemoteJMeterEngine getEngine(String h) throws MalformedURLException, RemoteException,
             NotBoundException {
        final String name = "//" + h + "/" + RemoteJMeterEngineImpl.JMETER_ENGINE_RMI_NAME; // $NON-NLS-1$ $NON-NLS-2$
@@ -64,7 +67,17 @@ public class ClientJMeterEngine implements JMeterEngine {
     }
 
     public ClientJMeterEngine(String host) throws MalformedURLException, NotBoundException, RemoteException {
-        this.remote = getEngine(host);
+        this(getEngine(host), host);
+    }
+
+    /**
+     * Package-private constructor for unit tests.
+     *
+     * @param remote the remote engine to drive
+     * @param host the host name of the remote engine
+     */
+    ClientJMeterEngine(RemoteJMeterEngine remote, String host) {
+        this.remote = remote;
         this.host = host;
     }
 
@@ -105,6 +118,17 @@ public class ClientJMeterEngine implements JMeterEngine {
 
     @Override
     public void runTest() throws JMeterEngineException {
+        prepare();
+        startAt(0);
+    }
+
+    /**
+     * Sends the test plan and the properties to the remote engine without starting the test.
+     * Used by {@link DistributedRunner} to configure all engines before starting any of them.
+     *
+     * @throws JMeterEngineException if the remote engine could not be configured
+     */
+    public void prepare() throws JMeterEngineException {
         log.info("running clientengine run method");
         
         // See https://bz.apache.org/bugzilla/show_bug.cgi?id=55510
@@ -143,9 +167,6 @@ public class ClientJMeterEngine implements JMeterEngine {
             } catch (RemoteException e) {
                 log.warn("Could not set properties: " + e.toString());
             }
-            methodName="rrunTest()";
-            remote.rrunTest();
-            log.info("sent run command to "+ host);
         } catch (IllegalStateException ex) {
             log.error("Error in "+methodName+" method "+ex); // $NON-NLS-1$ $NON-NLS-2$
             tidyRMI(log);
@@ -157,6 +178,55 @@ public class ClientJMeterEngine implements JMeterEngine {
         }
     }
 
+    /**
+     * Starts the previously {@link #prepare() prepared} remote test.
+     *
+     * @param startTime local time in milliseconds at which the remote engine should start,
+     * corrected by the clock offset measured by {@link #ping()}; 0 to start immediately
+     * @throws JMeterEngineException if the remote engine could not be started
+     */
+    public void startAt(long startTime) throws JMeterEngineException {
+        try {
+            if (startTime > 0) {
+                remote.rrunTest(startTime + clockOffset);
+                log.info("sent run command to "+ host + " for "+startTime+" (clock offset "+clockOffset+"ms)");
+            } else {
+                remote.rrunTest();
+                log.info("sent run command to "+ host);
+            }
+        } catch (IllegalStateException ex) {
+            log.error("Error in rrunTest() method "+ex); // $NON-NLS-1$
+            tidyRMI(log);
+            throw ex; // Don't wrap this error - display it as is
+        } catch (Exception ex) {
+            log.error("Error in rrunTest() method "+ex); // $NON-NLS-1$
+            tidyRMI(log);
+            throw new JMeterEngineException("Error in rrunTest() method "+ex, ex); // $NON-NLS-1$
+        }
+    }
+
+    /**
+     * Checks that the remote engine is alive and updates the estimate of its clock offset.
+     *
+     * @return round trip time in milliseconds
+     * @throws RemoteException if the remote engine cannot be reached
+     */
+    public long ping() throws RemoteException {
+        long before = System.currentTimeMillis();
+        long remoteTime = remote.rping();
+        long after = System.currentTimeMillis();
+        clockOffset = remoteTime - (before + after) / 2;
+        return after - before;
+    }
+
+    /**
+     * @return estimated difference between the remote and the local clock in milliseconds,
+     * as measured by the last {@link #ping()}
+     */
+    public long getClockOffset() {
+        return clockOffset;
+    }
+
     /**
      * Tidy up RMI access to allow JMeter client to exit.
      * Currently just interrups the "RMI Reaper" thread.
@@ -27,10 +27,24 @@ import java.rmi.RemoteException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
@@ -40,6 +54,13 @@ import org.apache.log.Logger;
 /**
  * This class serves all responsibility of starting and stopping distributed tests.
  * It was refactored from JMeter and RemoteStart classes to unify retry behavior.
+ * <p>
+ * Remote engines are configured, started and stopped concurrently by up to
+ * {@value #FANOUT_THREADS} threads. If {@value #START_DELAY} is set, all engines are
+ * first sent the test plan, then asked to start at the same instant, corrected for
+ * the clock offset of each server. If {@value #HEARTBEAT_INTERVAL} is set, started
+ * engines are pinged periodically and reported to the {@link EngineFailureListener}
+ * once they miss {@value #HEARTBEAT_MAX_MISSED} consecutive heartbeats.
  *
  * @see org.apache.jmeter.JMeter
  * @see org.apache.jmeter.gui.action.RemoteStart
@@ -50,14 +71,37 @@ public class DistributedRunner {
     public static final String RETRIES_NUMBER = "client.tries"; // $NON-NLS-1$
     public static final String RETRIES_DELAY = "client.retries_delay"; // $NON-NLS-1$
     public static final String CONTINUE_ON_FAIL = "client.continue_on_fail"; // $NON-NLS-1$
+    public static final String FANOUT_THREADS = "client.fanout_threads"; // $NON-NLS-1$
+    public static final String START_DELAY = "client.start_delay"; // $NON-NLS-1$
+    public static final String HEARTBEAT_INTERVAL = "client.heartbeat_interval"; // $NON-NLS-1$
+    public static final String HEARTBEAT_MAX_MISSED = "client.heartbeat_max_missed"; // $NON-NLS-1$
+
+    /**
+     * Notified when a started remote engine stops answering heartbeats
+     */
+    public interface EngineFailureListener {
+        /**
+         * @param host host name of the remote engine
+         * @param cause last error returned by the engine, may be <code>null</code> if the heartbeats timed out
+         */
+        void engineFailed(String host, Exception cause);
+    }
 
     private final Properties remoteProps;
     private final boolean continueOnFail;
     private final int retriesDelay;
     private final int retriesNumber;
+    private final int startDelay;
+    private final int heartbeatInterval;
+    private final int heartbeatMaxMissed;
+    private final ExecutorService fanout;
     private PrintStream stdout = new PrintStream(new SilentOutputStream());
     private PrintStream stderr = new PrintStream(new SilentOutputStream());
     private final Map<String, JMeterEngine> engines = new HashMap<>();
+    private final Map<String, Heartbeat> heartbeats = new ConcurrentHashMap<>();
+    private volatile EngineFailureListener failureListener;
+    //@GuardedBy("heartbeats")
+    private ScheduledExecutorService heartbeatTimer;
 
 
     public DistributedRunner() {
@@ -69,9 +113,17 @@ public class DistributedRunner {
         retriesNumber = JMeterUtils.getPropDefault(RETRIES_NUMBER, 1);
         continueOnFail = JMeterUtils.getPropDefault(CONTINUE_ON_FAIL, false);
         retriesDelay = JMeterUtils.getPropDefault(RETRIES_DELAY, 5000);
+        startDelay = JMeterUtils.getPropDefault(START_DELAY, 0);
+        heartbeatInterval = JMeterUtils.getPropDefault(HEARTBEAT_INTERVAL, 0);
+        heartbeatMaxMissed = Math.max(1, JMeterUtils.getPropDefault(HEARTBEAT_MAX_MISSED, 3));
+        int threads = Math.max(1, JMeterUtils.getPropDefault(FANOUT_THREADS, 10));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("DistributedRunner-")); // $NON-NLS-1$
+        pool.allowCoreThreadTimeOut(true);
+        fanout = pool;
     }
 
-    public void init(List<String> addresses, HashTree tree) {
+    public void init(List<String> addresses, final HashTree tree) {
         // converting list into mutable version
         List<String> addrs = new LinkedList<>(addresses);
 
@@ -86,17 +138,28 @@ public class DistributedRunner {
                 }
             }
 
-            int idx = 0;
-            while (idx < addrs.size()) {
-                String address = addrs.get(idx);
+            Map<String, Future<JMeterEngine>> created = new LinkedHashMap<>();
+            for (final String address : addrs) {
                 println("Configuring remote engine: " + address);
-                JMeterEngine engine = getClientEngine(address.trim(), tree);
-                if (engine != null) {
-                    engines.put(address, engine);
+                created.put(address, fanout.submit(new Callable<JMeterEngine>() {
+                    @Override
+                    public JMeterEngine call() throws Exception {
+                        return getClientEngine(address.trim(), tree);
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<JMeterEngine>> entry : created.entrySet()) {
+                String address = entry.getKey();
+                try {
+                    engines.put(address, entry.getValue().get());
                     addrs.remove(address);
-                } else {
+                } catch (ExecutionException ex) {
+                    log.error("Failed to create engine at " + address, ex.getCause());
+                    JMeterUtils.reportErrorToUser(ex.getCause().getMessage(),
+                            JMeterUtils.getResString("remote_error_init") + ": " + address); // $NON-NLS-1$ $NON-NLS-2$
                     println("Failed to configure " + address);
-                    idx++;
+                } catch (InterruptedException e) {
+                    throw new RuntimeException("Interrupted while initializing remote", e);
                 }
             }
 
@@ -124,20 +187,57 @@ public class DistributedRunner {
      */
     public void start(List<String> addresses) {
         println("Starting remote engines");
-        long now = System.currentTimeMillis();
-        println("Starting the test @ " + new Date(now) + " (" + now + ")");
-        for (String address : addresses) {
-            try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).runTest();
-                } else {
-                    log.warn("Host not found in list of active engines: " + address);
+        List<String> active = new LinkedList<>(addresses);
+        if (startDelay > 0) {
+            // first send the test plan everywhere, so that the start commands are cheap
+            reportStartErrors(active, forEachEngine(active, new EngineAction() {
+                @Override
+                public void run(JMeterEngine engine) throws Exception {
+                    if (engine instanceof ClientJMeterEngine) {
+                        ClientJMeterEngine client = (ClientJMeterEngine) engine;
+                        client.prepare();
+                        client.ping();
+                    }
+                }
+            }));
+            final long startAt = System.currentTimeMillis() + startDelay;
+            println("Starting the test @ " + new Date(startAt) + " (" + startAt + ")");
+            reportStartErrors(active, forEachEngine(active, new EngineAction() {
+                @Override
+                public void run(JMeterEngine engine) throws Exception {
+                    if (engine instanceof ClientJMeterEngine) {
+                        ((ClientJMeterEngine) engine).startAt(startAt);
+                    } else {
+                        engine.runTest();
+                    }
+                }
+            }));
+        } else {
+            long now = System.currentTimeMillis();
+            println("Starting the test @ " + new Date(now) + " (" + now + ")");
+            reportStartErrors(active, forEachEngine(active, new EngineAction() {
+                @Override
+                public void run(JMeterEngine engine) throws Exception {
+                    engine.runTest();
                 }
-            } catch (IllegalStateException | JMeterEngineException e) {
+            }));
+        }
+        if (heartbeatInterval > 0) {
+            startHeartbeats(active);
+        }
+        println("Remote engines have been started");
+    }
+
+    private void reportStartErrors(List<String> active, Map<String, Exception> failures) {
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            active.remove(failure.getKey());
+            Exception e = failure.getValue();
+            if (e instanceof IllegalStateException || e instanceof JMeterEngineException) {
                 JMeterUtils.reportErrorToUser(e.getMessage(), JMeterUtils.getResString("remote_error_starting")); // $NON-NLS-1$
+            } else {
+                errln("Failed to start test on " + failure.getKey(), e);
             }
         }
-        println("Remote engines have been started");
     }
 
     /**
@@ -151,16 +251,14 @@ public class DistributedRunner {
 
     public void stop(List<String> addresses) {
         println("Stopping remote engines");
-        for (String address : addresses) {
-            try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).stopTest(true);
-                } else {
-                    log.warn("Host not found in list of active engines: " + address);
-                }
-            } catch (RuntimeException e) {
-                errln("Failed to stop test on " + address, e);
+        Map<String, Exception> failures = forEachEngine(addresses, new EngineAction() {
+            @Override
+            public void run(JMeterEngine engine) {
+                engine.stopTest(true);
             }
+        });
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            errln("Failed to stop test on " + failure.getKey(), failure.getValue());
         }
         println("Remote engines have been stopped");
     }
@@ -176,17 +274,14 @@ public class DistributedRunner {
 
     public void shutdown(List<String> addresses) {
         println("Shutting down remote engines");
-        for (String address : addresses) {
-            try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).stopTest(false);
-                } else {
-                    log.warn("Host not found in list of active engines: " + address);
-                }
-
-            } catch (RuntimeException e) {
-                errln("Failed to shutdown test on " + address, e);
+        Map<String, Exception> failures = forEachEngine(addresses, new EngineAction() {
+            @Override
+            public void run(JMeterEngine engine) {
+                engine.stopTest(false);
             }
+        });
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            errln("Failed to shutdown test on " + failure.getKey(), failure.getValue());
         }
         println("Remote engines have been shut down");
     }
@@ -194,34 +289,177 @@ public class DistributedRunner {
     public void exit(List<String> addresses) {
         println("Exiting remote engines");
         for (String address : addresses) {
+            heartbeats.remove(address);
+        }
+        stopHeartbeatTimerIfIdle();
+        Map<String, Exception> failures = forEachEngine(addresses, new EngineAction() {
+            @Override
+            public void run(JMeterEngine engine) {
+                engine.exit();
+            }
+        });
+        for (Map.Entry<String, Exception> failure : failures.entrySet()) {
+            errln("Failed to exit on " + failure.getKey(), failure.getValue());
+        }
+        println("Remote engines have been exited");
+    }
+
+    private interface EngineAction {
+        void run(JMeterEngine engine) throws Exception;
+    }
+
+    /**
+     * Runs the action against the engines of all the addresses concurrently and waits for completion.
+     *
+     * @param addresses the addresses of the engines
+     * @param action the action to run
+     * @return the failures keyed by address, empty if all calls succeeded
+     */
+    private Map<String, Exception> forEachEngine(List<String> addresses, final EngineAction action) {
+        Map<String, Future<?>> calls = new LinkedHashMap<>();
+        for (String address : addresses) {
+            final JMeterEngine engine = engines.get(address);
+            if (engine == null) {
+                log.warn("Host not found in list of active engines: " + address);
+                continue;
+            }
+            calls.put(address, fanout.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    action.run(engine);
+                    return null;
+                }
+            }));
+        }
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<?>> call : calls.entrySet()) {
             try {
-                if (engines.containsKey(address)) {
-                    engines.get(address).exit();
-                } else {
-                    log.warn("Host not found in list of active engines: " + address);
+                call.getValue().get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
                 }
-            } catch (RuntimeException e) {
-                errln("Failed to exit on " + address, e);
+                failures.put(call.getKey(), (Exception) cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(call.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    private void startHeartbeats(List<String> addresses) {
+        synchronized (heartbeats) {
+            for (String address : addresses) {
+                JMeterEngine engine = engines.get(address);
+                if (engine instanceof ClientJMeterEngine) {
+                    heartbeats.put(address, new Heartbeat(address, (ClientJMeterEngine) engine));
+                }
+            }
+            if (heartbeatTimer == null && !heartbeats.isEmpty()) {
+                heartbeatTimer = Executors.newSingleThreadScheduledExecutor(
+                        new DaemonThreadFactory("DistributedRunner-heartbeat-")); // $NON-NLS-1$
+                heartbeatTimer.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Heartbeat heartbeat : heartbeats.values()) {
+                            heartbeat.beat();
+                        }
+                    }
+                }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Shuts the heartbeat timer down once no engine is monitored any more,
+     * it is created again by the next start
+     */
+    private void stopHeartbeatTimerIfIdle() {
+        synchronized (heartbeats) {
+            if (heartbeatTimer != null && heartbeats.isEmpty()) {
+                heartbeatTimer.shutdown();
+                heartbeatTimer = null;
             }
         }
-        println("Remote engines have been exited");
     }
 
-    private JMeterEngine getClientEngine(String address, HashTree testTree) {
-        JMeterEngine engine;
-        try {
-            engine = createEngine(address);
-            engine.configure(testTree);
-            if (!remoteProps.isEmpty()) {
-                engine.setProperties(remoteProps);
+    /**
+     * Stops monitoring an engine, typically because its test has ended
+     * and the server may exit.
+     *
+     * @param host host name of the remote engine
+     */
+    public void stopHeartbeat(String host) {
+        for (Heartbeat heartbeat : heartbeats.values()) {
+            if (heartbeat.address.trim().equals(host)) {
+                heartbeats.remove(heartbeat.address, heartbeat);
             }
-            return engine;
-        } catch (Exception ex) {
-            log.error("Failed to create engine at " + address, ex);
-            JMeterUtils.reportErrorToUser(ex.getMessage(),
-                    JMeterUtils.getResString("remote_error_init") + ": " + address); // $NON-NLS-1$ $NON-NLS-2$
-            return null;
         }
+        stopHeartbeatTimerIfIdle();
+    }
+
+    /**
+     * Liveness of one started engine. Pings run on the fan-out pool, so that a hanging
+     * engine neither delays the others nor the timer; a ping still in flight when the next
+     * one is due counts as missed.
+     */
+    private final class Heartbeat implements Runnable {
+        private final String address;
+        private final ClientJMeterEngine engine;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private final AtomicInteger missed = new AtomicInteger();
+
+        Heartbeat(String address, ClientJMeterEngine engine) {
+            this.address = address;
+            this.engine = engine;
+        }
+
+        void beat() {
+            if (inFlight.compareAndSet(false, true)) {
+                fanout.execute(this);
+            } else {
+                miss(null);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                engine.ping();
+                missed.set(0);
+            } catch (RemoteException | RuntimeException e) {
+                log.debug("Heartbeat failed for " + address + ": " + e);
+                miss(e);
+            } finally {
+                inFlight.set(false);
+            }
+        }
+
+        private void miss(Exception cause) {
+            int count = missed.incrementAndGet();
+            if (count >= heartbeatMaxMissed && heartbeats.remove(address, this)) {
+                stopHeartbeatTimerIfIdle();
+                String host = address.trim();
+                String msg = "Remote engine " + host + " missed " + count + " heartbeats, considering it dead";
+                log.error(msg + (cause == null ? "" : ": " + cause));
+                stderr.println(msg);
+                EngineFailureListener listener = failureListener;
+                if (listener != null) {
+                    listener.engineFailed(host, cause);
+                }
+            }
+        }
+    }
+
+    private JMeterEngine getClientEngine(String address, HashTree testTree) throws Exception {
+        JMeterEngine engine = createEngine(address);
+        engine.configure(testTree);
+        if (!remoteProps.isEmpty()) {
+            engine.setProperties(remoteProps);
+        }
+        return engine;
     }
 
     /**
@@ -256,6 +494,13 @@ public class DistributedRunner {
         this.stderr = stdErr;
     }
 
+    /**
+     * @param listener notified when a started engine misses too many heartbeats, may be <code>null</code>
+     */
+    public void setEngineFailureListener(EngineFailureListener listener) {
+        this.failureListener = listener;
+    }
+
     private static class SilentOutputStream extends OutputStream {
         @Override
         public void write(int b) throws IOException {
@@ -263,6 +508,22 @@ public class DistributedRunner {
         }
     }
 
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
     /**
      * @return {@link Collection} of {@link JMeterEngine}
      */
@@ -33,6 +33,16 @@ public interface RemoteJMeterEngine extends Remote {
 
     void rrunTest() throws RemoteException, JMeterEngineException;
 
+    /**
+     * Starts the configured test once the server clock reaches startTime.
+     * The call returns immediately; a start time in the past starts the test at once.
+     *
+     * @param startTime start time in milliseconds, according to the server clock
+     * @throws RemoteException if the call fails
+     * @throws JMeterEngineException if the test cannot be started
+     */
+    void rrunTest(long startTime) throws RemoteException, JMeterEngineException;
+
     void rstopTest(boolean now) throws RemoteException;
 
     void rreset() throws RemoteException;
@@ -40,4 +50,12 @@ public interface RemoteJMeterEngine extends Remote {
     void rsetProperties(Properties p) throws RemoteException;
 
     void rexit() throws RemoteException;
+
+    /**
+     * Cheap liveness check, also used by the client to estimate the clock offset of the server.
+     *
+     * @return the current time of the server in milliseconds
+     * @throws RemoteException if the server cannot be reached
+     */
+    long rping() throws RemoteException;
 }
@@ -48,6 +48,11 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     
     private transient Thread ownerThread;
 
+    private transient String ownerHost;
+
+    //@GuardedBy("LOCK")
+    private transient Thread pendingStart;
+
     private static final int DEFAULT_RMI_PORT =
         JMeterUtils.getPropDefault("server.rmi.port", 1099); // $NON-NLS-1$
 
@@ -141,17 +146,15 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
     @Override
     public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) throws RemoteException {
         log.info("Creating JMeter engine on host "+host+" base '"+jmxBase+"'");
-        try {
-            log.info("Remote client host: " + getClientHost());
-        } catch (ServerNotActiveException e) {
-            // ignored
-        }
+        String clientHost = getClientHostOrNull();
+        log.info("Remote client host: " + clientHost);
         synchronized(LOCK) { // close window where another remote client might jump in
             if (backingEngine != null && backingEngine.isActive()) {
                 log.warn("Engine is busy - cannot create JMeter engine");
                 throw new IllegalStateException("Engine is busy - please try later");
             }
             ownerThread = Thread.currentThread();
+            ownerHost = clientHost;
             backingEngine = new StandardJMeterEngine(host);
             backingEngine.configure(testTree); // sets active = true
         }
@@ -166,6 +169,55 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
         backingEngine.runTest();
     }
 
+    @Override
+    public void rrunTest(final long startTime) throws RemoteException, JMeterEngineException, IllegalStateException {
+        checkOwner("runTest");
+        long delay = startTime - System.currentTimeMillis();
+        if (delay <= 0) {
+            log.warn("Start time "+startTime+" has already passed by "+(-delay)+"ms, running test now");
+            backingEngine.runTest();
+            return;
+        }
+        log.info("Running test in "+delay+"ms, at "+startTime);
+        final JMeterEngine engine = backingEngine;
+        Thread starter = new Thread("StartAt-" + startTime) { // $NON-NLS-1$
+            @Override
+            public void run() {
+                try {
+                    long wait;
+                    while ((wait = startTime - System.currentTimeMillis()) > 0) {
+                        Thread.sleep(wait);
+                    }
+                } catch (InterruptedException e) {
+                    log.info("Scheduled start was cancelled");
+                    return;
+                }
+                synchronized (LOCK) {
+                    if (pendingStart != this) {
+                        return; // cancelled by rstopTest()
+                    }
+                    pendingStart = null;
+                }
+                try {
+                    log.info("Running test");
+                    engine.runTest();
+                } catch (JMeterEngineException | RuntimeException e) {
+                    log.error("Could not start scheduled test", e);
+                }
+            }
+        };
+        starter.setDaemon(true);
+        synchronized (LOCK) {
+            pendingStart = starter;
+        }
+        starter.start();
+    }
+
+    @Override
+    public long rping() throws RemoteException {
+        return System.currentTimeMillis();
+    }
+
     @Override
     public void rreset() throws RemoteException, IllegalStateException {
         // Mail on userlist reported NPE here - looks like only happens if there are network errors, but check anyway
@@ -185,6 +237,15 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
         } else {
             log.info("Shutting test ...");
         }
+        Thread starter;
+        synchronized (LOCK) {
+            starter = pendingStart;
+            pendingStart = null;
+        }
+        if (starter != null) {
+            log.info("Cancelling scheduled start");
+            starter.interrupt();
+        }
         backingEngine.stopTest(now);
         log.info("... stopped");
     }
@@ -232,13 +293,25 @@ public final class RemoteJMeterEngineImpl extends java.rmi.server.UnicastRemoteO
         this.remotelySetProperties = p;
     }
 
+    private static String getClientHostOrNull() {
+        try {
+            return getClientHost();
+        } catch (ServerNotActiveException e) {
+            return null;
+        }
+    }
+
     /**
      * Check if the caller owns the engine.
+     * The RMI runtime may hand later calls of the owning client to another connection thread,
+     * for instance when the client configures and starts its engines from different threads,
+     * so a call from the same client host is accepted as well.
      * @param methodName the name of the method for the log message
      * @throws IllegalStateException if the caller is not the owner.
      */
     private void checkOwner(String methodName) throws IllegalStateException {
-        if (ownerThread != null && ownerThread != Thread.currentThread()){
+        if (ownerThread != null && ownerThread != Thread.currentThread()
+                && (ownerHost == null || !ownerHost.equals(getClientHostOrNull()))){
             String msg = "The engine is not owned by this thread - cannot call "+methodName;
             log.warn(msg);
             throw new IllegalStateException(msg);            
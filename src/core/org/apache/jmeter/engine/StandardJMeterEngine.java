@@ -28,6 +28,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.JMeter;
+import org.apache.jmeter.engine.util.CompoundVariable;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testbeans.TestBeanHelper;
@@ -36,6 +37,7 @@ import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.AbstractThreadGroup;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.threads.ListenerNotifier;
 import org.apache.jmeter.threads.PostThreadGroup;
 import org.apache.jmeter.threads.SetupThreadGroup;
@@ -81,6 +83,9 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
     /** Whether to call System.exit(0) unconditionally at end of non-GUI test */
     private static final boolean SYSTEM_EXIT_FORCED = JMeterUtils.getPropDefault("jmeterengine.force.system.exit", false);
 
+    /** Whether to notify the listeners shared by all threads from dedicated threads */
+    private static final boolean ASYNC_LISTENERS = JMeterUtils.getPropDefault("jmeterengine.async_listeners", false);
+
     /** Flag to show whether test is running. Set to false to stop creating more threads. */
     private volatile boolean running = false;
 
@@ -299,6 +304,10 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
          */
         SampleEvent.initSampleVariables();
 
+        // Variable slots and the strings compiled with them only cover the current test plan
+        JMeterVariables.resetSlots();
+        CompoundVariable.clearCompiledTemplates();
+
         JMeterContextService.startTest();
         try {
             PreCompiler compiler = new PreCompiler();
@@ -342,7 +351,7 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
         Iterator<AbstractThreadGroup> iter = searcher.getSearchResults().iterator();
         Iterator<PostThreadGroup> postIter = postSearcher.getSearchResults().iterator();
 
-        ListenerNotifier notifier = new ListenerNotifier();
+        ListenerNotifier notifier = new ListenerNotifier(ASYNC_LISTENERS);
 
         int groupCount = 0;
         JMeterContextService.clearTotalThreads();
@@ -433,6 +442,7 @@ public class StandardJMeterEngine implements JMeterEngine, Runnable {
             waitThreadsStopped(); // wait for Post threads to stop
         }
 
+        notifier.stop(); // deliver the pending sample events before the listeners are told the test ended
         notifyTestListenersOfEnd(testListeners);
         JMeterContextService.endTest();
         if (JMeter.isNonGUI() && SYSTEM_EXIT_FORCED) {
@@ -18,11 +18,14 @@
 
 package org.apache.jmeter.engine.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.jmeter.functions.Function;
 import org.apache.jmeter.functions.InvalidVariableException;
@@ -30,6 +33,7 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.Sampler;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.jorphan.reflect.ClassFinder;
@@ -49,11 +53,37 @@ public class CompoundVariable implements Function {
     // Created during class init; not modified thereafter 
     private static final Map<String, Class<? extends Function>> functions = new HashMap<>();
 
+    private static final Object[] NO_COMPONENTS = new Object[0];
+
+    /** Maximum number of compiled strings kept by {@link #TEMPLATES} */
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+
+    /** Longer strings are not kept by {@link #TEMPLATES} */
+    private static final int MAX_CACHED_TEMPLATE_LENGTH = 8192;
+
+    /**
+     * Compiled form of the strings that only contain variable references,
+     * so that strings evaluated at run time, for instance by __eval, are not parsed again.
+     * Strings containing functions are not cached as functions may have state.
+     * Lookups do not lock; the cache is emptied when it reaches {@link #MAX_CACHED_TEMPLATES}.
+     */
+    private static final ConcurrentMap<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+
     private boolean hasFunction, isDynamic;
 
     private String permanentResults;
 
-    private LinkedList<Object> compiledComponents = new LinkedList<>();
+    /**
+     * Literal Strings, {@link Function}s and {@link SimpleVariable}s, adjacent literals are merged.
+     * Not modified once compiled, so it can be shared by copies.
+     */
+    private Object[] compiledComponents = NO_COMPONENTS;
+
+    /** Does {@link #compiledComponents} contain a {@link SimpleVariable} */
+    private boolean hasVariable;
+
+    /** Initial capacity of the buffer used to build the result */
+    private int estimatedLength;
 
     static {
         try {
@@ -131,43 +161,70 @@ public class CompoundVariable implements Function {
     /** {@inheritDoc} */
     @Override
     public String execute(SampleResult previousResult, Sampler currentSampler) {
-        if (compiledComponents == null || compiledComponents.size() == 0) {
+        final Object[] components = compiledComponents;
+        if (components.length == 0) {
             return ""; // $NON-NLS-1$
         }
-        
-        StringBuilder results = new StringBuilder();
-        for (Object item : compiledComponents) {
-            if (item instanceof Function) {
-                try {
-                    results.append(((Function) item).execute(previousResult, currentSampler));
-                } catch (InvalidVariableException e) {
-                    // TODO should level be more than debug ?
-                    if(log.isDebugEnabled()) {
-                        log.debug("Invalid variable:"+item, e);
-                    }
-                }
-            } else if (item instanceof SimpleVariable) {
-                results.append(((SimpleVariable) item).toString());
-            } else {
-                results.append(item);
+
+        // Variables are fetched once for all the references
+        final JMeterVariables vars = hasVariable ? JMeterContextService.getContext().getVariables() : null;
+        final String result;
+        if (components.length == 1) { // No need to copy into a buffer
+            result = evaluate(components[0], previousResult, currentSampler, vars);
+        } else {
+            StringBuilder results = new StringBuilder(estimatedLength);
+            for (Object item : components) {
+                results.append(evaluate(item, previousResult, currentSampler, vars));
+            }
+            result = results.toString();
+            if (result.length() > estimatedLength) {
+                estimatedLength = result.length(); // not synchronized, only a hint
             }
         }
         if (!isDynamic) {
-            permanentResults = results.toString();
+            permanentResults = result;
+        }
+        return result;
+    }
+
+    private static String evaluate(Object item, SampleResult previousResult, Sampler currentSampler,
+            JMeterVariables vars) {
+        if (item instanceof Function) {
+            try {
+                return String.valueOf(((Function) item).execute(previousResult, currentSampler));
+            } catch (InvalidVariableException e) {
+                // TODO should level be more than debug ?
+                if(log.isDebugEnabled()) {
+                    log.debug("Invalid variable:"+item, e);
+                }
+                return ""; // $NON-NLS-1$
+            }
+        } else if (item instanceof SimpleVariable) {
+            return ((SimpleVariable) item).getValue(vars);
+        } else {
+            return String.valueOf(item);
         }
-        return results.toString();
     }
 
-    @SuppressWarnings("unchecked") // clone will produce correct type
     public CompoundVariable getFunction() {
         CompoundVariable func = new CompoundVariable();
-        func.compiledComponents = (LinkedList<Object>) compiledComponents.clone();
+        func.compiledComponents = compiledComponents;
+        func.hasVariable = hasVariable;
+        func.estimatedLength = estimatedLength;
         func.rawParameters = rawParameters;
         func.hasFunction = hasFunction;
         func.isDynamic = isDynamic;
         return func;
     }
 
+    /**
+     * Forget the compiled strings, whose variable references hold the slots of a previous test.
+     * Called at the start of each test with {@link JMeterVariables#resetSlots()}.
+     */
+    public static void clearCompiledTemplates() {
+        TEMPLATES.clear();
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<String> getArgumentDesc() {
@@ -177,7 +234,8 @@ public class CompoundVariable implements Function {
     public void clear() {
         // TODO should this also clear isDynamic, rawParameters, permanentResults?
         hasFunction = false;
-        compiledComponents.clear();
+        compiledComponents = NO_COMPONENTS;
+        hasVariable = false;
     }
 
     public void setParameters(String parameters) throws InvalidVariableException {
@@ -186,17 +244,77 @@ public class CompoundVariable implements Function {
             return;
         }
 
-        compiledComponents = functionParser.compileString(parameters);
-        if (compiledComponents.size() > 1 || !(compiledComponents.get(0) instanceof String)) {
-            hasFunction = true;
+        Template template = TEMPLATES.get(parameters);
+        if (template == null) {
+            template = new Template(functionParser.compileString(parameters));
+            if (!template.hasFunctionInstance && parameters.length() <= MAX_CACHED_TEMPLATE_LENGTH) {
+                if (TEMPLATES.size() >= MAX_CACHED_TEMPLATES) {
+                    TEMPLATES.clear();
+                }
+                TEMPLATES.putIfAbsent(parameters, template);
+            }
         }
+        compiledComponents = template.components;
+        hasFunction = template.hasFunction;
+        hasVariable = template.hasVariable;
+        estimatedLength = template.literalLength + 16 * template.dynamicCount;
         permanentResults = null; // To be calculated and cached on first execution
-        isDynamic = false;
-        for (Object item : compiledComponents) {
-            if (item instanceof Function || item instanceof SimpleVariable) {
-                isDynamic = true;
-                break;
+        isDynamic = template.dynamicCount > 0;
+    }
+
+    /**
+     * Result of the parsing of a string, with adjacent literals merged
+     */
+    private static final class Template {
+        private final Object[] components;
+
+        /** Same meaning as {@link CompoundVariable#hasFunction()}, computed before merging literals */
+        private final boolean hasFunction;
+
+        private final boolean hasFunctionInstance;
+
+        private final boolean hasVariable;
+
+        private final int dynamicCount;
+
+        private final int literalLength;
+
+        Template(LinkedList<Object> parsed) {
+            hasFunction = parsed.size() > 1 || !(parsed.get(0) instanceof String);
+            List<Object> merged = new ArrayList<>(parsed.size());
+            StringBuilder literal = null;
+            boolean functionInstance = false;
+            boolean variable = false;
+            int dynamic = 0;
+            int length = 0;
+            for (Object item : parsed) {
+                if (item instanceof Function || item instanceof SimpleVariable) {
+                    if (literal != null) {
+                        merged.add(literal.toString());
+                        literal = null;
+                    }
+                    merged.add(item);
+                    dynamic++;
+                    functionInstance |= item instanceof Function;
+                    variable |= item instanceof SimpleVariable;
+                } else {
+                    String text = String.valueOf(item);
+                    length += text.length();
+                    if (literal == null) {
+                        literal = new StringBuilder(text);
+                    } else {
+                        literal.append(text);
+                    }
+                }
+            }
+            if (literal != null) {
+                merged.add(literal.toString());
             }
+            components = merged.toArray();
+            hasFunctionInstance = functionInstance;
+            hasVariable = variable;
+            dynamicCount = dynamic;
+            literalLength = length;
         }
     }
 
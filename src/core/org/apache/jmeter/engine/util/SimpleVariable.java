@@ -26,12 +26,16 @@ public class SimpleVariable {
 
     private String name;
 
+    /** Slot of the variable in {@link JMeterVariables}, or -1 */
+    private int slot;
+
     public SimpleVariable(String name) {
-        this.name = name;
+        setName(name);
     }
 
     public SimpleVariable() {
         this.name = ""; //$NON-NLS-1$
+        this.slot = -1;
     }
 
     public String getName() {
@@ -40,6 +44,7 @@ public class SimpleVariable {
 
     public void setName(String name) {
         this.name = name;
+        this.slot = JMeterVariables.getSlot(name);
     }
 
     /**
@@ -47,11 +52,18 @@ public class SimpleVariable {
      */
     @Override
     public String toString() {
+        return getValue(getVariables());
+    }
+
+    /**
+     * @param vars variables of the current thread, may be null
+     * @return the value of the variable, or its reference if it is not defined
+     */
+    String getValue(JMeterVariables vars) {
         String ret = null;
-        JMeterVariables vars = getVariables();
 
         if (vars != null) {
-            ret = vars.get(name);
+            ret = slot >= 0 ? (String) vars.getObject(slot, name) : vars.get(name);
         }
 
         if (ret == null) {
@@ -29,6 +29,8 @@ import java.util.StringTokenizer;
 import org.apache.jmeter.JMeter;
 import org.apache.jmeter.engine.DistributedRunner;
 import org.apache.jmeter.gui.GuiPackage;
+import org.apache.jmeter.samplers.Remoteable;
+import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.RemoteThreadsListenerTestElement;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
@@ -113,6 +115,30 @@ public class RemoteStart extends AbstractAction {
         testTree.add(testTree.getArray()[0], gui.getMainFrame());
         // Used for remote notification of threads start/stop,see BUG 54152
         testTree.add(testTree.getArray()[0], new RemoteThreadsListenerTestElement());
+        testTree.add(testTree.getArray()[0], new HeartbeatStopper());
         return testTree;
     }
+
+    /**
+     * Stops the heartbeats of a remote engine once its test has ended
+     */
+    private class HeartbeatStopper implements TestStateListener, Remoteable {
+        @Override
+        public void testStarted() {
+        }
+
+        @Override
+        public void testStarted(String host) {
+        }
+
+        @Override
+        public void testEnded() {
+        }
+
+        @Override
+        // N.B. this is called by a daemon RMI thread from the remote host
+        public void testEnded(String host) {
+            distributedRunner.stopHeartbeat(host);
+        }
+    }
 }
@@ -70,6 +70,21 @@ public class ReportGeneratorConfiguration {
     private static final String REPORT_GENERATOR_KEY_REPORT_TITLE = REPORT_GENERATOR_KEY_PREFIX
             + KEY_DELIMITER + "report_title";
 
+    // Number of threads running the sample consumers, 0 for one per processor
+    private static final String REPORT_GENERATOR_KEY_CONSUMER_THREADS = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "consumer_threads";
+    private static final Integer REPORT_GENERATOR_KEY_CONSUMER_THREADS_DEFAULT = Integer.valueOf(0);
+
+    // Interval between exports of a live report in seconds, 0 to disable live reports
+    private static final String REPORT_GENERATOR_KEY_LIVE_REFRESH_INTERVAL = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "live_refresh_interval";
+    private static final Long REPORT_GENERATOR_KEY_LIVE_REFRESH_INTERVAL_DEFAULT = Long.valueOf(0L);
+
+    // Maximum number of samples waiting to be processed by the live report
+    private static final String REPORT_GENERATOR_KEY_LIVE_QUEUE_SIZE = REPORT_GENERATOR_KEY_PREFIX
+            + KEY_DELIMITER + "live_queue_size";
+    private static final Integer REPORT_GENERATOR_KEY_LIVE_QUEUE_SIZE_DEFAULT = Integer.valueOf(100000);
+
     private static final String LOAD_EXPORTER_FMT = "Load configuration for exporter \"%s\"";
     private static final String LOAD_GRAPH_FMT = "Load configuration for graph \"%s\"";
     private static final String INVALID_KEY_FMT = "Invalid property \"%s\", skip it.";
@@ -264,6 +279,9 @@ public class ReportGeneratorConfiguration {
     private File tempDirectory;
     private long apdexSatisfiedThreshold;
     private long apdexToleratedThreshold;
+    private int consumerThreads;
+    private long liveRefreshInterval;
+    private int liveQueueSize;
     private Pattern filteredSamplesPattern;
     private Map<String, ExporterConfiguration> exportConfigurations = new HashMap<>();
     private Map<String, GraphConfiguration> graphConfigurations = new HashMap<>();
@@ -287,6 +305,67 @@ public class ReportGeneratorConfiguration {
         this.sampleFilter = sampleFilter;
     }
 
+    /**
+     * Gets the number of threads running the sample consumers.
+     *
+     * @return the number of threads, 0 for one per available processor
+     */
+    public final int getConsumerThreads() {
+        return consumerThreads;
+    }
+
+    /**
+     * Sets the number of threads running the sample consumers.
+     *
+     * @param consumerThreads
+     *            the number of threads, 0 for one per available processor
+     */
+    public final void setConsumerThreads(int consumerThreads) {
+        this.consumerThreads = consumerThreads;
+    }
+
+    /**
+     * Gets the interval between exports of the live report.
+     *
+     * @return the interval in seconds, 0 if the report is only generated at
+     *         the end of the test
+     */
+    public final long getLiveRefreshInterval() {
+        return liveRefreshInterval;
+    }
+
+    /**
+     * Sets the interval between exports of the live report.
+     *
+     * @param liveRefreshInterval
+     *            the interval in seconds, 0 if the report is only generated at
+     *            the end of the test
+     */
+    public final void setLiveRefreshInterval(long liveRefreshInterval) {
+        this.liveRefreshInterval = liveRefreshInterval;
+    }
+
+    /**
+     * Gets the maximum number of samples waiting to be processed by the live
+     * report.
+     *
+     * @return the maximum number of samples
+     */
+    public final int getLiveQueueSize() {
+        return liveQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of samples waiting to be processed by the live
+     * report.
+     *
+     * @param liveQueueSize
+     *            the maximum number of samples
+     */
+    public final void setLiveQueueSize(int liveQueueSize) {
+        this.liveQueueSize = liveQueueSize;
+    }
+
     /**
      * Gets the temporary directory.
      *
@@ -613,6 +692,27 @@ public class ReportGeneratorConfiguration {
                 REPORT_GENERATOR_KEY_REPORT_TITLE, String.class);
         configuration.setReportTitle(reportTitle);
 
+        // Load number of consumer threads
+        final int consumerThreads = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_CONSUMER_THREADS,
+                REPORT_GENERATOR_KEY_CONSUMER_THREADS_DEFAULT,
+                int.class).intValue();
+        configuration.setConsumerThreads(consumerThreads);
+
+        // Load live report refresh interval
+        final long liveRefreshInterval = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_LIVE_REFRESH_INTERVAL,
+                REPORT_GENERATOR_KEY_LIVE_REFRESH_INTERVAL_DEFAULT,
+                long.class).longValue();
+        configuration.setLiveRefreshInterval(liveRefreshInterval);
+
+        // Load live report queue size
+        final int liveQueueSize = getRequiredProperty(props,
+                REPORT_GENERATOR_KEY_LIVE_QUEUE_SIZE,
+                REPORT_GENERATOR_KEY_LIVE_QUEUE_SIZE_DEFAULT,
+                int.class).intValue();
+        configuration.setLiveQueueSize(liveQueueSize);
+
         // Find graph identifiers and load a configuration for each
         final Map<String, GraphConfiguration> graphConfigurations = configuration
                 .getGraphConfigurations();
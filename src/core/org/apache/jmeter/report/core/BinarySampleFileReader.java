@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.core;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.text.DateFormat;
+import java.util.Date;
+
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BinarySampleReader;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.util.JOrphanUtils;
+
+/**
+ * Reader class for reading binary results files written by
+ * {@link org.apache.jmeter.save.BinarySampleWriter}.
+ * <p>
+ * Samples have the same column names as CSV files, so they can be processed
+ * by the same consumers.
+ * </p>
+ * 
+ * @since 3.1
+ */
+public class BinarySampleFileReader extends SampleReader {
+
+    private static final char DEFAULT_SEPARATOR =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.default_delimiter", ",").charAt(0); //$NON-NLS-1$ //$NON-NLS-2$
+
+    private final BinarySampleReader reader;
+
+    private final SampleMetadata metadata;
+
+    /** Formatter for time stamps, null if they are in milliseconds */
+    private final DateFormat formatter;
+
+    private final int timeStampColumn;
+
+    private long row;
+
+    /**
+     * Instantiates a new binary sample reader.
+     *
+     * @param inputFile
+     *            the input file (must not be {@code null})
+     */
+    public BinarySampleFileReader(File inputFile) {
+        if (!(inputFile.isFile() && inputFile.canRead())) {
+            throw new IllegalArgumentException(inputFile.getAbsolutePath()
+                    + " does not exist or is not readable");
+        }
+        try {
+            this.reader = new BinarySampleReader(new BufferedInputStream(
+                    new FileInputStream(inputFile)));
+        } catch (IOException ex) {
+            throw new SampleException("Could not create binary file reader !", ex);
+        }
+        this.metadata = new SampleMetadata(DEFAULT_SEPARATOR, BinarySampleReader.getColumnNames());
+        // Time stamps are stored in milliseconds, present them as CSV files would
+        SampleSaveConfiguration config = SampleSaveConfiguration.staticConfig();
+        this.formatter = config.printMilliseconds() ? null : config.formatter();
+        this.timeStampColumn = metadata.ensureIndexOf(CSVSaveService.TIME_STAMP);
+        this.row = 0;
+    }
+
+    /**
+     * Indicates whether the file is a binary results file
+     *
+     * @param file the file to check
+     * @return true if it can be read by this class
+     */
+    public static boolean isBinaryFile(File file) {
+        return BinarySampleReader.isBinaryFile(file);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SampleMetadata getMetadata() {
+        return metadata;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Sample readSample() {
+        try {
+            if (!reader.next()) {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new SampleException("Could not read sample <" + row + ">", e);
+        }
+        String[] data = reader.getValuesAsStrings();
+        if (formatter != null) {
+            data[timeStampColumn] = formatter.format(new Date(reader.getLong(timeStampColumn)));
+        }
+        return new Sample(row++, metadata, data);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        JOrphanUtils.closeQuietly(reader);
+    }
+}
@@ -18,7 +18,6 @@
 package org.apache.jmeter.report.core;
 
 import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -41,7 +40,7 @@ import org.apache.log.Logger;
  * 
  * @since 3.0
  */
-public class CsvSampleReader implements Closeable{
+public class CsvSampleReader extends SampleReader {
 
     private static final Logger LOG = LoggingManager.getLoggerForClass();
     private static final int BUF_SIZE = 10000;
@@ -152,6 +151,7 @@ public class CsvSampleReader implements Closeable{
      *
      * @return the metadata
      */
+    @Override
     public SampleMetadata getMetadata() {
         return metadata;
     }
@@ -179,6 +179,7 @@ public class CsvSampleReader implements Closeable{
      *
      * @return the sample
      */
+    @Override
     public Sample readSample() {
         Sample out = lastSampleRead;
         lastSampleRead = nextSample();
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.report.core;
+
+import java.io.Closeable;
+
+/**
+ * Describes sample reader basic operations.<br>
+ * <br>
+ * Basically a sample reader is able to read samples from an unknown source,
+ * describe them with metadata and close itself. <br>
+ * 
+ * @since 3.1
+ */
+abstract public class SampleReader implements Closeable {
+
+    /**
+     * Gets the metadata describing the samples read
+     * 
+     * @return the metadata
+     */
+    abstract public SampleMetadata getMetadata();
+
+    /**
+     * Gets next sample from the underlying source.
+     * 
+     * @return the sample or {@code null} if there are no more samples
+     */
+    abstract public Sample readSample();
+
+    /**
+     * Close the reader, without throwing any exception.
+     */
+    @Override
+    abstract public void close();
+}
@@ -364,7 +364,10 @@ public class HtmlTemplateExporter extends AbstractDataExporter {
             outputDir = new File(globallyDefinedOutputDir);
         }
         
-        JOrphanUtils.canSafelyWriteToFolder(outputDir);
+        // A live report overwrites its previous export
+        if (!context.isLive()) {
+            JOrphanUtils.canSafelyWriteToFolder(outputDir);
+        }
 
         LOG.info("Will generate dashboard in folder:" + outputDir.getAbsolutePath());
 
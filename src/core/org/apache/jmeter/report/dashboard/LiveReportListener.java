@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.dashboard;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.processor.AbstractSampleConsumer;
+import org.apache.jmeter.report.processor.SampleContext;
+import org.apache.jmeter.samplers.Remoteable;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleMetrics;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.save.CSVSaveService;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.testelement.TestStateListener;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+/**
+ * Listener generating the dashboard while the test is running.
+ * <p>
+ * Samples are handed to a background thread, which feeds them to the same
+ * consumers as {@link ReportGenerator} and exports their results every
+ * <code>jmeter.reportgenerator.live_refresh_interval</code> seconds. The
+ * final dashboard is exported when the test ends, so the results file does
+ * not need to be read again.
+ * </p>
+ * <p>
+ * Only the {@link SampleMetrics} and messages of the samples are queued, not
+ * their responses. When the queue is full, samples are dropped rather than
+ * slowing down the sampling threads, and the final dashboard is then generated
+ * from the results file by {@link ReportGenerator#generate()}.
+ * </p>
+ * <p>
+ * Graphs that need all the samples before computing their results, like the
+ * "versus requests" graphs, are only exported at the end of the test.
+ * </p>
+ * 
+ * @since 3.1
+ */
+public class LiveReportListener extends AbstractTestElement
+        implements Serializable, SampleListener, TestStateListener, NoThreadClone, Remoteable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG = LoggingManager.getLoggerForClass();
+
+    private static final char SEPARATOR =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.default_delimiter", ",").charAt(0); //$NON-NLS-1$ //$NON-NLS-2$
+
+    /** Columns used by the report consumers, see {@link Sample} */
+    private static final SampleMetadata METADATA = new SampleMetadata(SEPARATOR,
+            CSVSaveService.TIME_STAMP,
+            CSVSaveService.CSV_ELAPSED,
+            CSVSaveService.LABEL,
+            CSVSaveService.RESPONSE_CODE,
+            CSVSaveService.RESPONSE_MESSAGE,
+            CSVSaveService.THREAD_NAME,
+            CSVSaveService.SUCCESSFUL,
+            CSVSaveService.FAILURE_MESSAGE,
+            CSVSaveService.CSV_BYTES,
+            CSVSaveService.CSV_THREAD_COUNT1,
+            CSVSaveService.CSV_THREAD_COUNT2,
+            CSVSaveService.CSV_LATENCY);
+
+    /** How long the consuming thread waits for samples before checking whether a refresh is due, in ms */
+    private static final long POLL_TIMEOUT = 1000;
+
+    private final transient ReportGenerator generator;
+
+    /** Interval between exports in ms */
+    private final long refreshInterval;
+
+    //@GuardedBy("this")
+    private transient int hostCount;
+
+    private transient volatile BlockingQueue<LiveSample> queue;
+
+    private transient volatile Thread consumingThread;
+
+    private transient volatile boolean running;
+
+    private final transient AtomicLong dropped = new AtomicLong();
+
+    /** Whether the last test was entirely exported by this listener */
+    private transient volatile boolean complete;
+
+    /**
+     * Instantiates a new live report listener.
+     *
+     * @param generator
+     *            the report generator providing the configuration, the
+     *            consumers and the exporters
+     * @param refreshInterval
+     *            the interval between exports in ms
+     */
+    LiveReportListener(ReportGenerator generator, long refreshInterval) {
+        this.generator = generator;
+        this.refreshInterval = refreshInterval;
+        setName("Live report"); // $NON-NLS-1$
+    }
+
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        BlockingQueue<LiveSample> q = queue;
+        if (q == null) {
+            return;
+        }
+        SampleResult res = e.getResult();
+        if (!q.offer(new LiveSample(e.getMetrics(), res.getResponseMessage(), getFailureMessage(res)))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void sampleStarted(SampleEvent e) {
+        // not used
+    }
+
+    @Override
+    public void sampleStopped(SampleEvent e) {
+        // not used
+    }
+
+    /**
+     * Converts a sample result to a sample with the columns of
+     * {@link #METADATA}, as it would be read from a CSV results file with
+     * time stamps in milliseconds.
+     */
+    private static Sample toSample(long row, LiveSample liveSample) {
+        SampleMetrics metrics = liveSample.metrics;
+        return new Sample(row, METADATA,
+                Long.toString(metrics.getTimeStamp()),
+                Long.toString(metrics.getTime()),
+                metrics.getLabel(),
+                metrics.getResponseCode(),
+                liveSample.responseMessage,
+                metrics.getThreadName(),
+                Boolean.toString(metrics.isSuccessful()),
+                liveSample.failureMessage,
+                Long.toString(metrics.getBytes()),
+                Integer.toString(metrics.getGroupThreads()),
+                Integer.toString(metrics.getAllThreads()),
+                Long.toString(metrics.getLatency()));
+    }
+
+    /**
+     * @return the first non null assertion failure message, as written to CSV files
+     */
+    private static String getFailureMessage(SampleResult res) {
+        AssertionResult[] results = res.getAssertionResults();
+        if (results != null) {
+            for (AssertionResult result : results) {
+                String message = result.getFailureMessage();
+                if (message != null) {
+                    return message;
+                }
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public void testStarted() {
+        testStarted("local"); // $NON-NLS-1$
+    }
+
+    @Override
+    public void testStarted(String host) {
+        synchronized (this) {
+            if (hostCount++ > 0 || generator == null) {
+                return;
+            }
+            // Further samples are dropped when the queue is full
+            queue = new ArrayBlockingQueue<>(generator.getConfiguration().getLiveQueueSize());
+            running = true;
+            complete = false;
+            dropped.set(0);
+            consumingThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    consumeSamples();
+                }
+            }, getName());
+            consumingThread.setDaemon(true);
+            consumingThread.start();
+        }
+    }
+
+    @Override
+    public void testEnded() {
+        testEnded("local"); // $NON-NLS-1$
+    }
+
+    @Override
+    public void testEnded(String host) {
+        Thread thread;
+        synchronized (this) {
+            if (--hostCount > 0 || consumingThread == null) {
+                return;
+            }
+            thread = consumingThread;
+            consumingThread = null;
+            running = false;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue = null;
+        if (dropped.get() > 0) {
+            LOG.warn("Live report dropped " + dropped.get() + " samples as its queue was full,"
+                    + " the dashboard will be generated from the results file."
+                    + " Increase jmeter.reportgenerator.live_queue_size to avoid it");
+        }
+    }
+
+    /**
+     * Indicates whether the dashboard of the last test was exported from all
+     * of its samples, so that it does not need to be generated again from the
+     * results file.
+     *
+     * @return true if no sample was dropped and the final export succeeded
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Feeds the samples to the consumers until the test ends, exporting their
+     * results periodically and once all the samples have been consumed.
+     */
+    private void consumeSamples() {
+        ReportGenerator gen = generator;
+        File tmpDir = gen.getConfiguration().getTempDirectory();
+        boolean tmpDirCreated = false;
+        try {
+            tmpDirCreated = gen.createTempDir(tmpDir);
+
+            SampleContext sampleContext = new SampleContext();
+            sampleContext.setWorkingDirectory(tmpDir);
+            sampleContext.setLive(true);
+
+            // Samples are already normalized, consumers run on this thread
+            LiveProducer producer = new LiveProducer();
+            gen.addSampleConsumers(producer, 1);
+            producer.setSampleContext(sampleContext);
+            producer.setConsumedMetadata(METADATA, 0);
+            producer.startConsuming();
+
+            long count = 0;
+            long exportedCount = 0;
+            long nextRefresh = System.currentTimeMillis() + refreshInterval;
+            BlockingQueue<LiveSample> q = queue;
+            while (running || !q.isEmpty()) {
+                LiveSample liveSample = q.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (liveSample != null) {
+                    producer.consume(toSample(count++, liveSample), 0);
+                }
+                long now = System.currentTimeMillis();
+                if (now >= nextRefresh) {
+                    nextRefresh = now + refreshInterval;
+                    // Nothing to show before the first sample
+                    if (count > exportedCount) {
+                        producer.publishResults();
+                        gen.exportData(sampleContext);
+                        exportedCount = count;
+                    }
+                }
+            }
+            producer.stopConsuming();
+            if (count > 0) {
+                gen.exportData(sampleContext);
+                complete = dropped.get() == 0;
+                LOG.info("Live report generated from " + count + " samples");
+            } else {
+                LOG.warn("No sample was received, live report was not generated");
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Live report was interrupted");
+        } catch (Exception e) {
+            LOG.error("Error generating live report: " + e.getMessage(), e);
+            // Stop accepting samples
+            queue = null;
+        } finally {
+            gen.removeTempDir(tmpDir, tmpDirCreated);
+        }
+    }
+
+    /**
+     * What is needed from a sample to build its report {@link Sample}
+     */
+    private static final class LiveSample {
+        private final SampleMetrics metrics;
+
+        private final String responseMessage;
+
+        private final String failureMessage;
+
+        LiveSample(SampleMetrics metrics, String responseMessage, String failureMessage) {
+            this.metrics = metrics;
+            this.responseMessage = responseMessage;
+            this.failureMessage = failureMessage;
+        }
+    }
+
+    /**
+     * Reproduces the samples of the test to the consumers
+     */
+    private static class LiveProducer extends AbstractSampleConsumer {
+
+        @Override
+        public void startConsuming() {
+            super.setProducedMetadata(getConsumedMetadata(0), 0);
+            super.startProducing();
+        }
+
+        @Override
+        public void consume(Sample sample, int channel) {
+            super.produce(sample, channel);
+        }
+
+        @Override
+        public void stopConsuming() {
+            super.stopProducing();
+        }
+    }
+}
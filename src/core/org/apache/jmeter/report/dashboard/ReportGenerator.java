@@ -50,7 +50,9 @@ import org.apache.jmeter.report.processor.FilterConsumer;
 import org.apache.jmeter.report.processor.MaxAggregator;
 import org.apache.jmeter.report.processor.MinAggregator;
 import org.apache.jmeter.report.processor.NormalizerSampleConsumer;
+import org.apache.jmeter.report.processor.ParallelSampleConsumer;
 import org.apache.jmeter.report.processor.RequestsSummaryConsumer;
+import org.apache.jmeter.report.processor.SampleConsumer;
 import org.apache.jmeter.report.processor.SampleContext;
 import org.apache.jmeter.report.processor.SampleSource;
 import org.apache.jmeter.report.processor.StatisticsSummaryConsumer;
@@ -72,9 +74,12 @@ public class ReportGenerator {
 
     private static final Logger LOG = LoggingManager.getLoggerForClass();
 
-    private static final boolean CSV_OUTPUT_FORMAT = "csv"
-            .equalsIgnoreCase(JMeterUtils.getPropDefault(
-                    "jmeter.save.saveservice.output_format", "csv"));
+    private static final String OUTPUT_FORMAT = JMeterUtils.getPropDefault(
+            "jmeter.save.saveservice.output_format", "csv");
+
+    // Binary results files are read as CSV ones, see CsvFileSampleSource
+    private static final boolean CSV_OUTPUT_FORMAT = "csv".equalsIgnoreCase(OUTPUT_FORMAT)
+            || "binary".equalsIgnoreCase(OUTPUT_FORMAT);
 
     private static final char CSV_DEFAULT_SEPARATOR =
             JMeterUtils.getPropDefault("jmeter.save.saveservice.default_delimiter", ",").charAt(0); //$NON-NLS-1$ //$NON-NLS-2$
@@ -92,6 +97,7 @@ public class ReportGenerator {
     public static final String REQUESTS_SUMMARY_CONSUMER_NAME = "requestsSummary";
     public static final String STATISTICS_SUMMARY_CONSUMER_NAME = "statisticsSummary";
     public static final String START_INTERVAL_CONTROLLER_FILTER_CONSUMER_NAME = "startIntervalControlerFilter";
+    public static final String PARALLEL_CONSUMER_NAME = "parallelConsumer";
 
     private static final Pattern POTENTIAL_CAMEL_CASE_PATTERN = Pattern.compile("_(.)");
 
@@ -103,6 +109,9 @@ public class ReportGenerator {
      */
     private final ResultCollector resultCollector;
 
+    /** Listener generating the dashboard during the test, if enabled */
+    private LiveReportListener liveReportListener;
+
     /**
      * Instantiates a new report generator.
      *
@@ -116,7 +125,7 @@ public class ReportGenerator {
             throws ConfigurationException {
         if (!CSV_OUTPUT_FORMAT) {
             throw new IllegalArgumentException(
-                    "Report generation requires csv output format, check 'jmeter.save.saveservice.output_format' property");
+                    "Report generation requires csv or binary output format, check 'jmeter.save.saveservice.output_format' property");
         }
 
         LOG.info("ReportGenerator will use for Parsing the separator:'"+CSV_DEFAULT_SEPARATOR+"'");
@@ -193,6 +202,14 @@ public class ReportGenerator {
      */
     public void generate() throws GenerationException {
 
+        LiveReportListener live = liveReportListener;
+        if (live != null) {
+            if (live.isComplete()) {
+                LOG.info("Dashboard was generated during the test, not reading the results file");
+                return;
+            }
+            LOG.info("Live dashboard is incomplete, generating it from the results file");
+        }
         if (resultCollector != null) {
             LOG.info("Flushing result collector before report Generation");
             resultCollector.flushFile();
@@ -205,6 +222,8 @@ public class ReportGenerator {
         // Build consumers chain
         SampleContext sampleContext = new SampleContext();
         sampleContext.setWorkingDirectory(tmpDir);
+        // Overwrite what the live dashboard exported
+        sampleContext.setLive(live != null);
         SampleSource source = new CsvFileSampleSource(testFile, JMeterUtils
                 .getPropDefault("jmeter.save.saveservice.default_delimiter",
                         ",").charAt(0));
@@ -213,18 +232,85 @@ public class ReportGenerator {
         NormalizerSampleConsumer normalizer = new NormalizerSampleConsumer();
         normalizer.setName(NORMALIZER_CONSUMER_NAME);
 
-        normalizer.addSampleConsumer(createBeginDateConsumer());
-        normalizer.addSampleConsumer(createEndDateConsumer());
+        addSampleConsumers(normalizer, configuration.getConsumerThreads());
 
-        FilterConsumer nameFilter = createNameFilter();
+        source.addSampleConsumer(normalizer);
 
-        FilterConsumer excludeControllerFilter = createExcludeControllerFilter();
+        // Generate data
+        LOG.debug("Start samples processing");
+        try {
+            source.run();
+        } catch (SampleException ex) {
+            throw new GenerationException("Error while processing samples:"+ex.getMessage(), ex);
+        }
+        LOG.debug("End of samples processing");
 
-        nameFilter.addSampleConsumer(excludeControllerFilter);
+        exportData(sampleContext);
 
-        normalizer.addSampleConsumer(nameFilter);
+        removeTempDir(tmpDir, tmpDirCreated);
 
-        source.addSampleConsumer(normalizer);
+        LOG.debug("End of report generation");
+
+    }
+
+    /**
+     * Creates a listener generating the dashboard from the samples of the
+     * running test, if the live report is enabled.
+     *
+     * {@link #generate()} then only reads the results file if the listener
+     * could not export the dashboard from all the samples.
+     *
+     * @return the listener to add to the test tree, or null if the dashboard is
+     *         only generated from the results file at the end of the test
+     */
+    public LiveReportListener createLiveReportListener() {
+        long interval = configuration.getLiveRefreshInterval();
+        if (resultCollector == null || interval <= 0) {
+            return null;
+        }
+        liveReportListener = new LiveReportListener(this, interval * 1000);
+        return liveReportListener;
+    }
+
+    /**
+     * Gets the configuration of the report generator.
+     *
+     * @return the configuration
+     */
+    ReportGeneratorConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Adds the summary and graph consumers, which consume normalized samples,
+     * to the specified consumer.
+     *
+     * @param parent
+     *            the consumer producing normalized samples
+     * @param consumerThreads
+     *            the number of threads running the summary and graph
+     *            consumers, 0 for one per processor
+     * @throws GenerationException
+     *             when a graph consumer cannot be created
+     */
+    void addSampleConsumers(AbstractSampleConsumer parent, int consumerThreads)
+            throws GenerationException {
+        parent.addSampleConsumer(createBeginDateConsumer());
+        parent.addSampleConsumer(createEndDateConsumer());
+
+        FilterConsumer nameFilter = createNameFilter();
+
+        // Summary and graph consumers run on several threads
+        ParallelSampleConsumer parallelConsumer = createParallelConsumer(consumerThreads);
+        parallelConsumer.addSampleConsumer(createApdexSummaryConsumer());
+        parallelConsumer.addSampleConsumer(createRequestsSummaryConsumer());
+        parallelConsumer.addSampleConsumer(createStatisticsSummaryConsumer());
+        parallelConsumer.addSampleConsumer(
+                createExcludeControllerFilter(createErrorsSummaryConsumer()));
+
+        nameFilter.addSampleConsumer(parallelConsumer);
+
+        parent.addSampleConsumer(nameFilter);
 
         // Get graph configurations
         Map<String, GraphConfiguration> graphConfigurations = configuration
@@ -233,19 +319,20 @@ public class ReportGenerator {
         // Process configuration to build graph consumers
         for (Map.Entry<String, GraphConfiguration> entryGraphCfg : graphConfigurations
                 .entrySet()) {
-            addGraphConsumer(nameFilter, excludeControllerFilter,
-                    entryGraphCfg);
-        }
-
-        // Generate data
-        LOG.debug("Start samples processing");
-        try {
-            source.run();
-        } catch (SampleException ex) {
-            throw new GenerationException("Error while processing samples:"+ex.getMessage(), ex);
+            addGraphConsumer(parallelConsumer, entryGraphCfg);
         }
-        LOG.debug("End of samples processing");
+    }
 
+    /**
+     * Exports the results stored in the sample context with every configured
+     * exporter.
+     *
+     * @param sampleContext
+     *            the context holding the results of the consumers
+     * @throws GenerationException
+     *             when an exporter fails
+     */
+    void exportData(SampleContext sampleContext) throws GenerationException {
         LOG.debug("Start data exporting");
 
         // Process configuration to build data exporters
@@ -257,14 +344,9 @@ public class ReportGenerator {
         }
 
         LOG.debug("End of data exporting");
-
-        removeTempDir(tmpDir, tmpDirCreated);
-
-        LOG.debug("End of report generation");
-
     }
 
-    private void removeTempDir(File tmpDir, boolean tmpDirCreated) {
+    void removeTempDir(File tmpDir, boolean tmpDirCreated) {
         if (tmpDirCreated) {
             try {
                 FileUtils.deleteDirectory(tmpDir);
@@ -276,7 +358,7 @@ public class ReportGenerator {
         }
     }
 
-    private boolean createTempDir(File tmpDir) throws GenerationException {
+    boolean createTempDir(File tmpDir) throws GenerationException {
         boolean tmpDirCreated = false;
         if (!tmpDir.exists()) {
             tmpDirCreated = tmpDir.mkdir();
@@ -290,8 +372,7 @@ public class ReportGenerator {
         return tmpDirCreated;
     }
 
-    private void addGraphConsumer(FilterConsumer nameFilter,
-            FilterConsumer excludeControllerFilter,
+    private void addGraphConsumer(ParallelSampleConsumer parallelConsumer,
             Map.Entry<String, GraphConfiguration> entryGraphCfg)
             throws GenerationException {
         String graphName = entryGraphCfg.getKey();
@@ -320,11 +401,14 @@ public class ReportGenerator {
                         propertyValue, setterName);
             }
 
-            // Choose which entry point to use to plug the graph
-            AbstractSampleConsumer entryPoint = graphConfiguration
-                    .excludesControllers() ? excludeControllerFilter
-                    : nameFilter;
-            entryPoint.addSampleConsumer(graph);
+            // Each graph excluding controllers has its own filter, so that
+            // the filter runs on the same thread as the graph
+            if (graphConfiguration.excludesControllers()) {
+                parallelConsumer.addSampleConsumer(
+                        createExcludeControllerFilter(graph));
+            } else {
+                parallelConsumer.addSampleConsumer(graph);
+            }
         } catch (ClassNotFoundException | IllegalAccessException
                 | InstantiationException | ClassCastException ex) {
             String error = String.format(INVALID_CLASS_FMT, className);
@@ -364,14 +448,21 @@ public class ReportGenerator {
         return errorsSummaryConsumer;
     }
 
-    private FilterConsumer createExcludeControllerFilter() {
+    private ParallelSampleConsumer createParallelConsumer(int consumerThreads) {
+        ParallelSampleConsumer parallelConsumer = new ParallelSampleConsumer(
+                consumerThreads);
+        parallelConsumer.setName(PARALLEL_CONSUMER_NAME);
+        return parallelConsumer;
+    }
+
+    private FilterConsumer createExcludeControllerFilter(SampleConsumer consumer) {
         FilterConsumer excludeControllerFilter = new FilterConsumer();
         excludeControllerFilter
                 .setName(START_INTERVAL_CONTROLLER_FILTER_CONSUMER_NAME);
         excludeControllerFilter
                 .setSamplePredicate(new ControllerSamplePredicate());
         excludeControllerFilter.setReverseFilter(true);
-        excludeControllerFilter.addSampleConsumer(createErrorsSummaryConsumer());
+        excludeControllerFilter.addSampleConsumer(consumer);
         return excludeControllerFilter;
     }
 
@@ -423,9 +514,6 @@ public class ReportGenerator {
                         || filteredSamplesPattern.matcher(sample.getName()).matches();
             }
         });
-        nameFilter.addSampleConsumer(createApdexSummaryConsumer());
-        nameFilter.addSampleConsumer(createRequestsSummaryConsumer());
-        nameFilter.addSampleConsumer(createStatisticsSummaryConsumer());
         return nameFilter;
     }
 
@@ -234,6 +234,21 @@ public abstract class AbstractSampleConsumer extends AbstractSampleProcessor
         }
     }
 
+    /**
+     * Stores the results of the samples consumed so far in the sample context,
+     * without ending the consumption, so that they can be exported while
+     * samples are still being produced.<br>
+     * This implementation propagates the request to the consumers of this
+     * consumer; consumers computing results override it to store them too.
+     */
+    public void publishResults() {
+        for (SampleConsumer consumer : this.sampleConsumers) {
+            if (consumer instanceof AbstractSampleConsumer) {
+                ((AbstractSampleConsumer) consumer).publishResults();
+            }
+        }
+    }
+
     @Override
     public void stopProducing() {
         for (SampleConsumer consumer : this.sampleConsumers) {
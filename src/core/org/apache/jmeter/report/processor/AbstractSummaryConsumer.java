@@ -246,6 +246,22 @@ public abstract class AbstractSummaryConsumer<TData> extends
      */
     @Override
     public void stopConsuming() {
+        storeResult();
+
+        super.stopProducing();
+
+        // Reset infos
+        infos.clear();
+        overallInfo.setData(null);
+    }
+
+    @Override
+    public void publishResults() {
+        storeResult();
+        super.publishResults();
+    }
+
+    private void storeResult() {
         MapResultData result = new MapResultData();
 
         // Push the support flag in the result
@@ -276,11 +292,5 @@ public abstract class AbstractSummaryConsumer<TData> extends
 
         // Store the result in the context
         setDataToContext(getName(), result);
-
-        super.stopProducing();
-
-        // Reset infos
-        infos.clear();
-        overallInfo.setData(null);
     }
 }
@@ -112,4 +112,10 @@ public class AggregateConsumer extends AbstractSampleConsumer {
         super.stopProducing();
     }
 
+    @Override
+    public void publishResults() {
+        setDataToContext(getName(), new ValueResultData(Double.valueOf(aggregator.getResult())));
+        super.publishResults();
+    }
+
 }
@@ -25,10 +25,12 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.jmeter.report.core.BinarySampleFileReader;
 import org.apache.jmeter.report.core.CsvSampleReader;
 import org.apache.jmeter.report.core.Sample;
 import org.apache.jmeter.report.core.SampleException;
 import org.apache.jmeter.report.core.SampleMetadata;
+import org.apache.jmeter.report.core.SampleReader;
 import org.apache.jmeter.report.core.TimeHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +61,8 @@ import org.slf4j.LoggerFactory;
  * <li>If the input file is named <code>results.csv</code> then it will
  * be produced on the channel 0.</li>
  * </ul>
+ * Input files written in the binary results format are detected and read
+ * with a {@link BinarySampleFileReader}.<br>
  *
  * @since 3.0
  */
@@ -72,8 +76,8 @@ public class CsvFileSampleSource extends AbstractSampleSource {
     /** input csv files to be produced */
     private File[] inputFiles;
 
-    /** csv readers corresponding to the input files */
-    private CsvSampleReader[] csvReaders;
+    /** readers corresponding to the input files */
+    private SampleReader[] csvReaders;
 
     /** mock producer to produce samples to its consumers */
     private PrivateProducer producer;
@@ -115,20 +119,27 @@ public class CsvFileSampleSource extends AbstractSampleSource {
             secondaryInputs = new File[0];
         }
         inputFiles = new File[secondaryInputs.length + 1];
-        csvReaders = new CsvSampleReader[secondaryInputs.length + 1];
+        csvReaders = new SampleReader[secondaryInputs.length + 1];
         int k = 0;
         // primary input file (ex. input.csv)
-        csvReaders[k] = new CsvSampleReader(inputFile, separator, true);
+        csvReaders[k] = createReader(inputFile, separator);
         inputFiles[k] = inputFile;
         // secondary input files (ex. input-1.csv, input-2.csv, input-3.csv)
         for (File input : secondaryInputs) {
             k++;
-            csvReaders[k] = new CsvSampleReader(input, separator, true);
+            csvReaders[k] = createReader(input, separator);
             inputFiles[k] = secondaryInputs[k - 1];
         }
         producer = new PrivateProducer();
     }
 
+    private static SampleReader createReader(File input, char separator) {
+        if (BinarySampleFileReader.isBinaryFile(input)) {
+            return new BinarySampleFileReader(input);
+        }
+        return new CsvSampleReader(input, separator, true);
+    }
+
     private static String getFileRootName(String fName) {
         int idx = fName.lastIndexOf('.');
         if (idx < 0) {
@@ -177,7 +188,7 @@ public class CsvFileSampleSource extends AbstractSampleSource {
         for (int i = 0; i < csvReaders.length; i++) {
             long sampleCount = 0;
             long start = now();
-            CsvSampleReader csvReader = csvReaders[i];
+            SampleReader csvReader = csvReaders[i];
             producer.setSampleContext(context);
             producer.setProducedMetadata(csvReader.getMetadata(), i);
             producer.setChannelAttribute(i, SOURCE_FILE_ATTRIBUTE,
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * The class ParallelSampleConsumer reproduces the samples it consumes to its
+ * consumers, running them on several threads.
+ * </p>
+ * 
+ * <p>
+ * Each consumer is owned by a single worker thread, so consumers do not need
+ * to be thread-safe and see the samples in the same order as they would
+ * without this class. Samples are handed to the workers in batches.
+ * <code>startConsuming</code> and <code>stopConsuming</code> of the consumers
+ * are called on the producing thread, respectively before the workers are
+ * started and after they have processed all the samples. The same goes for
+ * <code>publishResults</code>, which waits for the workers to process the
+ * samples consumed so far.
+ * </p>
+ * 
+ * <p>
+ * When the thread count is lower than 2 or there are less than 2 consumers,
+ * samples are reproduced on the producing thread.
+ * </p>
+ * 
+ * @since 3.1
+ */
+public class ParallelSampleConsumer extends AbstractSampleConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelSampleConsumer.class);
+
+    /** Number of samples handed to the workers at once */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Number of batches a worker can be late */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /** Batch telling the workers that there are no more samples */
+    private static final Batch END_OF_SAMPLES = new Batch(0, null);
+
+    private final int threadCount;
+
+    private Worker[] workers;
+
+    private Batch batch;
+
+    /**
+     * Instantiates a new parallel sample consumer.
+     *
+     * @param threadCount
+     *            the maximum number of threads running the consumers, 0 for
+     *            one per available processor
+     */
+    public ParallelSampleConsumer(int threadCount) {
+        this.threadCount = threadCount > 0 ? threadCount
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Gets the maximum number of threads running the consumers.
+     *
+     * @return the maximum number of threads
+     */
+    public final int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public void startConsuming() {
+        // Broadcast metadata to consumers for each channel
+        int channelCount = getConsumedChannelCount();
+        for (int i = 0; i < channelCount; i++) {
+            super.setProducedMetadata(getConsumedMetadata(i), i);
+        }
+        super.startProducing();
+
+        List<SampleConsumer> consumers = new ArrayList<>();
+        SampleConsumer consumer;
+        while ((consumer = getConsumer(consumers.size())) != null) {
+            consumers.add(consumer);
+        }
+        int workerCount = Math.min(threadCount, consumers.size());
+        if (workerCount < 2) {
+            return;
+        }
+        workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(getName() + "-" + i);
+        }
+        for (int i = 0; i < consumers.size(); i++) {
+            workers[i % workerCount].consumers.add(consumers.get(i));
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        batch = new Batch(BATCH_SIZE, null);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("startConsuming(): " + getName() + " runs "
+                    + consumers.size() + " consumers on " + workerCount
+                    + " threads");
+        }
+    }
+
+    @Override
+    public void consume(Sample sample, int channel) {
+        if (workers == null) {
+            super.produce(sample, channel);
+            return;
+        }
+        batch.add(sample, channel);
+        if (batch.isFull()) {
+            dispatch(batch);
+            batch = new Batch(BATCH_SIZE, null);
+        }
+    }
+
+    @Override
+    public void publishResults() {
+        if (workers != null) {
+            if (batch.size > 0) {
+                dispatch(batch);
+                batch = new Batch(BATCH_SIZE, null);
+            }
+            // Wait until every worker has consumed the samples dispatched so far
+            Batch barrier = new Batch(0, new CountDownLatch(workers.length));
+            dispatch(barrier);
+            try {
+                barrier.processed.await();
+            } catch (InterruptedException e) {
+                stopWorkers();
+                Thread.currentThread().interrupt();
+                throw new SampleException("Interrupted while waiting for "
+                        + getName() + " consumers", e);
+            }
+            for (Worker worker : workers) {
+                checkFailure(worker);
+            }
+        }
+        super.publishResults();
+    }
+
+    @Override
+    public void stopConsuming() {
+        if (workers != null) {
+            try {
+                if (batch.size > 0) {
+                    dispatch(batch);
+                }
+                dispatch(END_OF_SAMPLES);
+                for (Worker worker : workers) {
+                    worker.join();
+                    checkFailure(worker);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SampleException("Interrupted while waiting for "
+                        + getName() + " consumers", e);
+            } finally {
+                stopWorkers();
+            }
+        }
+        super.stopProducing();
+    }
+
+    /**
+     * Hand a batch to every worker, waiting if a worker is late
+     */
+    private void dispatch(Batch samples) {
+        for (Worker worker : workers) {
+            checkFailure(worker);
+            try {
+                worker.queue.put(samples);
+            } catch (InterruptedException e) {
+                stopWorkers();
+                Thread.currentThread().interrupt();
+                throw new SampleException("Interrupted while producing samples to "
+                        + getName() + " consumers", e);
+            }
+        }
+    }
+
+    private void checkFailure(Worker worker) {
+        Exception failure = worker.failure;
+        if (failure != null) {
+            stopWorkers();
+            throw new SampleException("Consumer failed with message :"
+                    + failure.getMessage(), failure);
+        }
+    }
+
+    private void stopWorkers() {
+        if (workers == null) {
+            return;
+        }
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
+        workers = null;
+        batch = null;
+    }
+
+    /**
+     * Samples and the channels they were consumed on
+     */
+    private static final class Batch {
+        private final Sample[] samples;
+        private final int[] channels;
+        /** Counted down by each worker once it has consumed the batch, may be null */
+        private final CountDownLatch processed;
+        private int size;
+
+        private Batch(int capacity, CountDownLatch processed) {
+            samples = new Sample[capacity];
+            channels = new int[capacity];
+            this.processed = processed;
+        }
+
+        private void add(Sample sample, int channel) {
+            samples[size] = sample;
+            channels[size] = channel;
+            size++;
+        }
+
+        private boolean isFull() {
+            return size == samples.length;
+        }
+    }
+
+    /**
+     * Thread reproducing the batches to the consumers it owns
+     */
+    private static final class Worker extends Thread {
+        private final List<SampleConsumer> consumers = new ArrayList<>();
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile Exception failure;
+
+        private Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Batch samples;
+                while ((samples = queue.take()) != END_OF_SAMPLES) {
+                    if (failure == null) {
+                        consume(samples);
+                    } // else keep draining the queue so the producer is not blocked
+                    if (samples.processed != null) {
+                        samples.processed.countDown();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Stopped by the producer
+            }
+        }
+
+        private void consume(Batch samples) {
+            try {
+                for (int i = 0; i < samples.size; i++) {
+                    for (SampleConsumer consumer : consumers) {
+                        consumer.consume(samples.samples[i], samples.channels[i]);
+                    }
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+    }
+}
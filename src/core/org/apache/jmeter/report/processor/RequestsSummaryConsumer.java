@@ -68,12 +68,22 @@ public class RequestsSummaryConsumer extends AbstractSampleConsumer {
      */
     @Override
     public void stopConsuming() {
+        storeResult();
+        super.stopProducing();
+    }
+
+    @Override
+    public void publishResults() {
+        storeResult();
+        super.publishResults();
+    }
+
+    private void storeResult() {
         MapResultData result = new MapResultData();
         result.setResult("KoPercent", new ValueResultData(Double.valueOf(((double) errorCount
                 * 100 / count))));
         result.setResult("OkPercent", new ValueResultData(
                 Double.valueOf(((double) (count - errorCount) * 100 / count))));
         setDataToContext(getName(), result);
-        super.stopProducing();
     }
 }
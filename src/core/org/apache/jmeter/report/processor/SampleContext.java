@@ -31,6 +31,7 @@ public class SampleContext {
 
     private File workingDirectory;
     private Map<String, Object> data = new HashMap<>();
+    private boolean live;
 
     /**
      * Return the root directory that consumers are authorized to use for
@@ -63,4 +64,24 @@ public class SampleContext {
         return data;
     }
 
+    /**
+     * Indicates whether samples are consumed while the test is running, in
+     * which case results are exported several times to the same output.
+     *
+     * @return true if samples are consumed while the test is running
+     */
+    public final boolean isLive() {
+        return live;
+    }
+
+    /**
+     * Sets whether samples are consumed while the test is running.
+     *
+     * @param live
+     *            true if samples are consumed while the test is running
+     */
+    public final void setLive(boolean live) {
+        this.live = live;
+    }
+
 }
@@ -545,6 +545,20 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
     public void stopConsuming() {
         super.stopProducing();
 
+        storeResult();
+
+        for (GroupInfo groupInfo : groupInfos.values()) {
+            groupInfo.getGroupData().clear();
+        }
+    }
+
+    @Override
+    public void publishResults() {
+        storeResult();
+        super.publishResults();
+    }
+
+    private void storeResult() {
         MapResultData result = createResult();
 
         // Get the aggregate results from the map
@@ -582,10 +596,6 @@ public abstract class AbstractGraphConsumer extends AbstractSampleConsumer {
 
         // Store the result
         setDataToContext(getName(), result);
-
-        for (GroupInfo groupInfo : groupInfos.values()) {
-            groupInfo.getGroupData().clear();
-        }
     }
 
 }
@@ -148,6 +148,16 @@ public abstract class AbstractVersusRequestsGraphConsumer extends
         super.stopConsuming();
     }
 
+    /**
+     * Does nothing: samples are tagged with the number of samples of their
+     * interval, which is only known once all the samples have been consumed, so
+     * results are only stored when consumption stops.
+     */
+    @Override
+    public void publishResults() {
+        // NOOP
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.reporters;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.save.BinarySampleWriter;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+/**
+ * Writes samples to a results file from a dedicated thread, so that sampling threads
+ * only have to enqueue them.
+ * <p>
+ * Samples are held in a bounded queue; when it is full, sampling threads either wait
+ * or the sample is dropped and counted, depending on the configured policy.
+ * The writer thread drains the queue in batches and formats them with
+ * {@link ResultCollector#writeSample(SampleEvent, PrintWriter, BinarySampleWriter)}.
+ * <p>
+ * This class is thread-safe.
+ * @since 3.1
+ */
+final class AsyncSampleWriter implements Runnable {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    /** Maximum number of samples written per batch */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /** How long the writer thread waits for samples before checking whether it must stop, in ms */
+    private static final long POLL_TIMEOUT = 100;
+
+    private final String filename;
+
+    private final PrintWriter pw;
+
+    private final BinarySampleWriter bw;
+
+    private final BlockingQueue<SampleEvent> queue;
+
+    private final boolean dropWhenFull;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Held while writing, so that flush() and close() can write pending samples safely */
+    private final Object writeLock = new Object();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param filename name of the file, used for the thread name and logging
+     * @param pw writer for text files, null for binary files
+     * @param bw writer for binary files, null for text files
+     * @param capacity maximum number of queued samples
+     * @param dropWhenFull true to drop samples when the queue is full, false to wait
+     */
+    AsyncSampleWriter(String filename, PrintWriter pw, BinarySampleWriter bw, int capacity, boolean dropWhenFull) {
+        this.filename = filename;
+        this.pw = pw;
+        this.bw = bw;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropWhenFull = dropWhenFull;
+        this.thread = new Thread(this, "ResultCollector writer " + filename);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a sample to be written
+     * @param event {@link SampleEvent} to write
+     */
+    void put(SampleEvent event) {
+        if (dropWhenFull) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+            }
+            return;
+        }
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            // The thread is being stopped, give up on this sample
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<SampleEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                SampleEvent first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                synchronized (writeLock) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                // Loop exits if close() was called
+            }
+        }
+    }
+
+    /**
+     * Write and clear the batch, caller must hold writeLock
+     * @param batch samples to write
+     */
+    private void writeBatch(List<SampleEvent> batch) {
+        for (SampleEvent event : batch) {
+            try {
+                ResultCollector.writeSample(event, pw, bw);
+            } catch (Exception err) {
+                log.error("Error trying to record a sample in " + filename, err);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Write all the queued samples and flush the underlying writer
+     */
+    void flush() {
+        synchronized (writeLock) {
+            List<SampleEvent> batch = new ArrayList<>(queue.size());
+            queue.drainTo(batch);
+            writeBatch(batch);
+            if (pw != null) {
+                pw.flush();
+            } else {
+                try {
+                    bw.flush();
+                } catch (IOException e) {
+                    log.warn("Problem flushing " + filename, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the writer thread and write the remaining samples.
+     * The underlying writer is flushed but not closed.
+     */
+    void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        long lost = dropped.get();
+        if (lost > 0) {
+            log.warn(lost + " samples were dropped because the writer queue of " + filename + " was full");
+        }
+    }
+
+    /**
+     * @return the number of samples waiting to be written
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of samples dropped because the queue was full
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+}
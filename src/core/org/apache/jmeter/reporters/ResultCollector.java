@@ -43,10 +43,13 @@ import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.save.BinarySampleReader;
+import org.apache.jmeter.save.BinarySampleWriter;
 import org.apache.jmeter.save.CSVSaveService;
 import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.services.FileServer;
 import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.ObjectProperty;
@@ -95,6 +98,17 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
     /** AutoFlush on each line */
     private static final boolean SAVING_AUTOFLUSH = JMeterUtils.getPropDefault("jmeter.save.saveservice.autoflush", false); //$NON-NLS-1$
 
+    /** Write samples from a background thread instead of the sampling threads */
+    private static final boolean SAVING_ASYNC = JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer", false); //$NON-NLS-1$
+
+    /** Maximum number of samples waiting to be written by the background thread */
+    private static final int ASYNC_QUEUE_SIZE =
+            JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.queue_size", 10000); //$NON-NLS-1$
+
+    /** Drop samples rather than block the sampling threads when the queue is full */
+    private static final boolean ASYNC_DROP_WHEN_FULL =
+            "drop".equalsIgnoreCase(JMeterUtils.getPropDefault("jmeter.save.saveservice.async_writer.policy", "block")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
     // Static variables
 
     // Lock used to guard static mutable variables
@@ -115,11 +129,39 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * them. This means one cannot use the saved PrintWriter or use getSaveConfig()
      */
     private static class FileEntry{
-        final PrintWriter pw;
+        final PrintWriter pw; // null for binary files
+        final BinarySampleWriter bw; // null for text files
         final SampleSaveConfiguration config;
-        FileEntry(PrintWriter _pw, SampleSaveConfiguration _config){
+        final AsyncSampleWriter async; // null unless async writing is enabled
+        FileEntry(String filename, PrintWriter _pw, SampleSaveConfiguration _config){
             pw =_pw;
+            bw = null;
             config = _config;
+            async = createAsyncWriter(filename, _pw, null);
+        }
+        FileEntry(String filename, BinarySampleWriter _bw, SampleSaveConfiguration _config){
+            pw = null;
+            bw = _bw;
+            config = _config;
+            async = createAsyncWriter(filename, null, _bw);
+        }
+        private static AsyncSampleWriter createAsyncWriter(String filename, PrintWriter pw, BinarySampleWriter bw) {
+            if (!SAVING_ASYNC) {
+                return null;
+            }
+            return new AsyncSampleWriter(filename, pw, bw, ASYNC_QUEUE_SIZE, ASYNC_DROP_WHEN_FULL);
+        }
+        /**
+         * Write pending samples and flush the file
+         */
+        void flush() throws IOException {
+            if (async != null) {
+                async.flush();
+            } else if (bw != null) {
+                bw.flush();
+            } else {
+                pw.flush();
+            }
         }
     }
 
@@ -136,6 +178,11 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
 
     private transient volatile PrintWriter out;
 
+    private transient volatile BinarySampleWriter binaryOut;
+
+    /** Set if the samples are written by a background thread */
+    private transient volatile AsyncSampleWriter asyncOut;
+
     private volatile boolean inTest = false;
 
     private volatile boolean isStats = false;
@@ -353,6 +400,7 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * <ul>
      *   <li>XStream format</li>
      *   <li>CSV format</li>
+     *   <li>binary format</li>
      * </ul>
      *
      */
@@ -368,6 +416,11 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             BufferedReader dataReader = null;
             BufferedInputStream bufferedInputStream = null;
             try {
+                if (BinarySampleReader.isBinaryFile(file)) {
+                    loadBinaryFile(file, visualizer);
+                    parsedOK = true;
+                    return;
+                }
                 dataReader = new BufferedReader(new FileReader(file)); // TODO Charset ?
                 // Get the first line, and see if it is XML
                 String line = dataReader.readLine();
@@ -409,6 +462,22 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
+    private void loadBinaryFile(File file, Visualizer visualizer) throws IOException {
+        final boolean errorsOnly = isErrorLogging();
+        final boolean successOnly = isSuccessOnlyLogging();
+        BinarySampleReader reader = new BinarySampleReader(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            while (reader.next()) {
+                SampleResult result = reader.getSampleResult();
+                if (isSampleWanted(result.isSuccessful(), errorsOnly, successOnly)) {
+                    visualizer.add(result);
+                }
+            }
+        } finally {
+            JOrphanUtils.closeQuietly(reader);
+        }
+    }
+
     private static void writeFileStart(PrintWriter writer, SampleSaveConfiguration saveConfig) {
         if (saveConfig.saveAsXml()) {
             writer.print(XML_HEADER);
@@ -454,22 +523,12 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
             } else {
                 trimmed = new File(filename).exists();
             }
-            // Find the name of the directory containing the file
-            // and create it - if there is one
-            File pdir = new File(filename).getParentFile();
-            if (pdir != null) {
-                // returns false if directory already exists, so need to check again
-                if(pdir.mkdirs()){
-                    log.info("Folder "+pdir.getAbsolutePath()+" was created");
-                } // else if might have been created by another process so not a problem
-                if (!pdir.exists()){
-                    log.warn("Error creating directories for "+pdir.toString());
-                }
-            }
+            createParentFolder(filename);
             writer = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(filename,
                     trimmed)), SaveService.getFileEncoding(StandardCharsets.UTF_8.name())), SAVING_AUTOFLUSH);
             log.debug("Opened file: "+filename);
-            files.put(filename, new FileEntry(writer, saveConfig));
+            fe = new FileEntry(filename, writer, saveConfig);
+            files.put(filename, fe);
         } else {
             writer = fe.pw;
         }
@@ -479,6 +538,89 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         return writer;
     }
 
+    private static BinarySampleWriter getBinaryFileWriter(String filename, SampleSaveConfiguration saveConfig)
+            throws IOException {
+        if (filename == null || filename.length() == 0) {
+            return null;
+        }
+        filename = FileServer.resolveBaseRelativeName(filename);
+        FileEntry fe = files.get(filename);
+        if (fe != null) {
+            return fe.bw;
+        }
+        createParentFolder(filename);
+        // When appending, the writer starts with a new header which the reader handles
+        BinarySampleWriter writer = new BinarySampleWriter(
+                new BufferedOutputStream(new FileOutputStream(filename, true)));
+        log.debug("Opened binary file: "+filename);
+        files.put(filename, new FileEntry(filename, writer, saveConfig));
+        return writer;
+    }
+
+    /**
+     * @param filename name of the results file
+     * @return the asynchronous writer of the file, or null if samples are written directly
+     */
+    private static AsyncSampleWriter getAsyncWriter(String filename) {
+        FileEntry fe = files.get(FileServer.resolveBaseRelativeName(filename));
+        return fe == null ? null : fe.async;
+    }
+
+    /**
+     * @return the number of samples waiting to be written by the asynchronous writers
+     */
+    static long getPendingSampleCount() {
+        long pending = 0;
+        synchronized (LOCK) {
+            for (FileEntry fe : files.values()) {
+                if (fe.async != null) {
+                    pending += fe.async.getQueueDepth();
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * @return the number of samples dropped by the asynchronous writers because their queue was full
+     */
+    static long getDroppedSampleCount() {
+        long dropped = 0;
+        synchronized (LOCK) {
+            for (FileEntry fe : files.values()) {
+                if (fe.async != null) {
+                    dropped += fe.async.getDropped();
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * @return true if results files are written by background threads
+     */
+    static boolean isAsyncWriting() {
+        return SAVING_ASYNC;
+    }
+
+    /**
+     * Find the name of the directory containing the file
+     * and create it - if there is one
+     * @param filename name of the file
+     */
+    private static void createParentFolder(String filename) {
+        File pdir = new File(filename).getParentFile();
+        if (pdir != null) {
+            // returns false if directory already exists, so need to check again
+            if(pdir.mkdirs()){
+                log.info("Folder "+pdir.getAbsolutePath()+" was created");
+            } // else if might have been created by another process so not a problem
+            if (!pdir.exists()){
+                log.warn("Error creating directories for "+pdir.toString());
+            }
+        }
+    }
+
     // returns false if the file did not contain the terminator
     private static boolean trimLastLine(String filename) {
         RandomAccessFile raf = null;
@@ -546,18 +688,18 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
 
         if (isSampleWanted(result.isSuccessful())) {
             sendToVisualizer(result);
-            if (out != null && !isResultMarked(result) && !this.isStats) {
+            if ((out != null || binaryOut != null) && !isResultMarked(result) && !this.isStats) {
                 SampleSaveConfiguration config = getSaveConfig();
                 result.setSaveConfig(config);
-                try {
-                    if (config.saveAsXml()) {
-                        SaveService.saveSampleResult(event, out);
-                    } else { // !saveAsXml
-                        String savee = CSVSaveService.resultToDelimitedString(event);
-                        out.println(savee);
+                AsyncSampleWriter async = asyncOut;
+                if (async != null) {
+                    async.put(event);
+                } else {
+                    try {
+                        writeSample(event, out, binaryOut);
+                    } catch (Exception err) {
+                        log.error("Error trying to record a sample", err); // should throw exception back to caller
                     }
-                } catch (Exception err) {
-                    log.error("Error trying to record a sample", err); // should throw exception back to caller
                 }
             }
         }
@@ -567,6 +709,25 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         }
     }
 
+    /**
+     * Write a sample whose save configuration has already been set
+     * @param event the {@link SampleEvent} to write
+     * @param pw writer for text files, null for binary files
+     * @param bw writer for binary files, null for text files
+     * @throws Exception when the sample cannot be written
+     */
+    static void writeSample(SampleEvent event, PrintWriter pw, BinarySampleWriter bw) throws Exception {
+        SampleResult result = event.getResult();
+        if (bw != null) {
+            bw.write(result);
+        } else if (result.getSaveConfig().saveAsXml()) {
+            SaveService.saveSampleResult(event, pw);
+        } else { // !saveAsXml
+            String savee = CSVSaveService.resultToDelimitedString(event);
+            pw.println(savee);
+        }
+    }
+
     protected final void sendToVisualizer(SampleResult r) {
         if (getVisualizer() != null) {
             getVisualizer().add(r);
@@ -600,13 +761,24 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
 
         String filename = getFilename();
         if (filename != null) {
-            if (out == null) {
+            if (getSaveConfig().isBinaryFormat()) {
+                if (binaryOut == null) {
+                    try {
+                        binaryOut = getBinaryFileWriter(filename, getSaveConfig());
+                    } catch (FileNotFoundException e) {
+                        binaryOut = null;
+                    }
+                }
+            } else if (out == null) {
                 try {
                     out = getFileWriter(filename, getSaveConfig());
                 } catch (FileNotFoundException e) {
                     out = null;
                 }
             }
+            if (out != null || binaryOut != null) {
+                asyncOut = getAsyncWriter(filename);
+            }
         }
     }
 
@@ -614,10 +786,21 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
      * Flush PrintWriter to synchronize file contents
      */
     public void flushFile() {
+        if (asyncOut != null) {
+            asyncOut.flush();
+        }
         if (out != null) {
             log.info("forced flush through ResultCollector#flushFile");
             out.flush();
         }
+        if (binaryOut != null) {
+            log.info("forced flush through ResultCollector#flushFile");
+            try {
+                binaryOut.flush();
+            } catch (IOException e) {
+                log.warn("Problem flushing binary results file", e);
+            }
+        }
     }
 
     /**
@@ -627,8 +810,13 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         for(Map.Entry<String,ResultCollector.FileEntry> me : files.entrySet()){
             log.debug("Flushing: "+me.getKey());
             FileEntry fe = me.getValue();
-            fe.pw.flush();
-            if (fe.pw.checkError()){
+            try {
+                fe.flush();
+            } catch (IOException e) {
+                log.warn("Problem detected during use of "+me.getKey(), e);
+                continue;
+            }
+            if (fe.pw != null && fe.pw.checkError()){
                 log.warn("Problem detected during use of "+me.getKey());
             }
         }
@@ -638,6 +826,17 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         for(Map.Entry<String,ResultCollector.FileEntry> me : files.entrySet()){
             log.debug("Closing: "+me.getKey());
             FileEntry fe = me.getValue();
+            if (fe.async != null) {
+                fe.async.close();
+            }
+            if (fe.bw != null) {
+                try {
+                    fe.bw.close();
+                } catch (IOException e) {
+                    log.warn("Problem detected during use of "+me.getKey(), e);
+                }
+                continue;
+            }
             writeFileEnd(fe.pw, fe.config);
             fe.pw.close();
             if (fe.pw.checkError()){
@@ -647,6 +846,21 @@ public class ResultCollector extends AbstractListenerElement implements SampleLi
         files.clear();
     }
 
+    /**
+     * Tells whether the response data of the samples is shown by the visualizer of this collector,
+     * or may be saved to its file.
+     *
+     * @return <code>true</code> if the response data must not be truncated for this collector
+     */
+    public boolean isResponseDataNeeded() {
+        Visualizer visualizer = getVisualizer();
+        if (visualizer != null && !visualizer.isStats()) {
+            return true;
+        }
+        SampleSaveConfiguration config = getSaveConfig();
+        return config.saveResponseData() || config.isResponseDataSavedOnError() || TestPlan.getFunctionalMode();
+    }
+
     /**
      * @return Returns the saveConfig.
      */
@@ -28,8 +28,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.samplers.Remoteable;
 import org.apache.jmeter.samplers.SampleEvent;
-import org.apache.jmeter.samplers.SampleListener;
-import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleMetrics;
+import org.apache.jmeter.samplers.SampleMetricsListener;
 import org.apache.jmeter.testelement.AbstractTestElement;
 import org.apache.jmeter.testelement.TestStateListener;
 import org.apache.jmeter.threads.JMeterContextService;
@@ -59,7 +59,7 @@ import org.apache.log.Logger;
  *
  */
 public class Summariser extends AbstractTestElement
-    implements Serializable, SampleListener, TestStateListener, NoThreadClone, Remoteable {
+    implements Serializable, SampleMetricsListener, TestStateListener, NoThreadClone, Remoteable {
 
     /*
      * N.B. NoThreadClone is used to ensure that the testStarted() methods will share the same
@@ -86,6 +86,13 @@ public class Summariser extends AbstractTestElement
      */
     private static final int INTERVAL_WINDOW = 5; // in seconds
 
+    /**
+     * Number of stripes used to accumulate samples, a power of 2 greater than or equal to
+     * twice the number of processors, so that sampling threads rarely share a monitor
+     */
+    private static final int STRIPE_COUNT =
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+
     /**
      * Lock used to protect ACCUMULATORS update + INSTANCE_COUNT update
      */
@@ -104,9 +111,9 @@ public class Summariser extends AbstractTestElement
      * Cached copy of Totals for this instance.
      * The variables do not need to be synchronised,
      * as they are not shared between threads
-     * However the contents do need to be synchronized.
+     * However the contents do need to be synchronized,
+     * see Totals for the locks used.
      */
-    //@GuardedBy("myTotals")
     private transient Totals myTotals = null;
 
     // Name of the accumulator. Set up by testStarted().
@@ -141,15 +148,67 @@ public class Summariser extends AbstractTestElement
      * Contains the items needed to collect stats for a summariser
      *
      */
-    private static class Totals {
+    static class Totals {
 
         /** Time of last summary (to prevent double reporting) */
-        private long last = 0;
+        private volatile long last = 0;
+
+        /*
+         * Samples are first accumulated in one of these stripes, chosen from the calling thread id,
+         * so that sampling threads do not all contend on the same monitor.
+         * Stripes are merged into delta at each reporting interval.
+         */
+        //@GuardedBy("each stripe")
+        private final SummariserRunningSample[] stripes = new SummariserRunningSample[STRIPE_COUNT];
 
+        //@GuardedBy("this")
         private final SummariserRunningSample delta = new SummariserRunningSample("DELTA");
 
+        //@GuardedBy("this")
         private final SummariserRunningSample total = new SummariserRunningSample("TOTAL");
 
+        Totals() {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new SummariserRunningSample("STRIPE");
+            }
+        }
+
+        /**
+         * Add the sample to the stripe of the calling thread
+         * @param res {@link SampleMetrics}
+         */
+        void addSample(SampleMetrics res) {
+            SummariserRunningSample stripe =
+                    stripes[(int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1))];
+            synchronized (stripe) {
+                stripe.addSample(res);
+            }
+        }
+
+        /**
+         * Merge the stripes into the delta values and clear them.
+         * The delta ends with the last sample, not when the stripes are merged.
+         * Caller must hold the lock on this instance.
+         */
+        void drainStripes() {
+            for (SummariserRunningSample stripe : stripes) {
+                synchronized (stripe) {
+                    if (stripe.getNumSamples() > 0) {
+                        delta.merge(stripe);
+                        stripe.clear();
+                    }
+                }
+            }
+        }
+
+        /**
+         * For unit tests
+         * @return the delta values, caller must hold the lock on this instance
+         */
+        SummariserRunningSample getDelta() {
+            return delta;
+        }
+
         /**
          * Add the delta values to the total values and clear the delta
          */
@@ -160,14 +219,23 @@ public class Summariser extends AbstractTestElement
     }
 
     /**
-     * Accumulates the sample in two SampleResult objects - one for running
-     * totals, and the other for deltas.
+     * Accumulates the metrics of the sample.
      *
      * @see org.apache.jmeter.samplers.SampleListener#sampleOccurred(org.apache.jmeter.samplers.SampleEvent)
      */
     @Override
     public void sampleOccurred(SampleEvent e) {
-        SampleResult s = e.getResult();
+        metricsOccurred(e.getMetrics());
+    }
+
+    /**
+     * Accumulates the sample in two SummariserRunningSample objects - one for running
+     * totals, and the other for deltas.
+     *
+     * @see org.apache.jmeter.samplers.SampleMetricsListener#metricsOccurred(org.apache.jmeter.samplers.SampleMetrics)
+     */
+    @Override
+    public void metricsOccurred(SampleMetrics s) {
 
         long now = System.currentTimeMillis() / 1000;// in seconds
 
@@ -175,25 +243,29 @@ public class Summariser extends AbstractTestElement
         SummariserRunningSample myTotal = null;
         boolean reportNow = false;
 
+        if (s != null) {
+            myTotals.addSample(s);
+        }
+
         /*
          * Have we reached the reporting boundary?
          * Need to allow for a margin of error, otherwise can miss the slot.
-         * Also need to check we've not hit the window already
+         * Also need to check we've not hit the window already.
+         * The check is repeated under the lock so only one thread reports.
          */
-        synchronized (myTotals) {
-            if (s != null) {
-                myTotals.delta.addSample(s);
-            }
-
-            if ((now > myTotals.last + INTERVAL_WINDOW) && (now % INTERVAL <= INTERVAL_WINDOW)) {
-                reportNow = true;
-
-                // copy the data to minimise the synch time
-                myDelta = new SummariserRunningSample(myTotals.delta);
-                myTotals.moveDelta();
-                myTotal = new SummariserRunningSample(myTotals.total);
-
-                myTotals.last = now; // stop double-reporting
+        if (isReportingTime(now)) {
+            synchronized (myTotals) {
+                if (isReportingTime(now)) {
+                    reportNow = true;
+
+                    // copy the data to minimise the synch time
+                    myTotals.drainStripes();
+                    myDelta = new SummariserRunningSample(myTotals.delta);
+                    myTotals.moveDelta();
+                    myTotal = new SummariserRunningSample(myTotals.total);
+
+                    myTotals.last = now; // stop double-reporting
+                }
             }
         }
         if (reportNow) {
@@ -206,6 +278,14 @@ public class Summariser extends AbstractTestElement
         }
     }
 
+    /**
+     * @param now current time in seconds
+     * @return true if a summary is due and has not already been reported in this window
+     */
+    private boolean isReportingTime(long now) {
+        return (now > myTotals.last + INTERVAL_WINDOW) && (now % INTERVAL <= INTERVAL_WINDOW);
+    }
+
     private static StringBuilder longToSb(StringBuilder sb, long l, int len) {
         sb.setLength(0);
         sb.append(l);
@@ -265,6 +345,12 @@ public class Summariser extends AbstractTestElement
             sb.append(tc.startedThreads);
             sb.append(" Finished: ");
             sb.append(tc.finishedThreads);
+            if (ResultCollector.isAsyncWriting()) {
+                sb.append(" Queued: ");
+                sb.append(ResultCollector.getPendingSampleCount());
+                sb.append(" Dropped: ");
+                sb.append(ResultCollector.getDroppedSampleCount());
+            }
         }
         return sb.toString();
     }
@@ -349,6 +435,9 @@ public class Summariser extends AbstractTestElement
         for(Map.Entry<String, Totals> entry : totals){
             String name = entry.getKey();
             Totals total = entry.getValue();
+            synchronized (total) {
+                total.drainStripes();
+            }
             total.delta.setEndTime(); // ensure delta has correct end time
             // Only print final delta if there were some samples in the delta
             // and there has been at least one sample reported previously
@@ -20,6 +20,7 @@ package org.apache.jmeter.reporters;
 
 import java.text.DecimalFormat;
 
+import org.apache.jmeter.samplers.SampleMetrics;
 import org.apache.jmeter.samplers.SampleResult;
 
 /**
@@ -113,14 +114,36 @@ class SummariserRunningSample {
         endTime = System.currentTimeMillis();
     }
 
+    /**
+     * Used to merge the samples accumulated by another instance
+     * while keeping the end time of the last of them
+     * @param rs {@link SummariserRunningSample}
+     */
+    public void merge(SummariserRunningSample rs) {
+        long previousEndTime = counter > 0 ? endTime : Long.MIN_VALUE;
+        addSample(rs);
+        endTime = Math.max(previousEndTime, rs.endTime);
+    }
+
     /**
      * Used for each SampleResult
      * @param res {@link SampleResult}
      */
     public void addSample(SampleResult res) {
-        counter += res.getSampleCount();
-        errorCount += res.getErrorCount();
-        long aTimeInMillis = res.getTime();
+        addSample(res.getSampleCount(), res.getErrorCount(), res.getTime());
+    }
+
+    /**
+     * Used for the metrics of each sample
+     * @param res {@link SampleMetrics}
+     */
+    public void addSample(SampleMetrics res) {
+        addSample(res.getSampleCount(), res.getErrorCount(), res.getTime());
+    }
+
+    private void addSample(int sampleCount, int sampleErrorCount, long aTimeInMillis) {
+        counter += sampleCount;
+        errorCount += sampleErrorCount;
         runningSum += aTimeInMillis;
         if (aTimeInMillis > max) {
             max = aTimeInMillis;
@@ -238,6 +261,13 @@ class SummariserRunningSample {
         return min;
     }
 
+    /**
+     * @return the time of the last sample added, or when this instance was cleared if there are none
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
     /**
      * Set end time
      */
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.jmeter.save.BinarySampleReader;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+/**
+ * Receives on the client the samples sent by the {@link BinarySampleSender}s of the servers,
+ * and notifies the registered listeners.
+ * <p>
+ * The receiver only listens on the address advertised for RMI.
+ * Each server opens one connection per listener and sends the token of the listener and its host name,
+ * followed by samples in the binary results format (see {@link BinarySampleReader}).
+ * The token is random and only known by the servers the listener was sent to, connections
+ * with an unknown token are closed.
+ * Once the server has shut down its side of the connection, all its samples have been notified
+ * and the receiver sends {@link #ACK} back.
+ * <p>
+ * The thread group name of the sample events is lost: as the CSV format, the binary results format
+ * has no column for it, so the notified events have a <code>null</code> thread group.
+ * No listener of the client uses it, the servers only need it to group the samples in Statistical mode.
+ *
+ * @since 3.1
+ */
+final class BinarySampleReceiver implements Runnable {
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    /** Port to listen to, 0 to use any free port */
+    private static final int PORT =
+            JMeterUtils.getPropDefault("binary_sample_sender.port", 0); // $NON-NLS-1$
+
+    /** Sent once all the samples of a connection have been notified */
+    static final int ACK = 1;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /** How long a new connection may take to send its token */
+    private static final int HANDSHAKE_TIMEOUT_MS = 30000;
+
+    /** Longest pause of the acceptor after repeated failures */
+    private static final long MAX_ACCEPT_BACKOFF_MS = 5000L;
+
+    //@GuardedBy("BinarySampleReceiver.class")
+    private static BinarySampleReceiver instance;
+
+    private final ServerSocket serverSocket;
+
+    private final String host;
+
+    /**
+     * Weak so that the listeners of previous tests can be collected,
+     * the entries of collected listeners are removed by {@link #register(SampleListener)}
+     */
+    private final ConcurrentMap<String, WeakReference<SampleListener>> listeners = new ConcurrentHashMap<>();
+
+    private BinarySampleReceiver() throws IOException {
+        // Same address as advertised for RMI
+        String rmiHost = System.getProperty("java.rmi.server.hostname"); // $NON-NLS-1$
+        InetAddress address = rmiHost != null ? InetAddress.getByName(rmiHost) : InetAddress.getLocalHost();
+        serverSocket = new ServerSocket(PORT, 0, address);
+        host = address.getHostAddress();
+        Thread acceptor = new Thread(this, "BinarySampleReceiver"); // $NON-NLS-1$
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Receiving binary samples on " + host + ":" + serverSocket.getLocalPort());
+    }
+
+    /**
+     * @return the receiver of this JVM, started on first call
+     * @throws IOException if the server socket cannot be opened
+     */
+    static synchronized BinarySampleReceiver getInstance() throws IOException {
+        if (instance == null) {
+            instance = new BinarySampleReceiver();
+        }
+        return instance;
+    }
+
+    /**
+     * @param listener listener to notify of the samples received with the returned token
+     * @return the random token to be sent by the servers
+     */
+    String register(SampleListener listener) {
+        // A server may be used for many tests, drop the tokens of the previous ones
+        for (Iterator<WeakReference<SampleListener>> it = listeners.values().iterator(); it.hasNext();) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
+        }
+        String token = UUID.randomUUID().toString(); // from a SecureRandom
+        listeners.put(token, new WeakReference<>(listener));
+        return token;
+    }
+
+    /**
+     * For unit tests
+     * @param token a token returned by {@link #register(SampleListener)}
+     * @return true if the token is still accepted
+     */
+    boolean isRegistered(String token) {
+        return listeners.containsKey(token);
+    }
+
+    /**
+     * @return the address servers must connect to
+     */
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port servers must connect to
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        long backoff = 0;
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                backoff = 0;
+                Thread reader = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        receive(socket);
+                    }
+                }, "BinarySampleReceiver " + socket.getRemoteSocketAddress()); // $NON-NLS-1$
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                // Typically out of file descriptors, give the readers time to close theirs
+                backoff = Math.min(Math.max(2 * backoff, 100L), MAX_ACCEPT_BACKOFF_MS);
+                log.error("Error accepting connection, retrying in " + backoff + " ms", e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(Socket socket) {
+        String hostname = String.valueOf(socket.getRemoteSocketAddress());
+        BinarySampleReader reader = null;
+        try {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+            DataInputStream handshake = new DataInputStream(in);
+            String token = handshake.readUTF();
+            WeakReference<SampleListener> reference = listeners.get(token);
+            SampleListener listener = reference == null ? null : reference.get();
+            if (listener == null) {
+                if (reference != null) {
+                    listeners.remove(token, reference);
+                }
+                log.warn("Closing connection from " + hostname + " with an unknown or expired listener token");
+                return;
+            }
+            hostname = handshake.readUTF();
+            socket.setSoTimeout(0); // samples may be sent rarely
+            reader = new BinarySampleReader(in);
+            long count = 0;
+            while (reader.next()) {
+                try {
+                    // the thread group is not in the binary format, see class comment
+                    listener.sampleOccurred(new SampleEvent(reader.getSampleResult(), null, hostname));
+                } catch (RuntimeException e) {
+                    log.error("Error notifying sample from " + hostname, e);
+                }
+                count++;
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(ACK);
+            out.flush();
+            log.info("Received " + count + " samples from " + hostname);
+        } catch (IOException e) {
+            log.error("Error receiving samples from " + hostname, e);
+        } finally {
+            if (reader != null) {
+                JOrphanUtils.closeQuietly(reader);
+            }
+            JOrphanUtils.closeQuietly(socket);
+        }
+    }
+}
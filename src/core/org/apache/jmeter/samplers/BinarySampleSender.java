@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.save.BinarySampleWriter;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+/**
+ * Returns the samples to the client over a plain socket, in the compact binary results format
+ * (dictionary encoded strings, variable length numbers, deflated blocks), instead of
+ * Java serialized {@link SampleEvent}s over RMI.
+ * <p>
+ * The client side is a {@link BinarySampleReceiver}. The sampling threads hand the samples to a
+ * bounded queue, drained by a dedicated thread which buffers them in blocks and sends these when full,
+ * or when the flush interval has elapsed, even if no more samples arrive.
+ * As for the CSV format, response data, sub-results and sample variables are not sent.
+ * Test start and end are still notified by RMI, once all the samples have been received.
+ * If the connection fails, the remaining samples are sent by RMI.
+ *
+ * @since 3.1
+ */
+public class BinarySampleSender extends AbstractSampleSender implements Serializable {
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+
+    /** How long to wait for the client to acknowledge the end of the samples */
+    private static final int ACK_TIMEOUT_MS = 60000;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final Object END_OF_TEST = new Object();
+
+    // Static fields are resolved on the server
+    private static final long FLUSH_INTERVAL_MS =
+            JMeterUtils.getPropDefault("binary_sample_sender.flush_interval", DEFAULT_FLUSH_INTERVAL); // $NON-NLS-1$
+
+    private static final int QUEUE_SIZE =
+            JMeterUtils.getPropDefault("binary_sample_sender.queue_size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    // instance fields are copied from the client instance
+    private final long clientConfiguredFlushIntervalMs =
+            JMeterUtils.getPropDefault("binary_sample_sender.flush_interval", DEFAULT_FLUSH_INTERVAL); // $NON-NLS-1$
+
+    private final int clientConfiguredQueueSize =
+            JMeterUtils.getPropDefault("binary_sample_sender.queue_size", DEFAULT_QUEUE_SIZE); // $NON-NLS-1$
+
+    private final RemoteSampleListener listener;
+
+    private final String receiverHost;
+
+    private final int receiverPort;
+
+    private final String listenerToken;
+
+    // Configuration items, set up by readResolve
+    private transient long flushIntervalMs;
+
+    // SampleEvent, or END_OF_TEST
+    private transient BlockingQueue<Object> queue;
+
+    private transient Thread sendingThread;
+
+    // Only used by the sending thread
+    private transient Socket socket;
+
+    private transient BinarySampleWriter writer;
+
+    private transient long lastFlush;
+
+    private transient boolean useRmi;
+
+    /**
+     * Register the listener with the receiver of the client.
+     *
+     * @param listener
+     *            the local listener, which must also be a {@link SampleListener}
+     */
+    BinarySampleSender(RemoteSampleListener listener) {
+        if (!(listener instanceof SampleListener)) {
+            throw new IllegalArgumentException("Binary mode needs a local SampleListener, got: " + listener);
+        }
+        this.listener = listener;
+        try {
+            BinarySampleReceiver receiver = BinarySampleReceiver.getInstance();
+            this.receiverHost = receiver.getHost();
+            this.receiverPort = receiver.getPort();
+            this.listenerToken = receiver.register((SampleListener) listener);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start the receiver of binary samples, check property binary_sample_sender.port", e);
+        }
+        log.info("Using BinarySampleSender for this test run, receiving on " + receiverHost + ":" + receiverPort);
+    }
+
+    /**
+     * Queue the sample for the sending thread, waiting if the queue is full.
+     *
+     * @param e
+     *            the event to send
+     */
+    @Override
+    public void sampleOccurred(SampleEvent e) {
+        if (e.getResult() == null) {
+            return;
+        }
+        try {
+            queue.put(e);
+        } catch (InterruptedException ex) {
+            log.warn("Interrupted while waiting to queue the sample");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send the queued samples until the end of the test, flushing them at least every flush interval
+     */
+    private void sendSamples() {
+        try {
+            while (true) {
+                Object event;
+                if (writer == null) {
+                    event = queue.take();
+                } else {
+                    long wait = lastFlush + flushIntervalMs - System.currentTimeMillis();
+                    event = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+                if (event == END_OF_TEST) {
+                    sendEnd();
+                    return;
+                }
+                if (event != null) {
+                    try {
+                        send((SampleEvent) event);
+                    } catch (RuntimeException ex) { // keep draining the queue, or the sampling threads would block
+                        log.error("Error sending sample", ex);
+                    }
+                }
+                if (writer != null && System.currentTimeMillis() - lastFlush >= flushIntervalMs) {
+                    try {
+                        writer.flush();
+                        lastFlush = System.currentTimeMillis();
+                    } catch (IOException ex) {
+                        connectionFailed(ex);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while sending samples to " + receiverHost + ":" + receiverPort);
+            closeConnection();
+        }
+    }
+
+    private void send(SampleEvent e) {
+        if (!useRmi) {
+            try {
+                if (writer == null) {
+                    connect();
+                }
+                writer.write(e.getResult());
+                return;
+            } catch (IOException ex) {
+                connectionFailed(ex);
+            }
+        }
+        try {
+            listener.sampleOccurred(e);
+        } catch (RemoteException err) {
+            log.error("sampleOccurred", err);
+        }
+    }
+
+    private void connectionFailed(IOException ex) {
+        log.error("Could not send samples to " + receiverHost + ":" + receiverPort
+                + ", the pending ones are lost and next ones will be sent by RMI", ex);
+        closeConnection();
+        useRmi = true;
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket(receiverHost, receiverPort);
+        socket.setSoTimeout(ACK_TIMEOUT_MS);
+        OutputStream out = new HalfClosingOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE), socket);
+        DataOutputStream handshake = new DataOutputStream(out);
+        handshake.writeUTF(listenerToken);
+        handshake.writeUTF(SampleEvent.HOSTNAME);
+        writer = new BinarySampleWriter(out);
+        lastFlush = System.currentTimeMillis();
+        log.info("Sending binary samples to " + receiverHost + ":" + receiverPort);
+    }
+
+    private void closeConnection() {
+        JOrphanUtils.closeQuietly(socket);
+        socket = null;
+        writer = null;
+    }
+
+    /**
+     * Send the pending samples and wait for the client to have notified them,
+     * then notify the end of the test by RMI.
+     *
+     * @param host
+     *            the host that the test has ended on.
+     */
+    @Override
+    public void testEnded(String host) {
+        log.info("Test Ended on " + host);
+        try {
+            queue.put(END_OF_TEST);
+            sendingThread.join();
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for the samples to be sent");
+            Thread.currentThread().interrupt();
+        }
+        try {
+            listener.testEnded(host);
+        } catch (RemoteException ex) {
+            log.warn("testEnded(host)" + ex);
+        }
+    }
+
+    private void sendEnd() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close(); // only shuts down the output
+            int ack = socket.getInputStream().read();
+            if (ack != BinarySampleReceiver.ACK) {
+                log.warn("Client did not acknowledge the samples, got: " + ack);
+            }
+        } catch (IOException ex) {
+            log.error("Could not send the last samples to " + receiverHost + ":" + receiverPort, ex);
+        } finally {
+            closeConnection();
+        }
+    }
+
+    /**
+     * Processed by the RMI server code; acts as testStarted().
+     *
+     * @return this
+     * @throws ObjectStreamException
+     *             never
+     */
+    private Object readResolve() throws ObjectStreamException {
+        int queueSize;
+        if (isClientConfigured()) {
+            flushIntervalMs = clientConfiguredFlushIntervalMs;
+            queueSize = clientConfiguredQueueSize;
+        } else {
+            flushIntervalMs = FLUSH_INTERVAL_MS;
+            queueSize = QUEUE_SIZE;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        sendingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sendSamples();
+            }
+        }, "BinarySampleSender"); // $NON-NLS-1$
+        sendingThread.setDaemon(true);
+        sendingThread.start();
+        log.info("Using BinarySampleSender for this test run, flush interval: " + flushIntervalMs
+                + " ms, queue size: " + queueSize);
+        return this;
+    }
+
+    /**
+     * Closing the stream shuts down the output of the socket, so that the acknowledgement can still be read
+     */
+    private static final class HalfClosingOutputStream extends FilterOutputStream {
+        private final Socket socket;
+
+        HalfClosingOutputStream(OutputStream out, Socket socket) {
+            super(out);
+            this.socket = socket;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+            socket.shutdownOutput();
+        }
+    }
+}
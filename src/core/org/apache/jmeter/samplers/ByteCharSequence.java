@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.samplers;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Read-only {@link CharSequence} view on bytes which decode to one char each,
+ * so that the response data can be searched without being decoded into a String.
+ */
+final class ByteCharSequence implements CharSequence {
+
+    private final byte[] data;
+
+    private final int offset;
+
+    private final int length;
+
+    private ByteCharSequence(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns a view on the data if decoding them with the encoding maps each byte to the char of the same value:
+     * always for ISO-8859-1, and for data containing only ASCII bytes in other ASCII compatible encodings.
+     *
+     * @param data the bytes to view
+     * @param encoding the encoding of the bytes
+     * @return the view, or <code>null</code> if the data must be decoded
+     */
+    static CharSequence forBytes(byte[] data, String encoding) {
+        Charset charset;
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalArgumentException e) { // illegal or unsupported name
+            return null;
+        }
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return new ByteCharSequence(data, 0, data.length);
+        }
+        if (isAsciiCompatible(charset) && isAscii(data)) {
+            return new ByteCharSequence(data, 0, data.length);
+        }
+        return null;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        String name = charset.name().toUpperCase(Locale.ENGLISH);
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || name.startsWith("ISO-8859-") // $NON-NLS-1$
+                || name.startsWith("WINDOWS-125"); // $NON-NLS-1$
+    }
+
+    private static boolean isAscii(byte[] data) {
+        for (byte b : data) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (data[offset + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new ByteCharSequence(data, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -71,6 +71,9 @@ public class SampleEvent implements Serializable {
 
     private final boolean isTransactionSampleEvent;
 
+    // Created on first use, by any of the listeners
+    private transient volatile SampleMetrics metrics;
+
     /**
      * Constructor used for Unit tests only. Uses <code>null</code> for the
      * associated {@link SampleResult} and the <code>threadGroup</code>-name.
@@ -201,6 +204,21 @@ public class SampleEvent implements Serializable {
         return result;
     }
 
+    /**
+     * Get the metrics of the {@link SampleResult} associated with this event.
+     * They are extracted on first call, the result must not be modified afterwards.
+     *
+     * @return the {@link SampleMetrics} of the result, or null if there is no result
+     */
+    public SampleMetrics getMetrics() {
+        SampleMetrics current = metrics;
+        if (current == null && result != null) {
+            current = new SampleMetrics(result);
+            metrics = current;
+        }
+        return current;
+    }
+
     /**
      * Get the name of the thread group for which this event was recorded
      * 
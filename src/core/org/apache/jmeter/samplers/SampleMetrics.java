@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.jmeter.control.TransactionController;
+
+/**
+ * Immutable summary of a {@link SampleResult} holding only what is needed to compute statistics:
+ * timings, sizes, status and thread counts, but no response data, headers or sub-results.
+ * <p>
+ * It is created once per sample by {@link SampleEvent#getMetrics()}, so listeners which only
+ * compute metrics (see {@link SampleMetricsListener}) can keep it instead of the full result,
+ * which can then be released as soon as the sample has been processed.
+ * <p>
+ * Labels and response codes are shared and numbered, so that metrics can be grouped by
+ * an int key instead of a String.
+ * @since 3.1
+ */
+public final class SampleMetrics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Identifier of labels and codes which are not numbered, once {@link Dictionary#MAX_SIZE} is reached */
+    public static final int UNKNOWN_ID = -1;
+
+    private static final Dictionary LABELS = new Dictionary();
+
+    private static final Dictionary CODES = new Dictionary();
+
+    private final int labelId;
+
+    private final String label;
+
+    private final String threadName;
+
+    private final long timeStamp;
+
+    private final long startTime;
+
+    private final long endTime;
+
+    private final long time;
+
+    private final long latency;
+
+    private final long connectTime;
+
+    private final int bytes;
+
+    private final boolean successful;
+
+    private final int responseCodeId;
+
+    private final String responseCode;
+
+    private final int groupThreads;
+
+    private final int allThreads;
+
+    private final int sampleCount;
+
+    private final int errorCount;
+
+    private final int hits;
+
+    /**
+     * Extract the metrics of a result
+     * @param result the result, not modified
+     */
+    public SampleMetrics(SampleResult result) {
+        String sampleLabel = result.getSampleLabel();
+        this.labelId = LABELS.idOf(sampleLabel);
+        this.label = labelId == UNKNOWN_ID ? sampleLabel : LABELS.valueOf(labelId);
+        this.threadName = result.getThreadName();
+        this.timeStamp = result.getTimeStamp();
+        this.startTime = result.getStartTime();
+        this.endTime = result.getEndTime();
+        this.time = result.getTime();
+        this.latency = result.getLatency();
+        this.connectTime = result.getConnectTime();
+        this.bytes = result.getBytes();
+        this.successful = result.isSuccessful();
+        String code = result.getResponseCode();
+        this.responseCodeId = CODES.idOf(code);
+        this.responseCode = responseCodeId == UNKNOWN_ID ? code : CODES.valueOf(responseCodeId);
+        this.groupThreads = result.getGroupThreads();
+        this.allThreads = result.getAllThreads();
+        this.sampleCount = result.getSampleCount();
+        this.errorCount = result.getErrorCount();
+        this.hits = countHits(result);
+    }
+
+    /**
+     * @param result {@link SampleResult}
+     * @return number of samples in result and its sub-results, not counting Transaction Controller parents
+     */
+    private static int countHits(SampleResult result) {
+        int count = TransactionController.isFromTransactionController(result) ? 0 : 1;
+        for (SampleResult subResult : result.getSubResults()) {
+            count += countHits(subResult);
+        }
+        return count;
+    }
+
+    /**
+     * @param labelId identifier returned by {@link #getLabelId()}
+     * @return the label or null if labelId is unknown
+     */
+    public static String getLabel(int labelId) {
+        return LABELS.valueOf(labelId);
+    }
+
+    /**
+     * @return identifier of the label, shared by all the samples with the same label,
+     *  or {@link #UNKNOWN_ID} if too many labels have been seen
+     */
+    public int getLabelId() {
+        return labelId;
+    }
+
+    /**
+     * @return the sample label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the name of the thread which made the sample
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return the time stamp of the sample, see {@link SampleResult#getTimeStamp()}
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * @return the start time of the sample
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the end time of the sample
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return the elapsed time of the sample
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the time to first response
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the time to establish the connection
+     */
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * @return the number of bytes received
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the success status of the sample
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * @return identifier of the response code, shared by all the samples with the same code,
+     *  or {@link #UNKNOWN_ID} if too many codes have been seen
+     */
+    public int getResponseCodeId() {
+        return responseCodeId;
+    }
+
+    /**
+     * @return the response code
+     */
+    public String getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * @return the number of active threads in the thread group of the sample
+     */
+    public int getGroupThreads() {
+        return groupThreads;
+    }
+
+    /**
+     * @return the number of active threads in all groups
+     */
+    public int getAllThreads() {
+        return allThreads;
+    }
+
+    /**
+     * @return the number of samples, see {@link SampleResult#getSampleCount()}
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the number of failed samples, see {@link SampleResult#getErrorCount()}
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the number of requests made by the sample and its sub-results,
+     *  not counting the parent samples generated by Transaction Controllers
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    @Override
+    public String toString() {
+        return label + " " + time + " ms " + (successful ? "OK" : "KO") + " " + responseCode; // $NON-NLS-1$
+    }
+
+    /**
+     * Numbers strings, so that equal strings share an id and a single instance.
+     * Bounded as labels may be generated from variables.
+     */
+    private static final class Dictionary {
+        private static final int MAX_SIZE = 10000;
+
+        private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+        //@GuardedBy("this") for writes
+        private volatile String[] values = new String[16];
+
+        int idOf(String value) {
+            if (value == null) {
+                return UNKNOWN_ID;
+            }
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id.intValue();
+            }
+            return add(value);
+        }
+
+        private synchronized int add(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id.intValue();
+            }
+            int size = ids.size();
+            if (size >= MAX_SIZE) {
+                return UNKNOWN_ID;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                String[] grown = new String[size * 2];
+                System.arraycopy(current, 0, grown, 0, size);
+                current = grown;
+            }
+            current[size] = value;
+            values = current; // publish before the id
+            ids.put(value, Integer.valueOf(size));
+            return size;
+        }
+
+        String valueOf(int id) {
+            String[] current = values;
+            return id >= 0 && id < current.length ? current[id] : null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+/**
+ * A {@link SampleListener} which only needs the {@link SampleMetrics} of the samples.
+ * <p>
+ * Implementations must process {@link #sampleOccurred(SampleEvent)} as
+ * {@link #metricsOccurred(SampleMetrics)} with {@link SampleEvent#getMetrics()}.
+ * When notified asynchronously, only the metrics are queued for such listeners,
+ * so that the {@link SampleResult} and its response data are not kept until the queue is drained.
+ * @since 3.1
+ */
+public interface SampleMetricsListener extends SampleListener {
+
+    /**
+     * A sample has ended
+     * @param metrics metrics of the sample, null if the event had no result
+     */
+    void metricsOccurred(SampleMetrics metrics);
+}
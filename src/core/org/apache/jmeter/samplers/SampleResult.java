@@ -25,8 +25,10 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -193,6 +195,11 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      */
     private long connectTime = 0;
 
+    /**
+     * time spent waiting for a connection from a shared connection pool
+     */
+    private long poolWaitTime = 0;
+
     /** Should thread start next iteration ? */
     private boolean startNextThreadLoop = false;
 
@@ -267,6 +274,12 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      * Cache for responseData as string to avoid multiple computations
      */
     private volatile transient String responseDataAsString;
+
+    /**
+     * Cache for parsed representations of responseData (JSON tree, DOM...),
+     * shared by the post-processors and assertions of the sample
+     */
+    private volatile transient Map<String, Object> parsedResponses;
     
     private long initOffset(){
         if (useNanoTime){
@@ -316,6 +329,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         label = res.label;//OK
         latency = res.latency;
         connectTime = res.connectTime;
+        poolWaitTime = res.poolWaitTime;
         location = res.location;//OK
         parent = res.parent; // TODO ??
         pauseTime = res.pauseTime;
@@ -323,6 +337,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         responseCode = res.responseCode;//OK
         responseData = res.responseData;//OK
         responseDataAsString = null;
+        parsedResponses = null;
         responseHeaders = res.responseHeaders;//OK
         responseMessage = res.responseMessage;//OK
         // Don't copy this; it is per instance resultFileName = res.resultFileName;
@@ -668,6 +683,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      */
     public void setResponseData(byte[] response) {
         responseDataAsString = null;
+        parsedResponses = null;
         responseData = response == null ? EMPTY_BA : response;
     }
 
@@ -683,6 +699,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
     @Deprecated
     public void setResponseData(String response) {
         responseDataAsString = null;
+        parsedResponses = null;
         try {
             responseData = response.getBytes(getDataEncodingWithDefault());
         } catch (UnsupportedEncodingException e) {
@@ -700,6 +717,7 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      */
     public void setResponseData(final String response, final String encoding) {
         responseDataAsString = null;
+        parsedResponses = null;
         String encodeUsing = encoding != null? encoding : DEFAULT_CHARSET;
         try {
             responseData = response.getBytes(encodeUsing);
@@ -743,6 +761,53 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         }
     }
 
+    /**
+     * Gets the responseData of the SampleResult object as a CharSequence,
+     * avoiding the conversion to a String when the bytes can be read as chars directly:
+     * for ISO-8859-1 data, or ASCII only data in an ASCII compatible encoding such as UTF-8.
+     * Intended for searching the response, for instance with {@link java.util.regex.Matcher}.
+     *
+     * @return the responseData value as a CharSequence, converted according to the encoding
+     */
+    public CharSequence getResponseDataAsCharSequence() {
+        String decoded = responseDataAsString;
+        if (decoded != null) {
+            return decoded;
+        }
+        CharSequence view = ByteCharSequence.forBytes(responseData, getDataEncodingWithDefault());
+        return view != null ? view : getResponseDataAsString();
+    }
+
+    /**
+     * Gets a parsed representation of the response data stored by {@link #setParsedResponse(String, Object)},
+     * so that the post-processors and assertions of a sample can share a single parse.
+     * Parsed representations are dropped when the response data changes and once the sample has been processed.
+     *
+     * @param key identifies the representation, including any parser option that changes it
+     * @return the parsed response data, or null if none is stored for the key
+     */
+    public Object getParsedResponse(String key) {
+        Map<String, Object> parsed = parsedResponses;
+        return parsed == null ? null : parsed.get(key);
+    }
+
+    /**
+     * Stores a parsed representation of the response data, see {@link #getParsedResponse(String)}.
+     * The representation is shared, so it must not be modified by its users.
+     * Intended to be called by the thread processing the sample.
+     *
+     * @param key identifies the representation, including any parser option that changes it
+     * @param parsed the parsed response data
+     */
+    public void setParsedResponse(String key, Object parsed) {
+        Map<String, Object> map = parsedResponses;
+        if (map == null) {
+            map = new HashMap<>(4);
+            parsedResponses = map;
+        }
+        map.put(key, parsed);
+    }
+
     public void setSamplerData(String s) {
         samplerData = s;
     }
@@ -1259,6 +1324,21 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
         this.connectTime = time;
     }
 
+    /**
+     * @return the time spent waiting for a connection from a connection pool,
+     *         this time is included in the connect time
+     */
+    public long getPoolWaitTime() {
+        return poolWaitTime;
+    }
+
+    /**
+     * @param time the time spent waiting for a connection from a connection pool
+     */
+    public void setPoolWaitTime(long time) {
+        this.poolWaitTime = time;
+    }
+
     /**
      * This is only intended for use by SampleResultConverter!
      *
@@ -1425,12 +1505,20 @@ public class SampleResult implements Serializable, Cloneable, Searchable {
      */
     public void cleanAfterSample() {
         this.responseDataAsString = null;
+        this.parsedResponses = null;
+        if (subResults != null) {
+            for (SampleResult subResult : subResults) {
+                subResult.cleanAfterSample();
+            }
+        }
     }
 
     @Override
     public Object clone() {
         try {
-            return super.clone();
+            SampleResult clone = (SampleResult) super.clone();
+            clone.parsedResponses = null;
+            return clone;
         } catch (CloneNotSupportedException e) {
             throw new IllegalStateException("This should not happen");
         }
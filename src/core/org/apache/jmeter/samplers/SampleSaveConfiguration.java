@@ -83,6 +83,9 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
     /** Indicates that the results file should be in CSV format. * */
     private static final String CSV = "csv"; // $NON_NLS-1$
 
+    /** Indicates that the results file should be in compact binary format. * */
+    private static final String BINARY = "binary"; // $NON_NLS-1$
+
     /** Indicates that the results should be stored in a database. * */
     //NOTUSED private static final String DATABASE = "db"; // $NON_NLS-1$
 
@@ -249,6 +252,11 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
     /** A formatter for the time stamp. */
     private transient DateFormat formatter = _formatter;
+
+    /* Binary format is only selected through the output_format property,
+     * so it is not saved in the test plan either.
+     */
+    private transient boolean binary = _binary;
     /* Make transient as we don't want to save the SimpleDataFormat class
      * Also, there's currently no way to change the value via the GUI, so changing it
      * later means editting the JMX, or recreating the Listener.
@@ -261,6 +269,8 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
     private static final boolean _responseDataOnError;
 
+    private static final boolean _binary;
+
     private static final boolean _saveAssertionResultsFailureMessage;
 
     private static final String _timeStampFormat;
@@ -393,10 +403,11 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
         String howToSave = props.getProperty(OUTPUT_FORMAT_PROP, CSV);
 
+        _binary = BINARY.equals(howToSave);
         if (XML.equals(howToSave)) {
             _xml = true;
         } else {
-            if (!CSV.equals(howToSave)) {
+            if (!CSV.equals(howToSave) && !_binary) {
                 log.warn(OUTPUT_FORMAT_PROP + " has unexepected value: '" + howToSave + "' - assuming 'csv' format");
             }
             _xml = false;
@@ -534,6 +545,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
 
     private Object readResolve(){
        formatter = _formatter;
+       binary = _binary;
        return this;
     }
 
@@ -577,6 +589,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
             s.responseData == responseData &&
             s.samplerData == samplerData &&
             s.xml == xml &&
+            s.binary == binary &&
             s.fieldNames == fieldNames &&
             s.responseHeaders == responseHeaders &&
             s.requestHeaders == requestHeaders &&
@@ -623,6 +636,7 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         hash = 31 * hash + (responseData ? 1 : 0);
         hash = 31 * hash + (samplerData ? 1 : 0);
         hash = 31 * hash + (xml ? 1 : 0);
+        hash = 31 * hash + (binary ? 1 : 0);
         hash = 31 * hash + (fieldNames ? 1 : 0);
         hash = 31 * hash + (responseHeaders ? 1 : 0);
         hash = 31 * hash + (requestHeaders ? 1 : 0);
@@ -734,6 +748,13 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         return responseData;
     }
 
+    /**
+     * @return <code>true</code> if the response data of failed samples is saved
+     */
+    public boolean isResponseDataSavedOnError() {
+        return responseDataOnError;
+    }
+
     public void setResponseData(boolean responseData) {
         this.responseData = responseData;
     }
@@ -800,6 +821,18 @@ public class SampleSaveConfiguration implements Cloneable, Serializable {
         this.xml = xml;
     }
 
+    /**
+     * Not named saveXXX as it is not offered by the pop-up dialogue,
+     * the binary format is only selected through the output_format property.
+     *
+     * @return true if results are to be saved with the binary format,
+     *  in which case the CSV and XML settings are ignored
+     * @see org.apache.jmeter.save.BinarySampleWriter
+     */
+    public boolean isBinaryFormat() {
+        return binary;
+    }
+
     public boolean saveFieldNames() {
         return fieldNames;
     }
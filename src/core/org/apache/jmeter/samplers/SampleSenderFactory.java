@@ -36,6 +36,8 @@ public class SampleSenderFactory {
 
     private static final String MODE_STATISTICAL = "Statistical"; // $NON-NLS-1$
 
+    private static final String MODE_STATISTICAL_HISTOGRAM = "StatisticalHistogram"; // $NON-NLS-1$
+
     private static final String MODE_STRIPPED = "Stripped"; // $NON-NLS-1$
 
     private static final String MODE_STRIPPED_BATCH = "StrippedBatch"; // $NON-NLS-1$
@@ -48,6 +50,8 @@ public class SampleSenderFactory {
 
     private static final String MODE_STRIPPED_DISKSTORE = "StrippedDiskStore"; // $NON-NLS-1$
 
+    private static final String MODE_BINARY = "Binary"; // $NON-NLS-1$
+
     /**
      * Checks for the Jmeter property mode and returns the required class.
      *
@@ -76,6 +80,9 @@ public class SampleSenderFactory {
         } else if (type.equalsIgnoreCase(MODE_STATISTICAL)) {
             StatisticalSampleSender s = new StatisticalSampleSender(listener);
             return s;
+        } else if (type.equalsIgnoreCase(MODE_STATISTICAL_HISTOGRAM)) {
+            return new StatisticalSampleSender(listener,
+                    JMeterUtils.getPropDefault("statistical.histogram.digits", 2)); // $NON-NLS-1$
         } else if (type.equalsIgnoreCase(MODE_STANDARD)) {
             StandardSampleSender s = new StandardSampleSender(listener);
             return s;
@@ -89,6 +96,8 @@ public class SampleSenderFactory {
             return new DiskStoreSampleSender(listener);
         } else if(type.equalsIgnoreCase(MODE_STRIPPED_DISKSTORE)){
             return new DataStrippingSampleSender(new DiskStoreSampleSender(listener));
+        } else if(type.equalsIgnoreCase(MODE_BINARY)){
+            return new BinarySampleSender(listener);
         } else {
             // should be a user provided class name
             SampleSender s = null;
@@ -20,6 +20,8 @@ package org.apache.jmeter.samplers;
 
 import java.io.Serializable;
 
+import org.apache.jorphan.math.LogLinearHistogram;
+
 /**
  * Aggregates sample results for use by the Statistical remote batch mode.
  * Samples are aggregated by the key defined by getKey().
@@ -35,6 +37,9 @@ public class StatisticalSampleResult extends SampleResult implements
     // Need to maintain our own elapsed timer to ensure more accurate aggregation
     private long elapsed;
 
+    // Distribution of the elapsed times, if requested
+    private LogLinearHistogram histogram;
+
     public StatisticalSampleResult(){// May be called by XStream
     }
 
@@ -68,7 +73,37 @@ public class StatisticalSampleResult extends SampleResult implements
         elapsed = 0;
     }
 
+    /**
+     * Create a statistical sample result from an ordinary sample result,
+     * which also counts the elapsed times of the samples in a histogram.
+     *
+     * @param res the sample result
+     * @param histogramDigits number of significant digits of the histogram, between 1 and 5
+     */
+    public StatisticalSampleResult(SampleResult res, int histogramDigits) {
+        this(res);
+        histogram = new LogLinearHistogram(histogramDigits);
+    }
+
+    /**
+     * @return the distribution of the elapsed times of the samples,
+     *  or null if it was not requested
+     */
+    public LogLinearHistogram getHistogram() {
+        return histogram;
+    }
+
     public void add(SampleResult res) {
+        if (histogram != null) {
+            LogLinearHistogram other = res instanceof StatisticalSampleResult
+                    ? ((StatisticalSampleResult) res).getHistogram() : null;
+            if (other != null) {
+                histogram.add(other);
+            } else {
+                int count = Math.max(1, res.getSampleCount());
+                histogram.add(res.getTime() / count, count);
+            }
+        }
         // Add Sample Counter
         setSampleCount(getSampleCount() + res.getSampleCount());
 
@@ -66,6 +66,9 @@ public class StatisticalSampleSender extends AbstractSampleSender implements Ser
     // should the samples be aggregated on thread name or thread group (default) ?
     private final boolean clientConfiguredKeyOnThreadName = JMeterUtils.getPropDefault("key_on_threadname", false);
 
+    // number of significant digits of the histograms of elapsed times, 0 if they are not sent
+    private final int histogramDigits;
+
     private final RemoteSampleListener listener;
 
     private final List<SampleEvent> sampleStore = new ArrayList<>();
@@ -103,7 +106,22 @@ public class StatisticalSampleSender extends AbstractSampleSender implements Ser
      * @param listener that the List of sample events will be sent to.
      */
     StatisticalSampleSender(RemoteSampleListener listener) {
+        this(listener, 0);
+    }
+
+    /**
+     * Constructor, only called by client code.
+     *
+     * @param listener that the List of sample events will be sent to.
+     * @param histogramDigits number of significant digits of the histograms of elapsed times
+     *  sent with each summary, between 1 and 5, or 0 to only send the aggregated values
+     */
+    StatisticalSampleSender(RemoteSampleListener listener, int histogramDigits) {
         this.listener = listener;
+        this.histogramDigits = histogramDigits;
+        if (histogramDigits != 0) {
+            log.info("Sending histograms of elapsed times with " + histogramDigits + " significant digits");
+        }
         if (isClientConfigured()) {
             log.info("Using StatisticalSampleSender (client settings) for this run."
                     + " Thresholds: num=" + clientConfiguredNumSamplesThreshold
@@ -149,7 +167,9 @@ public class StatisticalSampleSender extends AbstractSampleSender implements Ser
             String key = StatisticalSampleResult.getKey(e, keyOnThreadName);
             StatisticalSampleResult statResult = sampleTable.get(key);
             if (statResult == null) {
-                statResult = new StatisticalSampleResult(e.getResult());
+                statResult = histogramDigits == 0
+                        ? new StatisticalSampleResult(e.getResult())
+                        : new StatisticalSampleResult(e.getResult(), histogramDigits);
                 // store the new statistical result collector
                 sampleTable.put(key, statResult);
                 // add a new wrapper sampleevent
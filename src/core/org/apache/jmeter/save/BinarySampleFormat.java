@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.save;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and encoding helpers shared by {@link BinarySampleWriter} and {@link BinarySampleReader}.
+ * <p>
+ * A binary results file is a sequence of records:
+ * <ul>
+ * <li>a header: {@link #MAGIC}, the format version and the column names.
+ * A header resets the string dictionary, so files can be appended to by a new writer.</li>
+ * <li>blocks: {@link #TAG_BLOCK}, the number of rows, the raw and compressed lengths,
+ * then the deflated block content.</li>
+ * </ul>
+ * A block contains the new dictionary entries followed by the values column by column.
+ * Numbers are zigzag variable length encoded, time stamps as deltas from the previous row.
+ * Strings are written as a dictionary reference, or inline once the dictionary is full.
+ *
+ * @since 3.1
+ */
+final class BinarySampleFormat {
+
+    /** Magic bytes starting each header ("JTLB") */
+    static final byte[] MAGIC = { 'J', 'T', 'L', 'B' };
+
+    static final int VERSION = 1;
+
+    /** Tag starting each block of samples */
+    static final int TAG_BLOCK = 1;
+
+    // Columns, in the order they are stored
+    static final int TIME_STAMP = 0;
+    static final int ELAPSED = 1;
+    static final int LABEL = 2;
+    static final int RESPONSE_CODE = 3;
+    static final int RESPONSE_MESSAGE = 4;
+    static final int THREAD_NAME = 5;
+    static final int DATA_TYPE = 6;
+    static final int SUCCESS = 7;
+    static final int FAILURE_MESSAGE = 8;
+    static final int BYTES = 9;
+    static final int GRP_THREADS = 10;
+    static final int ALL_THREADS = 11;
+    static final int URL = 12;
+    static final int LATENCY = 13;
+    static final int IDLE_TIME = 14;
+    static final int CONNECT_TIME = 15;
+    static final int SAMPLE_COUNT = 16;
+    static final int ERROR_COUNT = 17;
+
+    /** Column names, same as the CSV ones so that readers can use them as is */
+    static final String[] COLUMN_NAMES = {
+        CSVSaveService.TIME_STAMP,
+        CSVSaveService.CSV_ELAPSED,
+        CSVSaveService.LABEL,
+        CSVSaveService.RESPONSE_CODE,
+        CSVSaveService.RESPONSE_MESSAGE,
+        CSVSaveService.THREAD_NAME,
+        CSVSaveService.DATA_TYPE,
+        CSVSaveService.SUCCESSFUL,
+        CSVSaveService.FAILURE_MESSAGE,
+        CSVSaveService.CSV_BYTES,
+        CSVSaveService.CSV_THREAD_COUNT1,
+        CSVSaveService.CSV_THREAD_COUNT2,
+        CSVSaveService.CSV_URL,
+        CSVSaveService.CSV_LATENCY,
+        CSVSaveService.CSV_IDLETIME,
+        CSVSaveService.CSV_CONNECT_TIME,
+        CSVSaveService.CSV_SAMPLE_COUNT,
+        CSVSaveService.CSV_ERROR_COUNT,
+    };
+
+    /** Whether each column holds a String (true) or a number (false) */
+    static final boolean[] STRING_COLUMNS = new boolean[COLUMN_NAMES.length];
+
+    static {
+        STRING_COLUMNS[LABEL] = true;
+        STRING_COLUMNS[RESPONSE_CODE] = true;
+        STRING_COLUMNS[RESPONSE_MESSAGE] = true;
+        STRING_COLUMNS[THREAD_NAME] = true;
+        STRING_COLUMNS[DATA_TYPE] = true;
+        STRING_COLUMNS[FAILURE_MESSAGE] = true;
+        STRING_COLUMNS[URL] = true;
+    }
+
+    // String codes
+    /** The string follows inline */
+    static final int CODE_LITERAL = 0;
+    static final int CODE_NULL = 1;
+    static final int CODE_EMPTY = 2;
+    /** First code referring to a dictionary entry */
+    static final int CODE_FIRST_ENTRY = 3;
+
+    /** Maximum number of dictionary entries, further distinct strings are written inline */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private BinarySampleFormat() {
+        super();
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable length number");
+            }
+            b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
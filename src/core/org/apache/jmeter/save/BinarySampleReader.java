@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.save;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+/**
+ * Reads sample results written by {@link BinarySampleWriter}.
+ * <p>
+ * Use {@link #next()} to move to the next sample, then the getters to fetch its values.
+ * Blocks are decoded one at a time, so memory use does not depend on the file size.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @since 3.1
+ */
+public class BinarySampleReader implements Closeable {
+
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final int COLUMN_COUNT = BinarySampleFormat.COLUMN_NAMES.length;
+
+    private final DataInputStream in;
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private final long[][] numbers = new long[COLUMN_COUNT][];
+
+    private final String[][] strings = new String[COLUMN_COUNT][];
+
+    private final Inflater inflater = new Inflater();
+
+    private byte[] compressed = new byte[0];
+
+    private byte[] raw = new byte[0];
+
+    private int rows;
+
+    private int currentRow = -1;
+
+    /**
+     * Create a reader and check the file header.
+     *
+     * @param in stream to read from, it should be buffered
+     * @throws IOException if the stream does not start with a valid header
+     */
+    public BinarySampleReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = new byte[BinarySampleFormat.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, BinarySampleFormat.MAGIC)) {
+            throw new IOException("Not a binary results file");
+        }
+        readHeader();
+    }
+
+    /**
+     * Check whether a file starts with the binary results header
+     *
+     * @param file the file to check
+     * @return true if the file is a binary results file
+     */
+    public static boolean isBinaryFile(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            byte[] magic = new byte[BinarySampleFormat.MAGIC.length];
+            int read = 0;
+            while (read < magic.length) {
+                int n = fis.read(magic, read, magic.length - read);
+                if (n < 0) {
+                    return false;
+                }
+                read += n;
+            }
+            return Arrays.equals(magic, BinarySampleFormat.MAGIC);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            JOrphanUtils.closeQuietly(fis);
+        }
+    }
+
+    /**
+     * @return the names of the columns, the same as used in CSV files
+     */
+    public static String[] getColumnNames() {
+        return BinarySampleFormat.COLUMN_NAMES.clone();
+    }
+
+    /**
+     * Read the end of a header (after the magic bytes) and reset the dictionary
+     */
+    private void readHeader() throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != BinarySampleFormat.VERSION) {
+            throw new IOException("Unsupported binary results file version " + version);
+        }
+        long columnCount = BinarySampleFormat.readVarLong(in);
+        if (columnCount != COLUMN_COUNT) {
+            throw new IOException("Unexpected number of columns " + columnCount);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            BinarySampleFormat.readString(in); // names are fixed for this version
+        }
+        dictionary.clear();
+    }
+
+    /**
+     * Move to the next sample
+     *
+     * @return false if there are no more samples
+     * @throws IOException if the file cannot be read or is corrupted
+     */
+    public boolean next() throws IOException {
+        currentRow++;
+        while (currentRow >= rows) {
+            if (!readRecord()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the next record, decoding it if it is a block
+     * @return false at the end of the file
+     */
+    private boolean readRecord() throws IOException {
+        int tag = in.read();
+        if (tag < 0) {
+            return false;
+        }
+        if (tag == BinarySampleFormat.MAGIC[0]) {
+            byte[] magic = new byte[BinarySampleFormat.MAGIC.length];
+            magic[0] = (byte) tag;
+            in.readFully(magic, 1, magic.length - 1);
+            if (!Arrays.equals(magic, BinarySampleFormat.MAGIC)) {
+                throw new IOException("Corrupted binary results file, invalid header");
+            }
+            readHeader();
+            return true;
+        }
+        if (tag != BinarySampleFormat.TAG_BLOCK) {
+            throw new IOException("Corrupted binary results file, unexpected record " + tag);
+        }
+        int blockRows;
+        int rawLength;
+        int compressedLength;
+        try {
+            blockRows = in.readInt();
+            rawLength = in.readInt();
+            compressedLength = in.readInt();
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+        } catch (EOFException e) {
+            // The writer was probably killed while writing the last block
+            log.warn("Truncated block at end of binary results file, ignoring it");
+            return false;
+        }
+        if (raw.length < rawLength) {
+            raw = new byte[rawLength];
+        }
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedLength);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength) {
+                throw new IOException("Corrupted binary results file, block is too short");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted binary results file", e);
+        }
+        decodeBlock(new DataInputStream(new ByteArrayInputStream(raw, 0, rawLength)), blockRows);
+        return true;
+    }
+
+    private void decodeBlock(DataInputStream data, int blockRows) throws IOException {
+        long entryCount = BinarySampleFormat.readVarLong(data);
+        for (long i = 0; i < entryCount; i++) {
+            dictionary.add(BinarySampleFormat.readString(data));
+        }
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            if (BinarySampleFormat.STRING_COLUMNS[col]) {
+                if (strings[col] == null || strings[col].length < blockRows) {
+                    strings[col] = new String[blockRows];
+                }
+                String[] values = strings[col];
+                for (int row = 0; row < blockRows; row++) {
+                    values[row] = decodeString(data);
+                }
+            } else {
+                if (numbers[col] == null || numbers[col].length < blockRows) {
+                    numbers[col] = new long[blockRows];
+                }
+                long[] values = numbers[col];
+                long previous = 0;
+                for (int row = 0; row < blockRows; row++) {
+                    long value = BinarySampleFormat.readVarLong(data);
+                    if (col == BinarySampleFormat.TIME_STAMP) {
+                        value += previous;
+                        previous = value;
+                    }
+                    values[row] = value;
+                }
+            }
+        }
+        rows = blockRows;
+        currentRow = 0;
+    }
+
+    private String decodeString(DataInputStream data) throws IOException {
+        long code = BinarySampleFormat.readVarLong(data);
+        if (code == BinarySampleFormat.CODE_LITERAL) {
+            return BinarySampleFormat.readString(data);
+        } else if (code == BinarySampleFormat.CODE_NULL) {
+            return null;
+        } else if (code == BinarySampleFormat.CODE_EMPTY) {
+            return "";
+        }
+        long entry = code - BinarySampleFormat.CODE_FIRST_ENTRY;
+        if (entry >= dictionary.size()) {
+            throw new IOException("Corrupted binary results file, unknown dictionary entry " + entry);
+        }
+        return dictionary.get((int) entry);
+    }
+
+    /**
+     * @param column index of a numeric column, in the order of {@link #getColumnNames()}
+     * @return the value of the column for the current sample
+     */
+    public long getLong(int column) {
+        return numbers[column][currentRow];
+    }
+
+    /**
+     * @param column index of a String column, in the order of {@link #getColumnNames()}
+     * @return the value of the column for the current sample, may be null
+     */
+    public String getString(int column) {
+        return strings[column][currentRow];
+    }
+
+    /**
+     * @param column index of a column, in the order of {@link #getColumnNames()}
+     * @return true if the column holds Strings
+     */
+    public static boolean isStringColumn(int column) {
+        return BinarySampleFormat.STRING_COLUMNS[column];
+    }
+
+    /**
+     * @return the values of the current sample as Strings, as they would be written in a CSV file
+     *  with time stamps in milliseconds
+     */
+    public String[] getValuesAsStrings() {
+        String[] values = new String[COLUMN_COUNT];
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            if (col == BinarySampleFormat.SUCCESS) {
+                values[col] = getLong(col) != 0 ? "true" : "false"; // $NON-NLS-1$ $NON-NLS-2$
+            } else if (BinarySampleFormat.STRING_COLUMNS[col]) {
+                String value = getString(col);
+                values[col] = value == null ? "" : value;
+            } else {
+                values[col] = Long.toString(getLong(col));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return a new {@link SampleResult} built from the current sample
+     */
+    public SampleResult getSampleResult() {
+        SampleResult result = new SampleResult(getLong(BinarySampleFormat.TIME_STAMP),
+                getLong(BinarySampleFormat.ELAPSED));
+        result.setSampleLabel(getString(BinarySampleFormat.LABEL));
+        result.setResponseCode(getString(BinarySampleFormat.RESPONSE_CODE));
+        result.setResponseMessage(getString(BinarySampleFormat.RESPONSE_MESSAGE));
+        result.setThreadName(getString(BinarySampleFormat.THREAD_NAME));
+        result.setDataType(getString(BinarySampleFormat.DATA_TYPE));
+        result.setSuccessful(getLong(BinarySampleFormat.SUCCESS) != 0);
+        result.setBytes((int) getLong(BinarySampleFormat.BYTES));
+        result.setGroupThreads((int) getLong(BinarySampleFormat.GRP_THREADS));
+        result.setAllThreads((int) getLong(BinarySampleFormat.ALL_THREADS));
+        result.setLatency(getLong(BinarySampleFormat.LATENCY));
+        result.setIdleTime(getLong(BinarySampleFormat.IDLE_TIME));
+        result.setConnectTime(getLong(BinarySampleFormat.CONNECT_TIME));
+        result.setSampleCount((int) getLong(BinarySampleFormat.SAMPLE_COUNT));
+        result.setErrorCount((int) getLong(BinarySampleFormat.ERROR_COUNT));
+        String failureMessage = getString(BinarySampleFormat.FAILURE_MESSAGE);
+        if (failureMessage != null && !failureMessage.isEmpty()) {
+            AssertionResult assertionResult = new AssertionResult(""); // $NON-NLS-1$
+            assertionResult.setFailure(true);
+            assertionResult.setFailureMessage(failureMessage);
+            result.addAssertionResult(assertionResult);
+        }
+        String url = getString(BinarySampleFormat.URL);
+        if (url != null && !url.isEmpty()) {
+            try {
+                result.setURL(new URL(url));
+            } catch (MalformedURLException e) {
+                log.warn("Could not restore URL " + url + " of sample " + result.getSampleLabel() + ": " + e);
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+}
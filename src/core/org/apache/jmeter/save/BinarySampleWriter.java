@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.save;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Writes sample results in a compact binary format, see {@link BinarySampleFormat}.
+ * <p>
+ * Samples are buffered in blocks stored column by column, with dictionary encoded
+ * Strings, and each block is deflated before being written.
+ * Only the fields needed by the listeners and the report generator are written,
+ * i.e. the same fields as the default CSV configuration.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @since 3.1
+ */
+public class BinarySampleWriter implements Closeable {
+
+    /** Number of samples buffered before a block is written */
+    private static final int BLOCK_SIZE = 4096;
+
+    private static final int COLUMN_COUNT = BinarySampleFormat.COLUMN_NAMES.length;
+
+    private final DataOutputStream out;
+
+    //@GuardedBy("this")
+    private final long[][] numbers = new long[COLUMN_COUNT][];
+
+    //@GuardedBy("this")
+    private final String[][] strings = new String[COLUMN_COUNT][];
+
+    //@GuardedBy("this")
+    private int rows;
+
+    //@GuardedBy("this")
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    //@GuardedBy("this")
+    private final ByteArrayOutputStream rawBlock = new ByteArrayOutputStream(BLOCK_SIZE * 32);
+
+    //@GuardedBy("this")
+    private final ByteArrayOutputStream newEntries = new ByteArrayOutputStream();
+
+    //@GuardedBy("this")
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    //@GuardedBy("this")
+    private byte[] compressed = new byte[0];
+
+    /**
+     * Create a writer and write the file header.
+     *
+     * @param out stream to write to, it should be buffered
+     * @throws IOException if the header cannot be written
+     */
+    public BinarySampleWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            if (BinarySampleFormat.STRING_COLUMNS[i]) {
+                strings[i] = new String[BLOCK_SIZE];
+            } else {
+                numbers[i] = new long[BLOCK_SIZE];
+            }
+        }
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(BinarySampleFormat.MAGIC);
+        out.writeByte(BinarySampleFormat.VERSION);
+        BinarySampleFormat.writeVarLong(out, COLUMN_COUNT);
+        for (String name : BinarySampleFormat.COLUMN_NAMES) {
+            BinarySampleFormat.writeString(out, name);
+        }
+    }
+
+    /**
+     * Add a sample, which will be written once the current block is full.
+     * Sub-results are not written, as for the CSV format.
+     *
+     * @param res the {@link SampleResult} to write
+     * @throws IOException if a full block cannot be written
+     */
+    public synchronized void write(SampleResult res) throws IOException {
+        int row = rows;
+        numbers[BinarySampleFormat.TIME_STAMP][row] = res.getTimeStamp();
+        numbers[BinarySampleFormat.ELAPSED][row] = res.getTime();
+        strings[BinarySampleFormat.LABEL][row] = res.getSampleLabel();
+        strings[BinarySampleFormat.RESPONSE_CODE][row] = res.getResponseCode();
+        strings[BinarySampleFormat.RESPONSE_MESSAGE][row] = res.getResponseMessage();
+        strings[BinarySampleFormat.THREAD_NAME][row] = res.getThreadName();
+        strings[BinarySampleFormat.DATA_TYPE][row] = res.getDataType();
+        numbers[BinarySampleFormat.SUCCESS][row] = res.isSuccessful() ? 1 : 0;
+        strings[BinarySampleFormat.FAILURE_MESSAGE][row] = getFailureMessage(res);
+        numbers[BinarySampleFormat.BYTES][row] = res.getBytes();
+        numbers[BinarySampleFormat.GRP_THREADS][row] = res.getGroupThreads();
+        numbers[BinarySampleFormat.ALL_THREADS][row] = res.getAllThreads();
+        strings[BinarySampleFormat.URL][row] = res.getUrlAsString();
+        numbers[BinarySampleFormat.LATENCY][row] = res.getLatency();
+        numbers[BinarySampleFormat.IDLE_TIME][row] = res.getIdleTime();
+        numbers[BinarySampleFormat.CONNECT_TIME][row] = res.getConnectTime();
+        numbers[BinarySampleFormat.SAMPLE_COUNT][row] = res.getSampleCount();
+        numbers[BinarySampleFormat.ERROR_COUNT][row] = res.getErrorCount();
+        rows++;
+        if (rows == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * @param res {@link SampleResult}
+     * @return the first non null assertion failure message, as written to CSV files
+     */
+    private static String getFailureMessage(SampleResult res) {
+        AssertionResult[] results = res.getAssertionResults();
+        if (results != null) {
+            for (AssertionResult result : results) {
+                String message = result.getFailureMessage();
+                if (message != null) {
+                    return message;
+                }
+            }
+        }
+        return "";
+    }
+
+    private void writeBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        List<String> added = new ArrayList<>();
+        boolean written = false;
+        try {
+            writeBlock(added);
+            written = true;
+        } finally {
+            // The block is dropped on failure: later blocks must not overflow
+            // the columns or refer to dictionary entries that were not written
+            rows = 0;
+            if (!written) {
+                for (String value : added) {
+                    dictionary.remove(value);
+                }
+                for (String[] values : strings) {
+                    if (values != null) {
+                        Arrays.fill(values, null);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeBlock(List<String> added) throws IOException {
+        rawBlock.reset();
+        newEntries.reset();
+        DataOutputStream columns = new DataOutputStream(rawBlock);
+        DataOutputStream entries = new DataOutputStream(newEntries);
+        int entryCount = 0;
+        ByteArrayOutputStream columnBytes = new ByteArrayOutputStream(rows * 24);
+        DataOutputStream data = new DataOutputStream(columnBytes);
+        for (int col = 0; col < COLUMN_COUNT; col++) {
+            if (BinarySampleFormat.STRING_COLUMNS[col]) {
+                String[] values = strings[col];
+                for (int row = 0; row < rows; row++) {
+                    String value = values[row];
+                    values[row] = null; // don't keep references to the samples
+                    if (value == null) {
+                        BinarySampleFormat.writeVarLong(data, BinarySampleFormat.CODE_NULL);
+                    } else if (value.isEmpty()) {
+                        BinarySampleFormat.writeVarLong(data, BinarySampleFormat.CODE_EMPTY);
+                    } else {
+                        Integer entry = dictionary.get(value);
+                        if (entry == null && dictionary.size() < BinarySampleFormat.MAX_DICTIONARY_SIZE) {
+                            entry = Integer.valueOf(dictionary.size());
+                            dictionary.put(value, entry);
+                            added.add(value);
+                            BinarySampleFormat.writeString(entries, value);
+                            entryCount++;
+                        }
+                        if (entry != null) {
+                            BinarySampleFormat.writeVarLong(data,
+                                    BinarySampleFormat.CODE_FIRST_ENTRY + entry.longValue());
+                        } else {
+                            BinarySampleFormat.writeVarLong(data, BinarySampleFormat.CODE_LITERAL);
+                            BinarySampleFormat.writeString(data, value);
+                        }
+                    }
+                }
+            } else {
+                long[] values = numbers[col];
+                long previous = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (col == BinarySampleFormat.TIME_STAMP) {
+                        BinarySampleFormat.writeVarLong(data, values[row] - previous);
+                        previous = values[row];
+                    } else {
+                        BinarySampleFormat.writeVarLong(data, values[row]);
+                    }
+                }
+            }
+        }
+        BinarySampleFormat.writeVarLong(columns, entryCount);
+        newEntries.writeTo(columns);
+        columnBytes.writeTo(columns);
+
+        int rawLength = rawBlock.size();
+        deflater.reset();
+        deflater.setInput(rawBlock.toByteArray());
+        deflater.finish();
+        int compressedLength = 0;
+        if (compressed.length < rawLength + 64) {
+            compressed = new byte[rawLength + 64];
+        }
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                byte[] larger = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, larger, 0, compressedLength);
+                compressed = larger;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        out.writeByte(BinarySampleFormat.TAG_BLOCK);
+        out.writeInt(rows);
+        out.writeInt(rawLength);
+        out.writeInt(compressedLength);
+        out.write(compressed, 0, compressedLength);
+    }
+
+    /**
+     * Write the pending samples as a (possibly partial) block and flush the underlying stream
+     *
+     * @throws IOException if writing fails
+     */
+    public synchronized void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Write the pending samples and close the underlying stream
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+}
@@ -20,17 +20,18 @@ package org.apache.jmeter.testelement;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
+import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.gui.Searchable;
+import org.apache.jmeter.testelement.property.AbstractProperty;
 import org.apache.jmeter.testelement.property.BooleanProperty;
 import org.apache.jmeter.testelement.property.CollectionProperty;
+import org.apache.jmeter.testelement.property.DoubleProperty;
+import org.apache.jmeter.testelement.property.FloatProperty;
 import org.apache.jmeter.testelement.property.IntegerProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
 import org.apache.jmeter.testelement.property.LongProperty;
@@ -53,8 +54,15 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     private static final Logger log = LoggingManager.getLoggerForClass();
 
-    private final Map<String, JMeterProperty> propMap =
-        Collections.synchronizedMap(new LinkedHashMap<String, JMeterProperty>());
+    /** Set while {@link #cloneSharingProperties(TestElement)} is running */
+    private static final ThreadLocal<Boolean> SHARE_PROPERTIES = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return Boolean.FALSE;
+        }
+    };
+
+    private final PropertyMap propMap = new PropertyMap();
 
     /**
      * Holds properties added when isRunningVersion is true
@@ -73,9 +81,16 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
         try {
             TestElement clonedElement = this.getClass().newInstance();
 
+            final boolean share = runningVersion && SHARE_PROPERTIES.get().booleanValue();
             PropertyIterator iter = propertyIterator();
             while (iter.hasNext()) {
-                clonedElement.setProperty(iter.next().clone());
+                JMeterProperty prop = iter.next();
+                if (share && isShareable(prop)) {
+                    ((AbstractProperty) prop).setShared();
+                    clonedElement.setProperty(prop);
+                } else {
+                    clonedElement.setProperty(prop.clone());
+                }
             }
             clonedElement.setRunningVersion(runningVersion);
             return clonedElement;
@@ -84,6 +99,64 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
         }
     }
 
+    /**
+     * Clone a running test element, sharing its simple properties (strings, numbers and booleans)
+     * with the clone instead of copying them.
+     * Nested test elements are cloned the same way.
+     * <p>
+     * A shared property is replaced by a private copy the first time its owner changes it,
+     * so the clones behave as if they had been deep cloned, as long as properties are
+     * changed through {@link #setProperty(JMeterProperty)} and not in place.
+     *
+     * @param element running {@link TestElement} to clone
+     * @return the clone
+     */
+    public static Object cloneSharingProperties(TestElement element) {
+        SHARE_PROPERTIES.set(Boolean.TRUE);
+        try {
+            return element.clone();
+        } finally {
+            SHARE_PROPERTIES.remove();
+        }
+    }
+
+    /**
+     * Properties that hold a single immutable value and can be shared between clones
+     * @param prop {@link JMeterProperty}
+     * @return true if prop can be shared
+     */
+    private static boolean isShareable(JMeterProperty prop) {
+        Class<?> type = prop.getClass();
+        return type == StringProperty.class
+                || type == BooleanProperty.class
+                || type == IntegerProperty.class
+                || type == LongProperty.class
+                || type == FloatProperty.class
+                || type == DoubleProperty.class;
+    }
+
+    private static boolean isShared(JMeterProperty prop) {
+        return prop instanceof AbstractProperty && ((AbstractProperty) prop).isShared();
+    }
+
+    /**
+     * Replace a shared property by a private copy, so that it can be modified
+     * @param prop {@link JMeterProperty} of this element
+     * @return prop or its copy
+     */
+    private JMeterProperty unshare(JMeterProperty prop) {
+        if (!isShared(prop)) {
+            return prop;
+        }
+        JMeterProperty copy = prop.clone();
+        if (isTemporary(prop)) {
+            clearTemporary(prop);
+            setTemporary(copy);
+        }
+        propMap.put(copy.getName(), copy);
+        return copy;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -230,8 +303,8 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     @Override
     public int getPropertyAsInt(String key, int defaultValue) {
-        JMeterProperty jmp = getProperty(key);
-        return jmp instanceof NullProperty ? defaultValue : jmp.getIntValue();
+        JMeterProperty jmp = propMap.get(key); // avoid creating a NullProperty
+        return jmp == null || jmp instanceof NullProperty ? defaultValue : jmp.getIntValue();
     }
 
     @Override
@@ -241,8 +314,8 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     @Override
     public boolean getPropertyAsBoolean(String key, boolean defaultVal) {
-        JMeterProperty jmp = getProperty(key);
-        return jmp instanceof NullProperty ? defaultVal : jmp.getBooleanValue();
+        JMeterProperty jmp = propMap.get(key); // avoid creating a NullProperty
+        return jmp == null || jmp instanceof NullProperty ? defaultVal : jmp.getBooleanValue();
     }
 
     @Override
@@ -257,8 +330,8 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     @Override
     public long getPropertyAsLong(String key, long defaultValue) {
-        JMeterProperty jmp = getProperty(key);
-        return jmp instanceof NullProperty ? defaultValue : jmp.getLongValue();
+        JMeterProperty jmp = propMap.get(key); // avoid creating a NullProperty
+        return jmp == null || jmp instanceof NullProperty ? defaultValue : jmp.getLongValue();
     }
 
     @Override
@@ -273,8 +346,8 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
 
     @Override
     public String getPropertyAsString(String key, String defaultValue) {
-        JMeterProperty jmp = getProperty(key);
-        return jmp instanceof NullProperty ? defaultValue : jmp.getStringValue();
+        JMeterProperty jmp = propMap.get(key); // avoid creating a NullProperty
+        return jmp == null || jmp instanceof NullProperty ? defaultValue : jmp.getStringValue();
     }
 
     /**
@@ -341,7 +414,7 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
             if (getProperty(property.getName()) instanceof NullProperty) {
                 addProperty(property);
             } else {
-                getProperty(property.getName()).setObjectValue(property.getObjectValue());
+                unshare(getProperty(property.getName())).setObjectValue(property.getObjectValue());
             }
         } else {
             propMap.put(property.getName(), property);
@@ -482,9 +555,14 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
     @Override
     public void setRunningVersion(boolean runningVersion) {
         this.runningVersion = runningVersion;
+        // Running versions are cloned for each thread, except NoThreadClone elements shared by the threads
+        propMap.setThreadConfined(runningVersion && !(this instanceof NoThreadClone));
         PropertyIterator iter = propertyIterator();
         while (iter.hasNext()) {
-            iter.next().setRunningVersion(runningVersion);
+            JMeterProperty prop = iter.next();
+            if (!isShared(prop)) { // shared properties keep the state of the element they come from
+                prop.setRunningVersion(runningVersion);
+            }
         }
     }
 
@@ -493,14 +571,13 @@ public abstract class AbstractTestElement implements TestElement, Serializable,
      */
     @Override
     public void recoverRunningVersion() {
-        Iterator<Map.Entry<String, JMeterProperty>>  iter = propMap.entrySet().iterator();
+        Iterator<JMeterProperty> iter = propMap.values().iterator();
         while (iter.hasNext()) {
-            Map.Entry<String, JMeterProperty> entry = iter.next();
-            JMeterProperty prop = entry.getValue();
+            JMeterProperty prop = iter.next();
             if (isTemporary(prop)) {
                 iter.remove();
                 clearTemporary(prop);
-            } else {
+            } else if (!isShared(prop)) { // shared properties are never modified
                 prop.recoverRunningVersion(this);
             }
         }
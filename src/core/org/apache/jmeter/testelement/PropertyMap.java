@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.testelement;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.jmeter.testelement.property.JMeterProperty;
+
+/**
+ * Insertion ordered map holding the properties of an {@link AbstractTestElement}.
+ * <p>
+ * Keys and values are kept in two arrays and looked up by a linear scan, comparing
+ * interned keys by reference first. Test elements have few properties, so this is
+ * faster and much smaller than a {@link java.util.LinkedHashMap}.
+ * <p>
+ * Access is synchronized unless the map is marked as thread confined, which is the case
+ * for the running versions of the test elements cloned for each thread.
+ * As with {@link java.util.Collections#synchronizedMap(java.util.Map)}, iteration is not synchronized.
+ */
+final class PropertyMap extends AbstractMap<String, JMeterProperty> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys;
+
+    private JMeterProperty[] values;
+
+    private int size;
+
+    private transient int modCount;
+
+    private transient boolean threadConfined;
+
+    PropertyMap() {
+        keys = new String[INITIAL_CAPACITY];
+        values = new JMeterProperty[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param threadConfined true if the map is only used by one thread and does not need to be synchronized
+     */
+    void setThreadConfined(boolean threadConfined) {
+        this.threadConfined = threadConfined;
+    }
+
+    @Override
+    public JMeterProperty get(Object key) {
+        if (threadConfined) {
+            return doGet(key);
+        }
+        synchronized (this) {
+            return doGet(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public JMeterProperty put(String key, JMeterProperty value) {
+        if (threadConfined) {
+            return doPut(key, value);
+        }
+        synchronized (this) {
+            return doPut(key, value);
+        }
+    }
+
+    @Override
+    public JMeterProperty remove(Object key) {
+        if (threadConfined) {
+            return doRemove(key);
+        }
+        synchronized (this) {
+            return doRemove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (threadConfined) {
+            doClear();
+            return;
+        }
+        synchronized (this) {
+            doClear();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Collection<JMeterProperty> values() {
+        return new AbstractCollection<JMeterProperty>() {
+            @Override
+            public Iterator<JMeterProperty> iterator() {
+                return new Itr<JMeterProperty>() {
+                    @Override
+                    JMeterProperty item(int index) {
+                        return values[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, JMeterProperty>> entrySet() {
+        return new AbstractSet<Entry<String, JMeterProperty>>() {
+            @Override
+            public Iterator<Entry<String, JMeterProperty>> iterator() {
+                return new Itr<Entry<String, JMeterProperty>>() {
+                    @Override
+                    Entry<String, JMeterProperty> item(int index) {
+                        return new SimpleImmutableEntry<>(keys[index], values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        final String[] k = keys;
+        final int n = size;
+        for (int i = 0; i < n; i++) {
+            if (k[i] == key) {
+                return i;
+            }
+        }
+        // Not interned, such as names derived from bean properties
+        final int hash = key.hashCode();
+        for (int i = 0; i < n; i++) {
+            if (k[i].hashCode() == hash && k[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private JMeterProperty doGet(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    private JMeterProperty doPut(String key, JMeterProperty value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            JMeterProperty previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("Property name cannot be null");
+        }
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key.intern();
+        values[size] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    private JMeterProperty doRemove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        JMeterProperty previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+    }
+
+    private void doClear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (int i = 0; i < size; i++) {
+            keys[i] = keys[i].intern();
+        }
+    }
+
+    /**
+     * Iterates over the slots in insertion order, failing fast on concurrent modification
+     * @param <T> type of the items
+     */
+    private abstract class Itr<T> implements Iterator<T> {
+        private int next;
+
+        private int last = -1;
+
+        private int expectedModCount = modCount;
+
+        abstract T item(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return item(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (threadConfined) {
+                removeAt(last);
+            } else {
+                synchronized (PropertyMap.this) {
+                    removeAt(last);
+                }
+            }
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -35,6 +35,9 @@ public abstract class AbstractProperty implements JMeterProperty {
 
     private transient boolean runningVersion = false;
 
+    // Set when the instance is referenced by the clones of a running test element
+    private transient boolean shared = false;
+
     public AbstractProperty(String name) {
         if (name == null) {
             throw new IllegalArgumentException("Name cannot be null");
@@ -81,6 +84,25 @@ public abstract class AbstractProperty implements JMeterProperty {
         this.runningVersion = runningVersion;
     }
 
+    /**
+     * Is this instance referenced by several test elements?
+     * A shared property must not be modified in place, its owner replaces it
+     * with a copy before changing its value.
+     *
+     * @return true if the property is shared
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Mark this instance as referenced by several test elements.
+     * Clones of the property are not shared.
+     */
+    public void setShared() {
+        this.shared = true;
+    }
+
     protected PropertyIterator getIterator(Collection<JMeterProperty> values) {
         return new PropertyIteratorImpl(values);
     }
@@ -92,6 +114,7 @@ public abstract class AbstractProperty implements JMeterProperty {
             AbstractProperty prop = (AbstractProperty) super.clone();
             prop.name = name;
             prop.runningVersion = runningVersion;
+            prop.shared = false;
             return prop;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError(e); // clone should never return null
@@ -151,6 +151,13 @@ public class JMeterThread implements Runnable, Interruptible {
         running = true;
     }
 
+    /**
+     * @return the notifier of the sample events of this thread, shared by the threads of the test
+     */
+    public ListenerNotifier getNotifier() {
+        return notifier;
+    }
+
     public void setInitialContext(JMeterContext context) {
         threadVars.putAll(context.getVariables());
     }
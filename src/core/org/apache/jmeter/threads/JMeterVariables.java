@@ -18,22 +18,52 @@
 
 package org.apache.jmeter.threads;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jmeter.util.JMeterUtils;
 
 /**
  * Class which defines JMeter variables.
  * These are similar to properties, but they are local to a single thread.
+ * <p>
+ * Variables whose name is referenced in the test plan are assigned a slot when the
+ * reference is compiled (see {@link #getSlot(String)}), and their values are stored in
+ * an array indexed by the slot. Other variables are stored in a map.
+ * Slots are released at the start of each test by {@link #resetSlots()}, instances
+ * created before keep using the slots they were created with.
  */
 public class JMeterVariables {
+    /** Maximum number of variable names that get a slot */
+    private static final int MAX_SLOTS = 4096;
+
+    private static final Object[] NO_VALUES = new Object[0];
+
+    /** Slots assigned since the start of the current test, shared by all the threads */
+    private static volatile Slots currentSlots = new Slots();
+
+    /** Slots of this instance, assigned for the test during which it was created */
+    private final Slots slots = currentSlots;
+
+    /** Names of the first {@link #knownSlots} slots */
+    private String[] slotNames = new String[0];
+
+    /** Variables without a slot, and values set before the slot of their name was assigned */
     private final Map<String, Object> variables = new HashMap<>();
 
+    /** Values of the variables with a slot */
+    private Object[] slotValues = NO_VALUES;
+
+    /** Number of slots known by this instance, the values of these slots are never in {@link #variables} */
+    private int knownSlots = 0;
+
     private int iteration = 0;
 
     // Property names to preload into JMeter variables:
@@ -52,9 +82,67 @@ public class JMeterVariables {
         for (String property : PRE_LOAD) {
             String value = JMeterUtils.getProperty(property);
             if (value != null) {
-                variables.put(property, value);
+                putObject(property, value);
+            }
+        }
+    }
+
+    /**
+     * Get the slot of a variable name, assigning one if needed.
+     * Intended to be called when a variable reference is compiled, not for each access.
+     *
+     * @param name the variable name
+     * @return the slot, or -1 if no more slots are available
+     */
+    public static int getSlot(String name) {
+        return currentSlots.getSlot(name);
+    }
+
+    /**
+     * Release the slots assigned so far, so that the slots and the values of each thread
+     * only grow with the variable names referenced by the current test plan.
+     * Called at the start of each test, before the test plan is compiled.
+     * Slots assigned before the call are still accepted by {@link #getObject(int, String)},
+     * which then looks the variable up by name.
+     */
+    public static void resetSlots() {
+        currentSlots = new Slots();
+    }
+
+    /**
+     * Take into account the slots assigned since last call:
+     * grow the values and move the values of their names out of the map
+     */
+    private void updateSlots() {
+        String[] names = slots.names;
+        if (names.length > slotValues.length) {
+            slotValues = Arrays.copyOf(slotValues, Math.max(names.length, slotValues.length * 2));
+        }
+        if (!variables.isEmpty()) {
+            for (int i = knownSlots; i < names.length; i++) {
+                Object value = variables.remove(names[i]);
+                if (value != null) {
+                    slotValues[i] = value;
+                }
             }
         }
+        slotNames = names;
+        knownSlots = names.length;
+    }
+
+    private int slotOf(String key) {
+        if (key == null) {
+            // the map of the slots does not accept null, the variables map does
+            return -1;
+        }
+        Integer slot = slots.slots.get(key);
+        if (slot == null) {
+            return -1;
+        }
+        if (slot.intValue() >= knownSlots) {
+            updateSlots();
+        }
+        return slot.intValue();
     }
 
     public String getThreadName() {
@@ -73,6 +161,7 @@ public class JMeterVariables {
     @Deprecated
     public void initialize() {
         variables.clear();
+        Arrays.fill(slotValues, null);
         preloadVariables();
     }
 
@@ -84,6 +173,12 @@ public class JMeterVariables {
      * @return the variable value, or {@code null} if there was no such variable
      */
     public Object remove(String key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            Object previous = slotValues[slot];
+            slotValues[slot] = null;
+            return previous;
+        }
         return variables.remove(key);
     }
 
@@ -94,7 +189,7 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void put(String key, String value) {
-        variables.put(key, value);
+        putObject(key, value);
     }
 
     /**
@@ -104,15 +199,22 @@ public class JMeterVariables {
      * @param value the variable value
      */
     public void putObject(String key, Object value) {
-        variables.put(key, value);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            slotValues[slot] = value;
+        } else {
+            variables.put(key, value);
+        }
     }
 
     public void putAll(Map<String, ?> vars) {
-        variables.putAll(vars);
+        for (Map.Entry<String, ?> entry : vars.entrySet()) {
+            putObject(entry.getKey(), entry.getValue());
+        }
     }
 
     public void putAll(JMeterVariables vars) {
-        putAll(vars.variables);
+        putAll(vars.asMap());
     }
 
     /**
@@ -122,7 +224,7 @@ public class JMeterVariables {
      * @return the value of the variable, or {@code null} if it does not exist
      */
     public String get(String key) {
-        return (String) variables.get(key);
+        return (String) getObject(key);
     }
 
     /**
@@ -132,20 +234,92 @@ public class JMeterVariables {
      * @return the value of the variable, or {@code null} if it does not exist
      */
     public Object getObject(String key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return slotValues[slot];
+        }
         return variables.get(key);
     }
 
     /**
-     * Gets a read-only Iterator over the variables.
+     * Gets the value of a variable from its slot.
+     * 
+     * @param slot the slot of the variable, as returned by {@link #getSlot(String)}
+     * @param name the name of the variable, used if the slot was assigned for another test
+     * @return the value of the variable, or {@code null} if it does not exist
+     */
+    public Object getObject(int slot, String name) {
+        if (slot >= knownSlots) {
+            updateSlots();
+        }
+        if (slot < knownSlots && name.equals(slotNames[slot])) {
+            return slotValues[slot];
+        }
+        return getObject(name);
+    }
+
+    /**
+     * @return a copy of the variables
+     */
+    private Map<String, Object> asMap() {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        String[] names = slotNames;
+        for (int i = 0; i < knownSlots; i++) {
+            if (slotValues[i] != null) {
+                copy.put(names[i], slotValues[i]);
+            }
+        }
+        copy.putAll(variables);
+        return copy;
+    }
+
+    /**
+     * Gets a read-only Iterator over a snapshot of the variables.
      * 
      * @return the iterator
      */
     public Iterator<Entry<String, Object>> getIterator(){
-        return Collections.unmodifiableMap(variables).entrySet().iterator() ;
+        return entrySet().iterator();
     }
 
     // Used by DebugSampler
+    /**
+     * @return a read-only snapshot of the variables
+     */
     public Set<Entry<String, Object>> entrySet(){
-        return Collections.unmodifiableMap(variables).entrySet();
+        return Collections.unmodifiableMap(asMap()).entrySet();
+    }
+
+    /**
+     * Slots assigned to variable names during a test
+     */
+    private static final class Slots {
+        private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+
+        /** Names of the variables, indexed by slot */
+        //@GuardedBy("this") for writes
+        private volatile String[] names = new String[0];
+
+        int getSlot(String name) {
+            Integer slot = slots.get(name);
+            if (slot != null) {
+                return slot.intValue();
+            }
+            synchronized (this) {
+                slot = slots.get(name);
+                if (slot != null) {
+                    return slot.intValue();
+                }
+                String[] current = names;
+                if (current.length >= MAX_SLOTS) {
+                    return -1;
+                }
+                String[] newNames = Arrays.copyOf(current, current.length + 1);
+                newNames[current.length] = name;
+                names = newNames; // publish the name before the slot
+                slots.put(name, Integer.valueOf(current.length));
+                return current.length;
+            }
+        }
     }
 }
@@ -16,39 +16,82 @@
  *
  */
 
-/////////////////////////////////////////
-////////
-//////// This code is mostly unused at present
-//////// it seems that only notifyListeners()
-//////// is used.
-////////
-//////// However, it does look useful.
-//////// And it may one day be used...
-////////
-/////////////////////////////////////////
-
 package org.apache.jmeter.threads;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-//import org.apache.commons.collections.Buffer;
-//import org.apache.commons.collections.BufferUtils;
-//import org.apache.commons.collections.buffer.UnboundedFifoBuffer;
+import org.apache.jmeter.engine.util.NoThreadClone;
 import org.apache.jmeter.samplers.SampleEvent;
 import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleMetrics;
+import org.apache.jmeter.samplers.SampleMetricsListener;
+import org.apache.jmeter.testbeans.TestBean;
 import org.apache.jmeter.testbeans.TestBeanHelper;
 import org.apache.jmeter.testelement.TestElement;
+import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.log.Logger;
 
 /**
  * Processes sample events.
- * The current implementation processes events in the calling thread
- * using {@link #notifyListeners(SampleEvent, List)}
+ * By default events are processed in the calling thread
+ * using {@link #notifyListeners(SampleEvent, List)}.
+ * <p>
+ * An asynchronous notifier hands the events for the listeners shared by all the threads
+ * ({@link NoThreadClone} listeners that are not {@link TestBean}s) to a bounded queue
+ * per listener, drained by a dedicated thread, so that a slow listener does not slow
+ * down the sampling threads. Only the {@link SampleMetrics} are queued for {@link SampleMetricsListener}s.
+ * Other listeners are still notified in the calling thread.
+ * {@link #stop()} must be called once the threads have ended, to deliver the queued events.
+ * Events notified after {@link #stop()} are delivered in the calling thread.
  */
 public class ListenerNotifier {
     private static final Logger log = LoggingManager.getLoggerForClass();
 
+    /** Capacity of the queue of each asynchronous listener */
+    private static final int QUEUE_SIZE =
+            JMeterUtils.getPropDefault("jmeterengine.async_listeners.queue_size", 10000); // $NON-NLS-1$
+
+    /** Drop events when the queue of a listener is full instead of waiting */
+    private static final boolean DROP_WHEN_FULL =
+            JMeterUtils.getPropDefault("jmeterengine.async_listeners.drop_when_full", false); // $NON-NLS-1$
+
+    private static final Object END_OF_TEST = new Object();
+
+    private final boolean asynchronous;
+
+    private final Object dispatchersLock = new Object();
+
+    /** Copied on write, so that it can be read without locking */
+    //@GuardedBy("dispatchersLock") for writes
+    private volatile Map<SampleListener, Dispatcher> dispatchers = new IdentityHashMap<>();
+
+    /** Set by {@link #stop()}, no dispatcher is created afterwards */
+    //@GuardedBy("dispatchersLock")
+    private boolean stopped;
+
+    /**
+     * Create a notifier that processes all the events in the calling thread
+     */
+    public ListenerNotifier() {
+        this(false);
+    }
+
+    /**
+     * @param asynchronous true to deliver the events to the listeners shared by
+     *  all the threads from dedicated threads
+     */
+    public ListenerNotifier(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
 
     /**
      * Notify a list of listeners that a sample has occurred.
@@ -62,6 +105,12 @@ public class ListenerNotifier {
      */
     public void notifyListeners(SampleEvent res, List<SampleListener> listeners) {
         for (SampleListener sampleListener : listeners) {
+            if (asynchronous && isShared(sampleListener)) {
+                Dispatcher dispatcher = getDispatcher(sampleListener);
+                if (dispatcher != null && dispatcher.dispatch(res)) {
+                    continue;
+                }
+            }
             try {
                 TestBeanHelper.prepare((TestElement) sampleListener);
                 sampleListener.sampleOccurred(res);
@@ -72,4 +121,173 @@ public class ListenerNotifier {
         }
     }
 
+    /**
+     * Deliver the queued events, then stop the threads of the asynchronous listeners
+     * and log how often their queues were full.
+     * Must be called when no more events are notified, before the listeners are told that the test ended.
+     */
+    public void stop() {
+        List<Dispatcher> toStop;
+        synchronized (dispatchersLock) {
+            stopped = true;
+            toStop = new ArrayList<>(dispatchers.values());
+            dispatchers = new IdentityHashMap<>();
+        }
+        for (Dispatcher dispatcher : toStop) {
+            dispatcher.stop();
+        }
+    }
+
+    /**
+     * Listeners shared by all the threads must support concurrent notifications,
+     * so they can be notified from another thread.
+     * TestBeans are excluded as they are prepared from the variables of the calling thread.
+     */
+    private static boolean isShared(SampleListener listener) {
+        return listener instanceof NoThreadClone && !(listener instanceof TestBean);
+    }
+
+    /**
+     * @return the dispatcher of the listener, or null once stopped
+     */
+    private Dispatcher getDispatcher(SampleListener listener) {
+        Dispatcher dispatcher = dispatchers.get(listener);
+        if (dispatcher == null) {
+            synchronized (dispatchersLock) {
+                if (stopped) {
+                    return null;
+                }
+                dispatcher = dispatchers.get(listener);
+                if (dispatcher == null) {
+                    dispatcher = new Dispatcher(listener);
+                    Map<SampleListener, Dispatcher> copy = new IdentityHashMap<>(dispatchers);
+                    copy.put(listener, dispatcher);
+                    dispatchers = copy;
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Delivers the events of one listener from a dedicated thread
+     */
+    private static final class Dispatcher implements Runnable {
+        private final SampleListener listener;
+
+        private final String name;
+
+        // SampleEvent, or SampleMetrics for a SampleMetricsListener
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+        private final boolean metricsOnly;
+
+        private final Thread thread;
+
+        private final AtomicLong delivered = new AtomicLong();
+
+        private final AtomicLong dropped = new AtomicLong();
+
+        private final AtomicLong blocked = new AtomicLong();
+
+        /** Held for reading while queueing, so that no event is queued after {@link #END_OF_TEST} */
+        private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+        //@GuardedBy("stopLock")
+        private boolean stopped;
+
+        Dispatcher(SampleListener listener) {
+            this.listener = listener;
+            this.name = ((TestElement) listener).getName();
+            this.metricsOnly = listener instanceof SampleMetricsListener;
+            thread = new Thread(this, "ListenerNotifier " + name); // $NON-NLS-1$
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * @return false if the dispatcher is stopped, the event must then be delivered by the caller
+         */
+        boolean dispatch(SampleEvent sampleEvent) {
+            Object event = sampleEvent;
+            if (metricsOnly) {
+                SampleMetrics metrics = sampleEvent.getMetrics();
+                if (metrics != null) {
+                    event = metrics; // so that the result can be released
+                }
+            }
+            stopLock.readLock().lock();
+            try {
+                if (stopped) {
+                    return false;
+                }
+                if (queue.offer(event)) {
+                    return true;
+                }
+                if (DROP_WHEN_FULL) {
+                    dropped.incrementAndGet();
+                    return true;
+                }
+                blocked.incrementAndGet();
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    dropped.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            } finally {
+                stopLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object event;
+                try {
+                    event = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (event == END_OF_TEST) {
+                    return;
+                }
+                try {
+                    if (event instanceof SampleMetrics) {
+                        ((SampleMetricsListener) listener).metricsOccurred((SampleMetrics) event);
+                    } else {
+                        listener.sampleOccurred((SampleEvent) event);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Detected problem in Listener: " + name, e);
+                }
+                delivered.incrementAndGet();
+            }
+        }
+
+        void stop() {
+            stopLock.writeLock().lock();
+            try {
+                stopped = true;
+            } finally {
+                stopLock.writeLock().unlock();
+            }
+            try {
+                queue.put(END_OF_TEST);
+                thread.join();
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for the events of listener: " + name);
+                Thread.currentThread().interrupt();
+            }
+            String message = "Asynchronous listener " + name + ": " + delivered.get() + " samples delivered, "
+                    + dropped.get() + " dropped, sampling threads waited " + blocked.get() + " times for a full queue";
+            if (dropped.get() > 0 || blocked.get() > 0) {
+                log.warn(message);
+            } else {
+                log.info(message);
+            }
+        }
+    }
 }
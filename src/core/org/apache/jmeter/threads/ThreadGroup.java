@@ -49,6 +49,14 @@ public class ThreadGroup extends AbstractThreadGroup {
     private static final int RAMPUP_GRANULARITY =
             JMeterUtils.getPropDefault("jmeterthread.rampup.granularity", 1000); // $NON-NLS-1$
 
+    /** Stack size (in bytes) requested for the threads running the JMeterThreads, 0 means JVM default */
+    private static final long THREAD_STACK_SIZE =
+            JMeterUtils.getPropDefault("jmeterthread.stack_size", 0L); // $NON-NLS-1$
+
+    /** Share the simple properties of the test elements between the threads instead of copying them */
+    private static final boolean SHARE_PROPERTIES =
+            JMeterUtils.getPropDefault("jmeterthread.share_properties", false); // $NON-NLS-1$
+
     //+ JMX entries - do not change the string values
 
     /** Ramp-up time */
@@ -289,7 +297,7 @@ public class ThreadGroup extends AbstractThreadGroup {
                 JMeterThread jmThread = makeThread(groupCount, notifier, threadGroupTree, engine, i, context);
                 scheduleThread(jmThread, now); // set start and end time
                 jmThread.setInitialDelay((int)(i * perThreadDelayInMillis));
-                Thread newThread = new Thread(jmThread, jmThread.getThreadName());
+                Thread newThread = createThread(jmThread);
                 registerStartedThread(jmThread, newThread);
                 newThread.start();
             }
@@ -297,6 +305,20 @@ public class ThreadGroup extends AbstractThreadGroup {
         log.info("Started thread group number "+groupCount);
     }
 
+    /**
+     * Create the JVM Thread that will run the JMeterThread.
+     * <p>
+     * When <code>jmeterthread.stack_size</code> is set, the thread is created with
+     * that stack size, which lowers the memory reserved per virtual user
+     * for thread groups with a large number of threads.
+     * Each virtual user still gets its own platform thread.
+     * @param jmThread {@link JMeterThread} to run
+     * @return the (unstarted) Thread
+     */
+    private Thread createThread(JMeterThread jmThread) {
+        return new Thread(null, jmThread, jmThread.getThreadName(), THREAD_STACK_SIZE);
+    }
+
     /**
      * Register Thread when it starts
      * @param jMeterThread {@link JMeterThread}
@@ -496,7 +518,7 @@ public class ThreadGroup extends AbstractThreadGroup {
     }
 
     private ListedHashTree cloneTree(ListedHashTree tree) {
-        TreeCloner cloner = new TreeCloner(true);
+        TreeCloner cloner = new TreeCloner(true, SHARE_PROPERTIES);
         tree.traverse(cloner);
         return cloner.getClonedTree();
     }
@@ -572,7 +594,7 @@ public class ThreadGroup extends AbstractThreadGroup {
                     jmThread.setScheduled(true);
                     jmThread.setEndTime(endtime);
                 }
-                Thread newThread = new Thread(jmThread, jmThread.getThreadName());
+                Thread newThread = createThread(jmThread);
                 newThread.setDaemon(false); // ThreadStarter is daemon, but we don't want sampler threads to be so too
                 registerStartedThread(jmThread, newThread);
                 newThread.start();
@@ -0,0 +1,613 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.log.Logger;
+
+/**
+ * Evaluates a restricted subset of XPath over StAX events, so that large
+ * responses do not have to be parsed into a DOM to extract a few values.
+ * <p>
+ * Supported expressions are absolute location paths made of child
+ * (<code>/</code>) and descendant (<code>//</code>) steps, each with an
+ * element name or <code>*</code>, optionally followed by attribute predicates
+ * (<code>[@name]</code> or <code>[@name='value']</code>) and a final position
+ * predicate (<code>[2]</code>). The path may end with <code>/@name</code> or
+ * <code>/text()</code>, e.g. <code>//order[@id='3']/item[1]/@price</code>.
+ * {@link #compile(String)} returns null for anything else.
+ * <p>
+ * Matches are the values {@link XPathUtil#putValuesForXPathInList} returns
+ * (without fragments) for a document parsed without namespace support.
+ * Whenever a document contains something the stream cannot reproduce exactly
+ * (a DTD, CDATA in extracted text, prefixed names Xalan resolves
+ * inconsistently) or is not well-formed, evaluation gives up and the caller
+ * is expected to fall back to the DOM, which also reports any parse error.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class StreamingXPath {
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    /** Makes the JDK parser report CDATA sections as such rather than as characters */
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event"; // $NON-NLS-1$
+
+    // XMLInputFactory is not guaranteed to be thread-safe
+    private static final ThreadLocal<XMLInputFactory> FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            if (factory.isPropertySupported(REPORT_CDATA)) {
+                factory.setProperty(REPORT_CDATA, Boolean.TRUE);
+            }
+            return factory;
+        }
+    };
+
+    /** Waiting steps are kept in a long bit mask */
+    private static final int MAX_STEPS = Long.SIZE - 1;
+
+    private enum Target {
+        ELEMENT, ATTRIBUTE, TEXT
+    }
+
+    private static final class Step {
+        private final boolean descendant;
+        private final String name; // null for *
+        private final String[] attributeNames;
+        private final String[] attributeValues; // null entries only test presence
+        private final int position; // 0 if none
+
+        Step(boolean descendant, String name, List<String> attributeNames, List<String> attributeValues,
+                int position) {
+            this.descendant = descendant;
+            this.name = name;
+            this.attributeNames = attributeNames.toArray(new String[attributeNames.size()]);
+            this.attributeValues = attributeValues.toArray(new String[attributeValues.size()]);
+            this.position = position;
+        }
+    }
+
+    /** Thrown when the document needs the DOM to be evaluated exactly */
+    private static final class UnsupportedContentException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedContentException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private final String expression;
+
+    private final Step[] steps;
+
+    private final Target target;
+
+    private final String targetAttribute;
+
+    private StreamingXPath(String expression, List<Step> steps, Target target, String targetAttribute) {
+        this.expression = expression;
+        this.steps = steps.toArray(new Step[steps.size()]);
+        this.target = target;
+        this.targetAttribute = targetAttribute;
+    }
+
+    /**
+     * Compiles an XPath expression for streaming evaluation.
+     *
+     * @param xpath the expression
+     * @return the compiled expression, or null if it is outside the supported subset
+     */
+    public static StreamingXPath compile(String xpath) {
+        return new Parser(xpath).parse();
+    }
+
+    /**
+     * @return the expression this was compiled from
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates the expression over a document held as a String.
+     * The DOM path parses such documents from their UTF-8 bytes, so documents
+     * declaring any other encoding are left to it.
+     *
+     * @param xml the document
+     * @param matchStrings list the matched values are added to (may include nulls)
+     * @param maxMatches stop evaluating once that many matches are found, 0 for all matches;
+     *        the rest of the document is still checked to be well-formed
+     * @return true if the document was evaluated, false if the DOM must be used instead,
+     *         in which case <code>matchStrings</code> is left unchanged
+     */
+    public boolean evaluate(String xml, List<String> matchStrings, int maxMatches) {
+        try {
+            return evaluate(FACTORY.get().createXMLStreamReader(new StringReader(xml)), true,
+                    matchStrings, maxMatches);
+        } catch (XMLStreamException e) {
+            logFallback(e);
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates the expression over a document held as bytes, whose encoding
+     * is detected by the parser.
+     *
+     * @param xml the document
+     * @param matchStrings list the matched values are added to (may include nulls)
+     * @param maxMatches stop evaluating once that many matches are found, 0 for all matches;
+     *        the rest of the document is still checked to be well-formed
+     * @return true if the document was evaluated, false if the DOM must be used instead,
+     *         in which case <code>matchStrings</code> is left unchanged
+     */
+    public boolean evaluate(byte[] xml, List<String> matchStrings, int maxMatches) {
+        try {
+            return evaluate(FACTORY.get().createXMLStreamReader(new ByteArrayInputStream(xml)), false,
+                    matchStrings, maxMatches);
+        } catch (XMLStreamException e) {
+            logFallback(e);
+            return false;
+        }
+    }
+
+    private boolean evaluate(XMLStreamReader reader, boolean utf8Only, List<String> matchStrings, int maxMatches) {
+        List<String> found = new ArrayList<>();
+        try {
+            if (utf8Only) {
+                String encoding = reader.getCharacterEncodingScheme();
+                if (encoding != null && !StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+                    throw new UnsupportedContentException("declared encoding " + encoding);
+                }
+            }
+            new Evaluation(reader, found, maxMatches).run();
+        } catch (XMLStreamException | UnsupportedContentException e) {
+            logFallback(e);
+            return false;
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // ignored
+            }
+        }
+        matchStrings.addAll(found);
+        return true;
+    }
+
+    private void logFallback(Exception e) {
+        if (log.isDebugEnabled()) {
+            log.debug("Falling back to DOM for " + expression + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * State of one evaluation: a stack with, for each open element, the bit
+     * mask of the steps its children are tested against.
+     */
+    private final class Evaluation {
+        private final XMLStreamReader reader;
+
+        private final List<String> found;
+
+        private final int maxMatches;
+
+        private long[] waiting = new long[16];
+
+        private int[][] positions = new int[16][];
+
+        private boolean[] collectText = new boolean[16];
+
+        private int depth;
+
+        /** Depth inside a subtree that cannot match */
+        private int skipDepth;
+
+        /** Index in found of the element match whose value is being read, or -1 */
+        private int valueSlot = -1;
+
+        /** True until the first child of the element at valueSlot is seen */
+        private boolean firstChild;
+
+        private final StringBuilder text = new StringBuilder();
+
+        Evaluation(XMLStreamReader reader, List<String> found, int maxMatches) {
+            this.reader = reader;
+            this.found = found;
+            this.maxMatches = maxMatches;
+            waiting[0] = 1L; // the document node waits for the first step
+        }
+
+        void run() throws XMLStreamException, UnsupportedContentException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (skipDepth > 0) {
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        skipDepth++;
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        skipDepth--;
+                    }
+                    continue;
+                }
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        startElement();
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        endText();
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        if (valueSlot >= 0 || collectText[depth]) {
+                            firstChild = false;
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        // Xalan merges CDATA with adjacent text nodes, which the stream cannot tell
+                        if (firstChild || collectText[depth]) {
+                            throw new UnsupportedContentException("CDATA section");
+                        }
+                        endText();
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        otherNode(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        otherNode(reader.getPIData());
+                        break;
+                    case XMLStreamConstants.DTD:
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        throw new UnsupportedContentException("DTD");
+                    default:
+                        break;
+                }
+                if (maxMatches > 0 && found.size() >= maxMatches && valueSlot < 0) {
+                    // nothing left to evaluate, but the rest must still be well-formed
+                    while (reader.hasNext()) {
+                        reader.next();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void startElement() throws UnsupportedContentException {
+            endText();
+            String name = qualifiedName(reader.getPrefix(), reader.getLocalName());
+            long next = 0L;
+            boolean matched = false;
+            for (long bits = waiting[depth]; bits != 0L; bits &= bits - 1) {
+                int k = Long.numberOfTrailingZeros(bits);
+                Step step = steps[k];
+                if (step.descendant) {
+                    next |= 1L << k;
+                }
+                if (matches(step, name) && atPosition(step, k)) {
+                    if (k + 1 == steps.length) {
+                        matched = true;
+                    } else {
+                        next |= 1L << (k + 1);
+                    }
+                }
+            }
+            boolean collect = false;
+            if (matched) {
+                switch (target) {
+                    case ELEMENT:
+                        // elements have no value of their own, DOM callers use their first child
+                        valueSlot = found.size();
+                        found.add(null);
+                        firstChild = true;
+                        break;
+                    case ATTRIBUTE:
+                        String value = attributeValue(targetAttribute);
+                        if (value != null) {
+                            found.add(value);
+                        }
+                        break;
+                    default:
+                        collect = true;
+                        break;
+                }
+            }
+            if (next == 0L && !collect && valueSlot < 0) {
+                skipDepth = 1;
+                return;
+            }
+            push(next, collect);
+        }
+
+        private boolean matches(Step step, String name) throws UnsupportedContentException {
+            if (step.name != null) {
+                int colon = name.indexOf(':');
+                if (colon < 0) {
+                    if (!step.name.equals(name)) {
+                        return false;
+                    }
+                } else {
+                    // Without namespace support Xalan compares the local part of prefixed names,
+                    // except for a lone //name, which never matches them
+                    if (!step.name.equals(name.substring(colon + 1))) {
+                        return false;
+                    }
+                    if (steps.length == 1 && step.descendant) {
+                        throw new UnsupportedContentException("prefixed element " + name);
+                    }
+                }
+            }
+            for (int i = 0; i < step.attributeNames.length; i++) {
+                String value = attributeValue(step.attributeNames[i]);
+                if (value == null || (step.attributeValues[i] != null && !step.attributeValues[i].equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean atPosition(Step step, int k) {
+            if (step.position == 0) {
+                return true;
+            }
+            int[] counts = positions[depth];
+            if (counts == null) {
+                counts = new int[steps.length];
+                positions[depth] = counts;
+            }
+            return ++counts[k] == step.position;
+        }
+
+        private String attributeValue(String name) throws UnsupportedContentException {
+            String value = null;
+            for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+                String attribute = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+                if (attribute.equals(name)) {
+                    value = reader.getAttributeValue(i);
+                } else if (attribute.endsWith(name) && attribute.charAt(attribute.length() - name.length() - 1) == ':') {
+                    throw new UnsupportedContentException("prefixed attribute " + attribute);
+                }
+            }
+            return value;
+        }
+
+        private void otherNode(String value) {
+            if (firstChild) {
+                found.set(valueSlot, value);
+            }
+            endText();
+        }
+
+        /**
+         * Ends the current text node, completing the pending element value
+         * or text() match if there is one.
+         */
+        private void endText() {
+            if (valueSlot >= 0) {
+                if (!firstChild) {
+                    found.set(valueSlot, text.toString());
+                }
+                valueSlot = -1;
+                firstChild = false;
+                text.setLength(0);
+            } else if (text.length() > 0) {
+                found.add(text.toString());
+                text.setLength(0);
+            }
+        }
+
+        private void push(long next, boolean collect) {
+            depth++;
+            if (depth == waiting.length) {
+                waiting = Arrays.copyOf(waiting, depth * 2);
+                positions = Arrays.copyOf(positions, depth * 2);
+                collectText = Arrays.copyOf(collectText, depth * 2);
+            }
+            waiting[depth] = next;
+            collectText[depth] = collect;
+            if (positions[depth] != null) {
+                Arrays.fill(positions[depth], 0);
+            }
+        }
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+    /**
+     * Recursive descent parser for the supported subset.
+     */
+    private static final class Parser {
+        private final String xpath;
+
+        private int pos;
+
+        Parser(String xpath) {
+            this.xpath = xpath.trim();
+        }
+
+        StreamingXPath parse() {
+            List<Step> steps = new ArrayList<>();
+            while (pos < xpath.length()) {
+                if (!consume('/')) {
+                    return null;
+                }
+                boolean descendant = consume('/');
+                if (!steps.isEmpty() && !descendant) {
+                    if (consume('@')) {
+                        String attribute = attributeName();
+                        return attribute != null && atEnd()
+                                ? new StreamingXPath(xpath, steps, Target.ATTRIBUTE, attribute) : null;
+                    }
+                    if (xpath.startsWith("text()", pos)) { // $NON-NLS-1$
+                        pos += "text()".length(); // $NON-NLS-1$
+                        return atEnd() ? new StreamingXPath(xpath, steps, Target.TEXT, null) : null;
+                    }
+                }
+                Step step = step(descendant);
+                if (step == null || steps.size() == MAX_STEPS) {
+                    return null;
+                }
+                steps.add(step);
+            }
+            return steps.isEmpty() ? null : new StreamingXPath(xpath, steps, Target.ELEMENT, null);
+        }
+
+        private Step step(boolean descendant) {
+            String name = null;
+            if (!consume('*')) {
+                name = name();
+                if (name == null) {
+                    return null;
+                }
+            }
+            List<String> attributeNames = new ArrayList<>();
+            List<String> attributeValues = new ArrayList<>();
+            int position = 0;
+            while (consume('[')) {
+                if (position > 0) {
+                    return null; // predicates after a position see a different context
+                }
+                skipSpaces();
+                if (consume('@')) {
+                    String attribute = attributeName();
+                    if (attribute == null) {
+                        return null;
+                    }
+                    skipSpaces();
+                    String value = null;
+                    if (consume('=')) {
+                        skipSpaces();
+                        value = literal();
+                        if (value == null) {
+                            return null;
+                        }
+                    }
+                    attributeNames.add(attribute);
+                    attributeValues.add(value);
+                } else {
+                    position = number();
+                    if (position <= 0) {
+                        return null;
+                    }
+                }
+                skipSpaces();
+                if (!consume(']')) {
+                    return null;
+                }
+            }
+            if (pos < xpath.length() && xpath.charAt(pos) != '/') {
+                return null; // function calls, axes, operators...
+            }
+            return new Step(descendant, name, attributeNames, attributeValues, position);
+        }
+
+        private String name() {
+            int start = pos;
+            if (pos < xpath.length() && (Character.isLetter(xpath.charAt(pos)) || xpath.charAt(pos) == '_')) {
+                pos++;
+                while (pos < xpath.length()) {
+                    char c = xpath.charAt(pos);
+                    if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                        break;
+                    }
+                    pos++;
+                }
+            }
+            return pos > start ? xpath.substring(start, pos) : null;
+        }
+
+        private String attributeName() {
+            String name = name();
+            // namespace declarations are not attributes in the XPath data model
+            return name == null || name.startsWith("xmlns") ? null : name; // $NON-NLS-1$
+        }
+
+        private String literal() {
+            if (pos == xpath.length()) {
+                return null;
+            }
+            char quote = xpath.charAt(pos);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            int end = xpath.indexOf(quote, pos + 1);
+            if (end < 0) {
+                return null;
+            }
+            String value = xpath.substring(pos + 1, end);
+            pos = end + 1;
+            return value;
+        }
+
+        private int number() {
+            int start = pos;
+            while (pos < xpath.length() && pos - start < 9 && xpath.charAt(pos) >= '0' && xpath.charAt(pos) <= '9') {
+                pos++;
+            }
+            return pos > start ? Integer.parseInt(xpath.substring(start, pos)) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (pos < xpath.length() && xpath.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < xpath.length() && Character.isWhitespace(xpath.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean atEnd() {
+            return pos == xpath.length();
+        }
+    }
+}
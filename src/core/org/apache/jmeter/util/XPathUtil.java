@@ -390,8 +390,7 @@ public class XPathUtil {
                         if (log.isDebugEnabled()) {
                             log.debug(new StringBuilder("nodeList null no match  ").append(xPathExpression).toString());
                         }
-                        result.setFailure(!isNegated);
-                        result.setFailureMessage("No Nodes Matched " + xPathExpression);
+                        computeAssertionResult(result, false, xPathExpression, isNegated);
                         return;
                     }
                     if (log.isDebugEnabled()) {
@@ -402,10 +401,7 @@ public class XPathUtil {
                             }
                         }
                     }
-                    result.setFailure(isNegated);
-                    if (isNegated) {
-                        result.setFailureMessage("Specified XPath was found... Turn off negate if this is not desired");
-                    }
+                    computeAssertionResult(result, true, xPathExpression, isNegated);
                     return;
                 case XObject.CLASS_BOOLEAN:
                     if (!xObject.bool()){
@@ -429,6 +425,29 @@ public class XPathUtil {
         }
     }
     
+    /**
+     * Fills result for a node set expression that has already been evaluated,
+     * e.g. by {@link StreamingXPath}
+     * @param result {@link AssertionResult}
+     * @param matched whether the expression matched at least one node
+     * @param xPathExpression XPath expression
+     * @param isNegated flag whether a non-match should be considered a success
+     */
+    public static void computeAssertionResult(AssertionResult result,
+            boolean matched,
+            String xPathExpression,
+            boolean isNegated) {
+        if (!matched) {
+            result.setFailure(!isNegated);
+            result.setFailureMessage("No Nodes Matched " + xPathExpression);
+            return;
+        }
+        result.setFailure(isNegated);
+        if (isNegated) {
+            result.setFailureMessage("Specified XPath was found... Turn off negate if this is not desired");
+        }
+    }
+
     /**
      * Formats XML
      * @param xml string to format
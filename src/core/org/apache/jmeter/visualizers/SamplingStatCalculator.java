@@ -21,6 +21,10 @@ package org.apache.jmeter.visualizers;
 import java.util.Map;
 
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.StatisticalSampleResult;
+import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jorphan.math.HistogramStatCalculatorLong;
+import org.apache.jorphan.math.LogLinearHistogram;
 import org.apache.jorphan.math.StatCalculatorLong;
 
 /**
@@ -30,7 +34,16 @@ import org.apache.jorphan.math.StatCalculatorLong;
  *
  */
 public class SamplingStatCalculator {
-    private final StatCalculatorLong calculator = new StatCalculatorLong();
+
+    /**
+     * Number of significant digits kept for percentiles, 0 means every distinct value is kept.
+     * Setting it bounds the memory used for long tests, see {@link HistogramStatCalculatorLong}
+     */
+    private static final int HISTOGRAM_DIGITS =
+            JMeterUtils.getPropDefault("sampling_stat_calculator.histogram.digits", 0); //$NON-NLS-1$
+
+    private final StatCalculatorLong calculator = HISTOGRAM_DIGITS > 0
+            ? new HistogramStatCalculatorLong(HISTOGRAM_DIGITS) : new StatCalculatorLong();
 
     private double maxThroughput;
 
@@ -156,7 +169,14 @@ public class SamplingStatCalculator {
         double throughput;
         boolean rbool;
         synchronized (calculator) {
-            calculator.addValue(res.getTime(), res.getSampleCount());
+            LogLinearHistogram histogram = res instanceof StatisticalSampleResult
+                    ? ((StatisticalSampleResult) res).getHistogram() : null;
+            if (histogram != null) {
+                // Distribution of the summarised samples, so percentiles are not computed from averages
+                histogram.addTo(calculator);
+            } else {
+                calculator.addValue(res.getTime(), res.getSampleCount());
+            }
             calculator.addBytes(res.getBytes());
             setStartTime(res);
             eCount = getCurrentSample().getErrorCount();
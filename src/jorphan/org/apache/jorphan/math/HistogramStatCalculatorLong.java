@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+/**
+ * StatCalculator for Long values which counts values in log-linear buckets,
+ * in the manner of an HDR histogram, instead of keeping every distinct value.
+ * <p>
+ * Values are exact up to <code>2 * 10^significantDigits</code>; above that,
+ * each power of 2 is split in the same number of equal buckets, so the relative
+ * error on percentiles stays below <code>10^-significantDigits</code> and the number
+ * of buckets is bounded whatever the number or spread of the values.
+ * Mean, standard deviation, min and max are computed from the exact values.
+ * <p>
+ * It is not threadsafe.
+ * @since 3.1
+ */
+public class HistogramStatCalculatorLong extends StatCalculatorLong {
+
+    /** Number of bits needed to hold the largest exactly counted value */
+    private final int subBucketBits;
+
+    /** Values below this limit are counted exactly */
+    private final long exactLimit;
+
+    /**
+     * @param significantDigits number of significant decimal digits kept for each value, between 1 and 5
+     */
+    public HistogramStatCalculatorLong(int significantDigits) {
+        super();
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be between 1 and 5, got " + significantDigits);
+        }
+        long largestExactValue = 2;
+        for (int i = 0; i < significantDigits; i++) {
+            largestExactValue *= 10;
+        }
+        subBucketBits = 64 - Long.numberOfLeadingZeros(largestExactValue - 1);
+        exactLimit = 1L << subBucketBits;
+    }
+
+    /**
+     * Returns the lowest value of the bucket the value belongs to.
+     * {@inheritDoc}
+     */
+    @Override
+    protected Long bucketValue(Long val) {
+        long value = val.longValue();
+        if (value < exactLimit) {
+            return val;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1);
+        return Long.valueOf((value >>> shift) << shift);
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jorphan.math;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Mergeable histogram of Long values counted in log-linear buckets,
+ * with the same buckets as {@link HistogramStatCalculatorLong}.
+ * <p>
+ * Values are exact up to <code>2 * 10^significantDigits</code>; above that,
+ * each power of 2 is split in the same number of equal buckets, so the relative
+ * error on percentiles stays below <code>10^-significantDigits</code>.
+ * Histograms with the same number of digits can be merged without losing precision,
+ * so percentiles can be computed over values counted in different places.
+ * Buckets are allocated by pages of {@value #PAGE_SIZE} when first used,
+ * and only the non empty buckets are serialized.
+ * <p>
+ * It is not threadsafe.
+ * @since 3.1
+ */
+public class LogLinearHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_BITS = 10;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final long[][] NO_PAGES = new long[0][];
+
+    private final int significantDigits;
+
+    // The following fields are derived from significantDigits by init(), also called on deserialization
+
+    /** Number of bits needed to hold the largest exactly counted value */
+    private transient int subBucketBits;
+
+    /** Values below this limit are counted exactly */
+    private transient long exactLimit;
+
+    /** Number of buckets for each power of 2 above {@link #exactLimit} */
+    private transient int subBucketCount;
+
+    /** Index of the bucket of {@link Long#MAX_VALUE} */
+    private transient int maxIndex;
+
+    /** Counts of the buckets, by page of {@link #PAGE_SIZE} buckets, null until a bucket of the page is used */
+    private transient long[][] pages;
+
+    private transient long totalCount;
+
+    /**
+     * @param significantDigits number of significant decimal digits kept for each value, between 1 and 5
+     */
+    public LogLinearHistogram(int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be between 1 and 5, got " + significantDigits);
+        }
+        this.significantDigits = significantDigits;
+        init();
+    }
+
+    private void init() {
+        long largestExactValue = 2;
+        for (int i = 0; i < significantDigits; i++) {
+            largestExactValue *= 10;
+        }
+        subBucketBits = 64 - Long.numberOfLeadingZeros(largestExactValue - 1);
+        exactLimit = 1L << subBucketBits;
+        subBucketCount = 1 << (subBucketBits - 1);
+        maxIndex = bucketIndex(Long.MAX_VALUE);
+        pages = NO_PAGES;
+    }
+
+    /**
+     * @return the number of significant digits
+     */
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    private int bucketIndex(long value) {
+        if (value < exactLimit) {
+            return (int) Math.max(0, value); // negative values are not expected
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1);
+        long mantissa = value >>> shift;
+        return (int) (exactLimit + (long) (shift - 1) * subBucketCount + (mantissa - subBucketCount));
+    }
+
+    private long bucketValue(int index) {
+        if (index < exactLimit) {
+            return index;
+        }
+        long offset = index - exactLimit;
+        int shift = (int) (offset / subBucketCount) + 1;
+        long mantissa = subBucketCount + offset % subBucketCount;
+        return mantissa << shift;
+    }
+
+    /**
+     * Count a value
+     * @param value the value, normally an elapsed time
+     */
+    public void add(long value) {
+        add(value, 1L);
+    }
+
+    /**
+     * Count a value several times
+     * @param value the value, normally an elapsed time
+     * @param count number of times the value was seen
+     */
+    public void add(long value, long count) {
+        addToBucket(bucketIndex(value), count);
+    }
+
+    private void addToBucket(int index, long count) {
+        int page = index >>> PAGE_BITS;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length + (pages.length >> 1)));
+        }
+        long[] counts = pages[page];
+        if (counts == null) {
+            counts = new long[PAGE_SIZE];
+            pages[page] = counts;
+        }
+        counts[index & PAGE_MASK] += count;
+        totalCount += count;
+    }
+
+    /**
+     * Add the counts of another histogram to this one
+     * @param other histogram with the same number of significant digits
+     */
+    public void add(LogLinearHistogram other) {
+        if (other.significantDigits != significantDigits) {
+            throw new IllegalArgumentException("Cannot merge histograms with " + other.significantDigits
+                    + " and " + significantDigits + " significant digits");
+        }
+        for (int page = 0; page < other.pages.length; page++) {
+            long[] counts = other.pages[page];
+            if (counts != null) {
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    if (counts[i] != 0) {
+                        addToBucket((page << PAGE_BITS) | i, counts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of values counted
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percent the percentile, between 0 and 1
+     * @return the lowest value of the bucket holding the percentile, 0 if there are no values
+     */
+    public long getPercentPoint(double percent) {
+        long target = (long) Math.ceil(percent * totalCount);
+        long seen = 0;
+        long last = 0;
+        for (int page = 0; page < pages.length; page++) {
+            long[] counts = pages[page];
+            if (counts == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (counts[i] != 0) {
+                    seen += counts[i];
+                    last = bucketValue((page << PAGE_BITS) | i);
+                    if (seen >= target) {
+                        return last;
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Add the counted values to a calculator, each bucket as its lowest value
+     * @param calculator the calculator to update
+     */
+    public void addTo(StatCalculator<Long> calculator) {
+        for (int page = 0; page < pages.length; page++) {
+            long[] counts = pages[page];
+            if (counts == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (counts[i] != 0) {
+                    calculator.addEachValue(Long.valueOf(bucketValue((page << PAGE_BITS) | i)), counts[i]);
+                }
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        int nonEmpty = 0;
+        for (long[] counts : pages) {
+            if (counts != null) {
+                for (long count : counts) {
+                    if (count != 0) {
+                        nonEmpty++;
+                    }
+                }
+            }
+        }
+        out.writeInt(nonEmpty);
+        int previous = 0;
+        for (int page = 0; page < pages.length; page++) {
+            long[] counts = pages[page];
+            if (counts == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (counts[i] != 0) {
+                    int index = (page << PAGE_BITS) | i;
+                    writeVarLong(out, index - previous);
+                    writeVarLong(out, counts[i]);
+                    previous = index;
+                }
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IOException("Invalid number of significant digits " + significantDigits);
+        }
+        init();
+        // Checked before use, as the stream may come from another host
+        int nonEmpty = in.readInt();
+        if (nonEmpty < 0 || nonEmpty > maxIndex + 1) {
+            throw new IOException("Invalid number of buckets " + nonEmpty);
+        }
+        int index = 0;
+        for (int i = 0; i < nonEmpty; i++) {
+            long delta = readVarLong(in);
+            long count = readVarLong(in);
+            if (delta < 0 || delta > maxIndex - index || (i > 0 && delta == 0) || count <= 0) {
+                throw new IOException("Corrupted histogram");
+            }
+            index += (int) delta;
+            addToBucket(index, count);
+        }
+    }
+
+    private static void writeVarLong(ObjectOutputStream out, long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(ObjectInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed variable length number");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -264,13 +264,26 @@ public abstract class StatCalculator<T extends Number & Comparable<? super T>> {
         addValue(val, 1L);
     }
 
+    /**
+     * Returns the key under which a value is counted for the distribution and percentiles.
+     * The default implementation keeps every distinct value; subclasses can
+     * group close values together to bound the memory used.
+     *
+     * @param val the value being added
+     * @return the value to count it under
+     */
+    protected T bucketValue(T val) {
+        return val;
+    }
+
     private void updateValueCount(T actualValue, long sampleCount) {
-        MutableLong count = valuesMap.get(actualValue);
+        T key = bucketValue(actualValue);
+        MutableLong count = valuesMap.get(key);
         if (count != null) {
             count.add(sampleCount);
         } else {
             // insert new value
-            valuesMap.put(actualValue, new MutableLong(sampleCount));
+            valuesMap.put(key, new MutableLong(sampleCount));
         }
     }
 }
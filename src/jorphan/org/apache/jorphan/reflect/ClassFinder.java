@@ -51,10 +51,25 @@ public final class ClassFinder {
     private static final String DOT_CLASS = ".class"; // $NON-NLS-1$
     private static final int DOT_CLASS_LEN = DOT_CLASS.length();
 
+    private static volatile ClassIndex classIndex;
+
     // static only
     private ClassFinder() {
     }
 
+    /**
+     * Enables or disables the persistent index of search results.
+     * When enabled, {@link #findClassesThatExtend(String[], Class[], boolean, String, String, boolean)}
+     * returns the result of an identical earlier search, possibly made by another JVM,
+     * as long as no jar or class file of the classpath has changed since,
+     * without opening the jars or loading any class.
+     *
+     * @param indexFile file storing the index, <code>null</code> to disable the index
+     */
+    public static void setIndexFile(File indexFile) {
+        classIndex = indexFile == null ? null : new ClassIndex(indexFile);
+    }
+
     /**
      * Filter updates by only storing classes
      * that extend one of the parent classes
@@ -259,11 +274,32 @@ public final class ClassFinder {
         else {
             filter = new ExtendsClassFilter(classNames, innerClasses, contains, notContains);
         }
-        
-        return findClasses(searchPathsOrJars, filter);
+
+        ClassIndex index = classIndex;
+        if (index == null) {
+            return findClasses(searchPathsOrJars, filter);
+        }
+        List<String> listPaths = getSearchPaths(searchPathsOrJars);
+        List<String> classpath = getClasspath();
+        String key = ClassIndex.key(classNames, innerClasses, contains, notContains, annotations, listPaths);
+        List<String> classes = index.get(key, classpath);
+        if (classes != null) {
+            log.debug("Found " + classes.size() + " classes in index for " + key);
+            return classes;
+        }
+        classes = findClassesInPaths(listPaths, filter);
+        index.put(key, classpath, classes);
+        return classes;
     }
     
     public static List<String> findClasses(String[] searchPathsOrJars, ClassFilter filter) throws IOException  {
+        return findClassesInPaths(getSearchPaths(searchPathsOrJars), filter);
+    }
+
+    /*
+     * Returns the classpath entries to scan for the search list of jars and paths
+     */
+    private static List<String> getSearchPaths(String[] searchPathsOrJars) {
         if (log.isDebugEnabled()) {
             log.debug("searchPathsOrJars : " + Arrays.toString(searchPathsOrJars));
         }
@@ -281,7 +317,10 @@ public final class ClassFinder {
                 log.debug("listPaths : " + path);
             }
         }
-    
+        return listPaths;
+    }
+
+    private static List<String> findClassesInPaths(List<String> listPaths, ClassFilter filter) throws IOException  {
         Set<String> listClasses = new TreeSet<>();
         // first get all the classes
         for (String path : listPaths) {
@@ -298,6 +337,19 @@ public final class ClassFinder {
         return new ArrayList<>(listClasses);
     }
 
+    /*
+     * Returns all the classpath entries
+     */
+    private static List<String> getClasspath() {
+        StringTokenizer stPaths =
+            new StringTokenizer(System.getProperty("java.class.path"), File.pathSeparator); // $NON-NLS-1$
+        List<String> listPaths = new ArrayList<>();
+        while (stPaths.hasMoreTokens()) {
+            listPaths.add(fixPathEntry(stPaths.nextToken()));
+        }
+        return listPaths;
+    }
+
     /*
      * Returns the classpath entries that match the search list of jars and paths
      */
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.reflect;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.jorphan.logging.LoggingManager;
+import org.apache.jorphan.util.JOrphanUtils;
+import org.apache.log.Logger;
+
+/**
+ * Persistent index of the results of {@link ClassFinder} searches.
+ * <p>
+ * Each entry maps a search (parent classes, filters and search paths) to the classes found,
+ * together with a fingerprint of the whole classpath, as loading the candidate classes may
+ * depend on any jar: name, size and modification time of every jar, and of every class file
+ * for directories.
+ * An entry is only used while the fingerprint of the current classpath entries matches,
+ * so adding, removing or replacing a jar causes the search to be done again.
+ * <p>
+ * The index is a properties file, rewritten atomically whenever a new search is stored.
+ * As the classes it lists get loaded, the index is only used if the file and its directory
+ * belong to the current user and cannot be written by others; on POSIX file systems,
+ * the directory and the file are created readable and writable by their owner only.
+ */
+final class ClassIndex {
+    private static final Logger log = LoggingManager.getLoggerForClass();
+
+    private static final char FINGERPRINT_SEPARATOR = ';'; // $NON-NLS-1$
+    private static final String CLASS_SEPARATOR = ","; // $NON-NLS-1$
+    private static final String DOT_CLASS = ".class"; // $NON-NLS-1$
+
+    private static final Set<PosixFilePermission> WRITABLE_BY_OTHERS = Collections.unmodifiableSet(
+            PosixFilePermissions.fromString("----w--w-")); // $NON-NLS-1$
+
+    private final File file;
+
+    /** False if the index file could be modified by other users */
+    private final boolean enabled;
+
+    //@GuardedBy("this")
+    private final Properties entries = new Properties();
+
+    // Fingerprints of classpath entries, computed once per JVM
+    //@GuardedBy("this")
+    private final Map<String, String> pathFingerprints = new HashMap<>();
+
+    ClassIndex(File file) {
+        this.file = file;
+        this.enabled = isPrivate(file.getAbsoluteFile().getParentFile()) && isPrivate(file);
+        if (!enabled) {
+            log.warn("Not using class index " + file
+                    + ", it or its directory is not owned by " + System.getProperty("user.name") // $NON-NLS-1$
+                    + " or is writable by other users");
+            return;
+        }
+        if (file.canRead()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(file);
+                entries.load(in);
+                log.info("Loaded " + entries.size() + " class searches from index " + file);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Ignoring unreadable class index " + file + ": " + e);
+                entries.clear();
+            } finally {
+                JOrphanUtils.closeQuietly(in);
+            }
+        }
+    }
+
+    /**
+     * @param key describes the search
+     * @param paths the classpath entries the result depends on
+     * @return the classes found by the same search over the same classpath entries,
+     * or <code>null</code> if the search is not in the index or the entries changed
+     */
+    synchronized List<String> get(String key, List<String> paths) {
+        if (!enabled) {
+            return null;
+        }
+        String entry = entries.getProperty(key);
+        if (entry != null) {
+            int sep = entry.indexOf(FINGERPRINT_SEPARATOR);
+            if (sep > 0 && entry.substring(0, sep).equals(fingerprint(paths))) {
+                String classes = entry.substring(sep + 1);
+                if (classes.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                return new ArrayList<>(Arrays.asList(classes.split(CLASS_SEPARATOR)));
+            }
+            log.info("Classpath changed, searching again for " + key);
+        }
+        return null;
+    }
+
+    /**
+     * Stores the result of a search and saves the index.
+     *
+     * @param key describes the search
+     * @param paths the classpath entries the result depends on
+     * @param classes the classes found
+     */
+    synchronized void put(String key, List<String> paths, List<String> classes) {
+        if (!enabled) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(fingerprint(paths)).append(FINGERPRINT_SEPARATOR);
+        for (int i = 0; i < classes.size(); i++) {
+            if (i > 0) {
+                sb.append(CLASS_SEPARATOR);
+            }
+            sb.append(classes.get(i));
+        }
+        entries.setProperty(key, sb.toString());
+        save();
+    }
+
+    private void save() {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = null;
+        OutputStream out = null;
+        try {
+            boolean posix = dir != null
+                    && FileSystems.getDefault().supportedFileAttributeViews().contains("posix"); // $NON-NLS-1$
+            if (dir != null && !dir.isDirectory()) {
+                if (posix) {
+                    Files.createDirectories(dir.toPath(), ownerOnly("rwx------")); // $NON-NLS-1$
+                } else if (!dir.mkdirs()) {
+                    throw new IOException("Cannot create directory " + dir);
+                }
+            }
+            // a unique temporary file and a rename, so concurrent JMeter instances never read a partial index
+            if (posix) {
+                tmp = Files.createTempFile(dir.toPath(), "classindex", ".tmp", // $NON-NLS-1$ $NON-NLS-2$
+                        ownerOnly("rw-------")).toFile(); // $NON-NLS-1$
+            } else {
+                tmp = File.createTempFile("classindex", ".tmp", dir); // $NON-NLS-1$ $NON-NLS-2$
+            }
+            out = new FileOutputStream(tmp);
+            entries.store(out, "JMeter ClassFinder index, safe to delete"); // $NON-NLS-1$
+            out.close();
+            out = null;
+            try {
+                Files.move(tmp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException e) {
+            log.warn("Could not save class index " + file + ": " + e);
+        } finally {
+            JOrphanUtils.closeQuietly(out);
+            if (tmp != null && !tmp.delete()) {
+                log.debug("Could not delete " + tmp);
+            }
+        }
+    }
+
+    private static FileAttribute<Set<PosixFilePermission>> ownerOnly(String permissions) {
+        return PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions));
+    }
+
+    /**
+     * @param file file or directory, may not exist yet
+     * @return true if the file does not exist, or belongs to the current user and is not writable by others.
+     *  Always true if the file system does not support POSIX permissions
+     */
+    private static boolean isPrivate(File file) {
+        if (file == null || !file.exists()) {
+            return true;
+        }
+        Path path = file.toPath();
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) {
+            return true;
+        }
+        try {
+            PosixFileAttributes attributes = view.readAttributes();
+            return attributes.owner().getName().equals(System.getProperty("user.name")) // $NON-NLS-1$
+                    && Collections.disjoint(attributes.permissions(), WRITABLE_BY_OTHERS);
+        } catch (IOException e) {
+            log.warn("Cannot check the permissions of " + file + ": " + e);
+            return false;
+        }
+    }
+
+    private String fingerprint(List<String> paths) {
+        MessageDigest digest = newDigest();
+        for (String path : paths) {
+            String fingerprint = pathFingerprints.get(path);
+            if (fingerprint == null) {
+                MessageDigest pathDigest = newDigest();
+                File file = new File(path);
+                update(pathDigest, path);
+                if (file.isDirectory()) {
+                    fingerprintDirectory(pathDigest, file, "");
+                } else {
+                    update(pathDigest, file.length() + "/" + file.lastModified());
+                }
+                fingerprint = JOrphanUtils.baToHexString(pathDigest.digest());
+                pathFingerprints.put(path, fingerprint);
+            }
+            update(digest, fingerprint);
+        }
+        return JOrphanUtils.baToHexString(digest.digest());
+    }
+
+    private static void fingerprintDirectory(MessageDigest digest, File dir, String prefix) {
+        String[] names = dir.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names); // File.list() order is unspecified
+        for (String name : names) {
+            File file = new File(dir, name);
+            if (file.isDirectory()) {
+                fingerprintDirectory(digest, file, prefix + name + "/");
+            } else if (name.endsWith(DOT_CLASS)) {
+                update(digest, prefix + name + "/" + file.length() + "/" + file.lastModified());
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1"); // $NON-NLS-1$
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM provides SHA-1
+        }
+    }
+
+    /**
+     * @return a key describing the search, independent of the order of the parent classes
+     */
+    static String key(Class<?>[] classNames, boolean innerClasses, String contains, String notContains,
+            boolean annotations, List<String> paths) {
+        List<String> names = new ArrayList<>(classNames.length);
+        for (Class<?> c : classNames) {
+            names.add(c.getName());
+        }
+        Collections.sort(names);
+        return (annotations ? "@" : "") + names + "|" + innerClasses // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+                + "|" + contains + "|" + notContains + "|" + paths; // $NON-NLS-1$ $NON-NLS-2$ $NON-NLS-3$
+    }
+}
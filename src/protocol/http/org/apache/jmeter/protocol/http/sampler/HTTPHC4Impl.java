@@ -75,6 +75,7 @@ import org.apache.http.client.params.ClientPNames;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.protocol.ResponseContentEncoding;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.params.ConnRoutePNames;
 import org.apache.http.conn.scheme.PlainSocketFactory;
@@ -146,6 +147,36 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
     
     private static final int TIME_TO_LIVE = JMeterUtils.getPropDefault("httpclient4.time_to_live", 2000);
 
+    /** Use one connection pool shared by all the threads instead of one per thread (default false) */
+    private static final boolean SHARED_POOL = JMeterUtils.getPropDefault("httpclient4.shared_pool", false);
+
+    /** Maximum number of connections per route of the shared pool (default 20) */
+    private static final int SHARED_POOL_MAX_PER_ROUTE = JMeterUtils.getPropDefault("httpclient4.shared_pool.max_per_route", 20);
+
+    /** Maximum number of connections of the shared pool (default 200) */
+    private static final int SHARED_POOL_MAX_TOTAL = JMeterUtils.getPropDefault("httpclient4.shared_pool.max_total", 200);
+
+    /** Maximum time in milliseconds to wait for a connection of the shared pool (default 0 = wait forever) */
+    private static final int SHARED_POOL_WAIT_TIMEOUT = JMeterUtils.getPropDefault("httpclient4.shared_pool.wait_timeout", 0);
+
+    /** Time in milliseconds after which idle connections of the shared pool are closed (default 30000) */
+    private static final int SHARED_POOL_IDLE_TIMEOUT = JMeterUtils.getPropDefault("httpclient4.shared_pool.idle_timeout", 30000);
+
+    /** Interval in milliseconds between two evictions of idle connections of the shared pool (default 5000, 0 = no eviction) */
+    private static final int SHARED_POOL_EVICTION_INTERVAL = JMeterUtils.getPropDefault("httpclient4.shared_pool.eviction_interval", 5000);
+
+    private static final Object SHARED_POOL_LOCK = new Object();
+
+    //@GuardedBy("SHARED_POOL_LOCK") for writes
+    private static volatile MeasuringConnectionManager sharedConnectionManager;
+
+    //@GuardedBy("SHARED_POOL_LOCK")
+    private static Thread sharedPoolEvictor;
+
+    /** Number of threads having clients that use the shared pool */
+    //@GuardedBy("SHARED_POOL_LOCK")
+    private static int sharedPoolUsers;
+
     private static final String CONTEXT_METRICS = "jmeter_metrics"; // TODO hack for metrics related to HTTPCLIENT-1081, to be removed later
 
     private static final ConnectionKeepAliveStrategy IDLE_STRATEGY = new DefaultConnectionKeepAliveStrategy(){
@@ -186,6 +217,21 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
         }
     };
 
+    /**
+     * Copies the time spent waiting for the connection to the pool into the SampleResult
+     */
+    static final HttpRequestInterceptor POOL_WAIT_SAVER = new HttpRequestInterceptor() {
+        @Override
+        public void process(HttpRequest request, HttpContext context)
+                throws HttpException, IOException {
+            Object connection = context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+            SampleResult sample = (SampleResult) context.getAttribute(SAMPLER_RESULT_TOKEN);
+            if (sample != null && connection instanceof MeasuringConnectionManager.MeasuredConnection) {
+                sample.setPoolWaitTime(((MeasuringConnectionManager.MeasuredConnection) connection).getPoolWaitTime());
+            }
+        }
+    };
+
 
     /**
      * Headers to save
@@ -359,7 +405,7 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
         }
 
         HttpContext localContext = new BasicHttpContext();
-        setupClientContextBeforeSample(localContext);
+        setupClientContextBeforeSample(httpClient, localContext);
         
         res.sampleStart();
 
@@ -506,9 +552,14 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
     /**
      * Configure the UserToken so that the SSL context is reused
      * See <a href="https://bz.apache.org/bugzilla/show_bug.cgi?id=57804">Bug 57804</a>
+     * @param httpClient the client sending the request
      * @param localContext {@link HttpContext}
      */
-    private void setupClientContextBeforeSample(HttpContext localContext) {
+    private void setupClientContextBeforeSample(HttpClient httpClient, HttpContext localContext) {
+        if (isSharedConnectionManager(httpClient.getConnectionManager())) {
+            // Connections of the shared pool are not bound to a user
+            return;
+        }
         Object userToken = null;
         // During recording JMeterContextService.getContext().getVariables() is null
         JMeterVariables jMeterVariables = JMeterContextService.getContext().getVariables();
@@ -758,7 +809,10 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
         if (httpClient != null && resetSSLContext && HTTPConstants.PROTOCOL_HTTPS.equalsIgnoreCase(url.getProtocol())) {
             ((AbstractHttpClient) httpClient).clearRequestInterceptors(); 
             ((AbstractHttpClient) httpClient).clearResponseInterceptors(); 
-            httpClient.getConnectionManager().closeIdleConnections(1L, TimeUnit.MICROSECONDS);
+            // other threads may be using the idle connections of the shared pool
+            if (!isSharedConnectionManager(httpClient.getConnectionManager())) {
+                httpClient.getConnectionManager().closeIdleConnections(1L, TimeUnit.MICROSECONDS);
+            }
             httpClient = null;
             JsseSSLManager sslMgr = (JsseSSLManager) SSLManager.getInstance();
             sslMgr.resetContext();
@@ -769,20 +823,30 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
 
             HttpParams clientParams = new DefaultedHttpParams(new BasicHttpParams(), DEFAULT_HTTP_PARAMS);
 
+            MeasuringConnectionManager connManager;
             DnsResolver resolver = this.testElement.getDNSResolver();
-            if (resolver == null) {
-                resolver = SystemDefaultDnsResolver.INSTANCE;
+            // The shared pool resolves with the system resolver, a DNS Cache Manager needs its own pool
+            boolean sharedPool = SHARED_POOL && resolver == null;
+            if (sharedPool) {
+                connManager = acquireSharedConnectionManager(!usesSharedConnectionManager(mapHttpClientPerHttpClientKey));
+                if (SHARED_POOL_WAIT_TIMEOUT > 0) {
+                    clientParams.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, SHARED_POOL_WAIT_TIMEOUT);
+                }
+            } else {
+                if (resolver == null) {
+                    resolver = SystemDefaultDnsResolver.INSTANCE;
+                }
+                connManager = new MeasuringConnectionManager(
+                        createSchemeRegistry(), 
+                        resolver, 
+                        TIME_TO_LIVE,
+                        VALIDITY_AFTER_INACTIVITY_TIMEOUT);
             }
-            MeasuringConnectionManager connManager = new MeasuringConnectionManager(
-                    createSchemeRegistry(), 
-                    resolver, 
-                    TIME_TO_LIVE,
-                    VALIDITY_AFTER_INACTIVITY_TIMEOUT);
             
             // Modern browsers use more connections per host than the current httpclient default (2)
             // when using parallel download the httpclient and connection manager are shared by the downloads threads
             // to be realistic JMeter must set an higher value to DefaultMaxPerRoute
-            if(this.testElement.isConcurrentDwn()) {
+            if(this.testElement.isConcurrentDwn() && !sharedPool) {
                 try {
                     int maxConcurrentDownloads = Integer.parseInt(this.testElement.getConcurrentPool());
                     connManager.setDefaultMaxPerRoute(Math.max(maxConcurrentDownloads, connManager.getDefaultMaxPerRoute()));                
@@ -806,6 +870,7 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
             ((AbstractHttpClient) httpClient).addResponseInterceptor(RESPONSE_CONTENT_ENCODING);
             ((AbstractHttpClient) httpClient).addResponseInterceptor(METRICS_SAVER); // HACK
             ((AbstractHttpClient) httpClient).addRequestInterceptor(METRICS_RESETTER); 
+            ((AbstractHttpClient) httpClient).addRequestInterceptor(POOL_WAIT_SAVER);
             
             // Override the default schemes as necessary
             SchemeRegistry schemeRegistry = httpClient.getConnectionManager().getSchemeRegistry();
@@ -852,6 +917,122 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
         return httpClient;
     }
 
+    /**
+     * Get the connection manager shared by all the threads, creating it if needed.
+     *
+     * @param newUser <code>true</code> if the calling thread does not use the shared pool yet
+     * @return the shared connection manager
+     */
+    static MeasuringConnectionManager acquireSharedConnectionManager(boolean newUser) {
+        synchronized (SHARED_POOL_LOCK) {
+            if (sharedConnectionManager == null) {
+                sharedConnectionManager = new MeasuringConnectionManager(
+                        createSchemeRegistry(),
+                        SystemDefaultDnsResolver.INSTANCE,
+                        TIME_TO_LIVE,
+                        VALIDITY_AFTER_INACTIVITY_TIMEOUT);
+                sharedConnectionManager.setMaxTotal(SHARED_POOL_MAX_TOTAL);
+                sharedConnectionManager.setDefaultMaxPerRoute(SHARED_POOL_MAX_PER_ROUTE);
+                if (SHARED_POOL_EVICTION_INTERVAL > 0) {
+                    sharedPoolEvictor = new IdleConnectionEvictor(sharedConnectionManager);
+                    sharedPoolEvictor.start();
+                }
+                log.info("Created shared connection pool, max per route=" + SHARED_POOL_MAX_PER_ROUTE
+                        + ", max total=" + SHARED_POOL_MAX_TOTAL);
+            }
+            if (newUser) {
+                sharedPoolUsers++;
+            }
+            return sharedConnectionManager;
+        }
+    }
+
+    /**
+     * @param connectionManager the connection manager of a client
+     * @return <code>true</code> if it is the pool shared by all the threads,
+     *  which must not be shut down by a thread
+     */
+    private static boolean isSharedConnectionManager(ClientConnectionManager connectionManager) {
+        return SHARED_POOL && connectionManager == sharedConnectionManager;
+    }
+
+    /**
+     * @param clients the clients of the current thread
+     * @return <code>true</code> if one of them uses the shared pool
+     */
+    private static boolean usesSharedConnectionManager(Map<HttpClientKey, HttpClient> clients) {
+        for (HttpClient client : clients.values()) {
+            if (isSharedConnectionManager(client.getConnectionManager())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called when a thread using the shared pool finishes,
+     * the pool is shut down when the last one is gone.
+     */
+    static void releaseSharedConnectionManager() {
+        synchronized (SHARED_POOL_LOCK) {
+            sharedPoolUsers--;
+            if (sharedPoolUsers > 0 || sharedConnectionManager == null) {
+                return;
+            }
+            if (sharedPoolEvictor != null) {
+                sharedPoolEvictor.interrupt();
+                sharedPoolEvictor = null;
+            }
+            sharedConnectionManager.shutdown();
+            sharedConnectionManager = null;
+            log.info("Shut down shared connection pool");
+        }
+    }
+
+    /**
+     * For unit tests
+     * @return the pool shared by all the threads, null if no thread uses it
+     */
+    static MeasuringConnectionManager getSharedConnectionManager() {
+        return sharedConnectionManager;
+    }
+
+    /**
+     * For unit tests
+     * @return the thread evicting the idle connections of the shared pool, null if there is no shared pool
+     */
+    static Thread getSharedPoolEvictor() {
+        synchronized (SHARED_POOL_LOCK) {
+            return sharedPoolEvictor;
+        }
+    }
+
+    /**
+     * Closes periodically the expired and idle connections of the shared pool
+     */
+    private static final class IdleConnectionEvictor extends Thread {
+        private final MeasuringConnectionManager connectionManager;
+
+        IdleConnectionEvictor(MeasuringConnectionManager connectionManager) {
+            super("HTTP shared pool idle connection evictor"); // $NON-NLS-1$
+            setDaemon(true);
+            this.connectionManager = connectionManager;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    Thread.sleep(SHARED_POOL_EVICTION_INTERVAL);
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(SHARED_POOL_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                // pool was shut down
+            }
+        }
+    }
+
     /**
      * Setup LazySchemeSocketFactory
      * @see "https://bz.apache.org/bugzilla/show_bug.cgi?id=58099"
@@ -1490,11 +1671,19 @@ public class HTTPHC4Impl extends HTTPHCAbstractImpl {
         // Does not need to be synchronised, as all access is from same thread
         Map<HttpClientKey, HttpClient> mapHttpClientPerHttpClientKey = HTTPCLIENTS_CACHE_PER_THREAD_AND_HTTPCLIENTKEY.get();
         if ( mapHttpClientPerHttpClientKey != null ) {
+            boolean usedSharedPool = false;
             for ( HttpClient cl : mapHttpClientPerHttpClientKey.values() ) {
                 ((AbstractHttpClient) cl).clearRequestInterceptors(); 
                 ((AbstractHttpClient) cl).clearResponseInterceptors();
-                ((AbstractHttpClient) cl).close();
-                cl.getConnectionManager().shutdown();
+                if (isSharedConnectionManager(cl.getConnectionManager())) {
+                    usedSharedPool = true; // closing the client would shut down the shared pool
+                } else {
+                    ((AbstractHttpClient) cl).close();
+                    cl.getConnectionManager().shutdown();
+                }
+            }
+            if (usedSharedPool) {
+                releaseSharedConnectionManager();
             }
             mapHttpClientPerHttpClientKey.clear();
         }
@@ -58,6 +58,9 @@ public class HTTPSampleResult extends SampleResult {
 
     private String queryString = ""; // never null
 
+    /** Whether only the start of the response body was kept, see httpsampler.max_bytes_to_store_per_request */
+    private boolean responseDataTruncated;
+
     private static final String HTTP_NO_CONTENT_CODE = Integer.toString(HttpURLConnection.HTTP_NO_CONTENT);
     private static final String HTTP_NO_CONTENT_MSG = "No Content"; // $NON-NLS-1$
 
@@ -100,6 +103,18 @@ public class HTTPSampleResult extends SampleResult {
         return redirectLocation;
     }
 
+    public void setResponseDataTruncated(boolean responseDataTruncated) {
+        this.responseDataTruncated = responseDataTruncated;
+    }
+
+    /**
+     * @return <code>true</code> if the response data only holds the start of the response body,
+     * {@link #getBytes()} still counts the whole body
+     */
+    public boolean isResponseDataTruncated() {
+        return responseDataTruncated;
+    }
+
     /**
      * Determine whether this result is a redirect.
      * Returns true for: 301,302,303 and 307(GET or HEAD)
@@ -62,8 +62,11 @@ import org.apache.jmeter.protocol.http.util.HTTPConstants;
 import org.apache.jmeter.protocol.http.util.HTTPConstantsInterface;
 import org.apache.jmeter.protocol.http.util.HTTPFileArg;
 import org.apache.jmeter.protocol.http.util.HTTPFileArgs;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.reporters.ResultSaver;
 import org.apache.jmeter.samplers.AbstractSampler;
 import org.apache.jmeter.samplers.Entry;
+import org.apache.jmeter.samplers.SampleListener;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestIterationListener;
@@ -78,7 +81,12 @@ import org.apache.jmeter.testelement.property.StringProperty;
 import org.apache.jmeter.testelement.property.TestElementProperty;
 import org.apache.jmeter.threads.JMeterContext;
 import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.threads.SamplePackage;
+import org.apache.jmeter.util.BeanShellTestElement;
 import org.apache.jmeter.util.JMeterUtils;
+import org.apache.jmeter.util.JSR223TestElement;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.jorphan.util.JOrphanUtils;
 import org.apache.log.Logger;
@@ -300,6 +308,24 @@ public abstract class HTTPSamplerBase extends AbstractSampler
 
     protected static final int MAX_FRAME_DEPTH = JMeterUtils.getPropDefault("httpsampler.max_frame_depth", 5); // $NON-NLS-1$
 
+    /**
+     * Maximum number of response body bytes kept in the sample result when nothing needs the full body,
+     * 0 or less to keep everything
+     */
+    private static final int MAX_BYTES_TO_STORE_PER_REQUEST =
+            JMeterUtils.getPropDefault("httpsampler.max_bytes_to_store_per_request", 0); // $NON-NLS-1$
+
+    /** Appended to the response message of a result whose body was truncated */
+    static final String TRUNCATED_MESSAGE_PREFIX = "[response data truncated to "; // $NON-NLS-1$
+
+    /** Read buffer reused by all the responses read in the same thread, 8kB is the (max) size to have the latency ('the first packet') */
+    private static final ThreadLocal<byte[]> READ_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
 
     // Derive the mapping of content types to parsers
     private static final Map<String, String> PARSERS_FOR_CONTENT_TYPE = new HashMap<>();
@@ -1596,6 +1622,11 @@ public abstract class HTTPSamplerBase extends AbstractSampler
      * @return the sample result
      */
     protected HTTPSampleResult resultProcessing(boolean areFollowingRedirect, int frameDepth, HTTPSampleResult res) {
+        if (res.isResponseDataTruncated()) {
+            // the implementations set the message after reading the response
+            res.setResponseMessage(res.getResponseMessage() + " " + TRUNCATED_MESSAGE_PREFIX
+                    + res.getResponseData().length + " bytes]"); // $NON-NLS-1$
+        }
         boolean wasRedirected = false;
         if (!areFollowingRedirect && res.isRedirect()) {
             log.debug("Location set to - " + res.getRedirectLocation());
@@ -1742,6 +1773,11 @@ public abstract class HTTPSamplerBase extends AbstractSampler
      * <p>
      * For the MD5 case, the result byte count is set to the size of the original response.
      * <p>
+     * If the property <code>httpsampler.max_bytes_to_store_per_request</code> is set and neither
+     * post-processors, assertions, listeners showing or saving the response nor embedded resources
+     * parsing need the whole body, only that many bytes are kept; the rest of the response is still
+     * read and counted, and the result is marked as truncated.
+     * <p>
      * Closes the inputStream
      *
      * @param sampleResult sample to store information about the response into
@@ -1751,8 +1787,26 @@ public abstract class HTTPSamplerBase extends AbstractSampler
      * @throws IOException if reading the result fails
      */
     public byte[] readResponse(SampleResult sampleResult, InputStream in, int length) throws IOException {
+        int maxBytesToStore = Integer.MAX_VALUE;
+        if (MAX_BYTES_TO_STORE_PER_REQUEST > 0 && !isFullResponseBodyNeeded()) {
+            maxBytesToStore = MAX_BYTES_TO_STORE_PER_REQUEST;
+        }
+        return readResponse(sampleResult, in, length, maxBytesToStore);
+    }
+
+    /**
+     * Read response from the input stream, keeping at most maxBytesToStore bytes of it
+     * 
+     * @param sampleResult sample to store information about the response into
+     * @param in input stream from which to read the response
+     * @param length expected input length or zero
+     * @param maxBytesToStore maximum number of bytes of the body to keep, ignored for MD5
+     * @return the response or the MD5 of the response
+     * @throws IOException if reading the result fails
+     */
+    byte[] readResponse(SampleResult sampleResult, InputStream in, int length, int maxBytesToStore) throws IOException {
         try {
-            byte[] readBuffer = new byte[8192]; // 8kB is the (max) size to have the latency ('the first packet')
+            byte[] readBuffer = READ_BUFFER.get();
             int bufferSize = 32;// Enough for MD5
 
             MessageDigest md = null;
@@ -1764,12 +1818,14 @@ public abstract class HTTPSamplerBase extends AbstractSampler
                     log.error("Should not happen - could not find MD5 digest", e);
                     asMD5 = false;
                 }
-            } else {
+            }
+            if (!asMD5) {
                 if (length <= 0) {// may also happen if long value > int.max
                     bufferSize = 4 * 1024;
                 } else {
                     bufferSize = length;
                 }
+                bufferSize = Math.min(bufferSize, maxBytesToStore);
             }
             ByteArrayOutputStream w = new ByteArrayOutputStream(bufferSize);
             int bytesRead = 0;
@@ -1782,10 +1838,10 @@ public abstract class HTTPSamplerBase extends AbstractSampler
                 }
                 if (asMD5 && md != null) {
                     md.update(readBuffer, 0, bytesRead);
-                    totalBytes += bytesRead;
-                } else {
-                    w.write(readBuffer, 0, bytesRead);
+                } else if (totalBytes < maxBytesToStore) {
+                    w.write(readBuffer, 0, Math.min(bytesRead, maxBytesToStore - totalBytes));
                 }
+                totalBytes += bytesRead;
             }
             if (first) { // Bug 46838 - if there was no data, still need to set latency
                 sampleResult.latencyEnd();
@@ -1796,6 +1852,15 @@ public abstract class HTTPSamplerBase extends AbstractSampler
                 byte[] md5Result = md.digest();
                 w.write(JOrphanUtils.baToHexBytes(md5Result));
                 sampleResult.setBytes(totalBytes);
+            } else if (totalBytes > maxBytesToStore) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Kept " + maxBytesToStore + " of the " + totalBytes + " bytes of the response to " + getName());
+                }
+                sampleResult.setBytes(totalBytes);
+                sampleResult.setBodySize(totalBytes);
+                if (sampleResult instanceof HTTPSampleResult) {
+                    ((HTTPSampleResult) sampleResult).setResponseDataTruncated(true);
+                }
             }
             w.close();
             return w.toByteArray();
@@ -1804,6 +1869,40 @@ public abstract class HTTPSamplerBase extends AbstractSampler
         }
     }
 
+    /**
+     * Tells whether the whole response body must be kept, because embedded resources
+     * are parsed from it, because post-processors or assertions run on it, or because
+     * a listener may show or save it.
+     * When this sampler does not run in a JMeter thread, the body is always kept.
+     *
+     * @return <code>true</code> if the response body must not be truncated
+     */
+    boolean isFullResponseBodyNeeded() {
+        if (isImageParser()) {
+            return true;
+        }
+        JMeterVariables threadVars = getThreadContext().getVariables();
+        if (threadVars == null) {
+            return true;
+        }
+        // Hack: the package is saved by JMeterThread for the sampler being run
+        SamplePackage pack = (SamplePackage) threadVars.getObject(JMeterThread.PACKAGE_OBJECT);
+        if (pack == null
+                || !pack.getPostProcessors().isEmpty()
+                || !pack.getAssertions().isEmpty()) {
+            return true;
+        }
+        for (SampleListener listener : pack.getSampleListeners()) {
+            if (listener instanceof ResultSaver
+                    || listener instanceof BeanShellTestElement // scripted listeners may read the response
+                    || listener instanceof JSR223TestElement
+                    || (listener instanceof ResultCollector && ((ResultCollector) listener).isResponseDataNeeded())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * JMeter 2.3.1 and earlier only had fields for one file on the GUI:
      * <ul>
@@ -87,8 +87,9 @@ public class MeasuringConnectionManager extends JMeterPoolingClientConnectionMan
 
         @Override
         public ManagedClientConnection getConnection(long timeout, TimeUnit tunit) throws InterruptedException, ConnectionPoolTimeoutException {
+            long start = System.nanoTime();
             ManagedClientConnection res = handler.getConnection(timeout, tunit);
-            return new MeasuredConnection(res);
+            return new MeasuredConnection(res, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
 
         @Override
@@ -100,12 +101,22 @@ public class MeasuringConnectionManager extends JMeterPoolingClientConnectionMan
     /**
      * An adapter for {@link ManagedClientConnection}
      * that calls SampleResult.connectEnd after calling ManagedClientConnection.open
+     * and remembers how long the connection was waited for
      */
-    private static class MeasuredConnection implements ManagedClientConnection {
+    static class MeasuredConnection implements ManagedClientConnection {
         private final ManagedClientConnection handler;
+        private final long poolWaitTime;
 
-        public MeasuredConnection(ManagedClientConnection res) {
+        public MeasuredConnection(ManagedClientConnection res, long poolWaitTime) {
             handler = res;
+            this.poolWaitTime = poolWaitTime;
+        }
+
+        /**
+         * @return the time in milliseconds spent waiting for this connection to be leased from the pool
+         */
+        long getPoolWaitTime() {
+            return poolWaitTime;
         }
 
         @Override
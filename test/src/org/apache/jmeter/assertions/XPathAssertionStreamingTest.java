@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.assertions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.util.StreamingXPath;
+import org.junit.Test;
+
+/**
+ * Test the {@link XPathAssertion} with streaming evaluation enabled:
+ * each expression is also asserted with the DOM, which must give the same result
+ */
+public class XPathAssertionStreamingTest {
+
+    private static final String BOOK = "<book><preface title='Intro'>zero</preface>"
+            + "<page n='1'>one</page><page n='2'>two</page><empty></empty><a><b>in b</b></a></book>";
+
+    private static AssertionResult assertXPath(boolean streaming, String xml, String xpath, boolean negated) {
+        SampleResult response = new SampleResult();
+        response.setResponseData(xml.getBytes(StandardCharsets.UTF_8));
+        XPathAssertion assertion = new XPathAssertion();
+        assertion.setUseStreaming(streaming);
+        assertion.setXPathString(xpath);
+        assertion.setNegated(negated);
+        return assertion.getResult(response);
+    }
+
+    /**
+     * @return the result of the streaming assertion, checked to be the one given by the DOM
+     */
+    private static AssertionResult assertXPath(String xml, String xpath, boolean negated) {
+        AssertionResult dom = assertXPath(false, xml, xpath, negated);
+        AssertionResult streamed = assertXPath(true, xml, xpath, negated);
+        String message = xpath + " on " + xml;
+        assertEquals(message, dom.isError(), streamed.isError());
+        assertEquals(message, dom.isFailure(), streamed.isFailure());
+        assertEquals(message, dom.getFailureMessage(), streamed.getFailureMessage());
+        return streamed;
+    }
+
+    private static void assertStreamed(boolean expected, String xml, String xpath) {
+        StreamingXPath streaming = StreamingXPath.compile(xpath);
+        assertNotNull(xpath, streaming);
+        assertEquals(xpath + " on " + xml, expected, streaming.evaluate(xml, new ArrayList<String>(), 1));
+    }
+
+    @Test
+    public void testSupportedExpressions() throws Exception {
+        for (String xpath : Arrays.asList("/book/preface/@title", "/book/preface[@title]",
+                "/book/preface[@title='Intro']", "/book/preface[@title='xyz']", "/book/page", "/book/page[2]",
+                "/book/page[3]", "/book/page[@n='2']/text()", "/book/index", "/book/empty/text()", "//b",
+                "/book//b/text()", "/*/page/@n", "//*[@n][1]")) {
+            assertStreamed(true, BOOK, xpath);
+            assertXPath(BOOK, xpath, false);
+            assertXPath(BOOK, xpath, true);
+        }
+    }
+
+    @Test
+    public void testResults() throws Exception {
+        AssertionResult res = assertXPath(BOOK, "/book/page[@n='2']", false);
+        assertFalse(res.isError());
+        assertFalse(res.isFailure());
+        res = assertXPath(BOOK, "/book/page[@n='3']", false);
+        assertFalse(res.isError());
+        assertTrue(res.isFailure());
+        assertEquals("No Nodes Matched /book/page[@n='3']", res.getFailureMessage());
+        res = assertXPath(BOOK, "/book/page[@n='2']", true);
+        assertTrue(res.isFailure());
+    }
+
+    @Test
+    public void testUnsupportedExpressionUsesDom() throws Exception {
+        String xpath = "count(//page) = 2";
+        assertNull(StreamingXPath.compile(xpath));
+        assertFalse(assertXPath(BOOK, xpath, false).isFailure());
+    }
+
+    @Test
+    public void testDtdFallsBackToDom() throws Exception {
+        String xml = "<!DOCTYPE r [<!ENTITY e 'v'>]><r><x a='&e;'/></r>";
+        assertStreamed(false, xml, "/r/x[@a='v']");
+        assertFalse(assertXPath(xml, "/r/x[@a='v']", false).isFailure());
+        AssertionResult res = assertXPath(xml, "/r/x[@a='e']", false);
+        assertFalse(res.isError());
+        assertTrue(res.isFailure());
+    }
+
+    @Test
+    public void testCdataFallsBackToDom() throws Exception {
+        String xml = "<r><x><![CDATA[<cdata>]]></x></r>";
+        assertStreamed(false, xml, "/r/x/text()");
+        assertFalse(assertXPath(xml, "/r/x/text()", false).isFailure());
+    }
+
+    @Test
+    public void testPrefixedNamesFallBackToDom() throws Exception {
+        String xml = "<s:B xmlns:s='u'>b</s:B>";
+        assertStreamed(false, xml, "//B");
+        assertXPath(xml, "//B", false);
+    }
+
+    @Test
+    public void testDeclaredEncodingFallsBackToDom() throws Exception {
+        // The assertion reads the bytes, whose declared encoding the parser handles
+        String xml = "<?xml version='1.0' encoding='ISO-8859-1'?><r><x>a</x></r>";
+        assertStreamed(false, xml, "/r/x");
+        assertFalse(assertXPath(xml, "/r/x", false).isFailure());
+    }
+
+    @Test
+    public void testMalformedFallsBackToDom() throws Exception {
+        String xml = "<r><x>a</x>";
+        assertStreamed(false, xml, "/r/x");
+        assertTrue(assertXPath(xml, "/r/x", false).isError());
+        // The first match is not enough, the whole response must be well-formed
+        xml = "<r><x>a</x><y></r>";
+        assertStreamed(false, xml, "/r/x");
+        assertTrue(assertXPath(xml, "/r/x", false).isError());
+    }
+
+    @Test
+    public void testDomOnlyModes() throws Exception {
+        SampleResult response = new SampleResult();
+        response.setResponseData("<r><x>a</x></r>".getBytes(StandardCharsets.UTF_8));
+        XPathAssertion assertion = new XPathAssertion();
+        assertion.setUseStreaming(true);
+        assertion.setXPathString("/r/x");
+        // Tidy wraps the document in html and body, so the streamed match would be wrong
+        assertion.setTolerant(true);
+        assertion.setQuiet(true);
+        AssertionResult res = assertion.getResult(response);
+        assertFalse(res.isError());
+        assertTrue(res.isFailure());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.AbstractSampler;
+import org.apache.jmeter.samplers.Entry;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.threads.JMeterThreadMonitor;
+import org.apache.jmeter.threads.ListenerNotifier;
+import org.apache.jmeter.threads.TestCompiler;
+import org.apache.jmeter.threads.ThreadGroup;
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.Test;
+
+public class TestTransactionController {
+
+    /** A listener shared by all the threads, so notified by the dispatcher thread in asynchronous mode */
+    private static class SharedRecorder extends AbstractTestElement implements SampleListener, NoThreadClone {
+        private static final long serialVersionUID = 1L;
+
+        final List<String> labels = Collections.synchronizedList(new ArrayList<String>());
+
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            labels.add(e.getResult().getSampleLabel());
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    private static class OkSampler extends AbstractSampler {
+        private static final long serialVersionUID = 1L;
+
+        OkSampler(String name) {
+            setName(name);
+        }
+
+        @Override
+        public SampleResult sample(Entry e) {
+            SampleResult result = new SampleResult();
+            result.setSampleLabel(getName());
+            result.sampleStart();
+            result.sampleEnd();
+            result.setSuccessful(true);
+            return result;
+        }
+    }
+
+    @Test
+    public void testTransactionIsNotifiedAfterChildrenWithAsynchronousListeners() {
+        ThreadGroup group = new ThreadGroup();
+        group.setName("TG");
+        group.setNumThreads(1);
+        LoopController loop = new LoopController();
+        loop.setLoops(1);
+        loop.setContinueForever(false);
+        group.setSamplerController(loop);
+        TransactionController transaction = new TransactionController();
+        transaction.setName("T");
+        transaction.setGenerateParentSample(false);
+        SharedRecorder recorder = new SharedRecorder();
+
+        ListedHashTree tree = new ListedHashTree();
+        HashTree groupTree = tree.add(group);
+        groupTree.add(recorder);
+        HashTree transactionTree = groupTree.add(transaction);
+        transactionTree.add(new OkSampler("a"));
+        transactionTree.add(new OkSampler("b"));
+
+        TestCompiler.initialize();
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        JMeterThread thread = new JMeterThread(tree, new JMeterThreadMonitor() {
+            @Override
+            public void threadFinished(JMeterThread thread) {
+            }
+        }, notifier);
+        thread.setThreadGroup(group);
+        thread.setThreadName("TG 1-1");
+        thread.run();
+        notifier.stop();
+
+        assertEquals(Arrays.asList("a", "b", "T"), recorder.labels);
+        // all delivered by the dispatcher of the shared listener
+        assertNotSame(Thread.currentThread(), recorder.threads.get(0));
+        assertEquals(Collections.nCopies(3, recorder.threads.get(0)), recorder.threads);
+    }
+}
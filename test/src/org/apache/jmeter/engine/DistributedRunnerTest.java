@@ -18,6 +18,8 @@
 
 package org.apache.jmeter.engine;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
@@ -28,19 +30,53 @@ import java.net.MalformedURLException;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
 import org.apache.jorphan.logging.LoggingManager;
 import org.apache.log.Logger;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 
 public class DistributedRunnerTest {
 
+    private static final String[] CHANGED_PROPERTIES = {
+            DistributedRunner.START_DELAY,
+            DistributedRunner.HEARTBEAT_INTERVAL,
+            DistributedRunner.HEARTBEAT_MAX_MISSED };
+
+    private final Properties savedProperties = new Properties();
+
+    @Before
+    public void saveProperties() {
+        for (String name : CHANGED_PROPERTIES) {
+            String value = JMeterUtils.getProperty(name);
+            if (value != null) {
+                savedProperties.setProperty(name, value);
+            }
+        }
+    }
+
+    @After
+    public void restoreProperties() {
+        for (String name : CHANGED_PROPERTIES) {
+            String value = savedProperties.getProperty(name);
+            if (value == null) {
+                JMeterUtils.getJMeterProperties().remove(name);
+            } else {
+                JMeterUtils.setProperty(name, value);
+            }
+        }
+    }
+
     public static void createJmeterEnv() throws IOException {
         File propsFile;
         try {
@@ -122,6 +158,132 @@ public class DistributedRunnerTest {
         obj.exit(hosts);
     }
 
+    @Test
+    public void testStartBarrierCorrectsClockOffset() throws Exception {
+        createJmeterEnv();
+        JMeterUtils.setProperty(DistributedRunner.START_DELAY, "2000");
+        final FakeRemoteEngine remote1 = new FakeRemoteEngine(0);
+        final FakeRemoteEngine remote2 = new FakeRemoteEngine(60000);
+        DistributedRunner obj = new DistributedRunner() {
+            @Override
+            protected JMeterEngine createEngine(String address) {
+                return new ClientJMeterEngine("test1".equals(address) ? remote1 : remote2, address);
+            }
+        };
+        List<String> hosts = Arrays.asList("test1", "test2");
+        long before = System.currentTimeMillis();
+        obj.init(hosts, new HashTree());
+        try {
+            obj.start();
+            long after = System.currentTimeMillis();
+            assertTrue(remote1.configured && remote2.configured);
+            // both engines are asked to start at the same instant, expressed in their own clock
+            assertTrue(remote1.startTime >= before + 2000 && remote1.startTime <= after + 2000);
+            long offset = remote2.startTime - remote1.startTime;
+            assertTrue("Unexpected offset " + offset, Math.abs(offset - 60000) < 1000);
+        } finally {
+            obj.stop(hosts);
+            obj.exit(hosts);
+        }
+    }
+
+    @Test
+    public void testHeartbeatReportsDeadEngine() throws Exception {
+        createJmeterEnv();
+        JMeterUtils.setProperty(DistributedRunner.HEARTBEAT_INTERVAL, "10");
+        JMeterUtils.setProperty(DistributedRunner.HEARTBEAT_MAX_MISSED, "2");
+        final FakeRemoteEngine remote1 = new FakeRemoteEngine(0);
+        final FakeRemoteEngine remote2 = new FakeRemoteEngine(0);
+        DistributedRunner obj = new DistributedRunner() {
+            @Override
+            protected JMeterEngine createEngine(String address) {
+                return new ClientJMeterEngine("test1".equals(address) ? remote1 : remote2, address);
+            }
+        };
+        final List<String> failed = Collections.synchronizedList(new LinkedList<String>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        obj.setEngineFailureListener(new DistributedRunner.EngineFailureListener() {
+            @Override
+            public void engineFailed(String host, Exception cause) {
+                failed.add(host);
+                latch.countDown();
+            }
+        });
+        List<String> hosts = Arrays.asList("test1", "test2");
+        obj.init(hosts, new HashTree());
+        try {
+            obj.start();
+            assertEquals(0, remote1.startTime);
+            remote2.alive = false;
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(Arrays.asList("test2"), failed);
+            assertTrue(remote1.pings > 0);
+
+            // no more pings once the last monitored engine has ended its test
+            obj.stopHeartbeat("test1");
+            Thread.sleep(50);
+            int pings = remote1.pings;
+            Thread.sleep(100);
+            assertEquals(pings, remote1.pings);
+        } finally {
+            obj.stop(hosts);
+            obj.exit(hosts);
+        }
+    }
+
+    private static class FakeRemoteEngine implements RemoteJMeterEngine {
+        private final long clockOffset;
+        volatile boolean configured;
+        volatile boolean alive = true;
+        volatile long startTime = -1;
+        volatile int pings;
+
+        FakeRemoteEngine(long clockOffset) {
+            this.clockOffset = clockOffset;
+        }
+
+        @Override
+        public void rconfigure(HashTree testTree, String host, File jmxBase, String scriptName) {
+            configured = true;
+        }
+
+        @Override
+        public void rrunTest() {
+            startTime = 0;
+        }
+
+        @Override
+        public void rrunTest(long startTime) {
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void rstopTest(boolean now) {
+        }
+
+        @Override
+        public void rreset() {
+        }
+
+        @Override
+        public void rsetProperties(Properties p) {
+        }
+
+        @Override
+        public void rexit() {
+        }
+
+        @Override
+        public long rping() throws RemoteException {
+            if (!alive) {
+                throw new RemoteException("Connection refused");
+            }
+            pings++;
+            return System.currentTimeMillis() + clockOffset;
+        }
+    }
+
     private static class DistributedRunnerEmul extends DistributedRunner {
         public List<EmulatorEngine> engines = new LinkedList<>();
 
@@ -19,6 +19,7 @@
 package org.apache.jmeter.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -26,6 +27,7 @@ import org.apache.jmeter.config.Argument;
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.control.GenericController;
 import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.testelement.TestElement;
 import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.testelement.property.CollectionProperty;
 import org.apache.jmeter.testelement.property.JMeterProperty;
@@ -81,4 +83,53 @@ public class TestTreeCloner {
                 assertTrue(iter.next().isRunningVersion());
             }
         }
+
+        @Test
+        public void testCloningSharingProperties() throws Exception {
+            ListedHashTree original = new ListedHashTree();
+            GenericController controller = new GenericController();
+            controller.setName("controller");
+            Arguments args = new Arguments();
+            args.addArgument("name", "value");
+            original.add(controller, args);
+            original.traverse(new TurnElementsOn());
+
+            TreeCloner cloner = new TreeCloner(true, true);
+            original.traverse(cloner);
+            ListedHashTree newTree = cloner.getClonedTree();
+            GenericController clonedController = (GenericController) newTree.getArray()[0];
+            Arguments clonedArgs = (Arguments) newTree.getTree(clonedController).getArray()[0];
+            assertNotSame(controller, clonedController);
+            assertSame(controller.getProperty(TestElement.NAME), clonedController.getProperty(TestElement.NAME));
+            Argument arg = args.getArgument(0);
+            Argument clonedArg = clonedArgs.getArgument(0);
+            assertNotSame(arg, clonedArg);
+            assertSame(arg.getProperty(Argument.VALUE), clonedArg.getProperty(Argument.VALUE));
+
+            // Changes are private to the clone and undone at the end of the iteration
+            clonedController.setName("changed");
+            clonedArg.setValue("changed");
+            assertEquals("changed", clonedController.getName());
+            assertEquals("changed", clonedArg.getValue());
+            assertEquals("controller", controller.getName());
+            assertEquals("value", arg.getValue());
+            clonedController.recoverRunningVersion();
+            clonedArgs.recoverRunningVersion();
+            assertEquals("controller", clonedController.getName());
+            assertEquals("value", clonedArg.getValue());
+            assertEquals("controller", controller.getName());
+            assertEquals("value", arg.getValue());
+        }
+
+        @Test
+        public void testNoSharingOfNonRunningElements() throws Exception {
+            ListedHashTree original = new ListedHashTree();
+            GenericController controller = new GenericController();
+            controller.setName("controller");
+            original.add(controller);
+            TreeCloner cloner = new TreeCloner(true, true);
+            original.traverse(cloner);
+            GenericController clonedController = (GenericController) cloner.getClonedTree().getArray()[0];
+            assertNotSame(controller.getProperty(TestElement.NAME), clonedController.getProperty(TestElement.NAME));
+        }
 }
@@ -22,6 +22,7 @@
 package org.apache.jmeter.engine.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
@@ -230,4 +231,40 @@ public class PackageTest extends JMeterTestCase {
         assertEquals("hello world", newProp.getStringValue());
     }
 
+    @Test
+    public void testVariablesOnly() throws Exception {
+        String template = "http://${server}/a,b${missing}";
+        CompoundVariable cv = new CompoundVariable(template);
+        assertTrue(cv.hasFunction());
+        assertEquals("http://jakarta.apache.org/a,b${missing}", cv.execute());
+        jmctx.getVariables().put("server", "other");
+        assertEquals("http://other/a,b${missing}", cv.execute());
+        // Compiled again from the same string
+        assertEquals("http://other/a,b${missing}", new CompoundVariable(template).execute());
+        assertEquals("http://other/a,b${missing}", cv.getFunction().execute());
+    }
+
+    @Test
+    public void testManyDistinctTemplates() throws Exception {
+        // More strings than the compiled template cache holds
+        for (int i = 0; i < 2500; i++) {
+            assertEquals(i + "jakarta.apache.org", new CompoundVariable(i + "${server}").execute());
+        }
+    }
+
+    @Test
+    public void testLiteralsOnly() throws Exception {
+        CompoundVariable cv = new CompoundVariable("\\$a \\, b");
+        assertFalse(cv.hasFunction());
+        assertEquals("$a , b", cv.execute());
+        cv.clear();
+        assertEquals("", cv.execute(null, null));
+    }
+
+    @Test
+    public void testFunctionsAndLiterals() throws Exception {
+        CompoundVariable cv = new CompoundVariable("a${__regexFunction(<html>(.*)</html>,$1$)}b${server}c");
+        assertEquals("ahello worldbjakarta.apache.orgc", cv.execute());
+        assertEquals("ahello worldbjakarta.apache.orgc", cv.execute());
+    }
 }
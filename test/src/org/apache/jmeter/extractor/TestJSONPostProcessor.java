@@ -23,6 +23,7 @@ import java.nio.charset.StandardCharsets;
 import net.minidev.json.parser.JSONParser;
 import net.minidev.json.parser.ParseException;
 
+import org.apache.jmeter.extractor.json.jsonpath.JSONManager;
 import org.apache.jmeter.extractor.json.jsonpath.JSONPostProcessor;
 import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.threads.JMeterContext;
@@ -105,6 +106,32 @@ public class TestJSONPostProcessor {
         Assert.assertEquals("3", vars.get(VAR_NAME + "_matchNr"));
     }
 
+    @Test
+    public void testParsedOncePerSample() {
+        JMeterContext context = JMeterContextService.getContext();
+        JSONPostProcessor processor = setupProcessor(context, "1;1");
+        SampleResult result = new SampleResult();
+        result.setResponseData("{\"a\":1,\"b\":2}".getBytes(StandardCharsets.UTF_8));
+        JMeterVariables vars = new JMeterVariables();
+        context.setVariables(vars);
+        context.setPreviousResult(result);
+
+        processor.setRefNames("a;b");
+        processor.setDefaultValues("NONE;NONE");
+        processor.setJsonPathExpressions("$.a;$.b");
+        processor.process();
+        Assert.assertEquals("1", vars.get("a"));
+        Assert.assertEquals("2", vars.get("b"));
+
+        // Later extractors of the same sample use the parsed document
+        Object document = JSONManager.parse(result, "{}");
+        Assert.assertEquals(JSONManager.parse("{\"a\":1,\"b\":2}"), document);
+        result.setParsedResponse("json", JSONManager.parse("{\"a\":3}"));
+        processor.process();
+        Assert.assertEquals("3", vars.get("a"));
+        Assert.assertEquals("NONE", vars.get("b"));
+    }
+
     private JSONPostProcessor setupProcessor(JMeterContext context,
     String matchNumbers) {
         return setupProcessor(context, matchNumbers, true);
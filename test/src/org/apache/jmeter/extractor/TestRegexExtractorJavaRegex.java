@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link RegexExtractor} with the java.util.regex engine
+ */
+public class TestRegexExtractorJavaRegex {
+
+    private static final String DATA = "<row>"
+            + "<value field=\"pinposition1\">1</value>"
+            + "<value field=\"pinposition2\">5</value>"
+            + "<value field=\"pinposition3\">6</value>"
+            + "</row>";
+
+    private RegexExtractor extractor;
+
+    private SampleResult result;
+
+    private JMeterVariables vars;
+
+    @Before
+    public void setUp() {
+        JMeterContext context = JMeterContextService.getContext();
+        extractor = new RegexExtractor();
+        extractor.setUseJavaRegex(true);
+        extractor.setThreadContext(context);
+        extractor.setRefName("regVal");
+        result = new SampleResult();
+        result.setResponseData(DATA, "UTF-8");
+        result.setResponseHeaders("Header1: Value1\nHeader2: Value2");
+        result.setResponseCode("abcd");
+        result.setResponseMessage("The quick brown fox");
+        vars = new JMeterVariables();
+        context.setVariables(vars);
+        context.setPreviousResult(result);
+    }
+
+    private String extract(String useField, String regex, String template, int matchNumber) {
+        extractor.setUseField(useField);
+        extractor.setRegex(regex);
+        extractor.setTemplate(template);
+        extractor.setMatchNumber(matchNumber);
+        extractor.process();
+        return vars.get("regVal");
+    }
+
+    @Test
+    public void testMatchNumberAndGroups() throws Exception {
+        assertEquals("5", extract(RegexExtractor.USE_BODY,
+                "<value field=\"(pinposition\\d+)\">(\\d+)</value>", "$2$", 2));
+        assertEquals("pinposition2", vars.get("regVal_g1"));
+        assertEquals("5", vars.get("regVal_g2"));
+        assertEquals("<value field=\"pinposition2\">5</value>", vars.get("regVal_g0"));
+        assertNull(vars.get("regVal_g3"));
+        assertEquals("2", vars.get("regVal_g"));
+    }
+
+    @Test
+    public void testTemplate() throws Exception {
+        assertEquals("pinposition3=6_", extract(RegexExtractor.USE_BODY,
+                "<value field=\"(pinposition\\d+)\">(\\d+)</value>", "$1$=$2$_", 3));
+    }
+
+    @Test
+    public void testRandomMatch() throws Exception {
+        String value = extract(RegexExtractor.USE_BODY, "<value field=\"pinposition(\\d+)\">", "$1$", 0);
+        assertEquals(1, value.length());
+        assertTrue("123".contains(value));
+    }
+
+    @Test
+    public void testAllMatches() throws Exception {
+        extract(RegexExtractor.USE_BODY, "<value field=\"(pinposition\\d+)\">(\\d+)</value>", "$1$", -1);
+        assertEquals("3", vars.get("regVal_matchNr"));
+        assertEquals("pinposition1", vars.get("regVal_1"));
+        assertEquals("pinposition3", vars.get("regVal_3"));
+        assertEquals("1", vars.get("regVal_1_g2"));
+        assertEquals("6", vars.get("regVal_3_g2"));
+        assertNull(vars.get("regVal_4"));
+
+        // Previous matches are cleared
+        extract(RegexExtractor.USE_BODY, "field=\"(pinposition[12])\"", "$1$", -1);
+        assertEquals("2", vars.get("regVal_matchNr"));
+        assertEquals("pinposition2", vars.get("regVal_2"));
+        assertNull(vars.get("regVal_3"));
+        assertNull(vars.get("regVal_1_g2"));
+    }
+
+    @Test
+    public void testDefaultValue() throws Exception {
+        extractor.setDefaultValue("default");
+        assertEquals("1", extract(RegexExtractor.USE_BODY, "<value field=\"(pinposition\\d+)\">(\\d+)</value>", "$2$", 1));
+        assertEquals("default", extract(RegexExtractor.USE_BODY,
+                "<value field=\"(pinposition\\d+)\">(\\d+)</value>", "$2$", 4));
+        assertNull(vars.get("regVal_g0"));
+        assertNull(vars.get("regVal_g"));
+        extractor.setDefaultValue("");
+        extractor.setDefaultEmptyValue(true);
+        assertEquals("", extract(RegexExtractor.USE_BODY, "xxxx(.)", "$1$", 1));
+    }
+
+    @Test
+    public void testOtherFields() throws Exception {
+        assertEquals("Value2", extract(RegexExtractor.USE_HDRS, "Header2: (\\S+)", "$1$", 1));
+        assertEquals("abcd", extract(RegexExtractor.USE_CODE, "(\\w+)", "$1$", 1));
+        assertEquals("brown", extract(RegexExtractor.USE_MESSAGE, "(\\w+)", "$1$", 3));
+        result.setURL(new URL("http://jmeter.apache.org/index.html?abcd"));
+        assertEquals("index", extract(RegexExtractor.USE_URL, "http://jmeter\\.apache\\.org/(\\w+)", "$1$", 1));
+    }
+
+    @Test
+    public void testEncodings() throws Exception {
+        result.setResponseData("<p>caf\u00e9 cr\u00e8me</p>", "UTF-8");
+        assertEquals("caf\u00e9", extract(RegexExtractor.USE_BODY, "<p>([^ ]+) ", "$1$", 1));
+        result = new SampleResult();
+        result.setResponseData("<p>caf\u00e9 cr\u00e8me</p>", "ISO-8859-1");
+        JMeterContextService.getContext().setPreviousResult(result);
+        assertEquals("cr\u00e8me", extract(RegexExtractor.USE_BODY, " ([^<]+)<", "$1$", 1));
+        result = new SampleResult();
+        result.setResponseData("<p>ascii only</p>", "UTF-8");
+        JMeterContextService.getContext().setPreviousResult(result);
+        assertEquals("only", extract(RegexExtractor.USE_BODY, " ([^<]+)<", "$1$", 1));
+    }
+
+    @Test
+    public void testUnescapedBody() throws Exception {
+        result.setResponseData("<p>a &amp; b</p>", "UTF-8");
+        assertEquals("a & b", extract(RegexExtractor.USE_BODY_UNESCAPED, "<p>([^<]+)<", "$1$", 1));
+        assertEquals("a &amp; b", extract(RegexExtractor.USE_BODY, "<p>([^<]+)<", "$1$", 1));
+        result.setResponseData("<p>a and b</p>", "UTF-8");
+        assertEquals("a and b", extract(RegexExtractor.USE_BODY_UNESCAPED, "<p>([^<]+)<", "$1$", 1));
+    }
+}
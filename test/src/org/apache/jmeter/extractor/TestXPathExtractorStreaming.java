@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.util.StreamingXPath;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the {@link XPathExtractor} with streaming evaluation enabled:
+ * each query is also run with the DOM, which must give the same variables
+ */
+public class TestXPathExtractorStreaming {
+
+    private static final String BOOK = "<book><preface title='Intro'>zero</preface>"
+            + "<page n='1'>one</page><page n='2'>two</page><empty></empty><a><b>in b</b></a></book>";
+
+    private JMeterContext context;
+
+    private SampleResult result;
+
+    @Before
+    public void setUp() {
+        context = JMeterContextService.getContext();
+        result = new SampleResult();
+        context.setPreviousResult(result);
+    }
+
+    private JMeterVariables extract(boolean streaming, String query) {
+        JMeterVariables vars = new JMeterVariables();
+        context.setVariables(vars);
+        XPathExtractor extractor = new XPathExtractor();
+        extractor.setUseStreaming(streaming);
+        extractor.setThreadContext(context);
+        extractor.setRefName("value");
+        extractor.setDefaultValue("Default");
+        extractor.setXPathQuery(query);
+        extractor.process();
+        return vars;
+    }
+
+    /**
+     * @return the variables set by the streaming extractor, checked to be the ones set with the DOM
+     */
+    private JMeterVariables extract(String xml, String query) {
+        result.setResponseData(xml.getBytes(StandardCharsets.UTF_8));
+        JMeterVariables dom = extract(false, query);
+        JMeterVariables streamed = extract(true, query);
+        assertEquals(query + " on " + xml, dom.entrySet(), streamed.entrySet());
+        return streamed;
+    }
+
+    private static void assertStreamed(boolean expected, String xml, String query) {
+        StreamingXPath streaming = StreamingXPath.compile(query);
+        assertNotNull(query, streaming);
+        assertEquals(query + " on " + xml, expected, streaming.evaluate(xml, new ArrayList<String>(), 0));
+    }
+
+    @Test
+    public void testSupportedQueries() throws Exception {
+        for (String query : Arrays.asList("/book/preface/@title", "/book/preface[@title]",
+                "/book/preface[@title='Intro']", "/book/preface[@title='xyz']", "/book/page", "/book/page[2]",
+                "/book/page[@n='2']/text()", "/book/index", "/book/a", "/book/empty", "//b", "/book//b/text()",
+                "/*/page/@n", "//*[@n][1]")) {
+            assertStreamed(true, BOOK, query);
+            extract(BOOK, query);
+        }
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        JMeterVariables vars = extract(BOOK, "/book/page");
+        assertEquals("2", vars.get("value_matchNr"));
+        assertEquals("one", vars.get("value_1"));
+        assertEquals("two", vars.get("value_2"));
+        vars = extract(BOOK, "/book/page/@n");
+        assertEquals("1", vars.get("value"));
+        assertEquals("2", vars.get("value_2"));
+        vars = extract(BOOK, "/book/preface[@title='xyz']");
+        assertEquals("Default", vars.get("value"));
+        assertEquals("0", vars.get("value_matchNr"));
+        assertNull(vars.get("value_1"));
+    }
+
+    @Test
+    public void testUnsupportedQueryUsesDom() throws Exception {
+        String query = "count(//page)";
+        assertNull(StreamingXPath.compile(query));
+        assertEquals("2", extract(BOOK, query).get("value"));
+    }
+
+    @Test
+    public void testDtdFallsBackToDom() throws Exception {
+        String xml = "<!DOCTYPE r [<!ENTITY e 'entity'>]><r><x>&e;</x></r>";
+        assertStreamed(false, xml, "/r/x");
+        assertEquals("entity", extract(xml, "/r/x").get("value"));
+    }
+
+    @Test
+    public void testCdataFallsBackToDom() throws Exception {
+        String xml = "<r><x>a<![CDATA[<cdata>]]></x></r>";
+        assertStreamed(false, xml, "/r/x/text()");
+        assertEquals("a", extract(xml, "/r/x/text()").get("value"));
+    }
+
+    @Test
+    public void testPrefixedNamesFallBackToDom() throws Exception {
+        String xml = "<s:B xmlns:s='u'>b</s:B>";
+        assertStreamed(false, xml, "//B");
+        extract(xml, "//B");
+    }
+
+    @Test
+    public void testDeclaredEncodingFallsBackToDom() throws Exception {
+        String xml = "<?xml version='1.0' encoding='ISO-8859-1'?><r><x>a</x></r>";
+        assertStreamed(false, xml, "/r/x");
+        assertEquals("a", extract(xml, "/r/x").get("value"));
+    }
+
+    @Test
+    public void testMalformedFallsBackToDom() throws Exception {
+        String xml = "<r><x>a</x>";
+        assertStreamed(false, xml, "/r/x");
+        result.setResponseData(xml.getBytes(StandardCharsets.UTF_8));
+        JMeterVariables vars = extract(true, "/r/x");
+        assertEquals("Default", vars.get("value"));
+        // reported as with the DOM
+        assertEquals(1, result.getAssertionResults().length);
+        assertTrue(result.getAssertionResults()[0].isFailure());
+    }
+
+    @Test
+    public void testDomOnlyModes() throws Exception {
+        // Tidy wraps the document in html and body, so the streamed match would be wrong
+        result.setResponseData("<r><x>a</x></r>".getBytes(StandardCharsets.UTF_8));
+        JMeterVariables vars = new JMeterVariables();
+        context.setVariables(vars);
+        XPathExtractor extractor = new XPathExtractor();
+        extractor.setUseStreaming(true);
+        extractor.setThreadContext(context);
+        extractor.setRefName("value");
+        extractor.setDefaultValue("Default");
+        extractor.setXPathQuery("/r/x");
+        extractor.setTolerant(true);
+        extractor.setQuiet(true);
+        extractor.process();
+        assertEquals("Default", vars.get("value"));
+        assertEquals("0", vars.get("value_matchNr"));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor.json.jsonpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContext;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.junit.Test;
+
+/**
+ * Test the {@link JSONPostProcessor} with streaming evaluation enabled
+ */
+public class TestJSONPostProcessorStreaming {
+
+    private static SampleResult response(String json) {
+        SampleResult result = new SampleResult();
+        result.setResponseData(json.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    private static JMeterVariables process(SampleResult result, String refNames, String jsonPaths, String matchNumbers) {
+        JMeterContext context = JMeterContextService.getContext();
+        JMeterVariables vars = new JMeterVariables();
+        context.setVariables(vars);
+        context.setPreviousResult(result);
+        JSONPostProcessor processor = new JSONPostProcessor();
+        processor.setUseStreaming(true);
+        processor.setComputeConcatenation(true);
+        processor.setThreadContext(context);
+        processor.setRefNames(refNames);
+        processor.setJsonPathExpressions(jsonPaths);
+        processor.setMatchNumbers(matchNumbers);
+        processor.setDefaultValues(refNames.replaceAll("[^;]+", "NONE"));
+        processor.process();
+        return vars;
+    }
+
+    @Test
+    public void testExtractSimpleArrayElements() {
+        SampleResult result = response("[1,2,3]");
+        JMeterVariables vars = process(result, "value", "$[*]", "-1");
+        assertEquals("1,2,3", vars.get("value_ALL"));
+        assertEquals("1", vars.get("value_1"));
+        assertEquals("3", vars.get("value_3"));
+        assertEquals("3", vars.get("value_matchNr"));
+        assertNull(result.getParsedResponse("json"));
+    }
+
+    @Test
+    public void testExtractComplexElements() {
+        SampleResult result = response("[{\"a\":[1,{\"d\":2},3]},[\"b\",{\"h\":23}],3]");
+        JMeterVariables vars = process(result, "value", "$[*]", "-1");
+        assertEquals("{\"a\":[1,{\"d\":2},3]},[\"b\",{\"h\":23}],3", vars.get("value_ALL"));
+        assertEquals("{\"a\":[1,{\"d\":2},3]}", vars.get("value_1"));
+        assertEquals("[\"b\",{\"h\":23}]", vars.get("value_2"));
+        assertEquals("3", vars.get("value_3"));
+        assertEquals("3", vars.get("value_matchNr"));
+        vars = process(result, "value", "$[0].a[1].d", "0");
+        assertEquals("2", vars.get("value"));
+        assertNull(result.getParsedResponse("json"));
+    }
+
+    @Test
+    public void testExtractObject() {
+        SampleResult result = response("{\"context\":{\"a\":\"one\",\"b\":\"two\"}}");
+        JMeterVariables vars = process(result, "value", "$.context", "0");
+        assertEquals("{\"a\":\"one\",\"b\":\"two\"}", vars.get("value"));
+        assertEquals("1", vars.get("value_matchNr"));
+    }
+
+    @Test
+    public void testEmptyResponse() {
+        JMeterVariables vars = process(response(""), "value", "$.a", "1");
+        assertEquals("NONE", vars.get("value"));
+    }
+
+    @Test
+    public void testNotParsed() {
+        SampleResult result = new SampleResult();
+        result.setResponseData("{\"items\":[{\"id\":\"a\"},{\"id\":\"b\"},{\"id\":\"c\"}]}"
+                .getBytes(StandardCharsets.UTF_8));
+        JMeterVariables vars = process(result, "first;second;missing", "$.items[*].id;$.items[*].id;$.items[*].x",
+                "1;2;1");
+        assertEquals("a", vars.get("first"));
+        assertEquals("b", vars.get("second"));
+        assertEquals("3", vars.get("first_matchNr"));
+        assertEquals("NONE", vars.get("missing"));
+        assertEquals("0", vars.get("missing_matchNr"));
+        assertNull(result.getParsedResponse("json"));
+    }
+
+    @Test
+    public void testFallbackToTree() {
+        SampleResult result = new SampleResult();
+        result.setResponseData("{'items':[{'id':'a'}],'map':{'k':'v'}}".getBytes(StandardCharsets.UTF_8));
+        JMeterVariables vars = process(result, "id;values;deep", "$.items[0].id;$.map.*;$..id", "1;1;1");
+        assertEquals("a", vars.get("id"));
+        assertEquals("v", vars.get("values"));
+        assertEquals("a", vars.get("deep"));
+    }
+
+    @Test
+    public void testDataEncoding() {
+        SampleResult result = new SampleResult();
+        result.setDataEncoding("ISO-8859-1");
+        result.setResponseData("{\"caf\u00e9\":\"cr\u00e8me\"}".getBytes(StandardCharsets.ISO_8859_1));
+        JMeterVariables vars = process(result, "value", "$.caf\u00e9", "1");
+        assertEquals("cr\u00e8me", vars.get("value"));
+        assertNull(result.getParsedResponse("json"));
+    }
+
+    @Test
+    public void testFallbackParsesOncePerSample() {
+        SampleResult result = response("{\"a\":1,\"b\":[2]}");
+        // $..a cannot be streamed: the parsed response is used by the next expressions
+        JMeterVariables vars = process(result, "a;b", "$..a;$.b[0]", "1;1");
+        assertEquals("1", vars.get("a"));
+        assertEquals("2", vars.get("b"));
+        Object parsed = result.getParsedResponse("json");
+        assertEquals(JSONManager.parse("{\"a\":1,\"b\":[2]}"), parsed);
+        process(result, "a", "$..b", "1");
+        assertSame(parsed, result.getParsedResponse("json"));
+        result.setParsedResponse("json", JSONManager.parse("{\"a\":3}"));
+        vars = process(result, "a", "$.a", "1");
+        assertEquals("3", vars.get("a"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.extractor.json.jsonpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestStreamingJsonPath {
+
+    private static final String[] DOCUMENTS = {
+        "{\"items\":[{\"id\":1,\"n\":\"a\"},{\"id\":2},{\"n\":\"c\"},{\"id\":null},{\"id\":[1,2]},{\"id\":{\"x\":1}}]}",
+        "[1,2,3]", "[]", "{}", "[[1,2],[3],[]]", "\"str\"", "12", "true",
+        " { \"a\" : [ 1 , \"x\", true, null, 1.50, -0.5e3, {\"q\":\"\\u00e9\\n\\\"\"} ] , \"b\" : \"x\" } ",
+        "{\"a\":{\"b\":{\"c\":\"d\"}},\"\\u0062\":\"escaped\",\"\u00e9\":\"\u00fc\"}",
+        "{\"a\":[{\"b\":[{\"c\":1},{\"c\":2}]},{\"b\":[{\"c\":3}]}]}",
+        "[{\"a\":1},[2],3,{\"a\":{\"b\":4}}]",
+    };
+
+    private static final String[] EXPRESSIONS = {
+        "$", "$.items[*].id", "$.items[0].id", "$.items[1]", "$.items[9]", "$[*]", "$[0]", "$[1]", "$[*][0]",
+        "$[*][*]", "$.a", "$.a.b.c", "$['a']", "$[\"b\"]", "$.a[*]", "$.a[6].q", "$.a[*].b[*].c", "$.a[1].b[0].c",
+        "$.a.*", "$.\u00e9", "$[*].a", "$.x",
+    };
+
+    private static String tree(String json, String jsonPath) throws Exception {
+        return new JSONManager().extractWithJsonPath(json, jsonPath).toString();
+    }
+
+    private static List<Object> stream(String json, String jsonPath, Charset charset) {
+        StreamingJsonPath streaming = StreamingJsonPath.compile(jsonPath);
+        assertNotNull(jsonPath, streaming);
+        return streaming.evaluate(json.getBytes(charset), charset);
+    }
+
+    @Test
+    public void testSameValuesAsTree() throws Exception {
+        int streamed = 0;
+        for (String json : DOCUMENTS) {
+            for (String jsonPath : EXPRESSIONS) {
+                List<Object> matches = stream(json, jsonPath, StandardCharsets.UTF_8);
+                if (matches != null) {
+                    assertEquals(jsonPath + " on " + json, tree(json, jsonPath), matches.toString());
+                    assertEquals(jsonPath + " on " + json, matches,
+                            stream(json, jsonPath, StandardCharsets.ISO_8859_1));
+                    streamed++;
+                }
+            }
+        }
+        // Properties of arrays and wildcards on objects are left to the tree
+        assertTrue(streamed > DOCUMENTS.length * EXPRESSIONS.length / 2);
+    }
+
+    @Test
+    public void testUnsupportedExpressions() throws Exception {
+        for (String jsonPath : Arrays.asList("", "a", "$.", "$..a", "$.a[-1]", "$.a[0,1]", "$['a','b']", "$.a[0:2]",
+                "$.a[?(@.b)]", "$.a.length()", "$[ 0 ]", "$['a\\'b']", "$a", "@.a")) {
+            assertNull(jsonPath, StreamingJsonPath.compile(jsonPath));
+        }
+        assertEquals("$.a[*].b", StreamingJsonPath.compile("$.a[*].b").getExpression());
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        StreamingJsonPath streaming = StreamingJsonPath.compile("$.a[*]");
+        // not strict JSON
+        assertNull(streaming.evaluate("{'a':[1]}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(streaming.evaluate("{\"a\":[01]}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(streaming.evaluate("{\"a\":[1]".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(streaming.evaluate("{\"a\":[1]} x".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(streaming.evaluate("null".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        // different results on a tree
+        assertNull(streaming.evaluate("{\"a\":{\"x\":1}}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(streaming.evaluate("{\"a\":[1],\"a\":[2]}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertNull(StreamingJsonPath.compile("$.a.b").evaluate("{\"a\":[{\"b\":1}]}".getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8));
+        // invalid values are detected outside of the path too
+        assertNull(streaming.evaluate("{\"a\":[1],\"b\":[{\"c\":tru}]}".getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8));
+        assertEquals(Collections.singletonList("1"),
+                streaming.evaluate("{\"a\":[1],\"b\":[{\"c\":true}]}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCharsets() throws Exception {
+        assertTrue(StreamingJsonPath.isScannable(StandardCharsets.UTF_8));
+        assertTrue(StreamingJsonPath.isScannable(StandardCharsets.ISO_8859_1));
+        assertTrue(StreamingJsonPath.isScannable(StandardCharsets.US_ASCII));
+        assertFalse(StreamingJsonPath.isScannable(StandardCharsets.UTF_16));
+        assertFalse(StreamingJsonPath.isScannable(Charset.forName("Shift_JIS")));
+    }
+
+    @Test
+    public void testMatchesAreParsedWhenRead() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"tags\":[\"t").append(i).append("\"]}");
+        }
+        json.append("]}");
+        List<Object> ids = stream(json.toString(), "$.items[*].id", StandardCharsets.UTF_8);
+        assertEquals(1000, ids.size());
+        assertEquals("999", ids.get(999));
+        assertEquals("[\"t5\"]", stream(json.toString(), "$.items[5].tags", StandardCharsets.UTF_8).get(0));
+        List<Object> all = new ArrayList<>(ids);
+        assertEquals(tree(json.toString(), "$.items[*].id"), all.toString());
+    }
+}
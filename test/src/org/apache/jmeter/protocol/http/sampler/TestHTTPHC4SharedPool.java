@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.protocol.http.sampler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the connection pool shared by the threads of HTTPHC4Impl
+ * and the measure of the time spent waiting for a pooled connection
+ */
+public class TestHTTPHC4SharedPool extends JMeterTestCase {
+
+    @After
+    public void tearDown() {
+        while (HTTPHC4Impl.getSharedConnectionManager() != null) {
+            HTTPHC4Impl.releaseSharedConnectionManager();
+        }
+    }
+
+    @Test
+    public void testPoolIsReleasedByTheLastUser() {
+        MeasuringConnectionManager first = HTTPHC4Impl.acquireSharedConnectionManager(true);
+        MeasuringConnectionManager second = HTTPHC4Impl.acquireSharedConnectionManager(true);
+        assertNotNull(first);
+        assertSame(first, second);
+        // A thread already using the pool does not count twice
+        assertSame(first, HTTPHC4Impl.acquireSharedConnectionManager(false));
+
+        HTTPHC4Impl.releaseSharedConnectionManager();
+        assertSame("Pool still used by a thread", first, HTTPHC4Impl.getSharedConnectionManager());
+
+        HTTPHC4Impl.releaseSharedConnectionManager();
+        assertNull("Pool released at the end of the last thread", HTTPHC4Impl.getSharedConnectionManager());
+
+        MeasuringConnectionManager next = HTTPHC4Impl.acquireSharedConnectionManager(true);
+        assertTrue("A new test gets a new pool", next != first);
+    }
+
+    @Test
+    public void testPoolIsReleasedWhenThreadsFinishConcurrently() throws Exception {
+        final int threads = 20;
+        Thread[] users = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            HTTPHC4Impl.acquireSharedConnectionManager(true);
+            users[i] = new Thread() {
+                @Override
+                public void run() {
+                    HTTPHC4Impl.releaseSharedConnectionManager();
+                }
+            };
+        }
+        for (Thread user : users) {
+            user.start();
+        }
+        for (Thread user : users) {
+            user.join(5000);
+        }
+        assertNull(HTTPHC4Impl.getSharedConnectionManager());
+        assertNull(HTTPHC4Impl.getSharedPoolEvictor());
+    }
+
+    @Test
+    public void testEvictorStopsWithThePool() throws Exception {
+        HTTPHC4Impl.acquireSharedConnectionManager(true);
+        Thread evictor = HTTPHC4Impl.getSharedPoolEvictor();
+        assertNotNull(evictor);
+        assertTrue(evictor.isAlive());
+        assertTrue(evictor.isDaemon());
+
+        HTTPHC4Impl.releaseSharedConnectionManager();
+        assertNull(HTTPHC4Impl.getSharedPoolEvictor());
+        evictor.join(5000);
+        assertFalse("Evictor still running after the pool was shut down", evictor.isAlive());
+    }
+
+    @Test
+    public void testPoolWaitIsRecordedApartFromConnectTime() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            MeasuringConnectionManager manager = new MeasuringConnectionManager(
+                    SchemeRegistryFactory.createDefault(), SystemDefaultDnsResolver.INSTANCE, 2000, 2000);
+            manager.setMaxTotal(1);
+            manager.setDefaultMaxPerRoute(1);
+            try {
+                HttpRoute route = new HttpRoute(new HttpHost(
+                        server.getInetAddress().getHostAddress(), server.getLocalPort(), "http"));
+                final ManagedClientConnection busy = getConnection(manager, route);
+                assertEquals("Free connection is not waited for",
+                        0, ((MeasuringConnectionManager.MeasuredConnection) busy).getPoolWaitTime(), 50);
+
+                Thread releaser = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(300);
+                            busy.releaseConnection();
+                        } catch (InterruptedException | IOException e) {
+                            // the lease times out and fails the test
+                        }
+                    }
+                };
+                SampleResult sample = new SampleResult();
+                sample.sampleStart();
+                releaser.start();
+                ManagedClientConnection connection = getConnection(manager, route);
+                releaser.join();
+                long poolWaitTime = ((MeasuringConnectionManager.MeasuredConnection) connection).getPoolWaitTime();
+                assertTrue("Pool wait too short: " + poolWaitTime, poolWaitTime >= 200);
+
+                HttpContext context = new BasicHttpContext();
+                context.setAttribute(HTTPHC4Impl.SAMPLER_RESULT_TOKEN, sample);
+                context.setAttribute(HttpCoreContext.HTTP_CONNECTION, connection);
+                connection.open(route, context, new BasicHttpParams());
+                try (Socket accepted = server.accept()) {
+                    HTTPHC4Impl.POOL_WAIT_SAVER.process(new BasicHttpRequest("GET", "/"), context);
+                    assertEquals(poolWaitTime, sample.getPoolWaitTime());
+                    assertTrue("Connect time " + sample.getConnectTime() + " must include the pool wait "
+                            + poolWaitTime, sample.getConnectTime() >= poolWaitTime);
+                    connection.close();
+                }
+            } finally {
+                manager.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testPoolWaitIsNotSavedForOtherConnections() throws Exception {
+        SampleResult sample = new SampleResult();
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(HTTPHC4Impl.SAMPLER_RESULT_TOKEN, sample);
+        // Connection not coming from a MeasuringConnectionManager
+        context.setAttribute(HttpCoreContext.HTTP_CONNECTION, new Object());
+        HTTPHC4Impl.POOL_WAIT_SAVER.process(new BasicHttpRequest("GET", "/"), context);
+        assertEquals(0, sample.getPoolWaitTime());
+    }
+
+    private static ManagedClientConnection getConnection(MeasuringConnectionManager manager, HttpRoute route)
+            throws Exception {
+        ClientConnectionRequest request = manager.requestConnection(route, null);
+        return request.getConnection(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.protocol.http.sampler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.assertions.Assertion;
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.config.ConfigTestElement;
+import org.apache.jmeter.control.Controller;
+import org.apache.jmeter.processor.PostProcessor;
+import org.apache.jmeter.processor.PreProcessor;
+import org.apache.jmeter.reporters.ResultCollector;
+import org.apache.jmeter.reporters.ResultSaver;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterThread;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.apache.jmeter.threads.SamplePackage;
+import org.apache.jmeter.timers.Timer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the truncation of the response body by httpsampler.max_bytes_to_store_per_request
+ */
+public class TestResponseTruncation {
+
+    private HTTPSamplerBase sampler;
+
+    @Before
+    public void setUp() {
+        sampler = new HTTPNullSampler();
+        JMeterContextService.getContext().setVariables(new JMeterVariables());
+    }
+
+    @After
+    public void tearDown() {
+        JMeterContextService.getContext().setVariables(null);
+    }
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        return body;
+    }
+
+    @Test
+    public void testPrefixIsKept() throws Exception {
+        byte[] body = body(20000);
+        HTTPSampleResult res = new HTTPSampleResult();
+        byte[] kept = sampler.readResponse(res, new ByteArrayInputStream(body), body.length, 100);
+        assertArrayEquals(Arrays.copyOf(body, 100), kept);
+        assertTrue(res.isResponseDataTruncated());
+    }
+
+    @Test
+    public void testBytesCountsTheWholeBody() throws Exception {
+        byte[] body = body(20000);
+        HTTPSampleResult res = new HTTPSampleResult();
+        res.setResponseData(sampler.readResponse(res, new ByteArrayInputStream(body), 0, 100));
+        assertEquals(100, res.getResponseData().length);
+        assertEquals(20000, res.getBodySize());
+        assertEquals(20000, res.getBytes());
+    }
+
+    @Test
+    public void testSmallBodyIsNotTruncated() throws Exception {
+        byte[] body = body(100);
+        HTTPSampleResult res = new HTTPSampleResult();
+        byte[] kept = sampler.readResponse(res, new ByteArrayInputStream(body), body.length, 100);
+        assertArrayEquals(body, kept);
+        assertFalse(res.isResponseDataTruncated());
+    }
+
+    @Test
+    public void testTruncationIsShownInResponseMessage() throws Exception {
+        byte[] body = body(20000);
+        HTTPSampleResult res = new HTTPSampleResult();
+        res.setResponseData(sampler.readResponse(res, new ByteArrayInputStream(body), body.length, 100));
+        res.setResponseCode("200");
+        res.setResponseMessage("OK");
+        res = sampler.resultProcessing(false, 0, res);
+        assertEquals("OK " + HTTPSamplerBase.TRUNCATED_MESSAGE_PREFIX + "100 bytes]", res.getResponseMessage());
+    }
+
+    private void setPackage(List<SampleListener> listeners, List<Assertion> assertions, List<PostProcessor> postProcessors) {
+        SamplePackage pack = new SamplePackage(Collections.<ConfigTestElement>emptyList(), listeners,
+                Collections.<Timer>emptyList(), assertions, postProcessors,
+                Collections.<PreProcessor>emptyList(), Collections.<Controller>emptyList());
+        JMeterContextService.getContext().getVariables().putObject(JMeterThread.PACKAGE_OBJECT, pack);
+    }
+
+    @Test
+    public void testFullBodyNeededOutsideJMeterThread() {
+        assertTrue(sampler.isFullResponseBodyNeeded());
+    }
+
+    @Test
+    public void testFullBodyNotNeeded() {
+        List<SampleListener> listeners = new ArrayList<>();
+        listeners.add(new ResultCollector());
+        setPackage(listeners, Collections.<Assertion>emptyList(), Collections.<PostProcessor>emptyList());
+        assertFalse(sampler.isFullResponseBodyNeeded());
+    }
+
+    @Test
+    public void testFullBodyNeededByPostProcessor() {
+        PostProcessor postProcessor = new PostProcessor() {
+            @Override
+            public void process() {
+            }
+        };
+        setPackage(Collections.<SampleListener>emptyList(), Collections.<Assertion>emptyList(),
+                Collections.singletonList(postProcessor));
+        assertTrue(sampler.isFullResponseBodyNeeded());
+    }
+
+    @Test
+    public void testFullBodyNeededByAssertion() {
+        Assertion assertion = new Assertion() {
+            @Override
+            public AssertionResult getResult(SampleResult response) {
+                return new AssertionResult("");
+            }
+        };
+        setPackage(Collections.<SampleListener>emptyList(), Collections.singletonList(assertion),
+                Collections.<PostProcessor>emptyList());
+        assertTrue(sampler.isFullResponseBodyNeeded());
+    }
+
+    @Test
+    public void testFullBodyNeededByListeners() {
+        List<SampleListener> listeners = new ArrayList<>();
+        listeners.add(new ResultSaver());
+        setPackage(listeners, Collections.<Assertion>emptyList(), Collections.<PostProcessor>emptyList());
+        assertTrue(sampler.isFullResponseBodyNeeded());
+
+        ResultCollector collector = new ResultCollector();
+        SampleSaveConfiguration config = new SampleSaveConfiguration();
+        config.setResponseData(true);
+        collector.setSaveConfig(config);
+        listeners.set(0, collector);
+        setPackage(listeners, Collections.<Assertion>emptyList(), Collections.<PostProcessor>emptyList());
+        assertTrue(sampler.isFullResponseBodyNeeded());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.jmeter.report.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jmeter.report.core.Sample;
+import org.apache.jmeter.report.core.SampleException;
+import org.apache.jmeter.report.core.SampleMetadata;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSampleConsumerTest {
+
+    private static final int SAMPLE_COUNT = 5000;
+
+    private SampleMetadata sampleMetadata;
+
+    /** Records the samples it consumes and whether it was started and stopped */
+    private static class RecordingConsumer extends AbstractSampleConsumer {
+        private final List<Sample> samples = new ArrayList<>();
+        private boolean started;
+        private boolean stopped;
+        private volatile Thread consumingThread;
+        private int publishedCount = -1;
+
+        @Override
+        public void startConsuming() {
+            started = true;
+        }
+
+        @Override
+        public void consume(Sample sample, int channel) {
+            consumingThread = Thread.currentThread();
+            samples.add(sample);
+        }
+
+        @Override
+        public void stopConsuming() {
+            stopped = true;
+        }
+
+        @Override
+        public void publishResults() {
+            publishedCount = samples.size();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        sampleMetadata = new SampleMetadata(',', "test");
+    }
+
+    private List<RecordingConsumer> run(ParallelSampleConsumer parallel, int consumerCount) {
+        List<RecordingConsumer> consumers = new ArrayList<>();
+        for (int i = 0; i < consumerCount; i++) {
+            RecordingConsumer consumer = new RecordingConsumer();
+            consumers.add(consumer);
+            parallel.addSampleConsumer(consumer);
+        }
+        parallel.setConsumedMetadata(sampleMetadata, 0);
+        parallel.startConsuming();
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            parallel.consume(new Sample(i, sampleMetadata, Integer.toString(i)), 0);
+        }
+        parallel.stopConsuming();
+        return consumers;
+    }
+
+    @Test
+    public void testAllConsumersSeeAllSamplesInOrder() {
+        List<RecordingConsumer> consumers = run(new ParallelSampleConsumer(3), 5);
+        for (RecordingConsumer consumer : consumers) {
+            assertTrue(consumer.started);
+            assertTrue(consumer.stopped);
+            assertEquals(SAMPLE_COUNT, consumer.samples.size());
+            for (int i = 0; i < SAMPLE_COUNT; i++) {
+                assertEquals(i, consumer.samples.get(i).getSampleRow());
+            }
+            assertTrue(consumer.consumingThread != Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void testSingleThreadConsumesOnProducingThread() {
+        List<RecordingConsumer> consumers = run(new ParallelSampleConsumer(1), 2);
+        for (RecordingConsumer consumer : consumers) {
+            assertEquals(SAMPLE_COUNT, consumer.samples.size());
+            assertTrue(consumer.consumingThread == Thread.currentThread());
+        }
+    }
+
+    @Test(expected = SampleException.class)
+    public void testConsumerFailureIsReported() {
+        ParallelSampleConsumer parallel = new ParallelSampleConsumer(2);
+        parallel.addSampleConsumer(new RecordingConsumer() {
+            @Override
+            public void consume(Sample sample, int channel) {
+                throw new IllegalStateException("failure");
+            }
+        });
+        run(parallel, 1);
+    }
+
+    @Test
+    public void testPublishResultsWaitsForWorkers() {
+        ParallelSampleConsumer parallel = new ParallelSampleConsumer(2);
+        List<RecordingConsumer> consumers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RecordingConsumer consumer = new RecordingConsumer();
+            consumers.add(consumer);
+            parallel.addSampleConsumer(consumer);
+        }
+        parallel.setConsumedMetadata(sampleMetadata, 0);
+        parallel.startConsuming();
+        for (int i = 0; i < 1500; i++) {
+            parallel.consume(new Sample(i, sampleMetadata, Integer.toString(i)), 0);
+        }
+        parallel.publishResults();
+        for (RecordingConsumer consumer : consumers) {
+            assertEquals(1500, consumer.publishedCount);
+        }
+        parallel.consume(new Sample(1500, sampleMetadata, "1500"), 0);
+        parallel.stopConsuming();
+        for (RecordingConsumer consumer : consumers) {
+            assertEquals(1501, consumer.samples.size());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.samplers.SampleSaveConfiguration;
+import org.junit.Test;
+
+public class TestAsyncSampleWriter extends JMeterTestCase {
+
+    private static SampleEvent createEvent(String label) {
+        SampleResult res = new SampleResult();
+        res.setSampleLabel(label);
+        res.setSaveConfig(new SampleSaveConfiguration());
+        return new SampleEvent(res, "tg");
+    }
+
+    @Test
+    public void testAllSamplesWrittenOnClose() throws Exception {
+        StringWriter sw = new StringWriter();
+        AsyncSampleWriter writer = new AsyncSampleWriter("test", new PrintWriter(sw), null, 100, false);
+        for (int i = 0; i < 50; i++) {
+            writer.put(createEvent("s" + i));
+        }
+        writer.close();
+        String[] lines = sw.toString().split("\r?\n");
+        assertEquals(50, lines.length);
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    public void testFlushWritesPendingSamples() throws Exception {
+        StringWriter sw = new StringWriter();
+        AsyncSampleWriter writer = new AsyncSampleWriter("test", new PrintWriter(sw), null, 100, false);
+        try {
+            writer.put(createEvent("first"));
+            writer.put(createEvent("second"));
+            writer.flush();
+            String[] lines = sw.toString().split("\r?\n");
+            assertEquals(2, lines.length);
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        StringWriter sw = new StringWriter();
+        AsyncSampleWriter writer = new AsyncSampleWriter("test", new PrintWriter(sw), null, 2, true);
+        for (int i = 0; i < 1000; i++) {
+            writer.put(createEvent("s" + i));
+        }
+        writer.close();
+        // Whatever was not dropped must have been written
+        int written = sw.toString().split("\r?\n").length;
+        assertEquals(1000, written + writer.getDropped());
+    }
+}
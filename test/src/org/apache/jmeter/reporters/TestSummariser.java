@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.reporters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleMetrics;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+/**
+ * Test the striped accumulation of the samples by {@link Summariser}
+ */
+public class TestSummariser extends JMeterTestCase {
+
+    private static SampleMetrics createSample(long time, boolean success) {
+        SampleResult res = SampleResult.createTestSample(time);
+        res.setSuccessful(success);
+        return new SampleMetrics(res);
+    }
+
+    @Test
+    public void testStripesMatchSingleLockAccumulation() throws Exception {
+        final int threads = 16;
+        final int samplesPerThread = 5000;
+        final Summariser.Totals totals = new Summariser.Totals();
+        // What the summariser accumulated before the stripes: every sample added under a single lock
+        final SummariserRunningSample reference = new SummariserRunningSample("REFERENCE");
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] samplers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int threadNum = t;
+            samplers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < samplesPerThread; i++) {
+                        SampleMetrics res = createSample(threadNum * 1000L + i % 997, i % 10 != 0);
+                        totals.addSample(res);
+                        synchronized (reference) {
+                            reference.addSample(res);
+                        }
+                        if (threadNum == 0 && i % 500 == 0) {
+                            // Drain while the other threads are sampling, as the reporting thread does
+                            synchronized (totals) {
+                                totals.drainStripes();
+                            }
+                        }
+                    }
+                }
+            };
+            samplers[t].start();
+        }
+        start.countDown();
+        for (Thread sampler : samplers) {
+            sampler.join();
+        }
+        SummariserRunningSample delta;
+        synchronized (totals) {
+            totals.drainStripes();
+            delta = totals.getDelta();
+        }
+        assertEquals(threads * samplesPerThread, reference.getNumSamples());
+        assertEquals(reference.getNumSamples(), delta.getNumSamples());
+        assertEquals(reference.getErrorCount(), delta.getErrorCount());
+        assertEquals(reference.getAverage(), delta.getAverage());
+        assertEquals(0, delta.getMin());
+        assertEquals(reference.getMin(), delta.getMin());
+        assertEquals((threads - 1) * 1000L + 996, delta.getMax());
+        assertEquals(reference.getMax(), delta.getMax());
+    }
+
+    @Test
+    public void testDeltaEndsWithLastSample() throws Exception {
+        Summariser.Totals totals = new Summariser.Totals();
+        totals.addSample(createSample(10, true));
+        totals.addSample(createSample(30, true));
+        long afterLastSample = System.currentTimeMillis();
+        Thread.sleep(100);
+        SummariserRunningSample delta;
+        synchronized (totals) {
+            totals.drainStripes();
+            delta = totals.getDelta();
+        }
+        assertEquals(2, delta.getNumSamples());
+        assertEquals(10, delta.getMin());
+        assertEquals(30, delta.getMax());
+        assertTrue("Delta end time " + delta.getEndTime() + " must be the one of the last sample, before "
+                + afterLastSample, delta.getEndTime() <= afterLastSample);
+    }
+
+    @Test
+    public void testMergeKeepsLatestEndTime() throws Exception {
+        SummariserRunningSample early = new SummariserRunningSample("EARLY");
+        early.addSample(createSample(5, true));
+        Thread.sleep(20);
+        SummariserRunningSample late = new SummariserRunningSample("LATE");
+        late.addSample(createSample(50, false));
+        Thread.sleep(20);
+
+        SummariserRunningSample merged = new SummariserRunningSample("MERGED");
+        merged.merge(late);
+        merged.merge(early);
+        assertEquals(late.getEndTime(), merged.getEndTime());
+        assertEquals(2, merged.getNumSamples());
+        assertEquals(1, merged.getErrorCount());
+        assertEquals(5, merged.getMin());
+        assertEquals(50, merged.getMax());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestBinarySampleSender {
+
+    /** Stands for the client listener and, once serialized, for its RMI stub */
+    private static class Listener implements RemoteSampleListener, SampleListener, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final List<SampleEvent> events = Collections.synchronizedList(new ArrayList<SampleEvent>());
+
+        final List<String> ended = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void testStarted() {
+        }
+
+        @Override
+        public void testStarted(String host) {
+        }
+
+        @Override
+        public void testEnded() {
+        }
+
+        @Override
+        public void testEnded(String host) {
+            ended.add(host);
+        }
+
+        @Override
+        public void processBatch(List<SampleEvent> samples) {
+            events.addAll(samples);
+        }
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    private static SampleSender sendToServer(SampleSender sender) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sender);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (SampleSender) in.readObject();
+        }
+    }
+
+    @Test
+    public void testSamplesAreReceivedBeforeTestEnded() throws Exception {
+        Listener client = new Listener();
+        SampleSender server = sendToServer(new BinarySampleSender(client));
+
+        int count = 5000; // more than one block
+        for (int i = 0; i < count; i++) {
+            SampleResult result = new SampleResult(1000L + i, i % 50);
+            result.setSampleLabel("label " + (i % 3));
+            result.setResponseCode("200");
+            result.setThreadName("TG 1-1");
+            result.setSuccessful(i % 10 != 0);
+            if (i == 0) {
+                result.setURL(new URL("http://jmeter.apache.org/index.html"));
+                AssertionResult assertion = new AssertionResult("assertion");
+                assertion.setFailure(true);
+                assertion.setFailureMessage("expected failure");
+                result.addAssertionResult(assertion);
+            }
+            server.sampleOccurred(new SampleEvent(result, "TG"));
+        }
+        server.testEnded("server");
+
+        assertEquals(count, client.events.size());
+        SampleEvent first = client.events.get(0);
+        assertEquals(SampleEvent.HOSTNAME, first.getHostname());
+        SampleResult result = first.getResult();
+        assertEquals("label 0", result.getSampleLabel());
+        assertEquals(1000L, result.getTimeStamp());
+        assertFalse(result.isSuccessful());
+        assertEquals("http://jmeter.apache.org/index.html", result.getUrlAsString());
+        assertEquals(1, result.getAssertionResults().length);
+        assertEquals("expected failure", result.getAssertionResults()[0].getFailureMessage());
+        SampleResult last = client.events.get(count - 1).getResult();
+        assertEquals("label " + ((count - 1) % 3), last.getSampleLabel());
+        assertEquals((count - 1) % 50, last.getTime());
+        assertTrue(last.isSuccessful());
+        assertEquals("TG 1-1", last.getThreadName());
+    }
+
+    @Test
+    public void testSamplesAreFlushedWithoutNewSamples() throws Exception {
+        Listener client = new Listener();
+        SampleSender server = sendToServer(new BinarySampleSender(client));
+        server.sampleOccurred(new SampleEvent(new SampleResult(1000L, 10L), "TG"));
+        long end = System.currentTimeMillis() + 10000L;
+        while (client.events.isEmpty() && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, client.events.size());
+        server.testEnded("server");
+        assertEquals(1, client.events.size());
+    }
+
+    @Test
+    public void testUnknownTokenIsRejected() throws Exception {
+        BinarySampleReceiver receiver = BinarySampleReceiver.getInstance();
+        try (Socket socket = new Socket(receiver.getHost(), receiver.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            // Nothing more, or closing with unread data would reset the connection
+            out.writeUTF("not a token");
+            out.flush();
+            socket.setSoTimeout(10000);
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testCollectedListenersAreUnregistered() throws Exception {
+        BinarySampleReceiver receiver = BinarySampleReceiver.getInstance();
+        Listener listener = new Listener();
+        String token = receiver.register(listener);
+        assertTrue(receiver.isRegistered(token));
+        WeakReference<Listener> probe = new WeakReference<>(listener);
+        listener = null;
+        for (int i = 0; i < 50 && probe.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assume.assumeTrue(probe.get() == null);
+        receiver.register(new Listener());
+        assertFalse(receiver.isRegistered(token));
+    }
+}
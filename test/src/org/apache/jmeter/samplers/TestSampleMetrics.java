@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.samplers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestSampleMetrics {
+
+    private static SampleResult newResult(String label, String code, boolean success) {
+        SampleResult result = new SampleResult();
+        result.setSampleLabel(label);
+        result.setResponseCode(code);
+        result.setSuccessful(success);
+        result.setStampAndTime(1000L, 42L);
+        return result;
+    }
+
+    @Test
+    public void testCopiesMetrics() {
+        SampleResult result = newResult("TestSampleMetrics.copy", "404", false);
+        result.setLatency(12L);
+        result.setConnectTime(3L);
+        result.setGroupThreads(5);
+        result.setAllThreads(7);
+        result.setThreadName("TG 1-1");
+        result.setResponseData("not kept", null);
+        result.setBytes(2048);
+        SampleMetrics metrics = new SampleMetrics(result);
+        assertEquals("TestSampleMetrics.copy", metrics.getLabel());
+        assertEquals("404", metrics.getResponseCode());
+        assertFalse(metrics.isSuccessful());
+        assertEquals(1000L, metrics.getStartTime());
+        assertEquals(1042L, metrics.getEndTime());
+        assertEquals(42L, metrics.getTime());
+        assertEquals(result.getTimeStamp(), metrics.getTimeStamp());
+        assertEquals(12L, metrics.getLatency());
+        assertEquals(3L, metrics.getConnectTime());
+        assertEquals(result.getBytes(), metrics.getBytes());
+        assertEquals(5, metrics.getGroupThreads());
+        assertEquals(7, metrics.getAllThreads());
+        assertEquals("TG 1-1", metrics.getThreadName());
+        assertEquals(1, metrics.getSampleCount());
+        assertEquals(1, metrics.getErrorCount());
+        assertEquals(1, metrics.getHits());
+    }
+
+    @Test
+    public void testLabelsAndCodesAreShared() {
+        SampleMetrics first = new SampleMetrics(newResult(new String("TestSampleMetrics.shared"), "200", true));
+        SampleMetrics second = new SampleMetrics(newResult(new String("TestSampleMetrics.shared"), "200", true));
+        SampleMetrics other = new SampleMetrics(newResult("TestSampleMetrics.other", "500", false));
+        assertTrue(first.getLabelId() >= 0);
+        assertEquals(first.getLabelId(), second.getLabelId());
+        assertSame(first.getLabel(), second.getLabel());
+        assertEquals(first.getResponseCodeId(), second.getResponseCodeId());
+        assertTrue(first.getLabelId() != other.getLabelId());
+        assertTrue(first.getResponseCodeId() != other.getResponseCodeId());
+        assertEquals("TestSampleMetrics.shared", SampleMetrics.getLabel(first.getLabelId()));
+        assertNull(SampleMetrics.getLabel(SampleMetrics.UNKNOWN_ID));
+    }
+
+    @Test
+    public void testHitsIgnoreTransactionParents() {
+        SampleResult transaction = newResult("TestSampleMetrics.transaction", "200", true);
+        transaction.setResponseMessage("Number of samples in transaction : 2, number of failing samples : 0");
+        transaction.addSubResult(newResult("TestSampleMetrics.child", "200", true));
+        transaction.addSubResult(newResult("TestSampleMetrics.child", "200", true));
+        assertEquals(2, new SampleMetrics(transaction).getHits());
+    }
+
+    @Test
+    public void testEventCreatesMetricsOnce() {
+        SampleEvent event = new SampleEvent(newResult("TestSampleMetrics.event", "200", true), "TG");
+        assertSame(event.getMetrics(), event.getMetrics());
+        assertNull(new SampleEvent().getMetrics());
+    }
+}
@@ -20,7 +20,9 @@ package org.apache.jmeter.samplers;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -310,7 +312,61 @@ public class TestSampleResult {
         }
 
         // TODO some more invalid sequence tests needed
+
+        @Test
+        public void testResponseDataAsCharSequence() throws Exception {
+            SampleResult res = new SampleResult();
+            res.setResponseData("caf\u00e9 cr\u00e8me", "ISO-8859-1");
+            CharSequence cs = res.getResponseDataAsCharSequence();
+            assertFalse("ISO-8859-1 should be viewed in place", cs instanceof String);
+            assertEquals("caf\u00e9 cr\u00e8me", cs.toString());
+            assertEquals("cr\u00e8me", cs.subSequence(5, 10).toString());
+            assertEquals('\u00e8', cs.subSequence(5, 10).charAt(2));
+
+            res = new SampleResult();
+            res.setResponseData("plain ascii", "UTF-8");
+            cs = res.getResponseDataAsCharSequence();
+            assertFalse("ASCII only UTF-8 should be viewed in place", cs instanceof String);
+            assertEquals("ascii", cs.subSequence(6, 11).toString());
+
+            res = new SampleResult();
+            res.setResponseData("caf\u00e9", "UTF-8");
+            assertEquals("caf\u00e9", res.getResponseDataAsCharSequence());
+
+            res = new SampleResult();
+            res.setResponseData("abc", "UTF-16");
+            assertEquals("abc", res.getResponseDataAsCharSequence());
+        }
         
+        @Test
+        public void testParsedResponse() throws Exception {
+            SampleResult res = new SampleResult();
+            res.setResponseData("<a/>", "UTF-8");
+            assertNull(res.getParsedResponse("dom"));
+            Object parsed = new Object();
+            res.setParsedResponse("dom", parsed);
+            assertSame(parsed, res.getParsedResponse("dom"));
+            assertNull(res.getParsedResponse("json"));
+
+            SampleResult clone = (SampleResult) res.clone();
+            assertNull("Clones should not share the cache", clone.getParsedResponse("dom"));
+            assertSame(parsed, res.getParsedResponse("dom"));
+
+            res.setResponseData("<b/>", "UTF-8");
+            assertNull("New response data should drop the cache", res.getParsedResponse("dom"));
+
+            SampleResult sub = new SampleResult();
+            res.setParsedResponse("dom", parsed);
+            sub.setParsedResponse("dom", parsed);
+            res.sampleStart();
+            res.sampleEnd();
+            res.addSubResult(sub);
+            assertNotNull(res.getParsedResponse("dom"));
+            res.cleanAfterSample();
+            assertNull(res.getParsedResponse("dom"));
+            assertNull(sub.getParsedResponse("dom"));
+        }
+
         @Test
         public void testEncodingAndType() throws Exception {
             // check default
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.save;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+
+import org.apache.jmeter.assertions.AssertionResult;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+public class TestBinarySampleWriter extends JMeterTestCase {
+
+    private static SampleResult makeResult(int i) {
+        SampleResult res = new SampleResult(1470000000000L + i * 3L, i % 500);
+        res.setSampleLabel("Label " + (i % 7));
+        res.setResponseCode(i % 10 == 0 ? "500" : "200");
+        res.setResponseMessage(i % 10 == 0 ? "Error " + i : "OK");
+        res.setThreadName("Thread Group 1-" + (i % 50));
+        res.setDataType(SampleResult.TEXT);
+        res.setSuccessful(i % 10 != 0);
+        res.setBytes(i * 11);
+        res.setGroupThreads(50);
+        res.setAllThreads(100);
+        res.setLatency(i % 400);
+        res.setConnectTime(i % 30);
+        if (i % 10 == 0) {
+            AssertionResult assertion = new AssertionResult("Response Assertion");
+            assertion.setFailure(true);
+            assertion.setFailureMessage("Test failed " + i);
+            res.addAssertionResult(assertion);
+        }
+        try {
+            res.setURL(new URL("http://localhost/page" + (i % 20)));
+        } catch (java.net.MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        return res;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final int count = 10000; // several blocks
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinarySampleWriter writer = new BinarySampleWriter(baos);
+        for (int i = 0; i < count; i++) {
+            writer.write(makeResult(i));
+        }
+        writer.close();
+
+        BinarySampleReader reader = new BinarySampleReader(new ByteArrayInputStream(baos.toByteArray()));
+        for (int i = 0; i < count; i++) {
+            assertTrue(reader.next());
+            SampleResult expected = makeResult(i);
+            SampleResult actual = reader.getSampleResult();
+            assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+            assertEquals(expected.getTime(), actual.getTime());
+            assertEquals(expected.getSampleLabel(), actual.getSampleLabel());
+            assertEquals(expected.getResponseCode(), actual.getResponseCode());
+            assertEquals(expected.getResponseMessage(), actual.getResponseMessage());
+            assertEquals(expected.getThreadName(), actual.getThreadName());
+            assertEquals(expected.isSuccessful(), actual.isSuccessful());
+            assertEquals(expected.getBytes(), actual.getBytes());
+            assertEquals(expected.getLatency(), actual.getLatency());
+            assertEquals(expected.getConnectTime(), actual.getConnectTime());
+            assertEquals(expected.getAllThreads(), actual.getAllThreads());
+            assertEquals(expected.getUrlAsString(), actual.getUrlAsString());
+            assertEquals(expected.getErrorCount(), actual.getErrorCount());
+            assertEquals(expected.getAssertionResults().length, actual.getAssertionResults().length);
+            if (i % 10 == 0) {
+                assertEquals("Test failed " + i, actual.getAssertionResults()[0].getFailureMessage());
+            }
+        }
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testAppendedFilesAndNullValues() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinarySampleWriter writer = new BinarySampleWriter(baos);
+        SampleResult res = makeResult(1);
+        res.setResponseMessage(null);
+        writer.write(res);
+        writer.close();
+        // A second writer on the same file restarts the dictionary
+        writer = new BinarySampleWriter(baos);
+        writer.write(makeResult(2));
+        writer.close();
+
+        BinarySampleReader reader = new BinarySampleReader(new ByteArrayInputStream(baos.toByteArray()));
+        assertTrue(reader.next());
+        assertNull(reader.getString(BinarySampleFormat.RESPONSE_MESSAGE));
+        assertEquals("", reader.getValuesAsStrings()[BinarySampleFormat.RESPONSE_MESSAGE]);
+        assertTrue(reader.next());
+        assertEquals("Label 2", reader.getString(BinarySampleFormat.LABEL));
+        assertEquals("true", reader.getValuesAsStrings()[BinarySampleFormat.SUCCESS]);
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testFailedBlockIsDropped() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final boolean[] failing = new boolean[1];
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (failing[0]) {
+                    throw new IOException("disk full");
+                }
+                baos.write(b);
+            }
+        };
+        BinarySampleWriter writer = new BinarySampleWriter(out);
+        for (int i = 0; i < 4095; i++) {
+            writer.write(makeResult(i));
+        }
+        failing[0] = true;
+        try {
+            writer.write(makeResult(4095)); // fills the block
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // the block is lost
+        }
+        failing[0] = false;
+        for (int i = 4096; i < 5000; i++) {
+            writer.write(makeResult(i));
+        }
+        writer.close();
+
+        BinarySampleReader reader = new BinarySampleReader(new ByteArrayInputStream(baos.toByteArray()));
+        for (int i = 4096; i < 5000; i++) {
+            assertTrue(reader.next());
+            // dictionary entries of the failed block are written again
+            assertEquals(makeResult(i).getSampleLabel(), reader.getSampleResult().getSampleLabel());
+        }
+        assertFalse(reader.next());
+        reader.close();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.testelement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jmeter.testelement.property.JMeterProperty;
+import org.apache.jmeter.testelement.property.StringProperty;
+import org.junit.Test;
+
+public class TestPropertyMap {
+
+    private static List<String> names(PropertyMap map) {
+        List<String> names = new ArrayList<>();
+        for (JMeterProperty prop : map.values()) {
+            names.add(prop.getName());
+        }
+        return names;
+    }
+
+    private static void put(PropertyMap map, String name, String value) {
+        map.put(name, new StringProperty(name, value));
+    }
+
+    @Test
+    public void testInsertionOrder() {
+        PropertyMap map = new PropertyMap();
+        for (int i = 0; i < 20; i++) {
+            put(map, "p" + i, "v" + i);
+        }
+        assertEquals(20, map.size());
+        put(map, "p3", "replaced");
+        assertEquals(20, map.size());
+        assertEquals("replaced", map.get("p3").getStringValue());
+        assertEquals("p0", names(map).get(0));
+        assertEquals("p3", names(map).get(3));
+        assertEquals("p19", names(map).get(19));
+    }
+
+    @Test
+    public void testLookupWithDifferentKeyInstance() {
+        PropertyMap map = new PropertyMap();
+        put(map, new String("name".toCharArray()), "value");
+        assertEquals("value", map.get("name").getStringValue());
+        assertEquals("value", map.get(new String("name".toCharArray())).getStringValue());
+        assertNull(map.get("other"));
+        assertNull(map.get(null));
+        assertFalse(map.containsKey(Integer.valueOf(1)));
+    }
+
+    @Test
+    public void testRemove() {
+        PropertyMap map = new PropertyMap();
+        put(map, "a", "1");
+        put(map, "b", "2");
+        put(map, "c", "3");
+        assertEquals("2", map.remove("b").getStringValue());
+        assertNull(map.remove("b"));
+        assertEquals("[a, c]", names(map).toString());
+        Iterator<JMeterProperty> iter = map.values().iterator();
+        iter.next();
+        iter.remove();
+        assertEquals("c", iter.next().getName());
+        assertFalse(iter.hasNext());
+        assertEquals("[c]", names(map).toString());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testEqualsMap() {
+        PropertyMap map = new PropertyMap();
+        Map<String, JMeterProperty> expected = new LinkedHashMap<>();
+        for (String name : new String[]{"x", "y"}) {
+            StringProperty prop = new StringProperty(name, "v");
+            map.put(name, prop);
+            expected.put(name, prop);
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testThreadConfined() {
+        PropertyMap map = new PropertyMap();
+        map.setThreadConfined(true);
+        put(map, "a", "1");
+        assertEquals("1", map.get("a").getStringValue());
+        map.setThreadConfined(false);
+        assertEquals("1", map.get("a").getStringValue());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        PropertyMap map = new PropertyMap();
+        put(map, "a", "1");
+        put(map, "b", "2");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        PropertyMap copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (PropertyMap) in.readObject();
+        }
+        assertEquals(map, copy);
+        assertSame("a", copy.keySet().iterator().next());
+        put(copy, "c", "3");
+        assertEquals("[a, b, c]", names(copy).toString());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestJMeterVariables {
+
+    @Test
+    public void testSlotIsStable() {
+        int slot = JMeterVariables.getSlot("TestJMeterVariables.stable");
+        assertTrue(slot >= 0);
+        assertEquals(slot, JMeterVariables.getSlot("TestJMeterVariables.stable"));
+    }
+
+    @Test
+    public void testGetAndPutWithSlot() {
+        int slot = JMeterVariables.getSlot("TestJMeterVariables.slot");
+        JMeterVariables vars = new JMeterVariables();
+        assertNull(vars.getObject(slot, "TestJMeterVariables.slot"));
+        vars.put("TestJMeterVariables.slot", "value");
+        assertEquals("value", vars.get("TestJMeterVariables.slot"));
+        assertEquals("value", vars.getObject(slot, "TestJMeterVariables.slot"));
+        Object object = new Object();
+        vars.putObject("TestJMeterVariables.slot", object);
+        assertSame(object, vars.getObject(slot, "TestJMeterVariables.slot"));
+        assertSame(object, vars.remove("TestJMeterVariables.slot"));
+        assertNull(vars.getObject(slot, "TestJMeterVariables.slot"));
+        assertNull(vars.get("TestJMeterVariables.slot"));
+    }
+
+    @Test
+    public void testValueSetBeforeSlotIsAssigned() {
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.late", "early value");
+        vars.put("TestJMeterVariables.other", "other value");
+        int slot = JMeterVariables.getSlot("TestJMeterVariables.late");
+        assertEquals("early value", vars.getObject(slot, "TestJMeterVariables.late"));
+        assertEquals("early value", vars.get("TestJMeterVariables.late"));
+        vars.put("TestJMeterVariables.late", "new value");
+        assertEquals("new value", vars.getObject(slot, "TestJMeterVariables.late"));
+        assertEquals("other value", vars.get("TestJMeterVariables.other"));
+    }
+
+    @Test
+    public void testResetSlots() {
+        int oldSlot = JMeterVariables.getSlot("TestJMeterVariables.reset");
+        JMeterVariables oldVars = new JMeterVariables();
+        oldVars.put("TestJMeterVariables.reset", "old");
+        JMeterVariables.resetSlots();
+        JMeterVariables.getSlot("TestJMeterVariables.first");
+        int slot = JMeterVariables.getSlot("TestJMeterVariables.reset");
+        assertEquals(1, slot);
+        JMeterVariables vars = new JMeterVariables();
+        vars.put("TestJMeterVariables.reset", "new");
+        vars.put("TestJMeterVariables.first", "first");
+        assertEquals("new", vars.getObject(slot, "TestJMeterVariables.reset"));
+        // Slot assigned before the reset, or assigned to another name after it
+        assertEquals("new", vars.getObject(oldSlot, "TestJMeterVariables.reset"));
+        assertEquals("old", oldVars.getObject(oldSlot, "TestJMeterVariables.reset"));
+        assertEquals("old", oldVars.getObject(slot, "TestJMeterVariables.reset"));
+        assertEquals("old", oldVars.get("TestJMeterVariables.reset"));
+    }
+
+    @Test
+    public void testNullName() {
+        JMeterVariables vars = new JMeterVariables();
+        assertNull(vars.get(null));
+        vars.put(null, "a");
+        assertEquals("a", vars.get(null));
+        assertEquals("a", vars.remove(null));
+        assertNull(vars.get(null));
+        assertNull(vars.remove(null));
+    }
+
+    @Test
+    public void testEntrySetAndPutAll() {
+        JMeterVariables.getSlot("TestJMeterVariables.a");
+        JMeterVariables vars = new JMeterVariables();
+        Map<String, String> values = new HashMap<>();
+        values.put("TestJMeterVariables.a", "1");
+        values.put("TestJMeterVariables.b", "2");
+        vars.putAll(values);
+        Map<String, Object> found = new HashMap<>();
+        for (Map.Entry<String, Object> entry : vars.entrySet()) {
+            found.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals("1", found.get("TestJMeterVariables.a"));
+        assertEquals("2", found.get("TestJMeterVariables.b"));
+
+        JMeterVariables copy = new JMeterVariables();
+        copy.putAll(vars);
+        assertEquals("1", copy.get("TestJMeterVariables.a"));
+        assertEquals("2", copy.get("TestJMeterVariables.b"));
+    }
+}
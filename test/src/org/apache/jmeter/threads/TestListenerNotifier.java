@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.threads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.engine.util.NoThreadClone;
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleListener;
+import org.apache.jmeter.samplers.SampleMetrics;
+import org.apache.jmeter.samplers.SampleMetricsListener;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.testelement.AbstractTestElement;
+import org.junit.Test;
+
+public class TestListenerNotifier {
+
+    private static class Recorder extends AbstractTestElement implements SampleListener {
+        private static final long serialVersionUID = 1L;
+
+        final List<SampleEvent> events = Collections.synchronizedList(new ArrayList<SampleEvent>());
+
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        @Override
+        public void sampleOccurred(SampleEvent e) {
+            events.add(e);
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public void sampleStarted(SampleEvent e) {
+        }
+
+        @Override
+        public void sampleStopped(SampleEvent e) {
+        }
+    }
+
+    private static class SharedRecorder extends Recorder implements NoThreadClone {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class MetricsRecorder extends SharedRecorder implements SampleMetricsListener {
+        private static final long serialVersionUID = 1L;
+
+        final List<SampleMetrics> metrics = Collections.synchronizedList(new ArrayList<SampleMetrics>());
+
+        @Override
+        public void metricsOccurred(SampleMetrics m) {
+            metrics.add(m);
+        }
+    }
+
+    private static List<SampleEvent> notify(ListenerNotifier notifier, int count, SampleListener... listeners) {
+        List<SampleEvent> sent = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SampleEvent event = new SampleEvent();
+            sent.add(event);
+            notifier.notifyListeners(event, Arrays.asList(listeners));
+        }
+        return sent;
+    }
+
+    @Test
+    public void testSynchronous() {
+        ListenerNotifier notifier = new ListenerNotifier();
+        SharedRecorder shared = new SharedRecorder();
+        List<SampleEvent> sent = notify(notifier, 10, shared);
+        assertEquals(sent, shared.events);
+        assertSame(Thread.currentThread(), shared.threads.get(0));
+        notifier.stop();
+    }
+
+    @Test
+    public void testAsynchronousDeliversAllEventsInOrder() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        SharedRecorder shared = new SharedRecorder();
+        Recorder perThread = new Recorder();
+        List<SampleEvent> sent = notify(notifier, 1000, shared, perThread);
+        // per thread listeners are still notified in the calling thread
+        assertEquals(sent, perThread.events);
+        assertSame(Thread.currentThread(), perThread.threads.get(0));
+        notifier.stop();
+        assertEquals(sent, shared.events);
+        assertNotSame(Thread.currentThread(), shared.threads.get(0));
+    }
+
+    @Test
+    public void testEventsAfterStopAreDeliveredInCallingThread() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        SharedRecorder started = new SharedRecorder();
+        SharedRecorder late = new SharedRecorder();
+        List<SampleEvent> sent = notify(notifier, 3, started);
+        notifier.stop();
+        List<SampleEvent> sentAfterStop = notify(notifier, 2, started, late);
+        sent.addAll(sentAfterStop);
+        assertEquals(sent, started.events);
+        assertSame(Thread.currentThread(), started.threads.get(4));
+        assertEquals(sentAfterStop, late.events);
+        assertSame(Thread.currentThread(), late.threads.get(0));
+        assertSame(Thread.currentThread(), late.threads.get(1));
+        // Nothing left to stop
+        notifier.stop();
+    }
+
+    @Test
+    public void testAsynchronousListenerFailureDoesNotStopDelivery() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        final SharedRecorder failing = new SharedRecorder() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void sampleOccurred(SampleEvent e) {
+                super.sampleOccurred(e);
+                throw new IllegalStateException("Expected by the test");
+            }
+        };
+        List<SampleEvent> sent = notify(notifier, 5, failing);
+        notifier.stop();
+        assertEquals(sent, failing.events);
+    }
+
+    @Test
+    public void testAsynchronousQueuesOnlyMetrics() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        MetricsRecorder recorder = new MetricsRecorder();
+        SampleResult result = new SampleResult();
+        result.setSampleLabel("TestListenerNotifier.metrics");
+        SampleEvent event = new SampleEvent(result, "TG");
+        notifier.notifyListeners(event, Arrays.<SampleListener>asList(recorder));
+        notifier.stop();
+        assertEquals(0, recorder.events.size());
+        assertEquals(1, recorder.metrics.size());
+        assertSame(event.getMetrics(), recorder.metrics.get(0));
+        assertEquals("TestListenerNotifier.metrics", recorder.metrics.get(0).getLabel());
+    }
+
+    @Test
+    public void testAsynchronousEventWithoutResult() {
+        ListenerNotifier notifier = new ListenerNotifier(true);
+        MetricsRecorder recorder = new MetricsRecorder();
+        SampleEvent event = new SampleEvent();
+        notifier.notifyListeners(event, Arrays.<SampleListener>asList(recorder));
+        notifier.stop();
+        assertEquals(1, recorder.events.size());
+        assertNull(recorder.events.get(0).getResult());
+    }
+}
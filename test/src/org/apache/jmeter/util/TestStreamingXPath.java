@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jmeter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jmeter.junit.JMeterTestCase;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class TestStreamingXPath extends JMeterTestCase {
+
+    private static final String[] DOCUMENTS = {
+        "<book><preface title='Intro'>zero</preface><page>one</page><page>two</page><empty></empty><a><b></b></a></book>",
+        "<r> <x>a<!--c-->b&amp;c<y/>d </x>\n<x id='2'><!--first--><x>nested</x>tail</x><?pi data?></r>",
+        "<r><x>1</x><x k='v'>2</x><s><x>3</x><x k='v'>4</x><s><x>5</x></s></s></r>",
+        "<r><x>a<![CDATA[cd]]>tail</x></r>",
+        "<s:E xmlns:s='u'><s:B a='1'>bt<x>1</x><s:B>in</s:B></s:B><s:B>b2</s:B></s:E>",
+        "<?xml version='1.0' encoding='UTF-8'?>\n<r xmlns='u'><x a='1'>t</x></r>",
+    };
+
+    private static final String[] EXPRESSIONS = {
+        "/book/preface/@title", "/book/preface[@title]", "/book/preface[@title='Intro']", "/book/preface[ @title = \"xyz\" ]",
+        "/book/page", "/book/page[2]", "/book/index", "/book/a", "/book/empty", "//a", "/book/page[2]/text()",
+        "/r/text()", "/r/x", "/r/x/text()", "//x", "//x/text()", "//x[2]", "//x[@k='v']", "//x[@k][2]", "//s//x", "/r/*/@k",
+        "/E", "/E/B", "/E//B", "/E/B[2]", "/E/B/@a", "//B/x", "//*", "/*/*", "//*[@a]",
+    };
+
+    private static List<String> dom(String xml, String xpath) throws Exception {
+        Document document = XPathUtil.makeDocument(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                false, false, false, false, true, false, false, true, false);
+        List<String> matches = new ArrayList<>();
+        XPathUtil.putValuesForXPathInList(document, xpath, matches, false);
+        return matches;
+    }
+
+    private static List<String> stream(String xml, String xpath) {
+        StreamingXPath streaming = StreamingXPath.compile(xpath);
+        assertNotNull(xpath, streaming);
+        List<String> matches = new ArrayList<>();
+        return streaming.evaluate(xml, matches, 0) ? matches : null;
+    }
+
+    @Test
+    public void testSameValuesAsDom() throws Exception {
+        int streamed = 0;
+        for (String xml : DOCUMENTS) {
+            for (String xpath : EXPRESSIONS) {
+                List<String> matches = stream(xml, xpath);
+                if (matches != null) {
+                    assertEquals(xpath + " on " + xml, dom(xml, xpath), matches);
+                    List<String> fromBytes = new ArrayList<>();
+                    assertTrue(StreamingXPath.compile(xpath).evaluate(xml.getBytes(StandardCharsets.UTF_8), fromBytes, 0));
+                    assertEquals(xpath + " on " + xml, matches, fromBytes);
+                    streamed++;
+                }
+            }
+        }
+        // Only CDATA and prefixed names with //name leave some to the DOM
+        assertTrue(streamed > DOCUMENTS.length * EXPRESSIONS.length - 10);
+    }
+
+    @Test
+    public void testUnsupportedExpressions() throws Exception {
+        for (String xpath : Arrays.asList("/", "//", "book", "/book/", "count(//a)", "//a[1]/b | //c", "//a/..",
+                "//s:a", "/a[b]", "/a[@b='c'][1][2]", "/a[1][@b]", "/a[last()]", "//@a", "//text()", "/a/node()",
+                "/a[@xmlns]", "/a/@*", "/child::a", "/a[@b=c]", "/a[0]")) {
+            assertNull(xpath, StreamingXPath.compile(xpath));
+        }
+        assertEquals("/a//b[@c='d'][2]/text()", StreamingXPath.compile(" /a//b[@c='d'][2]/text() ").getExpression());
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        List<String> matches = new ArrayList<>();
+        StreamingXPath streaming = StreamingXPath.compile("/r/x/text()");
+        assertFalse(streaming.evaluate("<!DOCTYPE r [<!ENTITY e 'v'>]><r><x>&e;</x></r>", matches, 0));
+        assertFalse(streaming.evaluate("<r><x><![CDATA[cd]]></x></r>", matches, 0));
+        assertFalse(streaming.evaluate("<r><x>a</x>", matches, 0));
+        assertFalse(streaming.evaluate("<?xml version='1.0' encoding='ISO-8859-1'?><r><x>a</x></r>", matches, 0));
+        assertTrue(streaming.evaluate("<?xml version='1.0' encoding='ISO-8859-1'?><r><x>é</x></r>"
+                .getBytes(StandardCharsets.ISO_8859_1), matches, 0));
+        assertEquals(Collections.singletonList("é"), matches);
+        // a lone //name does not match prefixed elements with Xalan, unlike other paths
+        assertFalse(StreamingXPath.compile("//B").evaluate("<s:B xmlns:s='u'/>", matches, 0));
+        assertTrue(StreamingXPath.compile("//B").evaluate("<s:A xmlns:s='u'><B>b</B></s:A>", matches, 0));
+        assertEquals(Arrays.asList("é", "b"), matches);
+    }
+
+    @Test
+    public void testMaxMatches() throws Exception {
+        List<String> matches = new ArrayList<>();
+        assertTrue(StreamingXPath.compile("//x").evaluate("<r><x>1</x><x>2</x></r>", matches, 1));
+        assertEquals(Collections.singletonList("1"), matches);
+        // the document must still be well-formed after the last match needed
+        matches.clear();
+        assertFalse(StreamingXPath.compile("//x").evaluate("<r><x>1</x><x>2</x><unclosed></r>", matches, 1));
+        assertTrue(matches.isEmpty());
+    }
+}
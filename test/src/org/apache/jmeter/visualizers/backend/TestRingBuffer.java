@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jmeter.visualizers.backend;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestRingBuffer {
+
+    @Test
+    public void testCapacityIsRoundedToPowerOfTwo() {
+        assertEquals(1, new RingBuffer<String>(1, RingBuffer.WaitStrategy.SLEEP).capacity());
+        assertEquals(8, new RingBuffer<String>(5, RingBuffer.WaitStrategy.SLEEP).capacity());
+        assertEquals(8192, new RingBuffer<String>(5000, RingBuffer.WaitStrategy.SLEEP).capacity());
+    }
+
+    @Test
+    public void testOfferFailsWhenFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4, RingBuffer.WaitStrategy.SLEEP);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(Integer.valueOf(i)));
+        }
+        assertFalse(buffer.offer(Integer.valueOf(4)));
+        assertEquals(4, buffer.size());
+        assertEquals(4, buffer.getMaxFill());
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(Integer.valueOf(4)));
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(Integer.valueOf(4), buffer.poll());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+        assertEquals("[1, 2, 3]", drained.toString());
+    }
+
+    @Test
+    public void testWaitStrategyFromName() {
+        assertEquals(RingBuffer.WaitStrategy.YIELD, RingBuffer.WaitStrategy.fromName(" Yield "));
+        assertEquals(RingBuffer.WaitStrategy.SPIN, RingBuffer.WaitStrategy.fromName("spin"));
+        assertEquals(RingBuffer.WaitStrategy.SLEEP, RingBuffer.WaitStrategy.fromName("unknown"));
+    }
+
+    @Test
+    public void testConcurrentProducersKeepTheirOrder() throws Exception {
+        final int producers = 4;
+        final int count = 20000;
+        final RingBuffer<long[]> buffer = new RingBuffer<>(64, RingBuffer.WaitStrategy.SLEEP);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            buffer.put(new long[] { producer, i });
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            threads[p].start();
+        }
+        long[] next = new long[producers];
+        for (int i = 0; i < producers * count; i++) {
+            long[] element = buffer.take();
+            assertEquals(next[(int) element[0]]++, element[1]);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(buffer.poll());
+        for (long n : next) {
+            assertEquals(count, n);
+        }
+        assertTrue(buffer.getMaxFill() <= buffer.capacity());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestHistogramStatCalculator {
+
+    private HistogramStatCalculatorLong calc;
+
+    @Before
+    public void setUp() {
+        calc = new HistogramStatCalculatorLong(3);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for (long i = 1; i <= 1000; i++) {
+            calc.addValue(i);
+        }
+        assertEquals(1000, calc.getCount());
+        assertEquals(500, calc.getMedian().longValue());
+        assertEquals(900, calc.getPercentPoint(0.9).longValue());
+        assertEquals(1000, calc.getDistribution().size());
+    }
+
+    @Test
+    public void testLargeValuesAreBucketed() {
+        for (long i = 0; i < 100000; i++) {
+            calc.addValue(1000000 + i * 37);
+        }
+        assertEquals(100000, calc.getCount());
+        // min, max and mean are computed from the exact values
+        assertEquals(1000000, calc.getMin().longValue());
+        assertEquals(1000000 + 99999 * 37, calc.getMax().longValue());
+        assertEquals(1000000 + 99999 * 37 / 2.0, calc.getMean(), 0.5);
+        long expected = 1000000 + 90000 * 37;
+        long actual = calc.getPercentPoint(0.9).longValue();
+        assertTrue("Expected " + actual + " close to " + expected,
+                Math.abs(actual - expected) <= expected / 1000);
+        assertTrue(calc.getDistribution().size() < 4096);
+    }
+
+    @Test
+    public void testAddAll() {
+        HistogramStatCalculatorLong other = new HistogramStatCalculatorLong(3);
+        other.addValue(123456789L);
+        other.addValue(10L);
+        calc.addAll(other);
+        assertEquals(2, calc.getCount());
+        assertEquals(10, calc.getMin().longValue());
+        assertEquals(other.getMedian(), calc.getMedian());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidDigits() {
+        new HistogramStatCalculatorLong(0);
+    }
+}
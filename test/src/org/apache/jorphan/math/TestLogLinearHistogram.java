@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package org.apache.jorphan.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLogLinearHistogram {
+
+    @Test
+    public void testSameBucketsAsHistogramStatCalculator() {
+        LogLinearHistogram histogram = new LogLinearHistogram(2);
+        HistogramStatCalculatorLong calc = new HistogramStatCalculatorLong(2);
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            long value = (long) Math.exp(random.nextDouble() * 16);
+            histogram.add(value);
+            calc.addValue(value);
+        }
+        assertEquals(calc.getCount(), histogram.getCount());
+        for (double percent : new double[] { 0.01, 0.5, 0.9, 0.95, 0.99 }) {
+            assertEquals("percentile " + percent,
+                    calc.getPercentPoint(percent).longValue(), histogram.getPercentPoint(percent));
+        }
+    }
+
+    @Test
+    public void testMergeKeepsPercentiles() {
+        LogLinearHistogram all = new LogLinearHistogram(2);
+        LogLinearHistogram merged = new LogLinearHistogram(2);
+        Random random = new Random(1);
+        for (int injector = 0; injector < 10; injector++) {
+            LogLinearHistogram part = new LogLinearHistogram(2);
+            for (int i = 0; i < 1000; i++) {
+                // each injector sees different response times
+                long value = 10 * (injector + 1) + random.nextInt(5000);
+                part.add(value);
+                all.add(value);
+            }
+            merged.add(part);
+        }
+        assertEquals(10000, merged.getCount());
+        assertEquals(all.getPercentPoint(0.5), merged.getPercentPoint(0.5));
+        assertEquals(all.getPercentPoint(0.99), merged.getPercentPoint(0.99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LogLinearHistogram histogram = new LogLinearHistogram(2);
+        for (long i = 1; i <= 100; i++) {
+            histogram.add(i);
+        }
+        assertEquals(50, histogram.getPercentPoint(0.5));
+        assertEquals(90, histogram.getPercentPoint(0.9));
+        assertEquals(100, histogram.getPercentPoint(1.0));
+    }
+
+    @Test
+    public void testSerializationIsCompact() throws Exception {
+        LogLinearHistogram histogram = new LogLinearHistogram(2);
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            histogram.add(20 + random.nextInt(60000));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(histogram);
+        }
+        assertTrue("Serialized size " + bytes.size(), bytes.size() < 4096);
+        LogLinearHistogram copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (LogLinearHistogram) in.readObject();
+        }
+        assertEquals(histogram.getCount(), copy.getCount());
+        assertEquals(histogram.getPercentPoint(0.9), copy.getPercentPoint(0.9));
+        copy.add(histogram);
+        assertEquals(2 * histogram.getCount(), copy.getCount());
+    }
+
+    @Test
+    public void testAddTo() {
+        LogLinearHistogram histogram = new LogLinearHistogram(3);
+        histogram.add(10, 3);
+        histogram.add(1000000);
+        StatCalculatorLong calc = new StatCalculatorLong();
+        histogram.addTo(calc);
+        assertEquals(4, calc.getCount());
+        assertEquals(10, calc.getMedian().longValue());
+        assertEquals(histogram.getPercentPoint(1.0), calc.getMax().longValue());
+    }
+
+    @Test
+    public void testLargeValues() {
+        LogLinearHistogram histogram = new LogLinearHistogram(5);
+        histogram.add(Long.MAX_VALUE);
+        histogram.add(3);
+        assertEquals(3, histogram.getPercentPoint(0.5));
+        long max = histogram.getPercentPoint(1.0);
+        assertTrue("max " + max, max > Long.MAX_VALUE / 2);
+    }
+
+    private static byte[] serialize(LogLinearHistogram histogram) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(histogram);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replace the serialized buckets: number of buckets (int), then index and count (variable length numbers)
+     */
+    private static byte[] withBuckets(byte[] serialized, byte[] original, byte[] buckets) {
+        for (int i = 0; i <= serialized.length - original.length; i++) {
+            boolean found = true;
+            for (int j = 0; j < original.length && found; j++) {
+                found = serialized[i + j] == original[j];
+            }
+            if (found) {
+                byte[] copy = serialized.clone();
+                System.arraycopy(buckets, 0, copy, i, buckets.length);
+                return copy;
+            }
+        }
+        throw new AssertionError("Buckets not found");
+    }
+
+    private static void assertRejected(byte[] serialized) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            in.readObject();
+            fail("Expected the histogram to be rejected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCorruptedStreamIsRejected() throws Exception {
+        LogLinearHistogram histogram = new LogLinearHistogram(1);
+        histogram.add(5);
+        byte[] serialized = serialize(histogram);
+        byte[] buckets = { 0, 0, 0, 1, 5, 1 };
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                withBuckets(serialized, buckets, new byte[] { 0, 0, 0, 1, 7, 2 })))) {
+            LogLinearHistogram copy = (LogLinearHistogram) in.readObject();
+            assertEquals(2, copy.getCount());
+            assertEquals(7, copy.getPercentPoint(1.0));
+        }
+        // more buckets than exist
+        assertRejected(withBuckets(serialized, buckets, new byte[] { 0x7F, -1, -1, -1, 5, 1 }));
+        // empty bucket
+        assertRejected(withBuckets(serialized, buckets, new byte[] { 0, 0, 0, 1, 5, 0 }));
+
+        // With 1 digit, the last bucket is 959, written as 0xBF 0x07
+        histogram = new LogLinearHistogram(1);
+        histogram.add(Long.MAX_VALUE);
+        serialized = serialize(histogram);
+        buckets = new byte[] { 0, 0, 0, 1, (byte) 0xBF, 7, 1 };
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            assertEquals(1, ((LogLinearHistogram) in.readObject()).getCount());
+        }
+        assertRejected(withBuckets(serialized, buckets, new byte[] { 0, 0, 0, 1, (byte) 0xC0, 7, 1 }));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMergeNeedsSameDigits() {
+        new LogLinearHistogram(2).add(new LogLinearHistogram(3));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.jorphan.reflect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.jorphan.collections.HashTree;
+import org.apache.jorphan.collections.ListedHashTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the persistent index of {@link ClassFinder}
+ */
+public class TestClassFinder {
+
+    private File indexDir;
+
+    private File indexFile;
+
+    private String[] searchPaths;
+
+    @Before
+    public void setUp() throws Exception {
+        // Private to the current user, as is the home directory
+        indexDir = Files.createTempDirectory("classfinder").toFile();
+        indexFile = new File(indexDir, "index.properties");
+        File location = new File(HashTree.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        searchPaths = new String[] { location.getPath() };
+    }
+
+    @After
+    public void tearDown() {
+        ClassFinder.setIndexFile(null);
+        File[] files = indexDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        indexDir.delete();
+    }
+
+    private List<String> find() throws Exception {
+        return ClassFinder.findClassesThatExtend(searchPaths, new Class[] { HashTree.class });
+    }
+
+    @Test
+    public void testIndexReturnsSameClasses() throws Exception {
+        List<String> expected = find();
+        assertTrue(expected.contains(ListedHashTree.class.getName()));
+
+        ClassFinder.setIndexFile(indexFile);
+        assertEquals(expected, find());
+        assertTrue(indexFile.exists());
+
+        ClassFinder.setIndexFile(indexFile); // reload, as a new JVM would
+        assertEquals(expected, find());
+    }
+
+    @Test
+    public void testIndexIsUsedWhileClasspathIsUnchanged() throws Exception {
+        ClassFinder.setIndexFile(indexFile);
+        List<String> expected = find();
+
+        // Replace the stored classes: they must be returned without scanning
+        Properties props = load();
+        assertEquals(1, props.size());
+        Map.Entry<Object, Object> entry = props.entrySet().iterator().next();
+        String value = (String) entry.getValue();
+        String fingerprint = value.substring(0, value.indexOf(';'));
+        props.setProperty((String) entry.getKey(), fingerprint + ";a.B,c.D");
+        store(props);
+        ClassFinder.setIndexFile(indexFile);
+        assertEquals(Arrays.asList("a.B", "c.D"), find());
+
+        // A changed fingerprint means the classpath changed: scan again
+        props.setProperty((String) entry.getKey(), "0;a.B,c.D");
+        store(props);
+        ClassFinder.setIndexFile(indexFile);
+        List<String> found = find();
+        assertEquals(expected, found);
+        assertFalse(found.contains("a.B"));
+        assertTrue(load().getProperty((String) entry.getKey()).startsWith(fingerprint + ";"));
+    }
+
+    @Test
+    public void testIndexWritableByOthersIsIgnored() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        ClassFinder.setIndexFile(indexFile);
+        List<String> expected = find();
+        Properties props = load();
+        Map.Entry<Object, Object> entry = props.entrySet().iterator().next();
+        String value = (String) entry.getValue();
+        props.setProperty((String) entry.getKey(), value.substring(0, value.indexOf(';')) + ";a.B");
+        store(props);
+
+        Files.setPosixFilePermissions(indexFile.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+        ClassFinder.setIndexFile(indexFile);
+        assertEquals(expected, find());
+        // and not rewritten
+        assertEquals(props, load());
+
+        Files.setPosixFilePermissions(indexFile.toPath(), PosixFilePermissions.fromString("rw-------"));
+        Files.setPosixFilePermissions(indexDir.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+        ClassFinder.setIndexFile(indexFile);
+        assertEquals(expected, find());
+
+        Files.setPosixFilePermissions(indexDir.toPath(), PosixFilePermissions.fromString("rwx------"));
+        ClassFinder.setIndexFile(indexFile);
+        assertEquals(Arrays.asList("a.B"), find());
+    }
+
+    @Test
+    public void testIndexIsCreatedPrivate() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        File nested = new File(new File(indexDir, "sub"), "index.properties");
+        try {
+            ClassFinder.setIndexFile(nested);
+            find();
+            assertEquals("rwx------", PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(nested.getParentFile().toPath())));
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(nested.toPath())));
+        } finally {
+            nested.delete();
+            nested.getParentFile().delete();
+        }
+    }
+
+    private Properties load() throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(indexFile)) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    private void store(Properties props) throws Exception {
+        try (OutputStream out = new FileOutputStream(indexFile)) {
+            props.store(out, null);
+        }
+    }
+}